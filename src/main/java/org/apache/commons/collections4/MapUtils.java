@@ -39,10 +39,13 @@ import org.apache.commons.collections4.map.AbstractMapDecorator;
 import org.apache.commons.collections4.map.AbstractSortedMapDecorator;
 import org.apache.commons.collections4.map.FixedSizeMap;
 import org.apache.commons.collections4.map.FixedSizeSortedMap;
+import org.apache.commons.collections4.map.IntIntHashMap;
 import org.apache.commons.collections4.map.LazyMap;
 import org.apache.commons.collections4.map.LazySortedMap;
 import org.apache.commons.collections4.map.ListOrderedMap;
+import org.apache.commons.collections4.map.LongObjectHashMap;
 import org.apache.commons.collections4.map.MultiValueMap;
+import org.apache.commons.collections4.map.ObjectLongHashMap;
 import org.apache.commons.collections4.map.PredicatedMap;
 import org.apache.commons.collections4.map.PredicatedSortedMap;
 import org.apache.commons.collections4.map.TransformedMap;
@@ -148,6 +151,53 @@ public class MapUtils {
         return value == null ? defaultValue : value;
     }
 
+    /**
+     * Gets a {@link Map} view of the specified primitive map, boxing the keys and values on access.
+     * <p>
+     * Changes to the view affect the primitive map. The view does not support null keys or values.
+     * </p>
+     *
+     * @param map the map to view, must not be null
+     * @return a map view of the primitive map
+     * @throws NullPointerException if the map is null
+     * @since 4.5.0
+     */
+    public static IterableMap<Integer, Integer> asMap(final IntIntHashMap map) {
+        return Objects.requireNonNull(map, "map").asMap();
+    }
+
+    /**
+     * Gets a {@link Map} view of the specified primitive map, boxing the keys on access.
+     * <p>
+     * Changes to the view affect the primitive map. The view does not support null keys.
+     * </p>
+     *
+     * @param <V> the value type
+     * @param map the map to view, must not be null
+     * @return a map view of the primitive map
+     * @throws NullPointerException if the map is null
+     * @since 4.5.0
+     */
+    public static <V> IterableMap<Long, V> asMap(final LongObjectHashMap<V> map) {
+        return Objects.requireNonNull(map, "map").asMap();
+    }
+
+    /**
+     * Gets a {@link Map} view of the specified primitive map, boxing the values on access.
+     * <p>
+     * Changes to the view affect the primitive map. The view does not support null values.
+     * </p>
+     *
+     * @param <K> the key type
+     * @param map the map to view, must not be null
+     * @return a map view of the primitive map
+     * @throws NullPointerException if the map is null
+     * @since 4.5.0
+     */
+    public static <K> IterableMap<K, Long> asMap(final ObjectLongHashMap<K> map) {
+        return Objects.requireNonNull(map, "map").asMap();
+    }
+
     /**
      * Prints the given map with nice line breaks.
      * <p>
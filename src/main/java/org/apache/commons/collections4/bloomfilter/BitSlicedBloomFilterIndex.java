@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An index of Bloom filters of the same {@link Shape} stored as bit slices to find the filters that may contain an
+ * item.
+ *
+ * <p>Testing each of {@code N} filters in turn, as {@link LayeredBloomFilter#find(Hasher)} does, costs {@code O(N * k)}
+ * operations for {@code k} hash functions. This index stores the filters column-wise: for each bit index of the shape
+ * there is a bit slice with one bit for each filter. A search combines the slices for the {@code k} indices of the item
+ * using a bitwise AND, which costs {@code O(k * N / 64)} word operations, and the set bits of the result identify the
+ * matching filters.</p>
+ *
+ * <p>Each filter added is assigned an ordinal, the lowest ordinal not in use, which identifies the filter in the search
+ * results until it is removed. Adding a filter and merging into a filter cost {@code O(k)} per item in the filter;
+ * removing a filter costs {@code O(m)} for {@code m} bits. The slices grow as filters are added.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @see LayeredBloomFilter
+ * @since 4.5.0
+ */
+public final class BitSlicedBloomFilterIndex {
+
+    /**
+     * The shape of the filters.
+     */
+    private final Shape shape;
+
+    /**
+     * The bit slices. The slice for each bit index is {@code words} longs with one bit for each ordinal.
+     */
+    private long[] slices;
+
+    /**
+     * The number of longs in each slice.
+     */
+    private int words;
+
+    /**
+     * The ordinals in use.
+     */
+    private long[] active;
+
+    /**
+     * The number of filters.
+     */
+    private int size;
+
+    /**
+     * Constructs an empty index.
+     *
+     * @param shape the shape of the filters.
+     */
+    public BitSlicedBloomFilterIndex(final Shape shape) {
+        this.shape = Objects.requireNonNull(shape, "shape");
+        clear();
+    }
+
+    /**
+     * Adds a filter to the index.
+     *
+     * @param filter the filter to add.
+     * @return the ordinal assigned to the filter.
+     * @throws IllegalArgumentException if the filter shape does not match the index shape.
+     */
+    public int add(final BloomFilter<?> filter) {
+        checkShape(filter);
+        int w = 0;
+        while (w < active.length && active[w] == -1L) {
+            w++;
+        }
+        final int ordinal = w == active.length ? w << 6 : (w << 6) + Long.numberOfTrailingZeros(~active[w]);
+        if (ordinal == words << 6) {
+            grow();
+        }
+        active[ordinal >> 6] |= 1L << ordinal;
+        size++;
+        set(ordinal, filter);
+        return ordinal;
+    }
+
+    /**
+     * Checks the filter has the shape of the index.
+     *
+     * @param filter the filter.
+     * @throws IllegalArgumentException if the filter shape does not match the index shape.
+     */
+    private void checkShape(final BloomFilter<?> filter) {
+        Objects.requireNonNull(filter, "filter");
+        if (!shape.equals(filter.getShape())) {
+            throw new IllegalArgumentException(String.format("Shape %s does not match %s", filter.getShape(), shape));
+        }
+    }
+
+    /**
+     * Removes all the filters from the index.
+     */
+    public void clear() {
+        words = 1;
+        slices = new long[shape.getNumberOfBits()];
+        active = new long[1];
+        size = 0;
+    }
+
+    /**
+     * Returns {@code true} if the ordinal is assigned to a filter.
+     *
+     * @param ordinal the ordinal.
+     * @return {@code true} if the ordinal is in use.
+     */
+    public boolean contains(final int ordinal) {
+        return ordinal >= 0 && ordinal < words << 6 && (active[ordinal >> 6] & 1L << ordinal) != 0;
+    }
+
+    /**
+     * Finds the filters that contain all the bits of the BitMapExtractor.
+     *
+     * @param bitMapExtractor the BitMapExtractor to search for.
+     * @return the ordinals of the matching filters in ascending order.
+     */
+    public int[] find(final BitMapExtractor bitMapExtractor) {
+        return find(IndexExtractor.fromBitMapExtractor(bitMapExtractor));
+    }
+
+    /**
+     * Finds the filters that contain the Bloom filter.
+     *
+     * @param bf the Bloom filter to search for.
+     * @return the ordinals of the matching filters in ascending order.
+     */
+    public int[] find(final BloomFilter<?> bf) {
+        Objects.requireNonNull(bf, "bf");
+        return find((bf.characteristics() & BloomFilter.SPARSE) != 0 ? (IndexExtractor) bf : IndexExtractor.fromBitMapExtractor(bf));
+    }
+
+    /**
+     * Finds the filters that may contain the item identified by the Hasher.
+     *
+     * @param hasher the Hasher to search for.
+     * @return the ordinals of the matching filters in ascending order.
+     */
+    public int[] find(final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        return find(hasher.indices(shape));
+    }
+
+    /**
+     * Finds the filters that contain all the indices of the IndexExtractor.
+     *
+     * @param indexExtractor the IndexExtractor to search for.
+     * @return the ordinals of the matching filters in ascending order.
+     */
+    public int[] find(final IndexExtractor indexExtractor) {
+        Objects.requireNonNull(indexExtractor, "indexExtractor");
+        final long[] result = active.clone();
+        final int bits = shape.getNumberOfBits();
+        final boolean found = indexExtractor.processIndices(idx -> {
+            if (idx < 0 || idx >= bits) {
+                return false;
+            }
+            long any = 0;
+            for (int w = 0, i = idx * words; w < result.length; w++, i++) {
+                any |= result[w] &= slices[i];
+            }
+            return any != 0;
+        });
+        if (!found) {
+            return new int[0];
+        }
+        int count = 0;
+        for (final long word : result) {
+            count += Long.bitCount(word);
+        }
+        final int[] ordinals = new int[count];
+        int n = 0;
+        for (int w = 0; w < result.length; w++) {
+            for (long word = result[w]; word != 0; word &= word - 1) {
+                ordinals[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return ordinals;
+    }
+
+    /**
+     * Gets the shape of the filters.
+     *
+     * @return the shape.
+     */
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * Doubles the number of ordinals in each slice.
+     */
+    private void grow() {
+        final int newWords = words << 1;
+        final long[] newSlices = new long[(int) Math.min((long) shape.getNumberOfBits() * newWords, Integer.MAX_VALUE)];
+        if (newSlices.length != (long) shape.getNumberOfBits() * newWords) {
+            throw new IllegalStateException("Index is full: " + size);
+        }
+        for (int i = 0, j = 0; i < slices.length; i += words, j += newWords) {
+            System.arraycopy(slices, i, newSlices, j, words);
+        }
+        slices = newSlices;
+        active = Arrays.copyOf(active, newWords);
+        words = newWords;
+    }
+
+    /**
+     * Returns {@code true} if the index contains no filters.
+     *
+     * @return {@code true} if the index is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Merges the Hasher into the filter with the ordinal.
+     *
+     * @param ordinal the ordinal of the filter.
+     * @param hasher the Hasher to merge.
+     * @throws IllegalArgumentException if the ordinal is not assigned to a filter.
+     */
+    public void merge(final int ordinal, final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        if (!contains(ordinal)) {
+            throw new IllegalArgumentException("No filter for ordinal: " + ordinal);
+        }
+        set(ordinal, hasher.indices(shape));
+    }
+
+    /**
+     * Removes the filter with the ordinal from the index. The ordinal may then be assigned to another filter.
+     *
+     * @param ordinal the ordinal of the filter.
+     * @return {@code true} if a filter was removed.
+     */
+    public boolean remove(final int ordinal) {
+        if (!contains(ordinal)) {
+            return false;
+        }
+        final int w = ordinal >> 6;
+        final long mask = ~(1L << ordinal);
+        active[w] &= mask;
+        for (int i = w; i < slices.length; i += words) {
+            slices[i] &= mask;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Sets the bit for the ordinal in the slice of each index.
+     *
+     * @param ordinal the ordinal.
+     * @param indexExtractor the indices.
+     */
+    private void set(final int ordinal, final IndexExtractor indexExtractor) {
+        final int w = ordinal >> 6;
+        final long bit = 1L << ordinal;
+        final int bits = shape.getNumberOfBits();
+        indexExtractor.processIndices(idx -> {
+            if (idx < 0 || idx >= bits) {
+                throw new IllegalArgumentException(String.format("IndexExtractor should only send values in the range[0,%s)", bits));
+            }
+            slices[idx * words + w] |= bit;
+            return true;
+        });
+    }
+
+    /**
+     * Gets the number of filters in the index.
+     *
+     * @return the number of filters.
+     */
+    public int size() {
+        return size;
+    }
+}
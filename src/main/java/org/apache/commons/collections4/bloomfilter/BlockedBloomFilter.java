@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+/**
+ * A blocked bloom filter using an array of bit maps to track enabled bits.
+ *
+ * <p>The filter is divided into blocks of {@link #BLOCK_SIZE} bits, the size of a typical cache line. When items are
+ * merged and queried using a {@link BlockedHasher} all the bits for an item are within one block, so a lookup costs at
+ * most one or two cache misses irrespective of the number of hash functions. For a {@link BlockedHasher} the merge and
+ * contains operations build the masks for the block and then apply them in a single pass over the block.</p>
+ *
+ * <p>Other hashers and extractors are supported and behave as for a {@link SimpleBloomFilter}, but do not have the
+ * memory locality of the blocked hasher. Items should be merged and queried with the same kind of hasher.</p>
+ *
+ * <p>Concentrating the bits of each item in one block increases the false positive probability compared to a standard
+ * Bloom filter of the same shape, since some blocks receive more items than the average. The probability can be
+ * estimated with {@link #getProbability(Shape, int)}. The increase is small when each block holds a reasonable number
+ * of items and the number of hash functions is modest.</p>
+ *
+ * @see BlockedHasher
+ * @see SimpleBloomFilter
+ * @since 4.5.0
+ */
+public final class BlockedBloomFilter implements BloomFilter<BlockedBloomFilter> {
+
+    /**
+     * The number of bits in a block. This is 64 bytes, the size of a cache line on common processors.
+     */
+    public static final int BLOCK_SIZE = 512;
+
+    /**
+     * Gets the number of bits in each block for the shape. This is {@link #BLOCK_SIZE}, or the number of bits in the
+     * shape if it is smaller.
+     *
+     * @param shape the shape.
+     * @return the number of bits in each block.
+     */
+    public static int getBlockSize(final Shape shape) {
+        return Math.min(BLOCK_SIZE, shape.getNumberOfBits());
+    }
+
+    /**
+     * Gets the number of blocks for the shape. Any bits after the last complete block are not used by a
+     * {@link BlockedHasher}.
+     *
+     * @param shape the shape.
+     * @return the number of blocks.
+     */
+    public static int getNumberOfBlocks(final Shape shape) {
+        return shape.getNumberOfBits() / getBlockSize(shape);
+    }
+
+    /**
+     * Calculates the probability of false positives for a blocked Bloom filter of the shape containing the number of
+     * items, when items are merged and queried using a {@link BlockedHasher}.
+     *
+     * <p>The number of items in each block is modelled as a Poisson distribution with a mean of
+     * {@code n / blocks}. The probability is the sum over the number of items {@code j} in a block of the probability
+     * of the block holding {@code j} items multiplied by the false positive probability of a standard Bloom filter of
+     * the block size holding {@code j} items:</p>
+     * <pre>p = sum(Poisson(j; n / blocks) * pow(1 - pow(1 - 1 / B, k * j), k))</pre>
+     *
+     * <p>This is directly comparable to {@link Shape#getProbability(int)}.</p>
+     *
+     * @param shape the shape of the filter.
+     * @param numberOfItems the number of items hashed into the Bloom filter.
+     * @return the probability of false positives.
+     * @throws IllegalArgumentException if the number of items is negative.
+     */
+    public static double getProbability(final Shape shape, final int numberOfItems) {
+        Objects.requireNonNull(shape, "shape");
+        if (numberOfItems < 0) {
+            throw new IllegalArgumentException("Number of items must be greater than or equal to 0: " + numberOfItems);
+        }
+        if (numberOfItems == 0) {
+            return 0;
+        }
+        final int k = shape.getNumberOfHashFunctions();
+        final double lambda = (double) numberOfItems / getNumberOfBlocks(shape);
+        final double logLambda = Math.log(lambda);
+        // log(1 - 1/B) for the probability a bit is not set by one hash function
+        final double logZero = Math.log1p(-1.0 / getBlockSize(shape));
+        // sum far enough into the upper tail that the remaining terms are negligible
+        final long upper = (long) Math.ceil(lambda + 12 * Math.sqrt(lambda) + 12);
+        double logFactorial = 0;
+        double sum = 0;
+        for (long j = 0; j <= upper; j++) {
+            if (j > 0) {
+                logFactorial += Math.log(j);
+            }
+            final double poisson = Math.exp(j * logLambda - lambda - logFactorial);
+            sum += poisson * Math.pow(-Math.expm1(k * j * logZero), k);
+        }
+        return Math.min(1.0, sum);
+    }
+
+    /**
+     * The array of bit map longs that defines this Bloom filter.
+     */
+    private final long[] bitMap;
+
+    /**
+     * The Shape of this Bloom filter.
+     */
+    private final Shape shape;
+
+    /**
+     * The number of bit maps in each block.
+     */
+    private final int blockBitMaps;
+
+    /**
+     * The cardinality of this Bloom filter. Negative if it must be recalculated.
+     */
+    private int cardinality;
+
+    /**
+     * Copy constructor for {@code copy()} use.
+     *
+     * @param source the source filter.
+     */
+    private BlockedBloomFilter(final BlockedBloomFilter source) {
+        this.shape = source.shape;
+        this.blockBitMaps = source.blockBitMaps;
+        this.bitMap = source.bitMap.clone();
+        this.cardinality = source.cardinality;
+    }
+
+    /**
+     * Creates an empty instance.
+     *
+     * @param shape The shape for the filter.
+     */
+    public BlockedBloomFilter(final Shape shape) {
+        Objects.requireNonNull(shape, "shape");
+        this.shape = shape;
+        this.blockBitMaps = BitMaps.numberOfBitMaps(getBlockSize(shape));
+        this.bitMap = BitMaps.newBitMap(shape);
+        this.cardinality = 0;
+    }
+
+    @Override
+    public long[] asBitMapArray() {
+        return Arrays.copyOf(bitMap, bitMap.length);
+    }
+
+    @Override
+    public int cardinality() {
+        // Lazy evaluation with caching
+        int c = cardinality;
+        if (c < 0) {
+            cardinality = c = SetOperations.cardinality(this);
+        }
+        return c;
+    }
+
+    @Override
+    public int characteristics() {
+        return 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(bitMap, 0L);
+        cardinality = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A {@link BlockedHasher} is tested using a single pass over the bit maps of its block.</p>
+     */
+    @Override
+    public boolean contains(final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        if (hasher instanceof BlockedHasher) {
+            final long[] masks = new long[blockBitMaps];
+            final int start = ((BlockedHasher) hasher).blockMasks(shape, masks);
+            for (int i = 0; i < blockBitMaps; i++) {
+                if ((bitMap[start + i] & masks[i]) != masks[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return contains(hasher.indices(shape));
+    }
+
+    @Override
+    public boolean contains(final IndexExtractor indexExtractor) {
+        return indexExtractor.processIndices(idx -> BitMaps.contains(bitMap, idx));
+    }
+
+    /**
+     * Creates a new instance of this {@link BlockedBloomFilter} with the same properties as the current one.
+     *
+     * @return a copy of this {@link BlockedBloomFilter}.
+     */
+    @Override
+    public BlockedBloomFilter copy() {
+        return new BlockedBloomFilter(this);
+    }
+
+    @Override
+    public Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return cardinality == 0 || processBitMaps(y -> y == 0);
+    }
+
+    @Override
+    public boolean merge(final BitMapExtractor bitMapExtractor) {
+        Objects.requireNonNull(bitMapExtractor, "bitMapExtractor");
+        try {
+            final int[] idx = new int[1];
+            bitMapExtractor.processBitMaps(value -> {
+                bitMap[idx[0]++] |= value;
+                return true;
+            });
+            // idx[0] will be limit+1 so decrement it
+            idx[0]--;
+            final int idxLimit = BitMaps.getLongIndex(shape.getNumberOfBits());
+            if (idxLimit == idx[0]) {
+                final long excess = bitMap[idxLimit] >> shape.getNumberOfBits();
+                if (excess != 0) {
+                    throw new IllegalArgumentException(
+                            String.format("BitMapExtractor set a bit higher than the limit for the shape: %s", shape.getNumberOfBits()));
+                }
+            }
+            cardinality = -1;
+        } catch (final IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException(String.format("BitMapExtractor should send at most %s maps", bitMap.length), e);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean merge(final BloomFilter<?> other) {
+        Objects.requireNonNull(other, "other");
+        if ((other.characteristics() & SPARSE) != 0) {
+            merge((IndexExtractor) other);
+        } else {
+            merge((BitMapExtractor) other);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A {@link BlockedHasher} is merged using a single pass over the bit maps of its block.</p>
+     */
+    @Override
+    public boolean merge(final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        if (hasher instanceof BlockedHasher) {
+            final long[] masks = new long[blockBitMaps];
+            final int start = ((BlockedHasher) hasher).blockMasks(shape, masks);
+            for (int i = 0; i < blockBitMaps; i++) {
+                bitMap[start + i] |= masks[i];
+            }
+            cardinality = -1;
+            return true;
+        }
+        return merge(hasher.indices(shape));
+    }
+
+    @Override
+    public boolean merge(final IndexExtractor indexExtractor) {
+        Objects.requireNonNull(indexExtractor, "indexExtractor");
+        indexExtractor.processIndices(idx -> {
+            if (idx < 0 || idx >= shape.getNumberOfBits()) {
+                throw new IllegalArgumentException(String.format("IndexExtractor should only send values in the range[0,%s)", shape.getNumberOfBits()));
+            }
+            BitMaps.set(bitMap, idx);
+            return true;
+        });
+        cardinality = -1;
+        return true;
+    }
+
+    @Override
+    public boolean processBitMapPairs(final BitMapExtractor other, final LongBiPredicate func) {
+        final CountingLongPredicate p = new CountingLongPredicate(bitMap, func);
+        return other.processBitMaps(p) && p.processRemaining();
+    }
+
+    @Override
+    public boolean processBitMaps(final LongPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        for (final long l : bitMap) {
+            if (!consumer.test(l)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean processIndices(final IntPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        return IndexExtractor.fromBitMapExtractor(this).processIndices(consumer);
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.collections4.bloomfilter;
 
+import java.util.BitSet;
 import java.util.Objects;
 
 /**
@@ -120,6 +121,29 @@ public interface BloomFilter<T extends BloomFilter<T>> extends IndexExtractor, B
      */
     boolean contains(IndexExtractor indexExtractor);
 
+    /**
+     * Tests each of the hashers against this filter and returns the results as a {@link BitSet}. Bit {@code i} of the
+     * result is enabled if this filter contains the bits specified by {@code hashers[i]}, as for
+     * {@link #contains(Hasher)}.
+     *
+     * <p>Implementations may process the hashers in blocks, computing the indices for a block of hashers before
+     * accessing the filter, to reduce the per-item overhead of a large batch of queries.</p>
+     *
+     * @param hashers the hashers to provide the indexes.
+     * @return the results.
+     * @throws NullPointerException if the array or any hasher is null.
+     */
+    default BitSet containsEach(final Hasher[] hashers) {
+        Objects.requireNonNull(hashers, "hashers");
+        final BitSet result = new BitSet(hashers.length);
+        for (int i = 0; i < hashers.length; i++) {
+            if (contains(hashers[i])) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
     /**
      * Creates a new instance of this {@link BloomFilter} with the same properties as the current one.
      *
@@ -330,6 +354,26 @@ public interface BloomFilter<T extends BloomFilter<T>> extends IndexExtractor, B
      */
     boolean merge(IndexExtractor indexExtractor);
 
+    /**
+     * Merges each of the hashers into this Bloom filter, as for {@link #merge(Hasher)}.
+     *
+     * <p>Implementations may process the hashers in blocks, computing the indices for a block of hashers before
+     * accessing the filter, to reduce the per-item overhead of a large batch of merges.</p>
+     *
+     * @param hashers the hashers to merge.
+     * @return true if all the merges were successful
+     * @throws NullPointerException if the array or any hasher is null.
+     * @throws IllegalArgumentException if a hasher produces an illegal value.
+     */
+    default boolean mergeEach(final Hasher[] hashers) {
+        Objects.requireNonNull(hashers, "hashers");
+        boolean result = true;
+        for (final Hasher hasher : hashers) {
+            result &= merge(hasher);
+        }
+        return result;
+    }
+
     /**
      * Most Bloom filters create unique IndexExtractors.
      */
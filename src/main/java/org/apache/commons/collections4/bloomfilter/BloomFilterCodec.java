@@ -0,0 +1,1137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Encodes and decodes {@link Shape}s and Bloom filters in a compact, versioned binary format.
+ *
+ * <p>Each method is provided for a {@link DataOutput} or {@link DataInput}, such as a stream, and for a
+ * {@link ByteBuffer}. The format is independent of the byte order of the buffer; multi-byte values are always big-endian.
+ * Data is read from and written to a buffer starting at its current position, which is advanced past the data.</p>
+ *
+ * <p>The bits of a Bloom filter are written using the smallest of three encodings:</p>
+ * <ul>
+ * <li><em>sparse</em>: the differences between successive enabled indices as variable length integers;</li>
+ * <li><em>dense</em>: the bit maps up to the last non-zero bit map as 8 byte values;</li>
+ * <li><em>run-length</em>: the lengths of alternating runs of disabled and enabled bits as variable length
+ * integers.</li>
+ * </ul>
+ * <p>The cells of a counting Bloom filter are written as sparse (index difference, count) pairs or as a dense list of
+ * all counts, whichever is smaller.</p>
+ *
+ * <p>A {@link HyperLogLog} sketch is written in its sparse representation as the differences between its sorted
+ * entries, or in its dense representation as its registers packed into 6 bits each.</p>
+ *
+ * <p>Decoding creates the filter for the decoded {@link Shape} using a function supplied by the caller, for example
+ * {@code SimpleBloomFilter::new}, and merges the decoded data directly into it without an intermediate array. Thus
+ * data written from any filter may be read into a filter of any other type.</p>
+ *
+ * @since 4.5.0
+ */
+public final class BloomFilterCodec {
+
+    /**
+     * A destination for encoded bytes.
+     */
+    private interface Output {
+        void writeByte(int value) throws IOException;
+
+        void writeLong(long value) throws IOException;
+    }
+
+    /**
+     * A source of encoded bytes.
+     */
+    private interface Input {
+        byte readByte() throws IOException;
+
+        long readLong() throws IOException;
+    }
+
+    /**
+     * Visits the runs of disabled and enabled bits given the enabled indices in ascending order. The runs alternate
+     * starting with a run of disabled bits which may be empty. The trailing run of disabled bits is not visited.
+     */
+    private abstract static class RunVisitor implements IntPredicate {
+        /** The start of the current run of enabled bits, or -1 before the first index. */
+        private int start = -1;
+        /** The index after the current run of enabled bits. */
+        private int next;
+
+        /**
+         * Visits the final run of enabled bits.
+         */
+        void finish() {
+            if (start >= 0) {
+                run(next - start);
+            }
+        }
+
+        /**
+         * Visits a run.
+         *
+         * @param length the length of the run.
+         */
+        abstract void run(int length);
+
+        @Override
+        public boolean test(final int index) {
+            if (start >= 0) {
+                if (index == next) {
+                    next++;
+                    return true;
+                }
+                run(next - start);
+            }
+            run(index - next);
+            start = index;
+            next = index + 1;
+            return true;
+        }
+    }
+
+    /**
+     * Calculates the size of each encoding of the enabled bits given the enabled indices in ascending order.
+     */
+    private static final class BitStatistics extends RunVisitor {
+        /** The number of enabled bits. */
+        int count;
+        /** The last enabled index. */
+        int last = -1;
+        /** The number of runs. */
+        int runs;
+        /** The size of the run lengths. */
+        long runSize;
+        /** The size of the index differences. */
+        long sparseSize;
+
+        /**
+         * Gets the number of bit maps up to the last non-zero bit map.
+         *
+         * @return the number of bit maps.
+         */
+        int bitMaps() {
+            return last < 0 ? 0 : BitMaps.getLongIndex(last) + 1;
+        }
+
+        @Override
+        void run(final int length) {
+            runs++;
+            runSize += varIntSize(length);
+        }
+
+        @Override
+        public boolean test(final int index) {
+            sparseSize += varIntSize(index - last - 1);
+            last = index;
+            count++;
+            return super.test(index);
+        }
+    }
+
+    /**
+     * The version of the format.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Type tag for a Bloom filter.
+     */
+    private static final int TYPE_BLOOM_FILTER = 1;
+
+    /**
+     * Type tag for a counting Bloom filter.
+     */
+    private static final int TYPE_COUNTING_BLOOM_FILTER = 2;
+
+    /**
+     * Type tag for a layered Bloom filter.
+     */
+    private static final int TYPE_LAYERED_BLOOM_FILTER = 3;
+
+    /**
+     * Type tag for a Shape.
+     */
+    private static final int TYPE_SHAPE = 4;
+
+    /**
+     * Type tag for a HyperLogLog sketch.
+     */
+    private static final int TYPE_HYPER_LOG_LOG = 5;
+
+    /**
+     * Encoding tag for enabled indices as differences.
+     */
+    static final int ENCODING_SPARSE = 1;
+
+    /**
+     * Encoding tag for bit maps.
+     */
+    static final int ENCODING_DENSE = 2;
+
+    /**
+     * Encoding tag for runs of disabled and enabled bits.
+     */
+    static final int ENCODING_RUN_LENGTH = 3;
+
+    /**
+     * The number of bits for each register of a dense HyperLogLog sketch.
+     */
+    private static final int REGISTER_BITS = 6;
+
+    /**
+     * The mask of a register of a dense HyperLogLog sketch.
+     */
+    private static final int REGISTER_MASK = (1 << REGISTER_BITS) - 1;
+
+    /**
+     * Checks the version and type tags.
+     *
+     * @param in the input.
+     * @param type the expected type.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the version or type is not expected.
+     */
+    private static void checkHeader(final Input in, final int type) throws IOException {
+        final int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException(String.format("Unsupported version: %s", version));
+        }
+        final int actual = in.readByte();
+        if (actual != type) {
+            throw new IllegalArgumentException(String.format("Expected type %s but found %s", type, actual));
+        }
+    }
+
+    /**
+     * Reads the bits written by {@link #encodeBits(BloomFilter, Output)} and merges them into the filter.
+     *
+     * <p>If the filter stops the merge by returning {@code false} from its consumer, the remaining bits are read
+     * without being passed to it, so the input is always left after the bits.</p>
+     *
+     * @param in the input.
+     * @param filter the filter to merge into.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void decodeBits(final Input in, final BloomFilter<?> filter) throws IOException {
+        final int encoding = in.readByte();
+        switch (encoding) {
+        case ENCODING_SPARSE: {
+            final int count = readInt(in);
+            merge(filter, (IndexExtractor) consumer -> {
+                boolean result = true;
+                int index = -1;
+                for (int i = 0; i < count; i++) {
+                    index += readIntUnchecked(in) + 1;
+                    result = result && consumer.test(index);
+                }
+                return result;
+            });
+            break;
+        }
+        case ENCODING_DENSE: {
+            final int count = readInt(in);
+            if (count > BitMaps.numberOfBitMaps(filter.getShape())) {
+                throw new IllegalArgumentException(String.format("Too many bit maps for the shape: %s", count));
+            }
+            merge(filter, (BitMapExtractor) consumer -> {
+                boolean result = true;
+                for (int i = 0; i < count; i++) {
+                    final long bitMap = readLongUnchecked(in);
+                    result = result && consumer.test(bitMap);
+                }
+                return result;
+            });
+            break;
+        }
+        case ENCODING_RUN_LENGTH: {
+            final int runs = readInt(in);
+            merge(filter, (IndexExtractor) consumer -> {
+                boolean result = true;
+                int index = 0;
+                for (int i = 0; i < runs; i++) {
+                    final int length = readIntUnchecked(in);
+                    if ((i & 1) == 0 || !result) {
+                        index += length;
+                    } else {
+                        for (int j = 0; j < length && result; j++) {
+                            result = consumer.test(index++);
+                        }
+                    }
+                }
+                return result;
+            });
+            break;
+        }
+        default:
+            throw new IllegalArgumentException(String.format("Unknown encoding: %s", encoding));
+        }
+    }
+
+    /**
+     * Reads the cells written by {@link #encodeCells(CountingBloomFilter, Output)} and adds them to the filter.
+     *
+     * <p>If the filter stops the addition by returning {@code false} from its consumer, the remaining cells are read
+     * without being passed to it, so the input is always left after the cells.</p>
+     *
+     * @param in the input.
+     * @param filter the filter to add to.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void decodeCells(final Input in, final CountingBloomFilter filter) throws IOException {
+        final int encoding = in.readByte();
+        final int count = readInt(in);
+        final CellExtractor cells;
+        switch (encoding) {
+        case ENCODING_SPARSE:
+            cells = consumer -> {
+                boolean result = true;
+                int index = -1;
+                for (int i = 0; i < count; i++) {
+                    index += readIntUnchecked(in) + 1;
+                    final int value = zigZagDecode(readIntUnchecked(in));
+                    result = result && consumer.test(index, value);
+                }
+                return result;
+            };
+            break;
+        case ENCODING_DENSE:
+            cells = consumer -> {
+                boolean result = true;
+                for (int i = 0; i < count; i++) {
+                    final int value = zigZagDecode(readIntUnchecked(in));
+                    if (value != 0) {
+                        result = result && consumer.test(i, value);
+                    }
+                }
+                return result;
+            };
+            break;
+        default:
+            throw new IllegalArgumentException(String.format("Unknown encoding: %s", encoding));
+        }
+        try {
+            filter.add(cells);
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads a Bloom filter from the buffer.
+     *
+     * @param <T> the type of the filter.
+     * @param buffer the buffer to read from.
+     * @param factory the function to create an empty filter for the decoded shape.
+     * @return the filter.
+     * @throws IllegalArgumentException if the data is not a Bloom filter in a supported version of the format.
+     * @throws java.nio.BufferUnderflowException if the buffer does not contain the complete filter.
+     */
+    public static <T extends BloomFilter<?>> T readBloomFilter(final ByteBuffer buffer, final Function<Shape, T> factory) {
+        try {
+            return readBloomFilter(toInput(buffer), factory);
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a Bloom filter from the input.
+     *
+     * @param <T> the type of the filter.
+     * @param in the input to read from.
+     * @param factory the function to create an empty filter for the decoded shape.
+     * @return the filter.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the data is not a Bloom filter in a supported version of the format.
+     */
+    public static <T extends BloomFilter<?>> T readBloomFilter(final DataInput in, final Function<Shape, T> factory) throws IOException {
+        return readBloomFilter(toInput(in), factory);
+    }
+
+    private static <T extends BloomFilter<?>> T readBloomFilter(final Input in, final Function<Shape, T> factory) throws IOException {
+        Objects.requireNonNull(factory, "factory");
+        checkHeader(in, TYPE_BLOOM_FILTER);
+        final T filter = factory.apply(readShapeBody(in));
+        decodeBits(in, filter);
+        return filter;
+    }
+
+    /**
+     * Reads a counting Bloom filter from the buffer.
+     *
+     * @param <T> the type of the filter.
+     * @param buffer the buffer to read from.
+     * @param factory the function to create an empty filter for the decoded shape.
+     * @return the filter.
+     * @throws IllegalArgumentException if the data is not a counting Bloom filter in a supported version of the format.
+     * @throws java.nio.BufferUnderflowException if the buffer does not contain the complete filter.
+     */
+    public static <T extends CountingBloomFilter> T readCountingBloomFilter(final ByteBuffer buffer, final Function<Shape, T> factory) {
+        try {
+            return readCountingBloomFilter(toInput(buffer), factory);
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a counting Bloom filter from the input.
+     *
+     * @param <T> the type of the filter.
+     * @param in the input to read from.
+     * @param factory the function to create an empty filter for the decoded shape.
+     * @return the filter.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the data is not a counting Bloom filter in a supported version of the format.
+     */
+    public static <T extends CountingBloomFilter> T readCountingBloomFilter(final DataInput in, final Function<Shape, T> factory) throws IOException {
+        return readCountingBloomFilter(toInput(in), factory);
+    }
+
+    private static <T extends CountingBloomFilter> T readCountingBloomFilter(final Input in, final Function<Shape, T> factory) throws IOException {
+        Objects.requireNonNull(factory, "factory");
+        checkHeader(in, TYPE_COUNTING_BLOOM_FILTER);
+        final T filter = factory.apply(readShapeBody(in));
+        decodeCells(in, filter);
+        return filter;
+    }
+
+    /**
+     * Reads a HyperLogLog sketch from the buffer.
+     *
+     * @param buffer the buffer to read from.
+     * @return the sketch.
+     * @throws IllegalArgumentException if the data is not a HyperLogLog sketch in a supported version of the format.
+     * @throws java.nio.BufferUnderflowException if the buffer does not contain the complete sketch.
+     */
+    public static HyperLogLog readHyperLogLog(final ByteBuffer buffer) {
+        try {
+            return readHyperLogLog(toInput(buffer));
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a HyperLogLog sketch from the input.
+     *
+     * @param in the input to read from.
+     * @return the sketch.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the data is not a HyperLogLog sketch in a supported version of the format.
+     */
+    public static HyperLogLog readHyperLogLog(final DataInput in) throws IOException {
+        return readHyperLogLog(toInput(in));
+    }
+
+    private static HyperLogLog readHyperLogLog(final Input in) throws IOException {
+        checkHeader(in, TYPE_HYPER_LOG_LOG);
+        final int precision = in.readByte();
+        final int encoding = in.readByte();
+        switch (encoding) {
+        case ENCODING_SPARSE: {
+            final int count = readInt(in);
+            // each entry uses at least one byte; bound the allocation by the sparse index space
+            if (count > 1 << HyperLogLog.SPARSE_PRECISION) {
+                throw new IllegalArgumentException("Invalid number of sparse entries: " + count);
+            }
+            final int[] entries = new int[count];
+            int entry = 0;
+            for (int i = 0; i < count; i++) {
+                entry += readInt(in);
+                entries[i] = entry;
+            }
+            return HyperLogLog.fromSparse(precision, entries, count);
+        }
+        case ENCODING_DENSE: {
+            if (precision < HyperLogLog.MIN_PRECISION || precision > HyperLogLog.MAX_PRECISION) {
+                throw new IllegalArgumentException(String.format("Invalid precision: %s", precision));
+            }
+            final byte[] registers = new byte[1 << precision];
+            long bits = 0;
+            int available = 0;
+            for (int i = 0; i < registers.length; i++) {
+                if (available < REGISTER_BITS) {
+                    bits = bits << Byte.SIZE | in.readByte() & 0xff;
+                    available += Byte.SIZE;
+                }
+                available -= REGISTER_BITS;
+                registers[i] = (byte) (bits >>> available & REGISTER_MASK);
+            }
+            return HyperLogLog.fromRegisters(precision, registers);
+        }
+        default:
+            throw new IllegalArgumentException(String.format("Unsupported encoding: %s", encoding));
+        }
+    }
+
+    /**
+     * Reads an unsigned variable length integer.
+     *
+     * @param in the input.
+     * @return the value.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static int readInt(final Input in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            final byte b = in.readByte();
+            // the fifth byte holds only the top 4 bits
+            if (shift == 28 && (b & 0xf0) != 0) {
+                break;
+            }
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed variable length integer");
+    }
+
+    /**
+     * Reads an unsigned variable length integer, wrapping any I/O error for use within an extractor.
+     *
+     * @param in the input.
+     * @return the value.
+     */
+    private static int readIntUnchecked(final Input in) {
+        try {
+            return readInt(in);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a layered Bloom filter from the buffer.
+     *
+     * @param <T> the type of the layers.
+     * @param buffer the buffer to read from.
+     * @param factory the function to create a layered filter for the decoded shape.
+     * @return the filter.
+     * @throws IllegalArgumentException if the data is not a layered Bloom filter in a supported version of the format.
+     * @throws java.nio.BufferUnderflowException if the buffer does not contain the complete filter.
+     * @see #readLayeredBloomFilter(DataInput, Function)
+     */
+    public static <T extends BloomFilter<T>> LayeredBloomFilter<T> readLayeredBloomFilter(final ByteBuffer buffer,
+            final Function<Shape, LayeredBloomFilter<T>> factory) {
+        try {
+            return readLayeredBloomFilter(toInput(buffer), factory);
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a layered Bloom filter from the input.
+     *
+     * <p>The filter created by the factory is cleared and each decoded layer is merged into a new layer added using
+     * {@link LayeredBloomFilter#next()}. The layers are subject to the cleanup configured in the layer manager of the
+     * filter, so a cleanup that limits the number of layers may discard the oldest decoded layers.</p>
+     *
+     * @param <T> the type of the layers.
+     * @param in the input to read from.
+     * @param factory the function to create a layered filter for the decoded shape.
+     * @return the filter.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the data is not a layered Bloom filter in a supported version of the format.
+     */
+    public static <T extends BloomFilter<T>> LayeredBloomFilter<T> readLayeredBloomFilter(final DataInput in,
+            final Function<Shape, LayeredBloomFilter<T>> factory) throws IOException {
+        return readLayeredBloomFilter(toInput(in), factory);
+    }
+
+    private static <T extends BloomFilter<T>> LayeredBloomFilter<T> readLayeredBloomFilter(final Input in,
+            final Function<Shape, LayeredBloomFilter<T>> factory) throws IOException {
+        Objects.requireNonNull(factory, "factory");
+        checkHeader(in, TYPE_LAYERED_BLOOM_FILTER);
+        final LayeredBloomFilter<T> filter = factory.apply(readShapeBody(in));
+        final int depth = readInt(in);
+        filter.clear();
+        for (int i = 0; i < depth; i++) {
+            if (i != 0) {
+                filter.next();
+            }
+            decodeBits(in, filter.get(filter.getDepth() - 1));
+        }
+        return filter;
+    }
+
+    /**
+     * Reads a long, wrapping any I/O error for use within an extractor.
+     *
+     * @param in the input.
+     * @return the value.
+     */
+    private static long readLongUnchecked(final Input in) {
+        try {
+            return in.readLong();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a Shape from the buffer.
+     *
+     * @param buffer the buffer to read from.
+     * @return the shape.
+     * @throws IllegalArgumentException if the data is not a shape in a supported version of the format.
+     * @throws java.nio.BufferUnderflowException if the buffer does not contain the complete shape.
+     */
+    public static Shape readShape(final ByteBuffer buffer) {
+        try {
+            return readShape(toInput(buffer));
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads a Shape from the input.
+     *
+     * @param in the input to read from.
+     * @return the shape.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the data is not a shape in a supported version of the format.
+     */
+    public static Shape readShape(final DataInput in) throws IOException {
+        return readShape(toInput(in));
+    }
+
+    private static Shape readShape(final Input in) throws IOException {
+        checkHeader(in, TYPE_SHAPE);
+        return readShapeBody(in);
+    }
+
+    private static Shape readShapeBody(final Input in) throws IOException {
+        final int numberOfBits = readInt(in);
+        final int numberOfHashFunctions = readInt(in);
+        return Shape.fromKM(numberOfHashFunctions, numberOfBits);
+    }
+
+    /**
+     * Writes the enabled bits of the filter using the smallest encoding.
+     *
+     * @param filter the filter.
+     * @param out the output.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void encodeBits(final BloomFilter<?> filter, final Output out) throws IOException {
+        // ordered indices
+        final IndexExtractor indices = IndexExtractor.fromBitMapExtractor(filter);
+        final BitStatistics stats = new BitStatistics();
+        indices.processIndices(stats);
+        stats.finish();
+        final long sparseSize = varIntSize(stats.count) + stats.sparseSize;
+        final long denseSize = varIntSize(stats.bitMaps()) + (long) stats.bitMaps() * Long.BYTES;
+        final long runLengthSize = varIntSize(stats.runs) + stats.runSize;
+        try {
+            if (sparseSize <= denseSize && sparseSize <= runLengthSize) {
+                out.writeByte(ENCODING_SPARSE);
+                writeInt(out, stats.count);
+                final int[] last = {-1};
+                indices.processIndices(i -> {
+                    writeIntUnchecked(out, i - last[0] - 1);
+                    last[0] = i;
+                    return true;
+                });
+            } else if (denseSize <= runLengthSize) {
+                out.writeByte(ENCODING_DENSE);
+                final int count = stats.bitMaps();
+                writeInt(out, count);
+                final int[] written = {0};
+                // the dense encoding is only chosen when there is at least one bit map
+                filter.processBitMaps(value -> {
+                    try {
+                        out.writeLong(value);
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return ++written[0] < count;
+                });
+            } else {
+                out.writeByte(ENCODING_RUN_LENGTH);
+                writeInt(out, stats.runs);
+                final RunVisitor writer = new RunVisitor() {
+                    @Override
+                    void run(final int length) {
+                        writeIntUnchecked(out, length);
+                    }
+                };
+                indices.processIndices(writer);
+                writer.finish();
+            }
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the cells of the filter using the smallest encoding.
+     *
+     * @param filter the filter.
+     * @param out the output.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void encodeCells(final CountingBloomFilter filter, final Output out) throws IOException {
+        // count, last index, sparse size, size of non-zero cells
+        final long[] stats = {0, -1, 0, 0};
+        filter.processCells((i, c) -> {
+            final int size = varIntSize(zigZagEncode(c));
+            stats[0]++;
+            stats[2] += varIntSize((int) (i - stats[1] - 1)) + size;
+            stats[3] += size;
+            stats[1] = i;
+            return true;
+        });
+        final int count = (int) stats[0];
+        final int cells = (int) stats[1] + 1;
+        final long sparseSize = varIntSize(count) + stats[2];
+        // zero cells use 1 byte
+        final long denseSize = varIntSize(cells) + cells - count + stats[3];
+        try {
+            if (sparseSize <= denseSize) {
+                out.writeByte(ENCODING_SPARSE);
+                writeInt(out, count);
+                final int[] last = {-1};
+                filter.processCells((i, c) -> {
+                    writeIntUnchecked(out, i - last[0] - 1);
+                    writeIntUnchecked(out, zigZagEncode(c));
+                    last[0] = i;
+                    return true;
+                });
+            } else {
+                out.writeByte(ENCODING_DENSE);
+                writeInt(out, cells);
+                final int[] next = {0};
+                filter.processCells((i, c) -> {
+                    for (; next[0] < i; next[0]++) {
+                        writeIntUnchecked(out, 0);
+                    }
+                    writeIntUnchecked(out, zigZagEncode(c));
+                    next[0]++;
+                    return true;
+                });
+            }
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Merges the extractor that reads from an input into the filter, unwrapping any I/O error.
+     *
+     * @param filter the filter.
+     * @param extractor the extractor.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void merge(final BloomFilter<?> filter, final BitMapExtractor extractor) throws IOException {
+        try {
+            filter.merge(extractor);
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Merges the extractor that reads from an input into the filter, unwrapping any I/O error.
+     *
+     * @param filter the filter.
+     * @param extractor the extractor.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void merge(final BloomFilter<?> filter, final IndexExtractor extractor) throws IOException {
+        try {
+            filter.merge(extractor);
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Input toInput(final ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "buffer");
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        return new Input() {
+            @Override
+            public byte readByte() {
+                return buffer.get();
+            }
+
+            @Override
+            public long readLong() {
+                final long value = buffer.getLong();
+                return bigEndian ? value : Long.reverseBytes(value);
+            }
+        };
+    }
+
+    private static Input toInput(final DataInput in) {
+        Objects.requireNonNull(in, "in");
+        return new Input() {
+            @Override
+            public byte readByte() throws IOException {
+                return in.readByte();
+            }
+
+            @Override
+            public long readLong() throws IOException {
+                return in.readLong();
+            }
+        };
+    }
+
+    private static Output toOutput(final ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "buffer");
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        return new Output() {
+            @Override
+            public void writeByte(final int value) {
+                buffer.put((byte) value);
+            }
+
+            @Override
+            public void writeLong(final long value) {
+                buffer.putLong(bigEndian ? value : Long.reverseBytes(value));
+            }
+        };
+    }
+
+    private static Output toOutput(final DataOutput out) {
+        Objects.requireNonNull(out, "out");
+        return new Output() {
+            @Override
+            public void writeByte(final int value) throws IOException {
+                out.writeByte(value);
+            }
+
+            @Override
+            public void writeLong(final long value) throws IOException {
+                out.writeLong(value);
+            }
+        };
+    }
+
+    /**
+     * Gets the number of bytes used to write the value as an unsigned variable length integer.
+     *
+     * @param value the value.
+     * @return the number of bytes.
+     */
+    static int varIntSize(final int value) {
+        // 1 byte for each 7 bits, with a minimum of 1 byte
+        return (Integer.SIZE - Integer.numberOfLeadingZeros(value | 1) + 6) / 7;
+    }
+
+    /**
+     * Writes a Bloom filter to the buffer.
+     *
+     * @param filter the filter to write.
+     * @param buffer the buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer does not have space for the filter.
+     */
+    public static void writeBloomFilter(final BloomFilter<?> filter, final ByteBuffer buffer) {
+        try {
+            writeBloomFilter(filter, toOutput(buffer));
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a Bloom filter to the output.
+     *
+     * @param filter the filter to write.
+     * @param out the output to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeBloomFilter(final BloomFilter<?> filter, final DataOutput out) throws IOException {
+        writeBloomFilter(filter, toOutput(out));
+    }
+
+    private static void writeBloomFilter(final BloomFilter<?> filter, final Output out) throws IOException {
+        Objects.requireNonNull(filter, "filter");
+        writeHeader(out, TYPE_BLOOM_FILTER);
+        writeShapeBody(filter.getShape(), out);
+        encodeBits(filter, out);
+    }
+
+    /**
+     * Writes a counting Bloom filter to the buffer.
+     *
+     * @param filter the filter to write.
+     * @param buffer the buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer does not have space for the filter.
+     */
+    public static void writeCountingBloomFilter(final CountingBloomFilter filter, final ByteBuffer buffer) {
+        try {
+            writeCountingBloomFilter(filter, toOutput(buffer));
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a counting Bloom filter to the output.
+     *
+     * @param filter the filter to write.
+     * @param out the output to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeCountingBloomFilter(final CountingBloomFilter filter, final DataOutput out) throws IOException {
+        writeCountingBloomFilter(filter, toOutput(out));
+    }
+
+    private static void writeCountingBloomFilter(final CountingBloomFilter filter, final Output out) throws IOException {
+        Objects.requireNonNull(filter, "filter");
+        writeHeader(out, TYPE_COUNTING_BLOOM_FILTER);
+        writeShapeBody(filter.getShape(), out);
+        encodeCells(filter, out);
+    }
+
+    /**
+     * Writes the version and type tags.
+     *
+     * @param out the output.
+     * @param type the type.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void writeHeader(final Output out, final int type) throws IOException {
+        out.writeByte(VERSION);
+        out.writeByte(type);
+    }
+
+    /**
+     * Writes a HyperLogLog sketch to the buffer.
+     *
+     * @param sketch the sketch to write.
+     * @param buffer the buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer does not have space for the sketch.
+     */
+    public static void writeHyperLogLog(final HyperLogLog sketch, final ByteBuffer buffer) {
+        try {
+            writeHyperLogLog(sketch, toOutput(buffer));
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a HyperLogLog sketch to the output.
+     *
+     * <p>A sparse sketch is written as the differences between its sorted entries as variable length integers. A dense
+     * sketch is written as its registers packed into 6 bits each.</p>
+     *
+     * @param sketch the sketch to write.
+     * @param out the output to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeHyperLogLog(final HyperLogLog sketch, final DataOutput out) throws IOException {
+        writeHyperLogLog(sketch, toOutput(out));
+    }
+
+    private static void writeHyperLogLog(final HyperLogLog sketch, final Output out) throws IOException {
+        Objects.requireNonNull(sketch, "sketch");
+        writeHeader(out, TYPE_HYPER_LOG_LOG);
+        out.writeByte(sketch.getPrecision());
+        final int[] entries = sketch.getEntries();
+        if (entries != null) {
+            out.writeByte(ENCODING_SPARSE);
+            writeInt(out, entries.length);
+            int previous = 0;
+            for (final int entry : entries) {
+                writeInt(out, entry - previous);
+                previous = entry;
+            }
+            return;
+        }
+        out.writeByte(ENCODING_DENSE);
+        long bits = 0;
+        int available = 0;
+        for (final byte r : sketch.getRegisters()) {
+            bits = bits << REGISTER_BITS | r;
+            available += REGISTER_BITS;
+            while (available >= Byte.SIZE) {
+                available -= Byte.SIZE;
+                out.writeByte((int) (bits >>> available));
+            }
+        }
+        if (available != 0) {
+            out.writeByte((int) (bits << Byte.SIZE - available));
+        }
+    }
+
+    /**
+     * Writes an unsigned variable length integer. Each byte holds 7 bits of the value, least significant first, with
+     * the high bit set if more bytes follow.
+     *
+     * @param out the output.
+     * @param value the value.
+     * @throws IOException if an I/O error occurs.
+     */
+    private static void writeInt(final Output out, final int value) throws IOException {
+        int v = value;
+        while ((v & ~0x7f) != 0) {
+            out.writeByte(v & 0x7f | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    /**
+     * Writes an unsigned variable length integer, wrapping any I/O error for use within a predicate.
+     *
+     * @param out the output.
+     * @param value the value.
+     */
+    private static void writeIntUnchecked(final Output out, final int value) {
+        try {
+            writeInt(out, value);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a layered Bloom filter to the buffer.
+     *
+     * @param filter the filter to write.
+     * @param buffer the buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer does not have space for the filter.
+     */
+    public static void writeLayeredBloomFilter(final LayeredBloomFilter<?> filter, final ByteBuffer buffer) {
+        try {
+            writeLayeredBloomFilter(filter, toOutput(buffer));
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a layered Bloom filter to the output. The layers are written from the oldest to the newest, each using the
+     * smallest encoding for that layer.
+     *
+     * @param filter the filter to write.
+     * @param out the output to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeLayeredBloomFilter(final LayeredBloomFilter<?> filter, final DataOutput out) throws IOException {
+        writeLayeredBloomFilter(filter, toOutput(out));
+    }
+
+    private static void writeLayeredBloomFilter(final LayeredBloomFilter<?> filter, final Output out) throws IOException {
+        Objects.requireNonNull(filter, "filter");
+        writeHeader(out, TYPE_LAYERED_BLOOM_FILTER);
+        writeShapeBody(filter.getShape(), out);
+        writeInt(out, filter.getDepth());
+        try {
+            filter.processBloomFilters((Predicate<BloomFilter>) layer -> {
+                try {
+                    encodeBits(layer, out);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return true;
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes a Shape to the buffer.
+     *
+     * @param shape the shape to write.
+     * @param buffer the buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer does not have space for the shape.
+     */
+    public static void writeShape(final Shape shape, final ByteBuffer buffer) {
+        try {
+            writeShape(shape, toOutput(buffer));
+        } catch (final IOException e) {
+            // not thrown by a buffer
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a Shape to the output.
+     *
+     * @param shape the shape to write.
+     * @param out the output to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeShape(final Shape shape, final DataOutput out) throws IOException {
+        writeShape(shape, toOutput(out));
+    }
+
+    private static void writeShape(final Shape shape, final Output out) throws IOException {
+        Objects.requireNonNull(shape, "shape");
+        writeHeader(out, TYPE_SHAPE);
+        writeShapeBody(shape, out);
+    }
+
+    private static void writeShapeBody(final Shape shape, final Output out) throws IOException {
+        writeInt(out, shape.getNumberOfBits());
+        writeInt(out, shape.getNumberOfHashFunctions());
+    }
+
+    /**
+     * Decodes a zig-zag encoded value.
+     *
+     * @param value the encoded value.
+     * @return the value.
+     */
+    private static int zigZagDecode(final int value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    /**
+     * Encodes a value using zig-zag encoding so that small negative values are small positive values.
+     *
+     * @param value the value.
+     * @return the encoded value.
+     */
+    private static int zigZagEncode(final int value) {
+        return value << 1 ^ value >> 31;
+    }
+
+    /** Do not instantiate. */
+    private BloomFilterCodec() {
+    }
+}
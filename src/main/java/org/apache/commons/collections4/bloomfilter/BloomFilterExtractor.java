@@ -114,6 +114,34 @@ public interface BloomFilterExtractor {
         return Objects.requireNonNull(ref.get(), "No filters.");
     }
 
+    /**
+     * Create a standard (non-layered) Bloom filter by merging all of the layers in parallel. The result is the same as
+     * {@link #flatten()}.
+     *
+     * <p>The layers are merged using fork-join tasks in the current fork-join pool, or the common pool if not called from
+     * a fork-join task. The work is split across groups of layers, and the merged bit maps of each group are combined in
+     * parallel across ranges of words. A task processes sequentially at most {@code threshold} bit map words, or one
+     * layer if a layer is larger than the threshold. The filters must not be modified during this call.</p>
+     *
+     * @param threshold the number of bit map words processed sequentially by a task.
+     * @return the merged bloom filter, never null.
+     * @throws NullPointerException if this call did not process any filters.
+     * @throws IllegalArgumentException if the threshold is not positive, or the filters have different shapes.
+     */
+    default BloomFilter parallelFlatten(final int threshold) {
+        BloomFilterTasks.checkThreshold(threshold);
+        final List<BloomFilter> filters = new ArrayList<>();
+        processBloomFilters(filters::add);
+        if (filters.isEmpty()) {
+            throw new NullPointerException("No filters.");
+        }
+        final Shape shape = filters.get(0).getShape();
+        final long[] bitMaps = BloomFilterTasks.flatten(filters.toArray(new BloomFilter[0]), BitMaps.numberOfBitMaps(shape), threshold);
+        final SimpleBloomFilter bf = new SimpleBloomFilter(shape);
+        bf.merge(BitMapExtractor.fromBitMapArray(bitMaps));
+        return bf;
+    }
+
     /**
      * Applies the {@code func} to each Bloom filter pair in order. Will apply all of the Bloom filters from the other BloomFilterExtractor to this extractor.
      * If either {@code this} extractor or {@code other} extractor has fewer BloomFilters the method will provide {@code null} for all excess calls to the
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fork-join tasks to process the layers of a {@link BloomFilterExtractor} in parallel.
+ *
+ * <p>The work is divided using a threshold that is the number of bit map words a task processes sequentially. A
+ * task processing more layers than {@code threshold / words} is split across the layers. When flattening, each group of
+ * layers is merged into the bit maps of the task that forked it. Only a group stolen by another worker uses its own bit
+ * maps, which are combined by a task that is split across word ranges of {@code threshold} words.</p>
+ *
+ * <p>The tasks are run in the current fork-join pool, or the common pool if not called from a fork-join task. The
+ * filters must not be modified while a task is running.</p>
+ */
+final class BloomFilterTasks {
+
+    /**
+     * Tests or finds a filter in a range of layers.
+     */
+    private static final class FindTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BloomFilter[] filters;
+        private final BloomFilter target;
+        private final boolean[] found;
+        private final AtomicBoolean stop;
+        private final int layersPerTask;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a new instance.
+         *
+         * @param filters the layers.
+         * @param target the filter to find.
+         * @param found the result for each layer.
+         * @param stop the flag to stop on the first match; or {@code null} to test all layers.
+         * @param layersPerTask the maximum number of layers processed sequentially.
+         * @param from the first layer, inclusive.
+         * @param to the last layer, exclusive.
+         */
+        FindTask(final BloomFilter[] filters, final BloomFilter target, final boolean[] found, final AtomicBoolean stop,
+                final int layersPerTask, final int from, final int to) {
+            this.filters = filters;
+            this.target = target;
+            this.found = found;
+            this.stop = stop;
+            this.layersPerTask = layersPerTask;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > layersPerTask) {
+                final int mid = from + to >>> 1;
+                invokeAll(new FindTask(filters, target, found, stop, layersPerTask, from, mid),
+                        new FindTask(filters, target, found, stop, layersPerTask, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                if (stop != null && stop.get()) {
+                    return;
+                }
+                if (filters[i].contains(target)) {
+                    found[i] = true;
+                    if (stop != null) {
+                        stop.set(true);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the bit maps of a range of layers into an accumulator.
+     */
+    private static final class FlattenTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BloomFilter[] filters;
+        private final int words;
+        private final int threshold;
+        private final int layersPerTask;
+        private final int from;
+        private final int to;
+
+        /**
+         * The task forked before this one by the same parent.
+         */
+        private final FlattenTask next;
+
+        /**
+         * The merged bit maps; assigned by the parent if it runs this task, otherwise allocated when the task runs.
+         */
+        private long[] result;
+
+        /**
+         * Constructs a new instance.
+         *
+         * @param filters the layers.
+         * @param words the number of bit map words of the shape.
+         * @param threshold the number of words processed sequentially.
+         * @param from the first layer, inclusive.
+         * @param to the last layer, exclusive.
+         * @param next the task forked before this one by the same parent; or {@code null}.
+         */
+        FlattenTask(final BloomFilter[] filters, final int words, final int threshold, final int from, final int to,
+                final FlattenTask next) {
+            this.filters = filters;
+            this.words = words;
+            this.threshold = threshold;
+            this.layersPerTask = layersPerTask(words, threshold);
+            this.from = from;
+            this.to = to;
+            this.next = next;
+        }
+
+        @Override
+        protected void compute() {
+            if (result == null) {
+                result = new long[words];
+            }
+            int hi = to;
+            FlattenTask forked = null;
+            while (hi - from > layersPerTask) {
+                final int mid = from + hi >>> 1;
+                forked = new FlattenTask(filters, words, threshold, mid, hi, forked);
+                forked.fork();
+                hi = mid;
+            }
+            final int[] idx = new int[1];
+            for (int i = from; i < hi; i++) {
+                idx[0] = 0;
+                filters[i].processBitMaps(value -> {
+                    if (idx[0] >= words) {
+                        throw new IllegalArgumentException(String.format("BitMapExtractor should send at most %s maps", words));
+                    }
+                    result[idx[0]++] |= value;
+                    return true;
+                });
+            }
+            for (FlattenTask task = forked; task != null; task = task.next) {
+                if (task.tryUnfork()) {
+                    // not stolen: merge into this accumulator
+                    task.result = result;
+                    task.compute();
+                } else {
+                    task.join();
+                    new OrTask(result, task.result, threshold, 0, words).invoke();
+                }
+            }
+        }
+    }
+
+    /**
+     * Combines bit maps over a range of words.
+     */
+    private static final class OrTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] target;
+        private final long[] source;
+        private final int threshold;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructs a new instance.
+         *
+         * @param target the bit maps to update.
+         * @param source the bit maps to merge into the target.
+         * @param threshold the number of words processed sequentially.
+         * @param from the first word, inclusive.
+         * @param to the last word, exclusive.
+         */
+        OrTask(final long[] target, final long[] source, final int threshold, final int from, final int to) {
+            this.target = target;
+            this.source = source;
+            this.threshold = threshold;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                final int mid = from + to >>> 1;
+                invokeAll(new OrTask(target, source, threshold, from, mid), new OrTask(target, source, threshold, mid, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                target[i] |= source[i];
+            }
+        }
+    }
+
+    /**
+     * Checks the threshold is positive.
+     *
+     * @param threshold the threshold.
+     * @return the threshold.
+     * @throws IllegalArgumentException if the threshold is not positive.
+     */
+    static int checkThreshold(final int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold must be greater than 0: " + threshold);
+        }
+        return threshold;
+    }
+
+    /**
+     * Returns {@code true} if any of the layers contains the target.
+     *
+     * @param filters the layers.
+     * @param target the filter to find.
+     * @param words the number of bit map words of the shape.
+     * @param threshold the number of words processed sequentially.
+     * @return {@code true} if a layer contains the target.
+     */
+    static boolean contains(final BloomFilter[] filters, final BloomFilter target, final int words, final int threshold) {
+        final AtomicBoolean stop = new AtomicBoolean();
+        new FindTask(filters, target, new boolean[filters.length], stop, layersPerTask(words, checkThreshold(threshold)), 0, filters.length).invoke();
+        return stop.get();
+    }
+
+    /**
+     * Finds the layers that contain the target.
+     *
+     * @param filters the layers.
+     * @param target the filter to find.
+     * @param words the number of bit map words of the shape.
+     * @param threshold the number of words processed sequentially.
+     * @return the indices of the layers that contain the target, in ascending order.
+     */
+    static int[] find(final BloomFilter[] filters, final BloomFilter target, final int words, final int threshold) {
+        final boolean[] found = new boolean[filters.length];
+        new FindTask(filters, target, found, null, layersPerTask(words, checkThreshold(threshold)), 0, filters.length).invoke();
+        int count = 0;
+        for (final boolean b : found) {
+            if (b) {
+                count++;
+            }
+        }
+        final int[] result = new int[count];
+        count = 0;
+        for (int i = 0; i < found.length; i++) {
+            if (found[i]) {
+                result[count++] = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Merges the bit maps of all the layers.
+     *
+     * @param filters the layers.
+     * @param words the number of bit map words of the shape.
+     * @param threshold the number of words processed sequentially.
+     * @return the merged bit maps.
+     * @throws IllegalArgumentException if a layer has more bit maps than the number of words.
+     */
+    static long[] flatten(final BloomFilter[] filters, final int words, final int threshold) {
+        final FlattenTask task = new FlattenTask(filters, words, checkThreshold(threshold), 0, filters.length, null);
+        task.invoke();
+        return task.result;
+    }
+
+    /**
+     * Gets the number of layers a task processes sequentially.
+     *
+     * @param words the number of bit map words of the shape.
+     * @param threshold the number of words processed sequentially.
+     * @return the number of layers; at least 1.
+     */
+    private static int layersPerTask(final int words, final int threshold) {
+        return Math.max(1, threshold / Math.max(1, words));
+    }
+
+    /**
+     * Don't instantiate.
+     */
+    private BloomFilterTasks() {
+        // empty
+    }
+}
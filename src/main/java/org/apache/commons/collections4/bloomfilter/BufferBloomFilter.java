@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+/**
+ * A bloom filter using a {@link LongBuffer} of bit maps to track enabled bits.
+ *
+ * <p>This implementation functions identically to the {@link SimpleBloomFilter} but allows the bit maps to be stored
+ * outside of the Java heap, for example in a direct {@link ByteBuffer} or in a {@link java.nio.MappedByteBuffer}
+ * created from a file. This reduces garbage collection pressure for large filters and allows a filter to be persisted
+ * and reopened without copying the bit maps.</p>
+ *
+ * <p>The bit maps are stored as consecutive {@code long} values in little-endian byte order irrespective of the order
+ * of the source buffer. Thus the first byte of the buffer holds the bits for the indices 0 to 7, and a buffer written
+ * on one platform may be read on any other.</p>
+ *
+ * <p>A filter can be persisted to a file using:</p>
+ * <pre>
+ * try (FileChannel channel = FileChannel.open(path, READ, WRITE, CREATE)) {
+ *     MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, BufferBloomFilter.getBufferSize(shape));
+ *     BufferBloomFilter filter = new BufferBloomFilter(shape, buffer);
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p><em>The filter assumes it has exclusive access to the buffer. Changes to the buffer content made other than
+ * through this filter may not be reflected in the cached {@link #cardinality()}.</em></p>
+ *
+ * @see SimpleBloomFilter
+ * @since 4.5.0
+ */
+public final class BufferBloomFilter implements BloomFilter<BufferBloomFilter> {
+
+    /**
+     * Allocates a direct buffer for the bit maps of the shape.
+     *
+     * @param shape the shape.
+     * @return a new buffer with all bits disabled.
+     */
+    private static LongBuffer allocate(final Shape shape) {
+        return ByteBuffer.allocateDirect(getBufferSize(shape)).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    /**
+     * Gets the number of bytes required in a buffer to store a filter of the specified shape.
+     *
+     * @param shape the shape of the filter.
+     * @return the number of bytes required.
+     */
+    public static int getBufferSize(final Shape shape) {
+        Objects.requireNonNull(shape, "shape");
+        return BitMaps.numberOfBitMaps(shape) * Long.BYTES;
+    }
+
+    /**
+     * The buffer of bit map longs that defines this Bloom filter.
+     */
+    private final LongBuffer bitMap;
+
+    /**
+     * The number of bit maps in the buffer used by this filter.
+     */
+    private final int numberOfBitMaps;
+
+    /**
+     * The Shape of this Bloom filter.
+     */
+    private final Shape shape;
+
+    /**
+     * The cardinality of this Bloom filter. Negative if it must be recalculated.
+     */
+    private int cardinality;
+
+    /**
+     * Copy constructor for {@code copy()} use.
+     *
+     * @param source the source filter.
+     */
+    private BufferBloomFilter(final BufferBloomFilter source) {
+        this.shape = source.shape;
+        this.numberOfBitMaps = source.numberOfBitMaps;
+        this.bitMap = allocate(shape);
+        for (int i = 0; i < numberOfBitMaps; i++) {
+            bitMap.put(i, source.bitMap.get(i));
+        }
+        this.cardinality = source.cardinality;
+    }
+
+    /**
+     * Creates an empty instance using a new direct buffer.
+     *
+     * @param shape The shape for the filter.
+     */
+    public BufferBloomFilter(final Shape shape) {
+        Objects.requireNonNull(shape, "shape");
+        this.shape = shape;
+        this.numberOfBitMaps = BitMaps.numberOfBitMaps(shape);
+        this.bitMap = allocate(shape);
+        this.cardinality = 0;
+    }
+
+    /**
+     * Creates an instance backed by the content of the buffer.
+     *
+     * <p>The filter uses {@link #getBufferSize(Shape)} bytes of the buffer starting at the current position. Any
+     * enabled bits already present in those bytes are part of the filter state. The position, limit and byte order of
+     * the buffer are not modified.</p>
+     *
+     * <p>If the buffer is read-only any attempt to modify the filter will throw a
+     * {@link java.nio.ReadOnlyBufferException}.</p>
+     *
+     * @param shape The shape for the filter.
+     * @param buffer The buffer holding the bit maps.
+     * @throws IllegalArgumentException if the buffer has fewer than {@link #getBufferSize(Shape)} bytes remaining, or
+     * if the buffer has a bit enabled above the number of bits in the shape.
+     */
+    public BufferBloomFilter(final Shape shape, final ByteBuffer buffer) {
+        Objects.requireNonNull(shape, "shape");
+        Objects.requireNonNull(buffer, "buffer");
+        final int required = getBufferSize(shape);
+        if (buffer.remaining() < required) {
+            throw new IllegalArgumentException(String.format("Buffer must have at least %s bytes remaining: %s", required, buffer.remaining()));
+        }
+        this.shape = shape;
+        this.numberOfBitMaps = BitMaps.numberOfBitMaps(shape);
+        this.bitMap = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        checkExcess();
+        this.cardinality = -1;
+    }
+
+    @Override
+    public long[] asBitMapArray() {
+        final long[] result = new long[numberOfBitMaps];
+        bitMap.duplicate().get(result);
+        return result;
+    }
+
+    @Override
+    public int cardinality() {
+        // Lazy evaluation with caching
+        int c = cardinality;
+        if (c < 0) {
+            cardinality = c = SetOperations.cardinality(this);
+        }
+        return c;
+    }
+
+    @Override
+    public int characteristics() {
+        return 0;
+    }
+
+    /**
+     * Checks that no bit above the number of bits in the shape is enabled.
+     *
+     * @throws IllegalArgumentException if an excess bit is enabled.
+     */
+    private void checkExcess() {
+        final int bits = shape.getNumberOfBits();
+        // Bit shifts only use the first 6 bits so this is the excess above bits % 64
+        if ((bits & Long.SIZE - 1) != 0 && bitMap.get(numberOfBitMaps - 1) >>> bits != 0) {
+            throw new IllegalArgumentException(String.format("BitMapExtractor set a bit higher than the limit for the shape: %s", bits));
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < numberOfBitMaps; i++) {
+            bitMap.put(i, 0L);
+        }
+        cardinality = 0;
+    }
+
+    @Override
+    public boolean contains(final IndexExtractor indexExtractor) {
+        return indexExtractor.processIndices(idx -> (bitMap.get(BitMaps.getLongIndex(idx)) & BitMaps.getLongBit(idx)) != 0);
+    }
+
+    /**
+     * Creates a new instance of this {@link BufferBloomFilter} with the same properties as the current one.
+     *
+     * <p>The copy uses a new direct buffer.</p>
+     *
+     * @return a copy of this {@link BufferBloomFilter}.
+     */
+    @Override
+    public BufferBloomFilter copy() {
+        return new BufferBloomFilter(this);
+    }
+
+    @Override
+    public Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return cardinality == 0 || processBitMaps(y -> y == 0);
+    }
+
+    @Override
+    public boolean merge(final BitMapExtractor bitMapExtractor) {
+        Objects.requireNonNull(bitMapExtractor, "bitMapExtractor");
+        final int[] idx = new int[1];
+        bitMapExtractor.processBitMaps(value -> {
+            final int i = idx[0]++;
+            if (i >= numberOfBitMaps) {
+                throw new IllegalArgumentException(String.format("BitMapExtractor should send at most %s maps", numberOfBitMaps));
+            }
+            bitMap.put(i, bitMap.get(i) | value);
+            return true;
+        });
+        cardinality = -1;
+        checkExcess();
+        return true;
+    }
+
+    @Override
+    public boolean merge(final BloomFilter<?> other) {
+        Objects.requireNonNull(other, "other");
+        if ((other.characteristics() & SPARSE) != 0) {
+            merge((IndexExtractor) other);
+        } else {
+            merge((BitMapExtractor) other);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean merge(final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        return merge(hasher.indices(shape));
+    }
+
+    @Override
+    public boolean merge(final IndexExtractor indexExtractor) {
+        Objects.requireNonNull(indexExtractor, "indexExtractor");
+        indexExtractor.processIndices(idx -> {
+            if (idx < 0 || idx >= shape.getNumberOfBits()) {
+                throw new IllegalArgumentException(String.format("IndexExtractor should only send values in the range[0,%s)", shape.getNumberOfBits()));
+            }
+            final int i = BitMaps.getLongIndex(idx);
+            bitMap.put(i, bitMap.get(i) | BitMaps.getLongBit(idx));
+            return true;
+        });
+        cardinality = -1;
+        return true;
+    }
+
+    @Override
+    public boolean processBitMapPairs(final BitMapExtractor other, final LongBiPredicate func) {
+        Objects.requireNonNull(other, "other");
+        Objects.requireNonNull(func, "func");
+        final int[] idx = new int[1];
+        if (!other.processBitMaps(y -> func.test(idx[0] == numberOfBitMaps ? 0 : bitMap.get(idx[0]++), y))) {
+            return false;
+        }
+        for (int i = idx[0]; i < numberOfBitMaps; i++) {
+            if (!func.test(bitMap.get(i), 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean processBitMaps(final LongPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        for (int i = 0; i < numberOfBitMaps; i++) {
+            if (!consumer.test(bitMap.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean processIndices(final IntPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        return IndexExtractor.fromBitMapExtractor(this).processIndices(consumer);
+    }
+}
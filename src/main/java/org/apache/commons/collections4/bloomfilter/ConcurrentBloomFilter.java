@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+/**
+ * A thread-safe bloom filter using an {@link AtomicLongArray} of bit maps to track enabled bits.
+ *
+ * <p>Merge operations enable bits using a compare-and-set loop on each affected bit map word, and do not write to
+ * words where the bits are already enabled. Queries read each word without locking. Thus any number of threads may
+ * merge into and query the filter concurrently.</p>
+ *
+ * <p>Each individual bit is enabled atomically, but a merge of several bits is not atomic as a whole. A concurrent
+ * {@code contains} may observe a partially merged hasher or filter, in which case it returns {@code false} as if it
+ * had executed before the merge.</p>
+ *
+ * <p>The cardinality is not maintained during merges to avoid a contended counter. It is calculated on demand from the
+ * current bit maps, and during concurrent merges is a weakly consistent value. The same is true of the bulk operations
+ * {@link #asBitMapArray()}, {@link #processBitMaps(LongPredicate)}, {@link #processIndices(IntPredicate)},
+ * {@link #copy()} and {@link #clear()}.</p>
+ *
+ * @see SimpleBloomFilter
+ * @since 4.5.0
+ */
+public final class ConcurrentBloomFilter implements BloomFilter<ConcurrentBloomFilter> {
+
+    /**
+     * The array of bit map longs that defines this Bloom filter.
+     */
+    private final AtomicLongArray bitMap;
+
+    /**
+     * The Shape of this Bloom filter.
+     */
+    private final Shape shape;
+
+    /**
+     * Copy constructor for {@code copy()} use.
+     *
+     * @param source the source filter.
+     */
+    private ConcurrentBloomFilter(final ConcurrentBloomFilter source) {
+        this.shape = source.shape;
+        this.bitMap = new AtomicLongArray(source.asBitMapArray());
+    }
+
+    /**
+     * Creates an empty instance.
+     *
+     * @param shape The shape for the filter.
+     */
+    public ConcurrentBloomFilter(final Shape shape) {
+        Objects.requireNonNull(shape, "shape");
+        this.shape = shape;
+        this.bitMap = new AtomicLongArray(BitMaps.numberOfBitMaps(shape));
+    }
+
+    @Override
+    public long[] asBitMapArray() {
+        final long[] result = new long[bitMap.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bitMap.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public int cardinality() {
+        int c = 0;
+        for (int i = 0; i < bitMap.length(); i++) {
+            c += Long.bitCount(bitMap.get(i));
+        }
+        return c;
+    }
+
+    @Override
+    public int characteristics() {
+        return 0;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < bitMap.length(); i++) {
+            bitMap.set(i, 0L);
+        }
+    }
+
+    @Override
+    public boolean contains(final IndexExtractor indexExtractor) {
+        return indexExtractor.processIndices(idx -> (bitMap.get(BitMaps.getLongIndex(idx)) & BitMaps.getLongBit(idx)) != 0);
+    }
+
+    /**
+     * Creates a new instance of this {@link ConcurrentBloomFilter} with the same properties as the current one.
+     *
+     * @return a copy of this {@link ConcurrentBloomFilter}.
+     */
+    @Override
+    public ConcurrentBloomFilter copy() {
+        return new ConcurrentBloomFilter(this);
+    }
+
+    @Override
+    public Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return processBitMaps(y -> y == 0);
+    }
+
+    @Override
+    public boolean merge(final BitMapExtractor bitMapExtractor) {
+        Objects.requireNonNull(bitMapExtractor, "bitMapExtractor");
+        final int limit = bitMap.length();
+        final int bits = shape.getNumberOfBits();
+        // Mask of the valid bits in the last bit map. Bit shifts only use the first 6 bits.
+        final long lastMask = (bits & Long.SIZE - 1) == 0 ? -1L : ~(-1L << bits);
+        final int[] idx = new int[1];
+        bitMapExtractor.processBitMaps(value -> {
+            final int i = idx[0]++;
+            if (i >= limit) {
+                throw new IllegalArgumentException(String.format("BitMapExtractor should send at most %s maps", limit));
+            }
+            if (i == limit - 1 && (value & ~lastMask) != 0) {
+                throw new IllegalArgumentException(String.format("BitMapExtractor set a bit higher than the limit for the shape: %s", bits));
+            }
+            or(i, value);
+            return true;
+        });
+        return true;
+    }
+
+    @Override
+    public boolean merge(final BloomFilter<?> other) {
+        Objects.requireNonNull(other, "other");
+        if ((other.characteristics() & SPARSE) != 0) {
+            merge((IndexExtractor) other);
+        } else {
+            merge((BitMapExtractor) other);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean merge(final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        return merge(hasher.indices(shape));
+    }
+
+    @Override
+    public boolean merge(final IndexExtractor indexExtractor) {
+        Objects.requireNonNull(indexExtractor, "indexExtractor");
+        indexExtractor.processIndices(idx -> {
+            if (idx < 0 || idx >= shape.getNumberOfBits()) {
+                throw new IllegalArgumentException(String.format("IndexExtractor should only send values in the range[0,%s)", shape.getNumberOfBits()));
+            }
+            or(BitMaps.getLongIndex(idx), BitMaps.getLongBit(idx));
+            return true;
+        });
+        return true;
+    }
+
+    /**
+     * Atomically enables the bits in the bit map at the specified index.
+     *
+     * <p>No write is performed if the bits are already enabled. This avoids invalidating the cache line holding the
+     * bit map in other processors when merging items that are already present.</p>
+     *
+     * @param index the index of the bit map.
+     * @param bits the bits to enable.
+     */
+    private void or(final int index, final long bits) {
+        long current = bitMap.get(index);
+        while ((current & bits) != bits) {
+            if (bitMap.compareAndSet(index, current, current | bits)) {
+                return;
+            }
+            current = bitMap.get(index);
+        }
+    }
+
+    @Override
+    public boolean processBitMapPairs(final BitMapExtractor other, final LongBiPredicate func) {
+        Objects.requireNonNull(other, "other");
+        Objects.requireNonNull(func, "func");
+        final CountingLongPredicate p = new CountingLongPredicate(asBitMapArray(), func);
+        return other.processBitMaps(p) && p.processRemaining();
+    }
+
+    @Override
+    public boolean processBitMaps(final LongPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        for (int i = 0; i < bitMap.length(); i++) {
+            if (!consumer.test(bitMap.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean processIndices(final IntPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        return IndexExtractor.fromBitMapExtractor(this).processIndices(consumer);
+    }
+}
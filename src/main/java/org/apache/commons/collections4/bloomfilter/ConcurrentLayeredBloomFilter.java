@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe layered Bloom filter that holds a sliding window of layers, rotated by calls to {@link #next()}
+ * typically made by a scheduler.
+ *
+ * <p>This is an alternative to a {@link LayeredBloomFilter} with a time based {@link LayerManager} for high throughput
+ * concurrent use. The layers are held in an immutable snapshot that is replaced on each rotation, so queries read the
+ * current snapshot without locking and are never blocked by a rotation or by each other.</p>
+ * <ul>
+ * <li>Layer 0 is the oldest layer and the highest layer is the newest.</li>
+ * <li>There is always at least one layer and at most {@link #getMaxDepth()} layers.</li>
+ * <li>Merges are performed into the newest layer.</li>
+ * <li>{@link #next()} adds a new empty layer and, if the maximum depth is exceeded, removes the oldest layer.</li>
+ * <li>Membership checks examine the newest layers first, as recently merged items are the most likely to be
+ * queried.</li>
+ * </ul>
+ *
+ * <p>With a rotation period {@code t} and a maximum depth {@code d} an item is reported as present for at least
+ * {@code (d - 1) * t} and at most {@code d * t} after it was merged.</p>
+ *
+ * <p>The layers are created by the supplied factory. If several threads merge into the filter concurrently the layers
+ * must support concurrent merges, for example a {@link ConcurrentBloomFilter}. A merge that runs concurrently with a
+ * rotation may be performed into the layer that was newest when the merge started; the item then expires one rotation
+ * earlier than an item merged after the rotation.</p>
+ *
+ * @param <T> The type of Bloom Filter that is used for the layers.
+ * @see LayeredBloomFilter
+ * @since 4.5.0
+ */
+public class ConcurrentLayeredBloomFilter<T extends BloomFilter<T>> implements BloomFilter<ConcurrentLayeredBloomFilter<T>>, BloomFilterExtractor {
+
+    private final Shape shape;
+
+    private final Supplier<T> filterSupplier;
+
+    private final int maxDepth;
+
+    /**
+     * The lock used to serialize rotations.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * The current snapshot of layers, oldest first. The list is never modified after publication.
+     */
+    private volatile List<T> layers;
+
+    private ConcurrentLayeredBloomFilter(final ConcurrentLayeredBloomFilter<T> source) {
+        this.shape = source.shape;
+        this.filterSupplier = source.filterSupplier;
+        this.maxDepth = source.maxDepth;
+        final List<T> copy = new ArrayList<>();
+        for (final T bf : source.layers) {
+            copy.add(bf.copy());
+        }
+        this.layers = Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Constructs a new instance with a single empty layer.
+     *
+     * @param shape          the Shape of the enclosed Bloom filters.
+     * @param filterSupplier the non-null supplier of new empty layers.
+     * @param maxDepth       the maximum number of layers.
+     * @throws IllegalArgumentException if the maximum depth is less than 1.
+     */
+    public ConcurrentLayeredBloomFilter(final Shape shape, final Supplier<T> filterSupplier, final int maxDepth) {
+        this.shape = Objects.requireNonNull(shape, "shape");
+        this.filterSupplier = Objects.requireNonNull(filterSupplier, "filterSupplier");
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be greater than 0: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        this.layers = Collections.singletonList(newLayer());
+    }
+
+    /**
+     * Tests the layers of the current snapshot newest first, stopping at the first layer that matches.
+     *
+     * @param test the test to apply to each layer.
+     * @return {@code true} if any layer matches.
+     */
+    private boolean anyLayer(final Predicate<T> test) {
+        final List<T> snapshot = layers;
+        for (int i = snapshot.size() - 1; i >= 0; i--) {
+            if (test.test(snapshot.get(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int cardinality() {
+        return SetOperations.cardinality(this);
+    }
+
+    @Override
+    public int characteristics() {
+        return 0;
+    }
+
+    /**
+     * Removes all the layers and sets up a new empty layer.
+     */
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            layers = Collections.singletonList(newLayer());
+        }
+    }
+
+    /**
+     * Returns {@code true} if any layer contained by this filter contains the specified bit maps. The layers are
+     * checked newest first.
+     *
+     * @param bitMapExtractor the BitMapExtractor to provide the bit maps.
+     * @return {@code true} if this filter contains the bit maps.
+     */
+    @Override
+    public boolean contains(final BitMapExtractor bitMapExtractor) {
+        return anyLayer(bf -> bf.contains(bitMapExtractor));
+    }
+
+    /**
+     * Returns {@code true} if any layer contained by this filter contains the specified filter. The layers are checked
+     * newest first.
+     * <p>
+     * If the {@code other} is a BloomFilterExtractor each filter within the {@code other} is checked to see if it exits
+     * within this filter.
+     * </p>
+     *
+     * @param other the other Bloom filter
+     * @return {@code true} if this filter contains the other filter.
+     */
+    @Override
+    public boolean contains(final BloomFilter other) {
+        if (other instanceof BloomFilterExtractor) {
+            return contains((BloomFilterExtractor) other);
+        }
+        return anyLayer(bf -> bf.contains(other));
+    }
+
+    /**
+     * Returns {@code true} if each filter within the {@code bloomFilterExtractor} exits within this filter.
+     *
+     * @param bloomFilterExtractor the BloomFilterExtractor that provides the filters to check for.
+     * @return {@code true} if this filter contains all of the filters contained in the {@code bloomFilterExtractor}.
+     */
+    public boolean contains(final BloomFilterExtractor bloomFilterExtractor) {
+        return bloomFilterExtractor.processBloomFilters(this::contains);
+    }
+
+    /**
+     * Returns {@code true} if any layer contained by this filter contains the item identified by the hasher. The
+     * layers are checked newest first.
+     *
+     * @param hasher the hasher to provide the indices.
+     * @return {@code true} if this filter contains the item.
+     */
+    @Override
+    public boolean contains(final Hasher hasher) {
+        return anyLayer(bf -> bf.contains(hasher));
+    }
+
+    /**
+     * Returns {@code true} if any layer contained by this filter contains the indices. The layers are checked newest
+     * first.
+     *
+     * @param indexExtractor the IndexExtractor to provide the indices.
+     * @return {@code true} if this filter contains the indices.
+     */
+    @Override
+    public boolean contains(final IndexExtractor indexExtractor) {
+        return anyLayer(bf -> bf.contains(indexExtractor));
+    }
+
+    /**
+     * Creates a new instance of this {@link ConcurrentLayeredBloomFilter} with the same properties as the current one.
+     * The layers of the current snapshot are deep copied.
+     *
+     * @return a copy of this {@link ConcurrentLayeredBloomFilter}.
+     */
+    @Override
+    public ConcurrentLayeredBloomFilter<T> copy() {
+        return new ConcurrentLayeredBloomFilter<>(this);
+    }
+
+    /**
+     * Create a standard (non-layered) Bloom filter by merging all of the layers. If the filter is empty this method will
+     * return an empty Bloom filter.
+     *
+     * @return the merged bloom filter.
+     */
+    @Override
+    public SimpleBloomFilter flatten() {
+        final SimpleBloomFilter bf = new SimpleBloomFilter(shape);
+        processBloomFilters(bf::merge);
+        return bf;
+    }
+
+    /**
+     * Gets the Bloom filter at the specified depth in the current snapshot. The filter at depth 0 is the oldest filter.
+     *
+     * @param depth the depth of the filter to return.
+     * @return the Bloom filter at the specified depth.
+     * @throws NoSuchElementException if depth is not in the range [0,getDepth())
+     */
+    public T get(final int depth) {
+        final List<T> snapshot = layers;
+        if (depth < 0 || depth >= snapshot.size()) {
+            throw new NoSuchElementException(String.format("Depth must be in the range [0,%s)", snapshot.size()));
+        }
+        return snapshot.get(depth);
+    }
+
+    /**
+     * Gets the number of layers in the current snapshot. The minimum value returned by this method is 1.
+     *
+     * @return the number of layers.
+     */
+    public final int getDepth() {
+        return layers.size();
+    }
+
+    /**
+     * Gets the maximum number of layers.
+     *
+     * @return the maximum number of layers.
+     */
+    public final int getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Override
+    public final Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return processBloomFilters(BloomFilter::isEmpty);
+    }
+
+    /**
+     * Gets the newest layer of the current snapshot.
+     *
+     * @return the newest layer.
+     */
+    private T last() {
+        final List<T> snapshot = layers;
+        return snapshot.get(snapshot.size() - 1);
+    }
+
+    @Override
+    public boolean merge(final BitMapExtractor bitMapExtractor) {
+        return last().merge(bitMapExtractor);
+    }
+
+    @Override
+    public boolean merge(final BloomFilter bf) {
+        return last().merge(bf);
+    }
+
+    @Override
+    public boolean merge(final Hasher hasher) {
+        return last().merge(hasher);
+    }
+
+    @Override
+    public boolean merge(final IndexExtractor indexExtractor) {
+        return last().merge(indexExtractor);
+    }
+
+    /**
+     * Creates a new layer.
+     *
+     * @return the layer.
+     */
+    private T newLayer() {
+        return Objects.requireNonNull(filterSupplier.get(), "filterSupplier.get() returned null.");
+    }
+
+    /**
+     * Advances to the next layer. A new empty layer becomes the target of merges and, if the maximum depth is
+     * exceeded, the oldest layer is removed.
+     *
+     * <p>Rotations are serialized. Concurrent queries continue to use the previous snapshot until the new snapshot is
+     * published.</p>
+     */
+    public void next() {
+        final T layer = newLayer();
+        synchronized (lock) {
+            final List<T> current = layers;
+            final int from = current.size() == maxDepth ? 1 : 0;
+            final List<T> snapshot = new ArrayList<>(current.size() - from + 1);
+            snapshot.addAll(current.subList(from, current.size()));
+            snapshot.add(layer);
+            layers = Collections.unmodifiableList(snapshot);
+        }
+    }
+
+    @Override
+    public boolean processBitMaps(final LongPredicate predicate) {
+        return flatten().processBitMaps(predicate);
+    }
+
+    /**
+     * Processes the Bloom filters of the current snapshot in depth order with the oldest filter first. Each filter is
+     * passed to the predicate in turn. The function exits on the first {@code false} returned by the predicate.
+     *
+     * @param bloomFilterPredicate the predicate to execute.
+     * @return {@code true} if all filters passed the predicate, {@code false} otherwise.
+     */
+    @Override
+    public final boolean processBloomFilters(final Predicate<BloomFilter> bloomFilterPredicate) {
+        for (final T bf : layers) {
+            if (!bloomFilterPredicate.test(bf)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean processIndices(final IntPredicate predicate) {
+        return flatten().processIndices(predicate);
+    }
+
+    /**
+     * Schedules {@link #next()} to run periodically on the executor.
+     *
+     * <p>The rotation is cancelled by cancelling the returned future.</p>
+     *
+     * @param executor the executor to run the rotation.
+     * @param period   the period between rotations.
+     * @param unit     the time unit of the period.
+     * @return the future representing the scheduled rotation.
+     */
+    public ScheduledFuture<?> scheduleRotation(final ScheduledExecutorService executor, final long period, final TimeUnit unit) {
+        Objects.requireNonNull(executor, "executor");
+        return executor.scheduleAtFixedRate(this::next, period, period, unit);
+    }
+}
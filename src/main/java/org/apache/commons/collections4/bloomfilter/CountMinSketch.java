@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A Count-Min sketch to estimate the frequency of items in a stream.
+ *
+ * <p>The sketch is a table of counters with one row for each hash function of its {@link Shape} and one column for
+ * each bit of the shape. An item identified by a {@link Hasher} maps to one counter in each row: the {@code i}-th
+ * index produced by the hasher selects the column in row {@code i}. The estimated frequency of an item is the minimum
+ * of its counters. The estimate is never less than the true frequency, and with probability {@code 1 - delta} exceeds
+ * it by at most {@code epsilon * N} where {@code N} is the total count, for a sketch created using
+ * {@link #fromErrorBounds(double, double)}.</p>
+ *
+ * <p>Items are added using the <em>conservative update</em> of Estan and Varghese (2002): each counter of the item is
+ * only increased as far as required for the new minimum. This never increases the error of an estimate and greatly
+ * reduces the over-estimation of infrequent items.</p>
+ *
+ * <p>The counters are available as a {@link CellExtractor} where the index of the counter in row {@code r} and column
+ * {@code c} is {@code r * width + c}. Counters saturate at {@link Integer#MAX_VALUE}.</p>
+ *
+ * <p>Sketches with the same shape can be merged. The merged counters are the sums of the counters, which are an upper
+ * bound on the counters from adding all the items to a single sketch using conservative update. Thus the estimates of
+ * a merged sketch remain upper bounds with the same error guarantee.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @see HeavyHitters
+ * @since 4.5.0
+ */
+public final class CountMinSketch implements CellExtractor {
+
+    /**
+     * The maximum number of counters.
+     */
+    private static final int MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    /**
+     * Creates a sketch with error bounds. The estimated frequency of an item exceeds the true frequency by at most
+     * {@code epsilon * N} with probability {@code 1 - delta}, where {@code N} is the total count of items added.
+     *
+     * <p>The sketch has {@code ceil(e / epsilon)} columns and {@code ceil(ln(1 / delta))} rows.</p>
+     *
+     * @param epsilon the error relative to the total count, in the range (0, 1).
+     * @param delta the probability of exceeding the error, in the range (0, 1).
+     * @return the sketch.
+     * @throws IllegalArgumentException if the error bounds are invalid or the sketch is too large.
+     */
+    public static CountMinSketch fromErrorBounds(final double epsilon, final double delta) {
+        if (!(epsilon > 0 && epsilon < 1)) {
+            throw new IllegalArgumentException("Epsilon must be in the range (0, 1): " + epsilon);
+        }
+        if (!(delta > 0 && delta < 1)) {
+            throw new IllegalArgumentException("Delta must be in the range (0, 1): " + delta);
+        }
+        final double width = Math.ceil(Math.E / epsilon);
+        if (width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Epsilon is too small: " + epsilon);
+        }
+        final int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinSketch(Shape.fromKM(depth, (int) width));
+    }
+
+    /**
+     * Adds the values, saturating at {@link Integer#MAX_VALUE}.
+     *
+     * @param a the first value.
+     * @param b the second value.
+     * @return the sum.
+     */
+    private static int saturatedAdd(final int a, final int b) {
+        return (int) Math.min((long) a + b, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The shape: the number of hash functions is the number of rows, the number of bits is the number of columns.
+     */
+    private final Shape shape;
+
+    /**
+     * The number of columns.
+     */
+    private final int width;
+
+    /**
+     * The counters in row-major order.
+     */
+    private final int[] cells;
+
+    /**
+     * The column of the current item in each row.
+     */
+    private final int[] columns;
+
+    /**
+     * The total count of the items added.
+     */
+    private long totalCount;
+
+    /**
+     * Constructs an empty sketch.
+     *
+     * @param shape the shape; the number of hash functions is the number of rows (depth) and the number of bits is
+     *              the number of columns (width).
+     * @throws IllegalArgumentException if the number of counters is too large for an array.
+     */
+    public CountMinSketch(final Shape shape) {
+        Objects.requireNonNull(shape, "shape");
+        final long size = (long) shape.getNumberOfHashFunctions() * shape.getNumberOfBits();
+        if (size > MAX_CELLS) {
+            throw new IllegalArgumentException(String.format("Number of counters is too large: %s", size));
+        }
+        this.shape = shape;
+        this.width = shape.getNumberOfBits();
+        this.cells = new int[(int) size];
+        this.columns = new int[shape.getNumberOfHashFunctions()];
+    }
+
+    private CountMinSketch(final CountMinSketch source) {
+        this.shape = source.shape;
+        this.width = source.width;
+        this.cells = source.cells.clone();
+        this.columns = new int[source.columns.length];
+        this.totalCount = source.totalCount;
+    }
+
+    /**
+     * Adds one occurrence of the item identified by the hasher.
+     *
+     * @param hasher the hasher for the item.
+     * @return the estimated frequency of the item after it is added.
+     * @throws IllegalArgumentException if the hasher produces fewer indices than the number of rows.
+     */
+    public int add(final Hasher hasher) {
+        return add(hasher, 1);
+    }
+
+    /**
+     * Adds occurrences of the item identified by the hasher using the conservative update.
+     *
+     * @param hasher the hasher for the item.
+     * @param count the number of occurrences.
+     * @return the estimated frequency of the item after it is added.
+     * @throws IllegalArgumentException if the count is negative, or the hasher produces fewer indices than the number
+     *                                  of rows.
+     */
+    public int add(final Hasher hasher, final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        final int estimate = saturatedAdd(estimate(hasher), count);
+        for (int r = 0, offset = 0; r < columns.length; r++, offset += width) {
+            final int i = offset + columns[r];
+            if (cells[i] < estimate) {
+                cells[i] = estimate;
+            }
+        }
+        totalCount += count;
+        return estimate;
+    }
+
+    /**
+     * Removes all the items from the sketch.
+     */
+    public void clear() {
+        Arrays.fill(cells, 0);
+        totalCount = 0;
+    }
+
+    /**
+     * Creates a copy of this sketch.
+     *
+     * @return a copy of this sketch.
+     */
+    public CountMinSketch copy() {
+        return new CountMinSketch(this);
+    }
+
+    /**
+     * Computes the columns of the item and returns the minimum of its counters.
+     *
+     * @param hasher the hasher for the item.
+     * @return the estimated frequency of the item.
+     */
+    private int estimate(final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        final int depth = columns.length;
+        // subclasses may override the indices
+        if (hasher.getClass() == EnhancedDoubleHasher.class) {
+            ((EnhancedDoubleHasher) hasher).fillIndices(shape, columns, 0);
+        } else {
+            final int[] count = {0};
+            hasher.indices(shape).processIndices(idx -> {
+                columns[count[0]] = idx;
+                return ++count[0] < depth;
+            });
+            if (count[0] < depth) {
+                throw new IllegalArgumentException(String.format("Hasher must produce at least %d indices", depth));
+            }
+        }
+        int min = Integer.MAX_VALUE;
+        for (int r = 0, offset = 0; r < depth; r++, offset += width) {
+            min = Math.min(min, cells[offset + columns[r]]);
+        }
+        return min;
+    }
+
+    /**
+     * Estimates the frequency of the item identified by the hasher. The estimate is never less than the number of
+     * occurrences added.
+     *
+     * @param hasher the hasher for the item.
+     * @return the estimated frequency of the item.
+     * @throws IllegalArgumentException if the hasher produces fewer indices than the number of rows.
+     */
+    public int estimateCount(final Hasher hasher) {
+        return estimate(hasher);
+    }
+
+    /**
+     * Gets the number of rows, one for each hash function of the shape.
+     *
+     * @return the number of rows.
+     */
+    public int getDepth() {
+        return columns.length;
+    }
+
+    /**
+     * Gets the shape of this sketch.
+     *
+     * @return the shape.
+     */
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * Gets the total count of the items added, including the items of merged sketches.
+     *
+     * @return the total count.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the number of columns, one for each bit of the shape.
+     *
+     * @return the number of columns.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns {@code true} if no items have been added to the sketch.
+     *
+     * @return {@code true} if the sketch is empty.
+     */
+    public boolean isEmpty() {
+        return totalCount == 0;
+    }
+
+    /**
+     * Merges the other sketch into this sketch by adding its counters.
+     *
+     * @param other the other sketch.
+     * @return {@code true} if this sketch changed.
+     * @throws IllegalArgumentException if the other sketch has a different shape.
+     */
+    public boolean merge(final CountMinSketch other) {
+        Objects.requireNonNull(other, "other");
+        if (!shape.equals(other.shape)) {
+            throw new IllegalArgumentException(String.format("Shape %s does not match %s", other.shape, shape));
+        }
+        if (other.totalCount == 0) {
+            return false;
+        }
+        // other may be this sketch
+        final long count = other.totalCount;
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = saturatedAdd(cells[i], other.cells[i]);
+        }
+        totalCount += count;
+        return true;
+    }
+
+    @Override
+    public boolean processCells(final CellPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != 0 && !consumer.test(i, cells[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A cuckoo filter for approximate set membership that supports the removal of items.
+ *
+ * <p>Each item is represented by a small fingerprint stored in one of two candidate buckets. The fingerprints are
+ * packed into a {@code long[]} table using {@link CuckooShape#getFingerprintBits()} bits each. A query tests the two
+ * candidate buckets for the fingerprint. Compared to a counting Bloom filter with the same false positive probability
+ * below 1%, a cuckoo filter uses several times less memory, and a lookup reads only two buckets.</p>
+ *
+ * <p>Items are hashed using a {@link Hasher}. The {@link EnhancedDoubleHasher} is recommended, for example using
+ * {@link EnhancedDoubleHasher#fromLong(long)}; the two hash values select the first bucket and the fingerprint. Other
+ * hashers are supported using the first two indices they produce for a shape of {@link Integer#MAX_VALUE} bits. The
+ * same hasher implementation must be used for all operations on a filter.</p>
+ *
+ * <p>When both candidate buckets of a new item are full, a random fingerprint is moved to its alternate bucket, which
+ * may in turn move another fingerprint, up to the maximum number of kicks. If no free slot is found the moves are
+ * undone, the filter is unchanged and {@link #add(Hasher)} returns {@code false}. This becomes likely as the load
+ * factor approaches {@link CuckooShape#MAX_LOAD_FACTOR}.</p>
+ *
+ * <p>The filter stores one fingerprint each time an item is added, so an item may be added a limited number of times
+ * ({@code 2 * BUCKET_SIZE} at most) and removed the same number of times. Removing an item that was not added may
+ * remove the fingerprint of another item that shares its fingerprint and bucket, which creates a false negative for
+ * that item.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @see CuckooShape
+ * @since 4.5.0
+ */
+public final class CuckooFilter {
+
+    /**
+     * The default maximum number of fingerprints moved when adding an item: {@value}.
+     */
+    public static final int DEFAULT_MAX_KICKS = 500;
+
+    /**
+     * The shape used to take the hash values from a hasher that is not an {@link EnhancedDoubleHasher}.
+     */
+    private static final Shape HASH_SHAPE = Shape.fromKM(2, Integer.MAX_VALUE);
+
+    /**
+     * The multiplier used to hash a fingerprint for the alternate bucket. This is the MurmurHash2 constant.
+     */
+    private static final int FINGERPRINT_MULTIPLIER = 0x5bd1e995;
+
+    /**
+     * The shape of the table.
+     */
+    private final CuckooShape shape;
+
+    /**
+     * The maximum number of fingerprints moved when adding an item.
+     */
+    private final int maxKicks;
+
+    /**
+     * The number of bits in each fingerprint.
+     */
+    private final int fingerprintBits;
+
+    /**
+     * The mask of the fingerprint bits.
+     */
+    private final long fingerprintMask;
+
+    /**
+     * The mask of the bucket index.
+     */
+    private final int bucketMask;
+
+    /**
+     * The packed fingerprints. An empty slot has a fingerprint of zero.
+     */
+    private final long[] table;
+
+    /**
+     * The slots changed while moving fingerprints, used to undo a failed insertion.
+     */
+    private final long[] kickPath;
+
+    /**
+     * The number of fingerprints in the table.
+     */
+    private int size;
+
+    /**
+     * The state of the generator used to choose the fingerprint to move.
+     */
+    private long seed;
+
+    /**
+     * The hash values of the most recent item. The first selects the bucket and the second the fingerprint.
+     */
+    private final long[] hash = new long[2];
+
+    /**
+     * Constructs an empty filter with the {@link #DEFAULT_MAX_KICKS}.
+     *
+     * @param shape the shape of the table.
+     */
+    public CuckooFilter(final CuckooShape shape) {
+        this(shape, DEFAULT_MAX_KICKS);
+    }
+
+    /**
+     * Constructs an empty filter.
+     *
+     * @param shape the shape of the table.
+     * @param maxKicks the maximum number of fingerprints moved when adding an item.
+     * @throws IllegalArgumentException if the maximum number of kicks is negative.
+     */
+    public CuckooFilter(final CuckooShape shape, final int maxKicks) {
+        this.shape = Objects.requireNonNull(shape, "shape");
+        if (maxKicks < 0) {
+            throw new IllegalArgumentException("Maximum kicks must not be negative: " + maxKicks);
+        }
+        this.maxKicks = maxKicks;
+        this.fingerprintBits = shape.getFingerprintBits();
+        this.fingerprintMask = (1L << fingerprintBits) - 1;
+        this.bucketMask = shape.getNumberOfBuckets() - 1;
+        this.table = new long[(int) (((long) shape.getCapacity() * fingerprintBits + Long.SIZE - 1) >>> 6)];
+        this.kickPath = new long[maxKicks];
+        this.seed = 0x9e3779b97f4a7c15L;
+    }
+
+    private CuckooFilter(final CuckooFilter source) {
+        this.shape = source.shape;
+        this.maxKicks = source.maxKicks;
+        this.fingerprintBits = source.fingerprintBits;
+        this.fingerprintMask = source.fingerprintMask;
+        this.bucketMask = source.bucketMask;
+        this.table = source.table.clone();
+        this.kickPath = new long[maxKicks];
+        this.size = source.size;
+        this.seed = source.seed;
+    }
+
+    /**
+     * Adds the item identified by the hasher.
+     *
+     * @param hasher the hasher for the item.
+     * @return {@code true} if the item was added; {@code false} if no free slot was found within the maximum number of
+     *         kicks, in which case the filter is unchanged.
+     */
+    public boolean add(final Hasher hasher) {
+        hash(hasher);
+        int fingerprint = fingerprint(hash[1]);
+        final int i1 = (int) hash[0] & bucketMask;
+        final int i2 = alternateBucket(i1, fingerprint);
+        if (insert(i1, fingerprint) || insert(i2, fingerprint)) {
+            size++;
+            return true;
+        }
+        int bucket = nextRandom() < 0 ? i1 : i2;
+        for (int kick = 0; kick < maxKicks; kick++) {
+            // swap the fingerprint with a random entry of the bucket
+            final long slot = (long) bucket * CuckooShape.BUCKET_SIZE + (nextRandom() >>> 62);
+            final int victim = get(slot);
+            set(slot, fingerprint);
+            kickPath[kick] = slot;
+            fingerprint = victim;
+            bucket = alternateBucket(bucket, fingerprint);
+            if (insert(bucket, fingerprint)) {
+                size++;
+                return true;
+            }
+        }
+        // undo the moves in reverse order
+        for (int kick = maxKicks - 1; kick >= 0; kick--) {
+            final long slot = kickPath[kick];
+            final int moved = get(slot);
+            set(slot, fingerprint);
+            fingerprint = moved;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the alternate bucket of a fingerprint. This is the same operation in both directions.
+     *
+     * @param bucket the bucket.
+     * @param fingerprint the fingerprint.
+     * @return the alternate bucket.
+     */
+    private int alternateBucket(final int bucket, final int fingerprint) {
+        return (bucket ^ fingerprint * FINGERPRINT_MULTIPLIER) & bucketMask;
+    }
+
+    /**
+     * Removes all the items from the filter.
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+        size = 0;
+    }
+
+    /**
+     * Returns {@code true} if the filter may contain the item identified by the hasher.
+     *
+     * @param hasher the hasher for the item.
+     * @return {@code true} if the item may have been added, {@code false} if it has definitely not been added.
+     */
+    public boolean contains(final Hasher hasher) {
+        hash(hasher);
+        final int fingerprint = fingerprint(hash[1]);
+        final int i1 = (int) hash[0] & bucketMask;
+        return find(i1, fingerprint) >= 0 || find(alternateBucket(i1, fingerprint), fingerprint) >= 0;
+    }
+
+    /**
+     * Creates a copy of this filter.
+     *
+     * @return a copy of this filter.
+     */
+    public CuckooFilter copy() {
+        return new CuckooFilter(this);
+    }
+
+    /**
+     * Finds the fingerprint in the bucket.
+     *
+     * @param bucket the bucket.
+     * @param fingerprint the fingerprint; use zero to find an empty slot.
+     * @return the slot, or -1 if not found.
+     */
+    private long find(final int bucket, final int fingerprint) {
+        final long start = (long) bucket * CuckooShape.BUCKET_SIZE;
+        for (long slot = start; slot < start + CuckooShape.BUCKET_SIZE; slot++) {
+            if (get(slot) == fingerprint) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Creates a non-zero fingerprint from the hash value.
+     *
+     * @param value the hash value.
+     * @return the fingerprint in the range {@code [1, 2^f - 1]}.
+     */
+    private int fingerprint(final long value) {
+        return (int) (Long.remainderUnsigned(value, fingerprintMask) + 1);
+    }
+
+    /**
+     * Gets the fingerprint in the slot.
+     *
+     * @param slot the slot.
+     * @return the fingerprint; zero if the slot is empty.
+     */
+    private int get(final long slot) {
+        final long position = slot * fingerprintBits;
+        final int index = (int) (position >>> 6);
+        final int offset = (int) position & Long.SIZE - 1;
+        long value = table[index] >>> offset;
+        if (offset + fingerprintBits > Long.SIZE) {
+            value |= table[index + 1] << Long.SIZE - offset;
+        }
+        return (int) (value & fingerprintMask);
+    }
+
+    /**
+     * Gets the maximum number of fingerprints moved when adding an item.
+     *
+     * @return the maximum number of kicks.
+     */
+    public int getMaxKicks() {
+        return maxKicks;
+    }
+
+    /**
+     * Gets the shape of the table.
+     *
+     * @return the shape.
+     */
+    public CuckooShape getShape() {
+        return shape;
+    }
+
+    /**
+     * Computes the hash values of the hasher into the {@code hash} array.
+     *
+     * @param hasher the hasher.
+     */
+    private void hash(final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        // subclasses may override the indices
+        if (hasher.getClass() == EnhancedDoubleHasher.class) {
+            final EnhancedDoubleHasher h = (EnhancedDoubleHasher) hasher;
+            hash[0] = h.getInitial();
+            hash[1] = h.getIncrement();
+        } else {
+            final int[] count = {0};
+            hasher.indices(HASH_SHAPE).processIndices(idx -> {
+                hash[count[0]++] = idx;
+                return count[0] < hash.length;
+            });
+            if (count[0] < hash.length) {
+                throw new IllegalArgumentException("Hasher must produce at least 2 indices");
+            }
+        }
+    }
+
+    /**
+     * Inserts the fingerprint into an empty slot of the bucket.
+     *
+     * @param bucket the bucket.
+     * @param fingerprint the fingerprint.
+     * @return {@code true} if the bucket had an empty slot.
+     */
+    private boolean insert(final int bucket, final int fingerprint) {
+        final long slot = find(bucket, 0);
+        if (slot < 0) {
+            return false;
+        }
+        set(slot, fingerprint);
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the filter contains no items.
+     *
+     * @return {@code true} if the filter is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the next value of a SplitMix64 generator.
+     *
+     * @return the next random value.
+     */
+    private long nextRandom() {
+        long z = seed += 0x9e3779b97f4a7c15L;
+        z = (z ^ z >>> 30) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ z >>> 27) * 0x94d049bb133111ebL;
+        return z ^ z >>> 31;
+    }
+
+    /**
+     * Removes one copy of the item identified by the hasher.
+     *
+     * @param hasher the hasher for the item.
+     * @return {@code true} if a fingerprint for the item was found and removed.
+     */
+    public boolean remove(final Hasher hasher) {
+        hash(hasher);
+        final int fingerprint = fingerprint(hash[1]);
+        final int i1 = (int) hash[0] & bucketMask;
+        long slot = find(i1, fingerprint);
+        if (slot < 0) {
+            slot = find(alternateBucket(i1, fingerprint), fingerprint);
+            if (slot < 0) {
+                return false;
+            }
+        }
+        set(slot, 0);
+        size--;
+        return true;
+    }
+
+    /**
+     * Sets the fingerprint in the slot.
+     *
+     * @param slot the slot.
+     * @param fingerprint the fingerprint; zero to empty the slot.
+     */
+    private void set(final long slot, final int fingerprint) {
+        final long position = slot * fingerprintBits;
+        final int index = (int) (position >>> 6);
+        final int offset = (int) position & Long.SIZE - 1;
+        final long value = fingerprint & fingerprintMask;
+        table[index] = table[index] & ~(fingerprintMask << offset) | value << offset;
+        if (offset + fingerprintBits > Long.SIZE) {
+            final int shift = Long.SIZE - offset;
+            table[index + 1] = table[index + 1] & ~(fingerprintMask >>> shift) | value >>> shift;
+        }
+    }
+
+    /**
+     * Gets the number of fingerprints in the filter.
+     *
+     * @return the number of items.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+/**
+ * The definition of a {@link CuckooFilter} table.
+ *
+ * <p>A cuckoo filter table is defined by the number of buckets ({@code m}) and the number of bits in each fingerprint
+ * ({@code f}). Each bucket holds {@link #BUCKET_SIZE} fingerprints. The number of buckets is a power of 2 so that the
+ * alternate bucket of a fingerprint can be computed from either bucket.</p>
+ *
+ * <p>The false positive probability is independent of the number of items while the table is not full. A query
+ * compares the fingerprint against {@code 2 * BUCKET_SIZE} stored fingerprints, each of which matches with a
+ * probability of {@code 1 / (2^f - 1)}:</p>
+ *
+ * <pre>p = 1 - pow(1 - 1 / (2^f - 1), 2 * BUCKET_SIZE)</pre>
+ *
+ * <p>Insertion becomes likely to fail as the load factor approaches {@link #MAX_LOAD_FACTOR}, so a table is sized for
+ * the expected number of items at that load factor. Very small fingerprints have few distinct alternate buckets and may
+ * fail to reach this load factor.</p>
+ *
+ * <p>Interesting sources:</p>
+ * <ul>
+ * <li>Fan, Andersen, Kaminsky and Mitzenmacher (2014) "Cuckoo Filter: Practically Better Than Bloom",
+ * <a href="https://www.cs.cmu.edu/~dga/papers/cuckoo-conext2014.pdf">CoNEXT 2014</a></li>
+ * </ul>
+ *
+ * @see CuckooFilter
+ * @see Shape
+ * @since 4.5.0
+ */
+public final class CuckooShape {
+
+    /**
+     * The number of fingerprints in each bucket: {@value}.
+     */
+    public static final int BUCKET_SIZE = 4;
+
+    /**
+     * The load factor that a table with buckets of {@link #BUCKET_SIZE} fingerprints is expected to reach before
+     * insertion fails: {@value}.
+     */
+    public static final double MAX_LOAD_FACTOR = 0.95;
+
+    /**
+     * The minimum number of bits in a fingerprint: {@value}.
+     */
+    public static final int MIN_FINGERPRINT_BITS = 4;
+
+    /**
+     * The maximum number of bits in a fingerprint: {@value}.
+     */
+    public static final int MAX_FINGERPRINT_BITS = 32;
+
+    /**
+     * The maximum number of buckets: {@value}. This limits the capacity of the table to a positive {@code int}.
+     */
+    public static final int MAX_BUCKETS = 1 << 28;
+
+    /**
+     * Check the number of buckets is a positive power of 2 no greater than {@link #MAX_BUCKETS}.
+     *
+     * @param numberOfBuckets the number of buckets.
+     * @return the number of buckets.
+     * @throws IllegalArgumentException if the number of buckets is invalid.
+     */
+    private static int checkNumberOfBuckets(final int numberOfBuckets) {
+        if (numberOfBuckets < 1 || numberOfBuckets > MAX_BUCKETS || Integer.bitCount(numberOfBuckets) != 1) {
+            throw new IllegalArgumentException(String.format("Number of buckets must be a power of 2 in the range [1, %d]: %d",
+                    MAX_BUCKETS, numberOfBuckets));
+        }
+        return numberOfBuckets;
+    }
+
+    /**
+     * Check the number of fingerprint bits is in the range [{@link #MIN_FINGERPRINT_BITS},
+     * {@link #MAX_FINGERPRINT_BITS}].
+     *
+     * @param fingerprintBits the number of fingerprint bits.
+     * @return the number of fingerprint bits.
+     * @throws IllegalArgumentException if the number of fingerprint bits is invalid.
+     */
+    private static int checkFingerprintBits(final int fingerprintBits) {
+        if (fingerprintBits < MIN_FINGERPRINT_BITS || fingerprintBits > MAX_FINGERPRINT_BITS) {
+            throw new IllegalArgumentException(String.format("Fingerprint bits must be in the range [%d, %d]: %d",
+                    MIN_FINGERPRINT_BITS, MAX_FINGERPRINT_BITS, fingerprintBits));
+        }
+        return fingerprintBits;
+    }
+
+    /**
+     * Constructs a cuckoo shape from the number of buckets and the number of bits in each fingerprint.
+     *
+     * @param numberOfBuckets the number of buckets; must be a power of 2.
+     * @param fingerprintBits the number of bits in each fingerprint.
+     * @return a valid shape.
+     * @throws IllegalArgumentException if the number of buckets is not a power of 2 in the range
+     *                                  [1, {@link #MAX_BUCKETS}], or the number of fingerprint bits is not in the range
+     *                                  [{@link #MIN_FINGERPRINT_BITS}, {@link #MAX_FINGERPRINT_BITS}].
+     */
+    public static CuckooShape fromMF(final int numberOfBuckets, final int fingerprintBits) {
+        return new CuckooShape(checkNumberOfBuckets(numberOfBuckets), checkFingerprintBits(fingerprintBits));
+    }
+
+    /**
+     * Constructs a cuckoo shape from the expected number of items and the desired false positive probability.
+     *
+     * <p>The number of fingerprint bits is the smallest that achieves the probability, and the number of buckets is the
+     * smallest power of 2 that holds the number of items at the {@link #MAX_LOAD_FACTOR}.</p>
+     *
+     * @param numberOfItems the expected number of items.
+     * @param probability the desired false positive probability.
+     * @return a valid shape.
+     * @throws IllegalArgumentException if the number of items is not greater than 0, the probability is not in the
+     *                                  range {@code (0, 1)}, or the resulting shape is too large.
+     */
+    public static CuckooShape fromNP(final int numberOfItems, final double probability) {
+        if (numberOfItems < 1) {
+            throw new IllegalArgumentException("Number of items must be greater than 0: " + numberOfItems);
+        }
+        // Using the negation of within the desired range will catch NaN
+        if (!(probability > 0.0 && probability < 1.0)) {
+            throw new IllegalArgumentException("Probability must be greater than 0 and less than 1: " + probability);
+        }
+        // Solve p = 1 - (1 - 1 / (2^f - 1))^(2b) for f
+        final double q = -Math.expm1(Math.log1p(-probability) / (2 * BUCKET_SIZE));
+        final int fingerprintBits = Math.max(MIN_FINGERPRINT_BITS, (int) Math.ceil(Math.log(1 / q + 1) / Math.log(2)));
+        final double buckets = Math.ceil(numberOfItems / (BUCKET_SIZE * MAX_LOAD_FACTOR));
+        if (buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Number of items requires more than the maximum number of buckets: " + numberOfItems);
+        }
+        final int numberOfBuckets = Integer.highestOneBit((int) buckets - 1) << 1;
+        return fromMF(Math.max(1, numberOfBuckets), checkFingerprintBits(fingerprintBits));
+    }
+
+    /**
+     * The number of buckets.
+     */
+    private final int numberOfBuckets;
+
+    /**
+     * The number of bits in each fingerprint.
+     */
+    private final int fingerprintBits;
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param numberOfBuckets the number of buckets.
+     * @param fingerprintBits the number of bits in each fingerprint.
+     */
+    private CuckooShape(final int numberOfBuckets, final int fingerprintBits) {
+        this.numberOfBuckets = numberOfBuckets;
+        this.fingerprintBits = fingerprintBits;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj instanceof CuckooShape) {
+            final CuckooShape other = (CuckooShape) obj;
+            return numberOfBuckets == other.numberOfBuckets && fingerprintBits == other.fingerprintBits;
+        }
+        return false;
+    }
+
+    /**
+     * Estimates the maximum number of items that can be added to a table of this shape before insertion is likely to
+     * fail. This is the capacity at the {@link #MAX_LOAD_FACTOR}.
+     *
+     * @return the estimated maximum number of items.
+     */
+    public int estimateMaxN() {
+        return (int) (getCapacity() * MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Gets the number of fingerprints the table can hold.
+     *
+     * @return the number of buckets multiplied by the {@link #BUCKET_SIZE}.
+     */
+    public int getCapacity() {
+        return numberOfBuckets * BUCKET_SIZE;
+    }
+
+    /**
+     * Gets the number of bits in each fingerprint.
+     *
+     * @return the number of bits in each fingerprint.
+     */
+    public int getFingerprintBits() {
+        return fingerprintBits;
+    }
+
+    /**
+     * Gets the number of buckets.
+     *
+     * @return the number of buckets.
+     */
+    public int getNumberOfBuckets() {
+        return numberOfBuckets;
+    }
+
+    /**
+     * Calculates the upper bound of the probability of false positives for a table of this shape. This assumes all the
+     * buckets are full.
+     *
+     * @return the probability of false positives.
+     */
+    public double getProbability() {
+        final double q = 1.0 / ((1L << fingerprintBits) - 1);
+        return -Math.expm1(2 * BUCKET_SIZE * Math.log1p(-q));
+    }
+
+    @Override
+    public int hashCode() {
+        // Match Arrays.hashCode(new int[] {numberOfBuckets, fingerprintBits})
+        return (31 + numberOfBuckets) * 31 + fingerprintBits;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CuckooShape[m=%s f=%s]", numberOfBuckets, fingerprintBits);
+    }
+}
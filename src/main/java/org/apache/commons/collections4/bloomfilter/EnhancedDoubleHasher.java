@@ -42,10 +42,227 @@ import java.util.function.IntPredicate;
  * than the number of bits then the modulus will create a 'random' position and increment within the size.
  * </p>
  *
+ * <h2>Hashing primitive keys</h2>
+ *
+ * <p>The static factories {@link #fromInt(int)}, {@link #fromLong(long)}, {@link #fromLong(long, long)} and
+ * {@link #fromCharSequence(CharSequence)} compute the 128-bit x64 variant of MurmurHash3 of the key directly and use the
+ * two halves of the hash as the {@code initial} and {@code increment}. This avoids serializing each key into a new byte
+ * array to use the {@link #EnhancedDoubleHasher(byte[])} constructor.</p>
+ *
  * @since 4.5.0
  */
 public class EnhancedDoubleHasher implements Hasher {
 
+    /**
+     * The first MurmurHash3 x64 128-bit mixing constant.
+     */
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    /**
+     * The second MurmurHash3 x64 128-bit mixing constant.
+     */
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    /**
+     * The shape used to take the indices of a hasher to create hash values.
+     */
+    private static final Shape HASH_SHAPE = Shape.fromKM(2, Integer.MAX_VALUE);
+
+    /**
+     * Packs characters into a long in little-endian order.
+     *
+     * @param chars the characters.
+     * @param offset the offset of the first character.
+     * @param count the number of characters; at most 4.
+     * @return the packed characters.
+     */
+    private static long charsToLong(final CharSequence chars, final int offset, final int count) {
+        long k = 0;
+        for (int i = 0; i < count; i++) {
+            k |= (long) chars.charAt(offset + i) << i * Character.SIZE;
+        }
+        return k;
+    }
+
+    /**
+     * Performs the final avalanche mix of a MurmurHash3 64-bit hash.
+     *
+     * @param hash the hash.
+     * @return the mixed hash.
+     */
+    private static long fmix64(final long hash) {
+        long h = hash;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Creates a hasher from the 128-bit MurmurHash3 state by applying the finalization step.
+     *
+     * @param h1 the first half of the hash state.
+     * @param h2 the second half of the hash state.
+     * @param length the number of bytes hashed.
+     * @return the hasher.
+     */
+    private static EnhancedDoubleHasher finish(final long h1, final long h2, final long length) {
+        long a = h1 ^ length;
+        long b = h2 ^ length;
+        a += b;
+        b += a;
+        a = fmix64(a);
+        b = fmix64(b);
+        a += b;
+        b += a;
+        return new EnhancedDoubleHasher(a, b);
+    }
+
+    /**
+     * Creates a hasher from the 128-bit x64 MurmurHash3 of the characters of a {@link CharSequence}.
+     *
+     * <p>The hash is equal to the MurmurHash3 with a seed of zero of the UTF-16LE encoding of the characters. The
+     * characters are read directly from the sequence; no encoded byte array is created.</p>
+     *
+     * @param chars the characters to hash.
+     * @return a hasher for the characters.
+     */
+    public static EnhancedDoubleHasher fromCharSequence(final CharSequence chars) {
+        Objects.requireNonNull(chars, "chars");
+        final int length = chars.length();
+        long h1 = 0;
+        long h2 = 0;
+        // each block of 16 bytes is 8 characters
+        final int blockEnd = length & ~7;
+        int i = 0;
+        for (; i < blockEnd; i += 8) {
+            h1 ^= mixK1(charsToLong(chars, i, 4));
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(charsToLong(chars, i + 4, 4));
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        final int remaining = length - i;
+        if (remaining > 4) {
+            h2 ^= mixK2(charsToLong(chars, i + 4, remaining - 4));
+        }
+        if (remaining > 0) {
+            h1 ^= mixK1(charsToLong(chars, i, Math.min(remaining, 4)));
+        }
+        return finish(h1, h2, (long) length << 1);
+    }
+
+    /**
+     * Creates a hasher from the 128-bit x64 MurmurHash3 of an {@code int} key.
+     *
+     * <p>The hash is equal to the MurmurHash3 with a seed of zero of the 4 bytes of the key in little-endian
+     * order.</p>
+     *
+     * @param key the key to hash.
+     * @return a hasher for the key.
+     */
+    public static EnhancedDoubleHasher fromInt(final int key) {
+        return finish(mixK1(key & 0xffffffffL), 0, Integer.BYTES);
+    }
+
+    /**
+     * Creates a hasher from the 128-bit x64 MurmurHash3 of a {@code long} key.
+     *
+     * <p>The hash is equal to the MurmurHash3 with a seed of zero of the 8 bytes of the key in little-endian
+     * order.</p>
+     *
+     * @param key the key to hash.
+     * @return a hasher for the key.
+     */
+    public static EnhancedDoubleHasher fromLong(final long key) {
+        return finish(mixK1(key), 0, Long.BYTES);
+    }
+
+    /**
+     * Creates a hasher from the 128-bit x64 MurmurHash3 of a key of two {@code long} values, such as a
+     * {@link java.util.UUID UUID}:
+     *
+     * <pre>
+     * Hasher hasher = EnhancedDoubleHasher.fromLong(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+     * </pre>
+     *
+     * <p>The hash is equal to the MurmurHash3 with a seed of zero of the 16 bytes of the first and then the second
+     * value, each in little-endian order.</p>
+     *
+     * @param key1 the first value of the key.
+     * @param key2 the second value of the key.
+     * @return a hasher for the key.
+     */
+    public static EnhancedDoubleHasher fromLong(final long key1, final long key2) {
+        long h1 = mixK1(key1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 = h1 * 5 + 0x52dce729;
+        long h2 = mixK2(key2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+        return finish(h1, h2, 2 * Long.BYTES);
+    }
+
+    /**
+     * Gets two 64-bit hash values for the item of a hasher. This allows structures other than Bloom filters to consume
+     * any hasher.
+     *
+     * <p>For an {@code EnhancedDoubleHasher} the values are the {@code initial} and {@code increment}. For other hashers
+     * the first two indices produced for a shape of {@link Integer#MAX_VALUE} bits are combined and mixed into two
+     * values. These have at most 62 bits of entropy.</p>
+     *
+     * @param hasher the hasher.
+     * @param hash the array to receive the two hash values.
+     * @throws IllegalArgumentException if the hasher produces fewer than 2 indices.
+     */
+    static void hashValues(final Hasher hasher, final long[] hash) {
+        Objects.requireNonNull(hasher, "hasher");
+        // subclasses may override the indices
+        if (hasher.getClass() == EnhancedDoubleHasher.class) {
+            final EnhancedDoubleHasher h = (EnhancedDoubleHasher) hasher;
+            hash[0] = h.initial;
+            hash[1] = h.increment;
+        } else {
+            final long[] value = {0};
+            final int[] count = {0};
+            hasher.indices(HASH_SHAPE).processIndices(idx -> {
+                value[0] = value[0] << Integer.SIZE | idx;
+                return ++count[0] < 2;
+            });
+            if (count[0] < 2) {
+                throw new IllegalArgumentException("Hasher must produce at least 2 indices");
+            }
+            hash[0] = fmix64(value[0]);
+            hash[1] = fmix64(value[0] + 0x9e3779b97f4a7c15L);
+        }
+    }
+
+    /**
+     * Mixes the first 64-bit key of a MurmurHash3 block.
+     *
+     * @param k1 the key.
+     * @return the mixed key.
+     */
+    private static long mixK1(final long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    /**
+     * Mixes the second 64-bit key of a MurmurHash3 block.
+     *
+     * @param k2 the key.
+     * @return the mixed key.
+     */
+    private static long mixK2(final long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
     /**
      * Convert bytes to big-endian long filling with zero bytes as necessary.
      *
@@ -116,6 +333,48 @@ public class EnhancedDoubleHasher implements Hasher {
         this.increment = increment;
     }
 
+    /**
+     * Writes the indices for the shape to the array. This is the same sequence of indices, including duplicates, as
+     * produced by the {@link #indices(Shape)} extractor.
+     *
+     * @param shape the shape of the desired Bloom filter.
+     * @param indices the destination array; must have room for the number of hash functions of the shape after the
+     *                offset.
+     * @param offset the position of the first index in the array.
+     * @return the position after the last index written.
+     */
+    int fillIndices(final Shape shape, final int[] indices, final int offset) {
+        final int bits = shape.getNumberOfBits();
+        final int k = shape.getNumberOfHashFunctions();
+        // See the IndexExtractor processIndices method for a description of the algorithm.
+        int index = BitMaps.mod(initial, bits);
+        int inc = BitMaps.mod(increment, bits);
+        int p = offset;
+        indices[p++] = index;
+        if (k >= bits) {
+            int tet = 1;
+            for (int i = 1; i < k; i++) {
+                index -= inc;
+                index = index < 0 ? index + bits : index;
+                indices[p++] = index;
+                inc -= tet;
+                inc = inc < 0 ? inc + bits : inc;
+                if (++tet == bits) {
+                    tet = 0;
+                }
+            }
+        } else {
+            for (int i = 1; i < k; i++) {
+                index -= inc;
+                index = index < 0 ? index + bits : index;
+                indices[p++] = index;
+                inc -= i;
+                inc = inc < 0 ? inc + bits : inc;
+            }
+        }
+        return p;
+    }
+
     /**
      * Gets the increment value for the hash calculation.
      *
@@ -142,15 +401,9 @@ public class EnhancedDoubleHasher implements Hasher {
 
             @Override
             public int[] asIndexArray() {
-                final int[] result = new int[shape.getNumberOfHashFunctions()];
-                final int[] idx = new int[1];
-
                 // This method needs to return duplicate indices
-
-                processIndices(i -> {
-                    result[idx[0]++] = i;
-                    return true;
-                });
+                final int[] result = new int[shape.getNumberOfHashFunctions()];
+                fillIndices(shape, result, 0);
                 return result;
             }
 
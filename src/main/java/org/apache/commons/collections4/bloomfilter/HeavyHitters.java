@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Tracks the most frequent items of a stream using a {@link CountMinSketch}.
+ *
+ * <p>Each item added is counted in the sketch, and the items with the {@code k} largest estimated frequencies are
+ * kept as candidates. An item replaces the least frequent candidate when its estimated frequency is larger. The
+ * memory used is that of the sketch and {@code k} candidates, regardless of the number of distinct items.</p>
+ *
+ * <p>As the estimates of the sketch are never less than the true frequencies, an item that occurs more than
+ * {@code epsilon * N} times beyond the {@code k}-th largest frequency is reported, where {@code epsilon} is the error
+ * of the sketch and {@code N} the total count. Infrequent items may be reported while fewer than {@code k} items are
+ * frequent.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @param <K> the type of the items.
+ * @since 4.5.0
+ */
+public final class HeavyHitters<K> {
+
+    /**
+     * The initial capacity of the candidate heap.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The sketch of the frequencies.
+     */
+    private final CountMinSketch sketch;
+
+    /**
+     * The maximum number of candidates.
+     */
+    private final int k;
+
+    /**
+     * The function to create the hasher for an item.
+     */
+    private final Function<? super K, ? extends Hasher> hasherFunction;
+
+    /**
+     * The position of each candidate in the heap.
+     */
+    private final Map<K, Integer> positions;
+
+    /**
+     * The candidates, as a binary min-heap ordered by estimated frequency.
+     */
+    private Object[] items;
+
+    /**
+     * The estimated frequencies of the candidates, in heap order.
+     */
+    private int[] counts;
+
+    /**
+     * The number of candidates.
+     */
+    private int size;
+
+    /**
+     * Constructs an instance.
+     *
+     * @param sketch the sketch to count the items; items already added are not candidates.
+     * @param k the number of most frequent items to track.
+     * @param hasherFunction the function to create the hasher for an item, for example
+     *                       {@code s -> EnhancedDoubleHasher.fromCharSequence(s)}.
+     * @throws IllegalArgumentException if {@code k < 1}.
+     */
+    public HeavyHitters(final CountMinSketch sketch, final int k, final Function<? super K, ? extends Hasher> hasherFunction) {
+        this.sketch = Objects.requireNonNull(sketch, "sketch");
+        this.hasherFunction = Objects.requireNonNull(hasherFunction, "hasherFunction");
+        if (k < 1) {
+            throw new IllegalArgumentException("Number of items must be at least 1: " + k);
+        }
+        this.k = k;
+        this.positions = new HashMap<>();
+        this.items = new Object[Math.min(k, INITIAL_CAPACITY)];
+        this.counts = new int[items.length];
+    }
+
+    /**
+     * Adds one occurrence of the item.
+     *
+     * @param item the item.
+     * @return the estimated frequency of the item after it is added.
+     */
+    public int add(final K item) {
+        return add(item, 1);
+    }
+
+    /**
+     * Adds occurrences of the item.
+     *
+     * <p>The least frequent candidate is the root of a heap, so finding, replacing or updating a candidate takes
+     * {@code O(log k)} time.</p>
+     *
+     * @param item the item.
+     * @param count the number of occurrences.
+     * @return the estimated frequency of the item after it is added.
+     * @throws IllegalArgumentException if the count is negative.
+     */
+    public int add(final K item, final int count) {
+        Objects.requireNonNull(item, "item");
+        final int estimate = sketch.add(hasherFunction.apply(item), count);
+        final Integer position = positions.get(item);
+        if (position != null) {
+            counts[position] = estimate;
+            fix(position);
+        } else if (size < k) {
+            if (size == items.length) {
+                final int capacity = (int) Math.min(k, 2L * size);
+                items = Arrays.copyOf(items, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+            }
+            set(size, item, estimate);
+            siftUp(size++);
+        } else if (estimate > counts[0]) {
+            positions.remove(items[0]);
+            set(0, item, estimate);
+            siftDown(0);
+        }
+        return estimate;
+    }
+
+    /**
+     * Removes all the items from the sketch and the candidates.
+     */
+    public void clear() {
+        sketch.clear();
+        positions.clear();
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Restores the heap order after the frequency of the candidate at the position has changed.
+     *
+     * @param position the position of the candidate.
+     */
+    private void fix(final int position) {
+        if (position > 0 && counts[position] < counts[position - 1 >>> 1]) {
+            siftUp(position);
+        } else {
+            siftDown(position);
+        }
+    }
+
+    /**
+     * Gets the most frequent items and their estimated frequencies, in order of decreasing frequency.
+     *
+     * @return the most frequent items; at most {@code k} items.
+     */
+    public Map<K, Integer> getHeavyHitters() {
+        final List<Map.Entry<K, Integer>> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(item(i), counts[i]));
+        }
+        entries.sort(Map.Entry.<K, Integer>comparingByValue().reversed());
+        final Map<K, Integer> result = new LinkedHashMap<>();
+        entries.forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    /**
+     * Gets the number of most frequent items to track.
+     *
+     * @return the number of items.
+     */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Gets the sketch used to count the items.
+     *
+     * @return the sketch.
+     */
+    public CountMinSketch getSketch() {
+        return sketch;
+    }
+
+    /**
+     * Gets the candidate at the position in the heap.
+     *
+     * @param position the position.
+     * @return the candidate.
+     */
+    @SuppressWarnings("unchecked")
+    private K item(final int position) {
+        return (K) items[position];
+    }
+
+    /**
+     * Places a candidate at the position in the heap.
+     *
+     * @param position the position.
+     * @param item the candidate.
+     * @param count the estimated frequency of the candidate.
+     */
+    private void set(final int position, final K item, final int count) {
+        items[position] = item;
+        counts[position] = count;
+        positions.put(item, position);
+    }
+
+    /**
+     * Moves the candidate at the position towards the leaves until it is not more frequent than its children.
+     *
+     * @param start the position of the candidate.
+     */
+    private void siftDown(final int start) {
+        int position = start;
+        final K item = item(start);
+        final int count = counts[start];
+        final int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (count <= counts[child]) {
+                break;
+            }
+            set(position, item(child), counts[child]);
+            position = child;
+        }
+        set(position, item, count);
+    }
+
+    /**
+     * Moves the candidate at the position towards the root until it is not less frequent than its parent.
+     *
+     * @param start the position of the candidate.
+     */
+    private void siftUp(final int start) {
+        int position = start;
+        final K item = item(start);
+        final int count = counts[start];
+        while (position > 0) {
+            final int parent = position - 1 >>> 1;
+            if (counts[parent] <= count) {
+                break;
+            }
+            set(position, item(parent), counts[parent]);
+            position = parent;
+        }
+        set(position, item, count);
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A HyperLogLog sketch to estimate the number of distinct items.
+ *
+ * <p>Unlike {@link Shape#estimateN(int)} for a Bloom filter, the relative error of the estimate does not grow with the
+ * number of items. The standard error is approximately {@code 1.04 / sqrt(m)} for {@code m = 2^precision}
+ * registers, see {@link #getStandardError()}.</p>
+ *
+ * <p>Items are added using a {@link Hasher}, so the same hasher may be merged into a Bloom filter and added to a
+ * sketch. The {@link EnhancedDoubleHasher} is recommended, for example using {@link EnhancedDoubleHasher#fromLong(long)};
+ * its {@code initial} value is used as the 64-bit hash of the item.</p>
+ *
+ * <p>Following the HyperLogLog++ algorithm of Heule, Nunkesser and Hall (2013), "HyperLogLog in Practice: Algorithmic
+ * Engineering of a State of The Art Cardinality Estimation Algorithm", a sketch starts with a sparse representation
+ * that stores the hash index for each item at a precision of {@value #SPARSE_PRECISION} bits, and estimates small
+ * cardinalities by linear counting at that precision. When the sparse representation becomes larger than a quarter of
+ * the dense registers the sketch switches to the dense representation of one register for each index. The dense
+ * estimate uses the improved estimator of Ertl (2017), "New cardinality estimation algorithms for HyperLogLog
+ * sketches", <a href="https://arxiv.org/abs/1702.01284">arXiv:1702.01284</a>, which is accurate over the full range of
+ * cardinalities without the empirical bias correction tables of HyperLogLog++.</p>
+ *
+ * <p>Sketches of the same precision can be merged without loss: the result is the sketch that would have been built
+ * from all the items of both. Thus sketches built on separate threads or nodes can be combined. The sketch can be
+ * serialized using {@link BloomFilterCodec#writeHyperLogLog(HyperLogLog, java.io.DataOutput)}.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ *
+ * @since 4.5.0
+ */
+public final class HyperLogLog {
+
+    /**
+     * The minimum precision: {@value}.
+     */
+    public static final int MIN_PRECISION = 4;
+
+    /**
+     * The maximum precision: {@value}.
+     */
+    public static final int MAX_PRECISION = 18;
+
+    /**
+     * The precision of the index in the sparse representation: {@value}.
+     */
+    static final int SPARSE_PRECISION = 25;
+
+    /**
+     * The number of bits used for the register value in a sparse entry.
+     */
+    private static final int VALUE_BITS = 6;
+
+    /**
+     * The mask of the register value in a sparse entry.
+     */
+    private static final int VALUE_MASK = (1 << VALUE_BITS) - 1;
+
+    /**
+     * The empty sparse entries.
+     */
+    private static final int[] EMPTY = {};
+
+    /**
+     * Checks the precision is in the range [{@link #MIN_PRECISION}, {@link #MAX_PRECISION}].
+     *
+     * @param precision the precision.
+     * @return the precision.
+     * @throws IllegalArgumentException if the precision is out of range.
+     */
+    private static int checkPrecision(final int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(String.format("Precision must be in the range [%d, %d]: %d", MIN_PRECISION, MAX_PRECISION, precision));
+        }
+        return precision;
+    }
+
+    /**
+     * Creates a sketch from registers. Used by the {@link BloomFilterCodec}.
+     *
+     * @param precision the precision.
+     * @param registers the registers; the array is used by the sketch.
+     * @return the sketch.
+     * @throws IllegalArgumentException if the precision, the number of registers or a register value is invalid.
+     */
+    static HyperLogLog fromRegisters(final int precision, final byte[] registers) {
+        final HyperLogLog sketch = new HyperLogLog(precision);
+        if (registers.length != 1 << precision) {
+            throw new IllegalArgumentException(String.format("Expected %d registers: %d", 1 << precision, registers.length));
+        }
+        for (final byte r : registers) {
+            if (r < 0 || r > sketch.maxRegister()) {
+                throw new IllegalArgumentException("Invalid register value: " + r);
+            }
+        }
+        sketch.entries = null;
+        sketch.registers = registers;
+        return sketch;
+    }
+
+    /**
+     * Creates a sketch from sparse entries. Used by the {@link BloomFilterCodec}.
+     *
+     * @param precision the precision.
+     * @param entries the entries in ascending order of index; the array is used by the sketch.
+     * @param size the number of entries.
+     * @return the sketch.
+     * @throws IllegalArgumentException if the precision or an entry is invalid.
+     */
+    static HyperLogLog fromSparse(final int precision, final int[] entries, final int size) {
+        final HyperLogLog sketch = new HyperLogLog(precision);
+        int previous = -1;
+        for (int i = 0; i < size; i++) {
+            final int index = entries[i] >>> VALUE_BITS;
+            final int value = entries[i] & VALUE_MASK;
+            if (entries[i] < 0 || index <= previous || value == 0 || value > sketch.maxRegister()) {
+                throw new IllegalArgumentException("Invalid sparse entry: " + entries[i]);
+            }
+            previous = index;
+        }
+        sketch.entries = entries;
+        sketch.size = size;
+        if (sketch.size > sketch.sparseLimit()) {
+            sketch.toDense();
+        }
+        return sketch;
+    }
+
+    /**
+     * Computes the sigma function of Ertl.
+     *
+     * @param x the value in the range [0, 1].
+     * @return the sigma value.
+     */
+    private static double sigma(final double x) {
+        if (x == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double a = x;
+        double y = 1;
+        double z = a;
+        double previous;
+        do {
+            a *= a;
+            previous = z;
+            z += a * y;
+            y += y;
+        } while (z != previous);
+        return z;
+    }
+
+    /**
+     * Computes the tau function of Ertl.
+     *
+     * @param x the value in the range [0, 1].
+     * @return the tau value.
+     */
+    private static double tau(final double x) {
+        if (x == 0 || x == 1) {
+            return 0;
+        }
+        double a = x;
+        double y = 1;
+        double z = 1 - a;
+        double previous;
+        do {
+            a = Math.sqrt(a);
+            previous = z;
+            y *= 0.5;
+            z -= (1 - a) * (1 - a) * y;
+        } while (z != previous);
+        return z / 3;
+    }
+
+    /**
+     * The number of bits of the hash used for the register index.
+     */
+    private final int precision;
+
+    /**
+     * The sparse entries of the index at the {@link #SPARSE_PRECISION} and the register value, in ascending order;
+     * {@code null} when dense.
+     */
+    private int[] entries;
+
+    /**
+     * The number of sparse entries.
+     */
+    private int size;
+
+    /**
+     * The registers; {@code null} when sparse.
+     */
+    private byte[] registers;
+
+    /**
+     * Constructs an empty sketch.
+     *
+     * @param precision the number of bits of the hash used for the register index. The sketch has
+     *                  {@code 2^precision} registers.
+     * @throws IllegalArgumentException if the precision is not in the range [{@link #MIN_PRECISION},
+     *                                  {@link #MAX_PRECISION}].
+     */
+    public HyperLogLog(final int precision) {
+        this.precision = checkPrecision(precision);
+        this.entries = EMPTY;
+    }
+
+    private HyperLogLog(final HyperLogLog source) {
+        this.precision = source.precision;
+        this.entries = source.entries == null ? null : Arrays.copyOf(source.entries, source.size);
+        this.size = source.size;
+        this.registers = source.registers == null ? null : source.registers.clone();
+    }
+
+    /**
+     * Adds the item identified by the hasher.
+     *
+     * @param hasher the hasher for the item.
+     * @return {@code true} if the sketch changed.
+     */
+    public boolean add(final Hasher hasher) {
+        final long[] hash = new long[2];
+        EnhancedDoubleHasher.hashValues(hasher, hash);
+        return addHash(hash[0]);
+    }
+
+    /**
+     * Adds an item using its 64-bit hash.
+     *
+     * @param hash the hash of the item.
+     * @return {@code true} if the sketch changed.
+     */
+    private boolean addHash(final long hash) {
+        // the number of leading zeros after the index bits, plus 1
+        final int value = Math.min(Long.numberOfLeadingZeros(hash << precision), Long.SIZE - precision) + 1;
+        if (registers != null) {
+            return update((int) (hash >>> Long.SIZE - precision), value);
+        }
+        return addSparse((int) (hash >>> Long.SIZE - SPARSE_PRECISION) << VALUE_BITS | value);
+    }
+
+    /**
+     * Adds the sparse entry, keeping the maximum value for the index.
+     *
+     * @param entry the entry.
+     * @return {@code true} if the sketch changed.
+     */
+    private boolean addSparse(final int entry) {
+        // entries sort by index then value, and the value is never zero
+        final int insert = -(Arrays.binarySearch(entries, 0, size, entry & ~VALUE_MASK) + 1);
+        if (insert < size && entries[insert] >>> VALUE_BITS == entry >>> VALUE_BITS) {
+            if (entries[insert] >= entry) {
+                return false;
+            }
+            entries[insert] = entry;
+            return true;
+        }
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(4, size * 2));
+        }
+        System.arraycopy(entries, insert, entries, insert + 1, size - insert);
+        entries[insert] = entry;
+        size++;
+        if (size > sparseLimit()) {
+            toDense();
+        }
+        return true;
+    }
+
+    /**
+     * Removes all the items from the sketch and returns it to the sparse representation.
+     */
+    public void clear() {
+        entries = EMPTY;
+        size = 0;
+        registers = null;
+    }
+
+    /**
+     * Creates a copy of this sketch.
+     *
+     * @return a copy of this sketch.
+     */
+    public HyperLogLog copy() {
+        return new HyperLogLog(this);
+    }
+
+    /**
+     * Estimates the number of distinct items added to the sketch.
+     *
+     * @return the estimated number of distinct items.
+     */
+    public long estimateN() {
+        if (registers == null) {
+            // linear counting at the sparse precision
+            final double m = 1 << SPARSE_PRECISION;
+            return Math.round(m * Math.log(m / (m - size)));
+        }
+        final int q = Long.SIZE - precision;
+        final int[] counts = new int[q + 2];
+        for (final byte r : registers) {
+            counts[r]++;
+        }
+        final double m = registers.length;
+        double z = m * tau(1 - counts[q + 1] / m);
+        for (int k = q; k >= 1; k--) {
+            z = 0.5 * (z + counts[k]);
+        }
+        z += m * sigma(counts[0] / m);
+        return Math.round(m * m / (2 * Math.log(2) * z));
+    }
+
+    /**
+     * Gets the sparse entries. Used by the {@link BloomFilterCodec}.
+     *
+     * @return the sparse entries in ascending order, or {@code null} if the sketch is dense.
+     */
+    int[] getEntries() {
+        return entries == null ? null : Arrays.copyOf(entries, size);
+    }
+
+    /**
+     * Gets the precision, the number of bits of the hash used for the register index.
+     *
+     * @return the precision.
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Gets the registers. Used by the {@link BloomFilterCodec}.
+     *
+     * @return the registers, or {@code null} if the sketch is sparse. The array must not be modified.
+     */
+    byte[] getRegisters() {
+        return registers;
+    }
+
+    /**
+     * Gets the approximate relative standard error of the estimate, {@code 1.04 / sqrt(2^precision)}.
+     *
+     * @return the standard error.
+     */
+    public double getStandardError() {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    /**
+     * Returns {@code true} if no items have been added to the sketch.
+     *
+     * @return {@code true} if the sketch is empty.
+     */
+    public boolean isEmpty() {
+        if (registers == null) {
+            return size == 0;
+        }
+        for (final byte r : registers) {
+            if (r != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the sketch uses the sparse representation.
+     *
+     * @return {@code true} if the sketch is sparse.
+     */
+    public boolean isSparse() {
+        return registers == null;
+    }
+
+    /**
+     * Gets the maximum register value.
+     *
+     * @return the maximum register value.
+     */
+    private int maxRegister() {
+        return Long.SIZE - precision + 1;
+    }
+
+    /**
+     * Merges the other sketch into this sketch. The result is the same as if all the items added to the other sketch
+     * had been added to this sketch.
+     *
+     * @param other the other sketch.
+     * @return {@code true} if this sketch changed.
+     * @throws IllegalArgumentException if the other sketch has a different precision.
+     */
+    public boolean merge(final HyperLogLog other) {
+        Objects.requireNonNull(other, "other");
+        if (other.precision != precision) {
+            throw new IllegalArgumentException(String.format("Precision %d does not match %d", other.precision, precision));
+        }
+        boolean changed = false;
+        if (other.registers != null) {
+            if (registers == null) {
+                toDense();
+            }
+            for (int i = 0; i < registers.length; i++) {
+                changed |= update(i, other.registers[i]);
+            }
+        } else {
+            // the other sketch may be this sketch, which is cleared of entries if it switches to dense
+            final int[] otherEntries = other.entries;
+            final int otherSize = other.size;
+            for (int i = 0; i < otherSize; i++) {
+                final int entry = otherEntries[i];
+                changed |= registers == null ? addSparse(entry) : update(entry >>> VALUE_BITS + SPARSE_PRECISION - precision, entry & VALUE_MASK);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Gets the maximum number of sparse entries before switching to the dense representation.
+     *
+     * @return the maximum number of sparse entries.
+     */
+    private int sparseLimit() {
+        // an int entry uses 4 times the memory of a byte register
+        return 1 << precision - 2;
+    }
+
+    /**
+     * Converts the sparse representation to the dense registers.
+     */
+    private void toDense() {
+        registers = new byte[1 << precision];
+        for (int i = 0; i < size; i++) {
+            final int entry = entries[i];
+            update(entry >>> VALUE_BITS + SPARSE_PRECISION - precision, entry & VALUE_MASK);
+        }
+        entries = null;
+        size = 0;
+    }
+
+    /**
+     * Updates the register to the maximum of its value and the value.
+     *
+     * @param index the register index.
+     * @param value the value.
+     * @return {@code true} if the register changed.
+     */
+    private boolean update(final int index, final int value) {
+        if (registers[index] < value) {
+            registers[index] = (byte) value;
+            return true;
+        }
+        return false;
+    }
+}
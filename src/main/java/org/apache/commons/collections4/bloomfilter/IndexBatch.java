@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.Objects;
+import java.util.function.IntPredicate;
+
+/**
+ * Collects the indices of a batch of hashers into a reusable array.
+ *
+ * <p>Batch operations load the indices for a block of hashers before accessing the Bloom filter. The filter is then
+ * accessed in a tight loop over an {@code int[]} with no callbacks, allowing the processor to issue the memory loads
+ * for many indices at once. The indices of an {@link EnhancedDoubleHasher} are computed directly into the array;
+ * other hashers use {@link Hasher#indices(Shape)}.</p>
+ *
+ * <p>This class is not thread-safe. An instance is created for each batch operation and reused for each block of
+ * hashers.</p>
+ */
+final class IndexBatch {
+
+    /**
+     * The maximum number of hashers in a block.
+     */
+    static final int BLOCK_SIZE = 64;
+
+    /**
+     * The shape used to create the indices.
+     */
+    private final Shape shape;
+
+    /**
+     * The indices of the hashers in the block.
+     */
+    private int[] indices;
+
+    /**
+     * The start of the indices of each hasher in the block. The last entry is the end of the indices.
+     */
+    private final int[] offsets = new int[BLOCK_SIZE + 1];
+
+    /**
+     * The number of indices in the block.
+     */
+    private int size;
+
+    /**
+     * Adds an index to the block.
+     */
+    private final IntPredicate adder = this::add;
+
+    /**
+     * Creates an instance.
+     *
+     * @param shape the shape used to create the indices.
+     */
+    IndexBatch(final Shape shape) {
+        this.shape = shape;
+        this.indices = new int[BLOCK_SIZE * shape.getNumberOfHashFunctions()];
+    }
+
+    /**
+     * Adds the index to the block.
+     *
+     * @param idx the index.
+     * @return {@code true} always.
+     */
+    private boolean add(final int idx) {
+        indices = IndexUtils.ensureCapacityForAdd(indices, size);
+        indices[size++] = idx;
+        return true;
+    }
+
+    /**
+     * Gets the end of the indices of the hasher in the block.
+     *
+     * @param i the position of the hasher in the block.
+     * @return the end of the indices.
+     */
+    int end(final int i) {
+        return offsets[i + 1];
+    }
+
+    /**
+     * Gets the indices of the block. Valid until the next call to {@link #load(Hasher[], int)}.
+     *
+     * @return the indices.
+     */
+    int[] indices() {
+        return indices;
+    }
+
+    /**
+     * Loads the indices of the next block of hashers.
+     *
+     * @param hashers the hashers.
+     * @param from the position of the first hasher in the block.
+     * @return the number of hashers in the block.
+     * @throws NullPointerException if a hasher is null.
+     */
+    int load(final Hasher[] hashers, final int from) {
+        final int n = Math.min(BLOCK_SIZE, hashers.length - from);
+        final int k = shape.getNumberOfHashFunctions();
+        size = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = size;
+            final Hasher hasher = Objects.requireNonNull(hashers[from + i], "hasher");
+            // subclasses may override the indices
+            if (hasher.getClass() == EnhancedDoubleHasher.class) {
+                if (size + k > indices.length) {
+                    indices = IndexUtils.ensureCapacityForAdd(indices, size + k - 1);
+                }
+                size = ((EnhancedDoubleHasher) hasher).fillIndices(shape, indices, size);
+            } else {
+                hasher.indices(shape).processIndices(adder);
+            }
+        }
+        offsets[n] = size;
+        return n;
+    }
+
+    /**
+     * Gets the start of the indices of the hasher in the block.
+     *
+     * @param i the position of the hasher in the block.
+     * @return the start of the indices.
+     */
+    int start(final int i) {
+        return offsets[i];
+    }
+}
@@ -314,6 +314,21 @@ public class LayeredBloomFilter<T extends BloomFilter<T>> implements BloomFilter
         return processBloomFilters(BloomFilter::isEmpty);
     }
 
+    /**
+     * Creates an array of references to the layers.
+     *
+     * @return the layers.
+     */
+    private BloomFilter[] layers() {
+        final BloomFilter[] layers = new BloomFilter[layerManager.getDepth()];
+        final int[] idx = new int[1];
+        processBloomFilters(bf -> {
+            layers[idx[0]++] = bf;
+            return true;
+        });
+        return layers;
+    }
+
     @Override
     public boolean merge(final BitMapExtractor bitMapExtractor) {
         return layerManager.getTarget().merge(bitMapExtractor);
@@ -340,6 +355,62 @@ public class LayeredBloomFilter<T extends BloomFilter<T>> implements BloomFilter
         layerManager.next();
     }
 
+    /**
+     * Returns {@code true} if any layer contained by this filter contains the specified filter, testing the layers in
+     * parallel. The result is the same as {@link #contains(BloomFilter)}.
+     *
+     * <p>The layers are tested using fork-join tasks in the current fork-join pool, or the common pool if not called
+     * from a fork-join task. A task tests sequentially as many layers as have at most {@code threshold} bit map words in
+     * total, and at least one layer. The tasks stop when a layer containing the filter is found. The layers must not be
+     * modified during this call.</p>
+     *
+     * @param other the other Bloom filter.
+     * @param threshold the number of bit map words processed sequentially by a task.
+     * @return {@code true} if this filter contains the other filter.
+     * @throws IllegalArgumentException if the threshold is not positive.
+     */
+    public boolean parallelContains(final BloomFilter other, final int threshold) {
+        Objects.requireNonNull(other, "other");
+        if (other instanceof BloomFilterExtractor) {
+            return ((BloomFilterExtractor) other).processBloomFilters(x -> parallelContains(x, threshold));
+        }
+        return BloomFilterTasks.contains(layers(), other, BitMaps.numberOfBitMaps(shape), threshold);
+    }
+
+    /**
+     * Finds the layers in which the Bloom filter is found, testing the layers in parallel. The result is the same as
+     * {@link #find(BloomFilter)}.
+     *
+     * <p>The layers are tested using fork-join tasks in the current fork-join pool, or the common pool if not called
+     * from a fork-join task. A task tests sequentially as many layers as have at most {@code threshold} bit map words in
+     * total, and at least one layer. The layers must not be modified during this call.</p>
+     *
+     * @param bf the Bloom filter to search for.
+     * @param threshold the number of bit map words processed sequentially by a task.
+     * @return an array of layer indices in which the Bloom filter is found.
+     * @throws IllegalArgumentException if the threshold is not positive.
+     */
+    public int[] parallelFind(final BloomFilter bf, final int threshold) {
+        Objects.requireNonNull(bf, "bf");
+        return BloomFilterTasks.find(layers(), bf, BitMaps.numberOfBitMaps(shape), threshold);
+    }
+
+    /**
+     * Create a standard (non-layered) Bloom filter by merging all of the layers in parallel. The result is the same as
+     * {@link #flatten()}.
+     *
+     * @param threshold the number of bit map words processed sequentially by a task.
+     * @return the merged bloom filter.
+     * @throws IllegalArgumentException if the threshold is not positive.
+     * @see BloomFilterExtractor#parallelFlatten(int)
+     */
+    @Override
+    public SimpleBloomFilter parallelFlatten(final int threshold) {
+        final SimpleBloomFilter bf = new SimpleBloomFilter(shape);
+        bf.merge(BitMapExtractor.fromBitMapArray(BloomFilterTasks.flatten(layers(), BitMaps.numberOfBitMaps(shape), threshold)));
+        return bf;
+    }
+
     @Override
     public boolean processBitMaps(final LongPredicate predicate) {
         return flatten().processBitMaps(predicate);
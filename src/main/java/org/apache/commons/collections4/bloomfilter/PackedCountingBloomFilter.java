@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+
+/**
+ * A counting Bloom filter using small saturating cells packed into a long array.
+ *
+ * <p>
+ * Each cell uses either 4 or 8 bits, supporting counts up to 15 or 255 respectively. Compared to the
+ * {@link ArrayCountingBloomFilter}, which uses an {@code int} for each cell, this reduces the memory consumption by a
+ * factor of 8 or 4. This is suitable when the number of items that map to any single bit index is small, which is the
+ * case for a filter that is not overloaded for its {@link Shape}.
+ * </p>
+ *
+ * <p>
+ * Any operation that would result in a negative count or a count above {@link #getMaxCell()} saturates the cell at zero
+ * or the maximum count respectively, and marks this filter as invalid. This transition is not reversible. The operation
+ * is completed in full and no exception is raised. Unlike the {@link ArrayCountingBloomFilter} the cells prior to the
+ * operation that created the invalid state cannot be recovered as the saturated cells have lost information.
+ * </p>
+ *
+ * <p>
+ * All the operations in the filter assume the cells are currently valid. Behavior of an invalid filter is undefined. A
+ * cell that saturated at the maximum count may later be decremented to zero while items that map to it remain in the
+ * filter, producing false negatives.
+ * </p>
+ *
+ * @see Shape
+ * @see CellExtractor
+ * @see ArrayCountingBloomFilter
+ * @since 4.5.0
+ */
+public final class PackedCountingBloomFilter implements CountingBloomFilter {
+
+    /**
+     * Mask for the lowest bit of each 4-bit cell.
+     */
+    private static final long LOW_BITS_4 = 0x1111_1111_1111_1111L;
+
+    /**
+     * Mask for the lowest bit of each 8-bit cell.
+     */
+    private static final long LOW_BITS_8 = 0x0101_0101_0101_0101L;
+
+    /**
+     * The shape of this Bloom filter.
+     */
+    private final Shape shape;
+
+    /**
+     * The number of bits in each cell.
+     */
+    private final int bitsPerCell;
+
+    /**
+     * The base 2 logarithm of the number of bits in each cell.
+     */
+    private final int bitShift;
+
+    /**
+     * The base 2 logarithm of the number of cells in each long.
+     */
+    private final int cellShift;
+
+    /**
+     * The mask for the position of a cell within a long.
+     */
+    private final int cellIndexMask;
+
+    /**
+     * The mask for the value of a cell. This is also the maximum cell value.
+     */
+    private final int cellMask;
+
+    /**
+     * Mask for the lowest bit of each cell in a long.
+     */
+    private final long lowBits;
+
+    /**
+     * The packed cells.
+     */
+    private final long[] cells;
+
+    /**
+     * The state flag. Set to {@code false} when a cell has saturated.
+     */
+    private boolean valid;
+
+    private PackedCountingBloomFilter(final PackedCountingBloomFilter source) {
+        this.shape = source.shape;
+        this.bitsPerCell = source.bitsPerCell;
+        this.bitShift = source.bitShift;
+        this.cellShift = source.cellShift;
+        this.cellIndexMask = source.cellIndexMask;
+        this.cellMask = source.cellMask;
+        this.lowBits = source.lowBits;
+        this.cells = source.cells.clone();
+        this.valid = source.valid;
+    }
+
+    /**
+     * Constructs an empty counting Bloom filter with the specified shape and cell size.
+     *
+     * @param shape the shape of the filter.
+     * @param bitsPerCell the number of bits in each cell; must be 4 or 8.
+     * @throws IllegalArgumentException if the number of bits per cell is not 4 or 8.
+     */
+    public PackedCountingBloomFilter(final Shape shape, final int bitsPerCell) {
+        Objects.requireNonNull(shape, "shape");
+        if (bitsPerCell != 4 && bitsPerCell != 8) {
+            throw new IllegalArgumentException("Bits per cell must be 4 or 8: " + bitsPerCell);
+        }
+        this.shape = shape;
+        this.bitsPerCell = bitsPerCell;
+        this.bitShift = Integer.numberOfTrailingZeros(bitsPerCell);
+        this.cellShift = Integer.numberOfTrailingZeros(Long.SIZE / bitsPerCell);
+        this.cellIndexMask = (1 << cellShift) - 1;
+        this.cellMask = (1 << bitsPerCell) - 1;
+        this.lowBits = bitsPerCell == 4 ? LOW_BITS_4 : LOW_BITS_8;
+        this.cells = new long[(int) ((shape.getNumberOfBits() + (long) cellIndexMask) >>> cellShift)];
+        this.valid = true;
+    }
+
+    @Override
+    public boolean add(final CellExtractor other) {
+        Objects.requireNonNull(other, "other");
+        other.processCells(this::add);
+        return isValid();
+    }
+
+    /**
+     * Add to the cell for the bit index.
+     *
+     * @param idx the index
+     * @param addend the amount to add
+     * @return {@code true} always.
+     */
+    private boolean add(final int idx, final int addend) {
+        return update(idx, (long) get(checkIndex(idx)) + addend);
+    }
+
+    @Override
+    public int cardinality() {
+        int count = 0;
+        for (final long word : cells) {
+            count += Long.bitCount(nonZeroCells(word));
+        }
+        return count;
+    }
+
+    @Override
+    public int characteristics() {
+        return SPARSE;
+    }
+
+    /**
+     * Checks the index is within the range of the shape.
+     *
+     * @param idx the index.
+     * @return the index.
+     * @throws IllegalArgumentException if the index is not in the range of the shape.
+     */
+    private int checkIndex(final int idx) {
+        if (idx < 0 || idx >= shape.getNumberOfBits()) {
+            throw new IllegalArgumentException(
+                    String.format("Filter only accepts values in the [0,%d) range", shape.getNumberOfBits()));
+        }
+        return idx;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cells, 0L);
+    }
+
+    @Override
+    public boolean contains(final BitMapExtractor bitMapExtractor) {
+        return contains(IndexExtractor.fromBitMapExtractor(bitMapExtractor));
+    }
+
+    @Override
+    public boolean contains(final IndexExtractor indexExtractor) {
+        return indexExtractor.processIndices(idx -> idx >= 0 && idx < shape.getNumberOfBits() && get(idx) != 0);
+    }
+
+    /**
+     * Creates a new instance of this {@link PackedCountingBloomFilter} with the same properties as the current one.
+     *
+     * @return a copy of this BloomFilter.
+     */
+    @Override
+    public PackedCountingBloomFilter copy() {
+        return new PackedCountingBloomFilter(this);
+    }
+
+    /**
+     * Gets the value of the cell.
+     *
+     * @param idx the index of the cell.
+     * @return the value.
+     */
+    private int get(final int idx) {
+        return (int) (cells[idx >>> cellShift] >>> ((idx & cellIndexMask) << bitShift)) & cellMask;
+    }
+
+    /**
+     * Gets the number of bits in each cell.
+     *
+     * @return the number of bits in each cell.
+     */
+    public int getBitsPerCell() {
+        return bitsPerCell;
+    }
+
+    @Override
+    public int getMaxCell() {
+        return cellMask;
+    }
+
+    @Override
+    public int getMaxInsert(final CellExtractor cellExtractor) {
+        final int[] max = { Integer.MAX_VALUE };
+        cellExtractor.processCells((x, y) -> {
+            final int count = get(x) / y;
+            if (count < max[0]) {
+                max[0] = count;
+            }
+            return max[0] > 0;
+        });
+        return max[0];
+    }
+
+    @Override
+    public Shape getShape() {
+        return shape;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * <em>Implementation note</em>
+     * </p>
+     *
+     * <p>
+     * The state transition to invalid is permanent.
+     * </p>
+     *
+     * <p>
+     * This implementation saturates cells at zero and {@link #getMaxCell()}. The cells prior to the operation that
+     * created the invalid state cannot be recovered.
+     * </p>
+     */
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Gets a long with the lowest bit of each non-zero cell in the word enabled.
+     *
+     * @param word the packed cells.
+     * @return the non-zero cell flags.
+     */
+    private long nonZeroCells(final long word) {
+        long t = word;
+        for (int s = 1; s < bitsPerCell; s <<= 1) {
+            t |= t >>> s;
+        }
+        return t & lowBits;
+    }
+
+    @Override
+    public boolean processBitMaps(final LongPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        final int blocks = BitMaps.numberOfBitMaps(shape);
+        // the number of cell words for each bit map
+        final int wordsPerBlock = bitsPerCell;
+        for (int j = 0; j < blocks; j++) {
+            long value = 0;
+            final int start = j * wordsPerBlock;
+            final int end = Math.min(start + wordsPerBlock, cells.length);
+            for (int w = start; w < end; w++) {
+                // the bit position of the first cell of the word within the bit map
+                final int base = (w - start) << cellShift;
+                long flags = nonZeroCells(cells[w]);
+                while (flags != 0) {
+                    final int cell = Long.numberOfTrailingZeros(flags) >>> bitShift;
+                    value |= 1L << (base + cell);
+                    flags &= flags - 1;
+                }
+            }
+            if (!consumer.test(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean processCells(final CellPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        for (int w = 0; w < cells.length; w++) {
+            final long word = cells[w];
+            long flags = nonZeroCells(word);
+            while (flags != 0) {
+                final int shift = Long.numberOfTrailingZeros(flags);
+                final int idx = (w << cellShift) + (shift >>> bitShift);
+                if (!consumer.test(idx, (int) (word >>> shift) & cellMask)) {
+                    return false;
+                }
+                flags &= flags - 1;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean processIndices(final IntPredicate consumer) {
+        Objects.requireNonNull(consumer, "consumer");
+        return processCells((i, v) -> consumer.test(i));
+    }
+
+    /**
+     * Sets the value of the cell.
+     *
+     * @param idx the index of the cell.
+     * @param value the value; must be in the range {@code [0, cellMask]}.
+     */
+    private void set(final int idx, final int value) {
+        final int w = idx >>> cellShift;
+        final int shift = (idx & cellIndexMask) << bitShift;
+        cells[w] = cells[w] & ~((long) cellMask << shift) | (long) value << shift;
+    }
+
+    @Override
+    public boolean subtract(final CellExtractor other) {
+        Objects.requireNonNull(other, "other");
+        other.processCells(this::subtract);
+        return isValid();
+    }
+
+    /**
+     * Subtracts from the cell for the bit index.
+     *
+     * @param idx the index
+     * @param subtrahend the amount to subtract
+     * @return {@code true} always.
+     */
+    private boolean subtract(final int idx, final int subtrahend) {
+        return update(idx, (long) get(checkIndex(idx)) - subtrahend);
+    }
+
+    /**
+     * Updates the cell to the value, saturating at zero and the maximum cell value.
+     *
+     * @param idx the index of the cell.
+     * @param value the new value.
+     * @return {@code true} always.
+     */
+    private boolean update(final int idx, final long value) {
+        if (value < 0) {
+            valid = false;
+            set(idx, 0);
+        } else if (value > cellMask) {
+            valid = false;
+            set(idx, cellMask);
+        } else {
+            set(idx, (int) value);
+        }
+        return true;
+    }
+}
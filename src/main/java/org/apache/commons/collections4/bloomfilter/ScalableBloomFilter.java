@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A scalable Bloom filter that adds layers as items are merged so that the false positive probability remains below a
+ * target without knowing the number of items in advance.
+ *
+ * <p>Scalable Bloom filters are described in Almeida, Paulo; Baquero, Carlos; Preguiça, Nuno; Hutchison, David (2007),
+ * "Scalable Bloom Filters", Information Processing Letters, vol. 101, no. 6, pp. 255-261,
+ * doi:10.1016/j.ipl.2006.10.007.</p>
+ *
+ * <p>The layers are held in a {@link LayerManager}. Layer {@code i} is created for
+ * {@code n * pow(growthFactor, i)} items with a false positive probability of
+ * {@code p * (1 - tighteningRatio) * pow(tighteningRatio, i)}. Since the sum of the layer probabilities is less than
+ * {@code p} the probability of a false positive from any layer is below the target {@code p}. Items are merged into the
+ * newest layer. A new layer is added when the number of items merged into the newest layer reaches the
+ * {@link Shape#estimateMaxN()} of its shape. The items are counted as they are merged, so the check does not scan the
+ * layer. An item the newest layer already contains is not counted.</p>
+ *
+ * <p>As the layers have different shapes, items are merged and queried using a {@link Hasher}, which produces indices
+ * for any shape. Operations that require a single shape such as merging a {@link BitMapExtractor} or flattening the
+ * layers into one filter are not supported. The layers can be visited with
+ * {@link #processBloomFilters(Predicate)}.</p>
+ *
+ * @param <T> The type of Bloom Filter that is used for the layers.
+ * @see LayerManager
+ * @see LayeredBloomFilter
+ * @since 4.5.0
+ */
+public class ScalableBloomFilter<T extends BloomFilter<T>> {
+
+    /**
+     * The default ratio between the false positive probabilities of successive layers.
+     */
+    public static final double DEFAULT_TIGHTENING_RATIO = 0.8;
+
+    /**
+     * The default ratio between the number of items of successive layers.
+     */
+    public static final int DEFAULT_GROWTH_FACTOR = 2;
+
+    private final Function<Shape, T> filterFactory;
+
+    private final int initialNumberOfItems;
+
+    private final double probability;
+
+    private final double tighteningRatio;
+
+    private final int growthFactor;
+
+    private final LayerManager<T> layerManager;
+
+    /**
+     * The number of distinct items merged into the newest layer.
+     */
+    private long layerItems;
+
+    /**
+     * The number of items at which the newest layer is saturated.
+     */
+    private double layerCapacity;
+
+    /**
+     * Constructs a new instance using the {@link #DEFAULT_TIGHTENING_RATIO} and {@link #DEFAULT_GROWTH_FACTOR}.
+     *
+     * @param filterFactory        the function to create an empty layer for a shape, for example
+     *                             {@code SimpleBloomFilter::new}.
+     * @param initialNumberOfItems the number of items in the first layer.
+     * @param probability          the target false positive probability in the range {@code (0, 1)}.
+     * @throws IllegalArgumentException if {@code initialNumberOfItems < 1} or the probability is not in the range
+     *                                  {@code (0, 1)}.
+     */
+    public ScalableBloomFilter(final Function<Shape, T> filterFactory, final int initialNumberOfItems, final double probability) {
+        this(filterFactory, initialNumberOfItems, probability, DEFAULT_TIGHTENING_RATIO, DEFAULT_GROWTH_FACTOR);
+    }
+
+    /**
+     * Constructs a new instance.
+     *
+     * @param filterFactory        the function to create an empty layer for a shape, for example
+     *                             {@code SimpleBloomFilter::new}.
+     * @param initialNumberOfItems the number of items in the first layer.
+     * @param probability          the target false positive probability in the range {@code (0, 1)}.
+     * @param tighteningRatio      the ratio between the false positive probabilities of successive layers in the range
+     *                             {@code (0, 1)}.
+     * @param growthFactor         the ratio between the number of items of successive layers.
+     * @throws IllegalArgumentException if {@code initialNumberOfItems < 1}, {@code growthFactor < 1}, or the probability
+     *                                  or tightening ratio is not in the range {@code (0, 1)}.
+     */
+    public ScalableBloomFilter(final Function<Shape, T> filterFactory, final int initialNumberOfItems, final double probability,
+            final double tighteningRatio, final int growthFactor) {
+        this.filterFactory = Objects.requireNonNull(filterFactory, "filterFactory");
+        if (initialNumberOfItems < 1) {
+            throw new IllegalArgumentException("Number of items must be greater than 0: " + initialNumberOfItems);
+        }
+        if (!(probability > 0.0 && probability < 1.0)) {
+            throw new IllegalArgumentException("Probability must be greater than 0 and less than 1: " + probability);
+        }
+        if (!(tighteningRatio > 0.0 && tighteningRatio < 1.0)) {
+            throw new IllegalArgumentException("Tightening ratio must be greater than 0 and less than 1: " + tighteningRatio);
+        }
+        if (growthFactor < 1) {
+            throw new IllegalArgumentException("Growth factor must be greater than 0: " + growthFactor);
+        }
+        this.initialNumberOfItems = initialNumberOfItems;
+        this.probability = probability;
+        this.tighteningRatio = tighteningRatio;
+        this.growthFactor = growthFactor;
+        this.layerManager = LayerManager.<T>builder()
+                .setSupplier(this::createLayer)
+                .setExtendCheck(manager -> isSaturated())
+                .setCleanup(LayerManager.Cleanup.noCleanup())
+                .get();
+    }
+
+    /**
+     * Removes all the layers and sets up a new empty first layer.
+     */
+    public void clear() {
+        layerManager.clear();
+    }
+
+    /**
+     * Returns {@code true} if any layer contains the item identified by the hasher.
+     *
+     * @param hasher the hasher to provide the indices.
+     * @return {@code true} if this filter may contain the item.
+     */
+    public boolean contains(final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        return !processBloomFilters(bf -> !bf.contains(hasher));
+    }
+
+    /**
+     * Creates a deep copy of this filter.
+     *
+     * @return a copy of this filter.
+     */
+    public ScalableBloomFilter<T> copy() {
+        final ScalableBloomFilter<T> copy = new ScalableBloomFilter<>(filterFactory, initialNumberOfItems, probability, tighteningRatio, growthFactor);
+        final int[] depth = {0};
+        processBloomFilters(bf -> {
+            if (depth[0]++ > 0) {
+                copy.layerManager.next();
+            }
+            return copy.layerManager.last().merge(bf);
+        });
+        copy.layerItems = layerItems;
+        return copy;
+    }
+
+    /**
+     * Creates the next layer and resets the count of items in the newest layer. The depth of the new layer is the
+     * current depth of the layer manager, which is not yet assigned when the first layer is created during
+     * construction.
+     *
+     * @return an empty layer.
+     */
+    private T createLayer() {
+        final T layer = filterFactory.apply(getLayerShape(layerManager == null ? 0 : layerManager.getDepth()));
+        layerItems = 0;
+        layerCapacity = layer.getShape().estimateMaxN();
+        return layer;
+    }
+
+    /**
+     * Estimates the number of items merged into this filter as the sum of the estimates for each layer.
+     *
+     * @return an estimate of the number of items.
+     */
+    public long estimateN() {
+        final long[] n = {0};
+        processBloomFilters(bf -> {
+            n[0] += bf.estimateN();
+            return true;
+        });
+        return n[0];
+    }
+
+    /**
+     * Gets the Bloom filter at the specified depth. The filter at depth 0 is the oldest filter.
+     *
+     * @param depth the depth of the filter to return.
+     * @return the Bloom filter at the specified depth.
+     * @throws NoSuchElementException if depth is not in the range [0,getDepth())
+     */
+    public T get(final int depth) {
+        return layerManager.get(depth);
+    }
+
+    /**
+     * Gets the number of layers. The minimum value returned by this method is 1.
+     *
+     * @return the number of layers.
+     */
+    public int getDepth() {
+        return layerManager.getDepth();
+    }
+
+    /**
+     * Gets the shape of the layer at the specified depth.
+     *
+     * @param depth the depth of the layer.
+     * @return the shape.
+     * @throws IllegalArgumentException if the shape of the layer would have more than {@link Integer#MAX_VALUE}
+     *                                  bits.
+     */
+    public Shape getLayerShape(final int depth) {
+        final double n = Math.min(Integer.MAX_VALUE, Math.round(initialNumberOfItems * Math.pow(growthFactor, depth)));
+        final double p = probability * (1 - tighteningRatio) * Math.pow(tighteningRatio, depth);
+        return Shape.fromNP((int) n, p);
+    }
+
+    /**
+     * Estimates the current false positive probability. This is the probability that any layer reports a false
+     * positive given the estimated number of items in each layer.
+     *
+     * @return the estimated false positive probability.
+     */
+    public double getProbability() {
+        final double[] none = {1.0};
+        processBloomFilters(bf -> {
+            final Shape shape = bf.getShape();
+            none[0] *= 1 - shape.getProbability((int) Math.min(Integer.MAX_VALUE, Math.round(shape.estimateN(bf.cardinality()))));
+            return true;
+        });
+        return 1 - none[0];
+    }
+
+    /**
+     * Gets the target false positive probability.
+     *
+     * @return the target false positive probability.
+     */
+    public double getTargetProbability() {
+        return probability;
+    }
+
+    /**
+     * Returns {@code true} if no layer has an enabled bit.
+     *
+     * @return {@code true} if the filter is empty.
+     */
+    public boolean isEmpty() {
+        return processBloomFilters(BloomFilter::isEmpty);
+    }
+
+    /**
+     * Tests if the number of distinct items merged into the newest layer has reached the maximum number of items for
+     * its shape.
+     *
+     * @return {@code true} if a new layer should be added.
+     */
+    private boolean isSaturated() {
+        return layerItems >= layerCapacity;
+    }
+
+    /**
+     * Merges the item identified by the hasher into the newest layer, first adding a new layer if the newest layer is
+     * saturated.
+     *
+     * @param hasher the hasher to provide the indices.
+     * @return {@code true} if the merge was successful.
+     */
+    public boolean merge(final Hasher hasher) {
+        Objects.requireNonNull(hasher, "hasher");
+        final T target = layerManager.getTarget();
+        // count only items new to the layer, so merging an item again does not add layers
+        if (!target.contains(hasher)) {
+            layerItems++;
+        }
+        return target.merge(hasher);
+    }
+
+    /**
+     * Processes the Bloom filters in depth order with the oldest filter first. Each filter is passed to the predicate
+     * in turn. The function exits on the first {@code false} returned by the predicate.
+     *
+     * @param bloomFilterPredicate the predicate to execute.
+     * @return {@code true} if all filters passed the predicate, {@code false} otherwise.
+     */
+    public boolean processBloomFilters(final Predicate<BloomFilter> bloomFilterPredicate) {
+        return layerManager.processBloomFilters(bloomFilterPredicate);
+    }
+}
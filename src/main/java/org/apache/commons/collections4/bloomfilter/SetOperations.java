@@ -16,15 +16,39 @@
  */
 package org.apache.commons.collections4.bloomfilter;
 
+import java.util.Objects;
 import java.util.function.LongBinaryOperator;
 
 /**
  * Implementations of set operations on BitMapExtractors.
  *
+ * <p>The batch methods that accept a {@code long[][]} corpus compare one BitMapExtractor against many bit map arrays,
+ * for example the result of {@link BitMapExtractor#asBitMapArray()} for a collection of stored filters. The query is
+ * converted to a bit map array once and each comparison is a simple loop over the raw words, which the JIT can unroll
+ * and vectorize.</p>
+ *
  * @since 4.5.0
  */
 public final class SetOperations {
 
+    /**
+     * Calculates the cardinality of the logical {@code AND} of the bit maps for the first filter and each of the bit map
+     * arrays in the corpus.
+     *
+     * @param first  the first BitMapExtractor.
+     * @param corpus the bit map arrays to compare the first extractor against.
+     * @return the cardinality of the {@code AND} of the first extractor with each member of the corpus.
+     */
+    public static int[] andCardinalities(final BitMapExtractor first, final long[][] corpus) {
+        Objects.requireNonNull(corpus, "corpus");
+        final long[] query = first.asBitMapArray();
+        final int[] result = new int[corpus.length];
+        for (int i = 0; i < corpus.length; i++) {
+            result[i] = andCardinality(query, corpus[i]);
+        }
+        return result;
+    }
+
     /**
      * Calculates the cardinality of the logical {@code AND} of the bit maps for the two filters.
      *
@@ -36,6 +60,22 @@ public final class SetOperations {
         return cardinality(first, second, (x, y) -> x & y);
     }
 
+    /**
+     * Calculates the cardinality of the logical {@code AND} of two bit map arrays.
+     *
+     * @param first  the first bit map array.
+     * @param second the second bit map array.
+     * @return the cardinality of the {@code AND} of the arrays.
+     */
+    private static int andCardinality(final long[] first, final long[] second) {
+        final int limit = Math.min(first.length, second.length);
+        int count = 0;
+        for (int i = 0; i < limit; i++) {
+            count += Long.bitCount(first[i] & second[i]);
+        }
+        return count;
+    }
+
     /**
      * Calculates the cardinality of a BitMapExtractor. By necessity this method will visit each bit map created by the bitMapExtractor.
      *
@@ -51,6 +91,20 @@ public final class SetOperations {
         return cardinality[0];
     }
 
+    /**
+     * Calculates the cardinality of a bit map array.
+     *
+     * @param bitMaps the bit map array.
+     * @return the cardinality of the array.
+     */
+    private static int cardinality(final long[] bitMaps) {
+        int count = 0;
+        for (final long bitMap : bitMaps) {
+            count += Long.bitCount(bitMap);
+        }
+        return count;
+    }
+
     /**
      * Calculates the cardinality of the result of a LongBinaryOperator using the {@code BitMapExtractor.makePredicate} method.
      *
@@ -83,6 +137,30 @@ public final class SetOperations {
         return 1.0 - cosineSimilarity(first, second);
     }
 
+    /**
+     * Calculates the Cosine similarity between the first BitMapExtractor and each of the bit map arrays in the corpus.
+     * <p>
+     * This produces the same result as calling {@link #cosineSimilarity(BitMapExtractor, BitMapExtractor)} with the
+     * first extractor and each member of the corpus wrapped using {@link BitMapExtractor#fromBitMapArray(long...)}.
+     * </p>
+     *
+     * @param first  the first BitMapExtractor.
+     * @param corpus the bit map arrays to compare the first extractor against.
+     * @return the Cosine similarity of the first extractor with each member of the corpus.
+     */
+    public static double[] cosineSimilarities(final BitMapExtractor first, final long[][] corpus) {
+        Objects.requireNonNull(corpus, "corpus");
+        final long[] query = first.asBitMapArray();
+        final double queryCardinality = cardinality(query);
+        final double[] result = new double[corpus.length];
+        for (int i = 0; i < corpus.length; i++) {
+            final long[] other = corpus[i];
+            final int numerator = andCardinality(query, other);
+            result[i] = numerator == 0 ? 0 : numerator / Math.sqrt(queryCardinality * cardinality(other));
+        }
+        return result;
+    }
+
     /**
      * Calculates the Cosine similarity between two BitMapExtractors.
      * <p>
@@ -137,6 +215,19 @@ public final class SetOperations {
         return xorCardinality(first, second);
     }
 
+    /**
+     * Determines if the score at index {@code a} ranks below the score at index {@code b}.
+     *
+     * @param scores the scores.
+     * @param a      the first index.
+     * @param b      the second index.
+     * @return {@code true} if {@code a} ranks below {@code b}.
+     */
+    private static boolean isWorse(final double[] scores, final int a, final int b) {
+        final int c = Double.compare(scores[a], scores[b]);
+        return c < 0 || c == 0 && a > b;
+    }
+
     /**
      * Calculates the Jaccard distance between two BitMapExtractor.
      * <p>
@@ -151,6 +242,31 @@ public final class SetOperations {
         return 1.0 - jaccardSimilarity(first, second);
     }
 
+    /**
+     * Calculates the Jaccard similarity between the first BitMapExtractor and each of the bit map arrays in the corpus.
+     * <p>
+     * This produces the same result as calling {@link #jaccardSimilarity(BitMapExtractor, BitMapExtractor)} with the
+     * first extractor and each member of the corpus wrapped using {@link BitMapExtractor#fromBitMapArray(long...)}.
+     * </p>
+     *
+     * @param first  the first BitMapExtractor.
+     * @param corpus the bit map arrays to compare the first extractor against.
+     * @return the Jaccard similarity of the first extractor with each member of the corpus.
+     */
+    public static double[] jaccardSimilarities(final BitMapExtractor first, final long[][] corpus) {
+        Objects.requireNonNull(corpus, "corpus");
+        final long[] query = first.asBitMapArray();
+        final int queryCardinality = cardinality(query);
+        final double[] result = new double[corpus.length];
+        for (int i = 0; i < corpus.length; i++) {
+            final long[] other = corpus[i];
+            final int intersection = andCardinality(query, other);
+            // |A | B| = |A| + |B| - |A & B|
+            result[i] = intersection == 0 ? 0 : intersection / (double) (queryCardinality + cardinality(other) - intersection);
+        }
+        return result;
+    }
+
     /**
      * Calculates the Jaccard similarity between two BitMapExtractor.
      * <p>
@@ -183,6 +299,91 @@ public final class SetOperations {
         return cardinality(first, second, (x, y) -> x | y);
     }
 
+    /**
+     * Restores the order of a min-heap of score indices after the root has been replaced.
+     *
+     * @param heap   the heap of indices.
+     * @param size   the size of the heap.
+     * @param scores the scores.
+     */
+    private static void siftDown(final int[] heap, final int size, final double[] scores) {
+        int i = 0;
+        final int value = heap[0];
+        int child;
+        while ((child = 2 * i + 1) < size) {
+            if (child + 1 < size && isWorse(scores, heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!isWorse(scores, heap[child], value)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * Restores the order of a min-heap of score indices after an index has been added at the end.
+     *
+     * @param heap   the heap of indices.
+     * @param index  the position of the added index.
+     * @param scores the scores.
+     */
+    private static void siftUp(final int[] heap, final int index, final double[] scores) {
+        int i = index;
+        final int value = heap[i];
+        while (i > 0) {
+            final int parent = i - 1 >>> 1;
+            if (!isWorse(scores, value, heap[parent])) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = value;
+    }
+
+    /**
+     * Finds the indices of the {@code k} largest scores, for example the result of
+     * {@link #jaccardSimilarities(BitMapExtractor, long[][])}.
+     * <p>
+     * The indices are returned in descending order of score. Equal scores are ordered by ascending index. If there are
+     * fewer than {@code k} scores all the indices are returned.
+     * </p>
+     *
+     * @param scores the scores.
+     * @param k      the maximum number of indices to return.
+     * @return the indices of the largest scores.
+     * @throws IllegalArgumentException if {@code k < 0}.
+     */
+    public static int[] topK(final double[] scores, final int k) {
+        Objects.requireNonNull(scores, "scores");
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        final int size = Math.min(k, scores.length);
+        // Binary min-heap of indices ordered by score; the root is the worst of the current top k.
+        final int[] heap = new int[size];
+        for (int i = 0; i < scores.length; i++) {
+            if (i < size) {
+                heap[i] = i;
+                siftUp(heap, i, scores);
+            } else if (size != 0 && isWorse(scores, heap[0], i)) {
+                heap[0] = i;
+                siftDown(heap, size, scores);
+            }
+        }
+        // Repeatedly remove the worst to order the result from best to worst
+        for (int n = size - 1; n > 0; n--) {
+            final int worst = heap[0];
+            heap[0] = heap[n];
+            heap[n] = worst;
+            siftDown(heap, n, scores);
+        }
+        return heap;
+    }
+
     /**
      * Calculates the cardinality of the logical {@code XOR} of the bit maps for the two filters.
      *
@@ -17,6 +17,7 @@
 package org.apache.commons.collections4.bloomfilter;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Objects;
 import java.util.function.IntPredicate;
 import java.util.function.LongPredicate;
@@ -97,6 +98,34 @@ public final class SimpleBloomFilter implements BloomFilter<SimpleBloomFilter> {
         return indexExtractor.processIndices(idx -> BitMaps.contains(bitMap, idx));
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The indices for each block of hashers are computed before the filter is accessed. Each index of a hasher is
+     * tested without an early exit so that the memory loads for the block are independent of each other.</p>
+     */
+    @Override
+    public BitSet containsEach(final Hasher[] hashers) {
+        Objects.requireNonNull(hashers, "hashers");
+        final BitSet result = new BitSet(hashers.length);
+        final IndexBatch batch = new IndexBatch(shape);
+        for (int from = 0; from < hashers.length; from += IndexBatch.BLOCK_SIZE) {
+            final int n = batch.load(hashers, from);
+            final int[] indices = batch.indices();
+            for (int i = 0; i < n; i++) {
+                long found = 1;
+                for (int j = batch.start(i); j < batch.end(i); j++) {
+                    final int idx = indices[j];
+                    found &= bitMap[BitMaps.getLongIndex(idx)] >>> idx;
+                }
+                if ((found & 1) != 0) {
+                    result.set(from + i);
+                }
+            }
+        }
+        return result;
+    }
+
     /**
      * Creates a new instance of this {@link SimpleBloomFilter} with the same properties as the current one.
      *
@@ -174,6 +203,34 @@ public final class SimpleBloomFilter implements BloomFilter<SimpleBloomFilter> {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The indices for each block of hashers are computed before the filter is accessed.</p>
+     */
+    @Override
+    public boolean mergeEach(final Hasher[] hashers) {
+        Objects.requireNonNull(hashers, "hashers");
+        final int bits = shape.getNumberOfBits();
+        final IndexBatch batch = new IndexBatch(shape);
+        try {
+            for (int from = 0; from < hashers.length; from += IndexBatch.BLOCK_SIZE) {
+                final int n = batch.load(hashers, from);
+                final int[] indices = batch.indices();
+                for (int j = batch.start(0); j < batch.end(n - 1); j++) {
+                    final int idx = indices[j];
+                    if (idx < 0 || idx >= bits) {
+                        throw new IllegalArgumentException(String.format("IndexExtractor should only send values in the range[0,%s)", bits));
+                    }
+                    BitMaps.set(bitMap, idx);
+                }
+            }
+        } finally {
+            cardinality = -1;
+        }
+        return true;
+    }
+
     @Override
     public boolean processBitMapPairs(final BitMapExtractor other, final LongBiPredicate func) {
         final CountingLongPredicate p = new CountingLongPredicate(bitMap, func);
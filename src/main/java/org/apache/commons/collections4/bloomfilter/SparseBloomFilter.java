@@ -16,23 +16,101 @@
  */
 package org.apache.commons.collections4.bloomfilter;
 
+import java.util.Arrays;
 import java.util.Objects;
-import java.util.TreeSet;
 import java.util.function.IntPredicate;
 import java.util.function.LongPredicate;
 
 /**
- * A bloom filter using a TreeSet of integers to track enabled bits. This is a standard
+ * A bloom filter using a sorted array of integers to track enabled bits. This is a standard
  * implementation and should work well for most low cardinality Bloom filters.
  *
+ * <p>While the cardinality is sparse as defined by {@link Shape#isSparse(int)} the enabled bits are stored as a sorted
+ * {@code int[]} of unique indices. When a merge makes the cardinality no longer sparse the filter switches to an array
+ * of bit maps, as used by {@link SimpleBloomFilter}, and the {@link #characteristics()} no longer report
+ * {@link BloomFilter#SPARSE}. The filter returns to the sparse representation when it is cleared.</p>
+ *
  * @since 4.5.0
  */
 public final class SparseBloomFilter implements BloomFilter<SparseBloomFilter> {
 
     /**
-     * The bitSet that defines this BloomFilter.
+     * The empty index array.
      */
-    private final TreeSet<Integer> indices;
+    private static final int[] EMPTY = {};
+
+    /**
+     * Merges the sorted unique values in {@code b} into the sorted unique values in {@code a}. The array
+     * {@code a} must have capacity for {@code aSize + bSize} values.
+     *
+     * <p>Merging is performed in place from the largest value down. A binary search locates each value of
+     * {@code b} in {@code a} so that runs of {@code a} are moved as a block.</p>
+     *
+     * @param a the sorted unique values to merge into.
+     * @param aSize the number of values in {@code a}.
+     * @param b the sorted unique values to merge.
+     * @param bSize the number of values in {@code b}.
+     * @return the number of unique values in {@code a} after the merge.
+     */
+    private static int mergeSorted(final int[] a, final int aSize, final int[] b, final int bSize) {
+        // the next unprocessed values in each array
+        int i = aSize - 1;
+        int j = bSize - 1;
+        // the start of the merged values
+        int k = aSize + bSize;
+        while (j >= 0) {
+            final int value = b[j--];
+            final int p = Arrays.binarySearch(a, 0, i + 1, value);
+            // move the values greater than value as a block
+            final int from = p >= 0 ? p + 1 : -(p + 1);
+            final int length = i + 1 - from;
+            k -= length;
+            System.arraycopy(a, from, a, k, length);
+            if (p >= 0) {
+                // duplicate: the value in a is moved with the next block
+                i = p;
+            } else {
+                i = from - 1;
+                a[--k] = value;
+            }
+        }
+        // a[0, i] are in place. Close the gap left by duplicates.
+        final int gap = k - (i + 1);
+        if (gap != 0) {
+            System.arraycopy(a, k, a, i + 1, aSize + bSize - k);
+        }
+        return aSize + bSize - gap;
+    }
+
+    /**
+     * The sorted unique enabled indices while the filter is sparse, {@code null} when dense.
+     */
+    private int[] indices;
+
+    /**
+     * The number of enabled indices in the {@code indices} array.
+     */
+    private int size;
+
+    /**
+     * The array of bit maps while the filter is dense, {@code null} when sparse.
+     */
+    private long[] bitMap;
+
+    /**
+     * The cardinality of the dense representation. Negative if it must be recalculated.
+     */
+    private int cardinality;
+
+    /**
+     * Scratch space to collect the indices to merge.
+     */
+    private int[] scratch = EMPTY;
+
+    /**
+     * The number of indices in the scratch space.
+     */
+    private int scratchSize;
 
     /**
      * The shape of this BloomFilter.
@@ -47,57 +125,104 @@ public final class SparseBloomFilter implements BloomFilter<SparseBloomFilter> {
     public SparseBloomFilter(final Shape shape) {
         Objects.requireNonNull(shape, "shape");
         this.shape = shape;
-        this.indices = new TreeSet<>();
+        this.indices = EMPTY;
     }
 
     private SparseBloomFilter(final SparseBloomFilter source) {
         shape = source.shape;
-        indices = new TreeSet<>(source.indices);
+        indices = source.indices == null ? null : Arrays.copyOf(source.indices, source.size);
+        size = source.size;
+        bitMap = source.bitMap == null ? null : source.bitMap.clone();
+        cardinality = source.cardinality;
     }
 
     /**
-     * Adds the index to the indices.
+     * Adds the index to the scratch space.
      *
      * @param idx the index to add.
      * @return {@code true} always
+     * @throws IllegalArgumentException if the index is not in the range of the shape.
      */
     private boolean add(final int idx) {
-        indices.add(idx);
+        checkIndex(idx);
+        scratch = IndexUtils.ensureCapacityForAdd(scratch, scratchSize);
+        scratch[scratchSize++] = idx;
         return true;
     }
 
     @Override
     public long[] asBitMapArray() {
+        if (bitMap != null) {
+            return bitMap.clone();
+        }
         final long[] result = BitMaps.newBitMap(shape);
-        for (final int i : indices) {
-            BitMaps.set(result, i);
+        for (int i = 0; i < size; i++) {
+            BitMaps.set(result, indices[i]);
         }
         return result;
     }
 
+    @Override
+    public int[] asIndexArray() {
+        return indices != null ? Arrays.copyOf(indices, size) : IndexExtractor.fromBitMapExtractor(this).asIndexArray();
+    }
+
     @Override
     public int cardinality() {
-        return indices.size();
+        if (bitMap == null) {
+            return size;
+        }
+        // Lazy evaluation with caching
+        int c = cardinality;
+        if (c < 0) {
+            cardinality = c = SetOperations.cardinality(this);
+        }
+        return c;
     }
 
     @Override
     public int characteristics() {
-        return SPARSE;
+        return bitMap == null ? SPARSE : 0;
+    }
+
+    /**
+     * Checks the index is within the range of the shape.
+     *
+     * @param idx the index.
+     * @throws IllegalArgumentException if the index is not in the range of the shape.
+     */
+    private void checkIndex(final int idx) {
+        if (idx >= shape.getNumberOfBits()) {
+            throw new IllegalArgumentException(String.format("Value in list %s is greater than maximum value (%s)",
+                    idx, shape.getNumberOfBits() - 1));
+        }
+        if (idx < 0) {
+            throw new IllegalArgumentException(String.format("Value in list %s is less than 0", idx));
+        }
     }
 
     @Override
     public void clear() {
-        indices.clear();
+        indices = EMPTY;
+        size = 0;
+        bitMap = null;
+        cardinality = 0;
     }
 
     @Override
     public boolean contains(final BitMapExtractor bitMapExtractor) {
+        if (bitMap != null) {
+            return processBitMapPairs(bitMapExtractor, (x, y) -> (x & y) == y);
+        }
         return contains(IndexExtractor.fromBitMapExtractor(bitMapExtractor));
     }
 
     @Override
     public boolean contains(final IndexExtractor indexExtractor) {
-        return indexExtractor.processIndices(indices::contains);
+        if (bitMap != null) {
+            return indexExtractor.processIndices(idx -> idx < shape.getNumberOfBits() && BitMaps.contains(bitMap, idx));
+        }
+        return indexExtractor.processIndices(idx -> Arrays.binarySearch(indices, 0, size, idx) >= 0);
     }
 
     /**
@@ -117,7 +242,7 @@ public final class SparseBloomFilter implements BloomFilter<SparseBloomFilter> {
 
     @Override
     public boolean isEmpty() {
-        return indices.isEmpty();
+        return bitMap == null ? size == 0 : cardinality == 0 || processBitMaps(y -> y == 0);
     }
 
     @Override
@@ -144,44 +269,91 @@ public final class SparseBloomFilter implements BloomFilter<SparseBloomFilter> {
     @Override
     public boolean merge(final IndexExtractor indexExtractor) {
         Objects.requireNonNull(indexExtractor, "indexExtractor");
-        indexExtractor.processIndices(this::add);
-        if (!indices.isEmpty()) {
-            if (indices.last() >= shape.getNumberOfBits()) {
-                throw new IllegalArgumentException(String.format("Value in list %s is greater than maximum value (%s)",
-                        indices.last(), shape.getNumberOfBits() - 1));
+        if (bitMap != null) {
+            indexExtractor.processIndices(idx -> {
+                checkIndex(idx);
+                BitMaps.set(bitMap, idx);
+                return true;
+            });
+            cardinality = -1;
+            return true;
+        }
+        scratchSize = 0;
+        try {
+            indexExtractor.processIndices(this::add);
+            final int[] values = scratch;
+            // sort and remove duplicates
+            Arrays.sort(values, 0, scratchSize);
+            int n = 0;
+            for (int i = 0; i < scratchSize; i++) {
+                if (n == 0 || values[n - 1] != values[i]) {
+                    values[n++] = values[i];
+                }
             }
-            if (indices.first() < 0) {
-                throw new IllegalArgumentException(
-                        String.format("Value in list %s is less than 0", indices.first()));
+            if (!shape.isSparse(n)) {
+                // the merged indices cannot be sparse
+                toDense();
+                for (int i = 0; i < n; i++) {
+                    BitMaps.set(bitMap, values[i]);
+                }
+                cardinality = -1;
+            } else if (n != 0) {
+                if (size + n > indices.length) {
+                    indices = Arrays.copyOf(indices, Math.max(size + n, Math.min(indices.length * 2, 2 * BitMaps.numberOfBitMaps(shape))));
+                }
+                size = mergeSorted(indices, size, values, n);
+                // indices already enabled are only counted once
+                if (!shape.isSparse(size)) {
+                    toDense();
+                }
             }
+        } finally {
+            scratchSize = 0;
         }
         return true;
     }
 
+    @Override
+    public boolean processBitMapPairs(final BitMapExtractor other, final LongBiPredicate func) {
+        Objects.requireNonNull(other, "other");
+        Objects.requireNonNull(func, "func");
+        final CountingLongPredicate p = new CountingLongPredicate(bitMap != null ? bitMap : asBitMapArray(), func);
+        return other.processBitMaps(p) && p.processRemaining();
+    }
+
     @Override
     public boolean processBitMaps(final LongPredicate consumer) {
         Objects.requireNonNull(consumer, "consumer");
+        if (bitMap != null) {
+            for (final long l : bitMap) {
+                if (!consumer.test(l)) {
+                    return false;
+                }
+            }
+            return true;
+        }
         final int limit = BitMaps.numberOfBitMaps(shape);
         //
         // because our indices are always in order we can shorten the time necessary to
         // create the longs for the consumer
         //
         // the currently constructed bitMap
-        long bitMap = 0;
+        long word = 0;
         // the bitmap we are working on
         int idx = 0;
-        for (final int i : indices) {
+        for (int j = 0; j < size; j++) {
+            final int i = indices[j];
             while (BitMaps.getLongIndex(i) != idx) {
-                if (!consumer.test(bitMap)) {
+                if (!consumer.test(word)) {
                     return false;
                 }
-                bitMap = 0;
+                word = 0;
                 idx++;
             }
-            bitMap |= BitMaps.getLongBit(i);
+            word |= BitMaps.getLongBit(i);
         }
         // we fall through with data in the bitMap
-        if (!consumer.test(bitMap)) {
+        if (!consumer.test(word)) {
             return false;
         }
         // account for hte bitMap in the previous block + the next one
@@ -199,6 +371,27 @@ public final class SparseBloomFilter implements BloomFilter<SparseBloomFilter> {
     @Override
     public boolean processIndices(final IntPredicate consumer) {
         Objects.requireNonNull(consumer, "consumer");
-        return indices.stream().allMatch(consumer::test);
+        if (bitMap != null) {
+            return IndexExtractor.fromBitMapExtractor(this).processIndices(consumer);
+        }
+        for (int i = 0; i < size; i++) {
+            if (!consumer.test(indices[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the sparse index representation to the dense bit map representation.
+     */
+    private void toDense() {
+        bitMap = BitMaps.newBitMap(shape);
+        for (int i = 0; i < size; i++) {
+            BitMaps.set(bitMap, indices[i]);
+        }
+        cardinality = size;
+        indices = null;
+        size = 0;
     }
 }
@@ -16,6 +16,7 @@
  */
 package org.apache.commons.collections4.bloomfilter;
 
+import java.util.BitSet;
 import java.util.function.IntPredicate;
 import java.util.function.LongPredicate;
 
@@ -85,6 +86,11 @@ public abstract class WrappedBloomFilter<T extends WrappedBloomFilter<T, W>, W e
         return wrapped.contains(indexExtractor);
     }
 
+    @Override
+    public BitSet containsEach(final Hasher[] hashers) {
+        return wrapped.containsEach(hashers);
+    }
+
     @Override
     public int estimateIntersection(final BloomFilter<?> other) {
         return wrapped.estimateIntersection(other);
@@ -139,6 +145,11 @@ public abstract class WrappedBloomFilter<T extends WrappedBloomFilter<T, W>, W e
         return wrapped.merge(indexExtractor);
     }
 
+    @Override
+    public boolean mergeEach(final Hasher[] hashers) {
+        return wrapped.mergeEach(hashers);
+    }
+
     @Override
     public boolean processBitMapPairs(final BitMapExtractor other, final LongBiPredicate func) {
         return wrapped.processBitMapPairs(other, func);
@@ -0,0 +1,1152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.IterableMap;
+import org.apache.commons.collections4.MapIterator;
+import org.apache.commons.collections4.ResettableIterator;
+
+/**
+ * An abstract implementation of a hash-based map using open addressing which
+ * provides numerous points for subclasses to override.
+ * <p>
+ * The {@link AbstractHashedMap} allocates an entry object for each mapping and
+ * chains the entries of a bucket. This class instead stores the keys, values and
+ * hash codes in parallel arrays and resolves collisions by linear probing, so no
+ * object is allocated per mapping and a lookup reads adjacent array elements. A
+ * removal shifts the following entries of the probe sequence back, so no deleted
+ * markers are left in the table. As the probe sequences grow quickly with the
+ * load, the default load factor is 0.5.
+ * </p>
+ * <p>
+ * Subclasses can override {@link #hash(Object)}, {@link #isEqualKey(Object, Object)},
+ * {@link #isEqualValue(Object, Object)} and {@link #convertKey(Object)} in the same
+ * way as for {@link AbstractHashedMap}, for example to build a case insensitive map.
+ * </p>
+ * <p>
+ * The {@link #mapIterator()} iterates the table without allocating objects. The
+ * entry set view creates an entry object for each entry iterated. The iteration
+ * order is not defined.
+ * </p>
+ *
+ * @param <K> the type of the keys in this map
+ * @param <V> the type of the values in this map
+ * @see AbstractHashedMap
+ * @since 4.5.0
+ */
+public class AbstractOpenHashedMap<K, V> extends AbstractMap<K, V> implements IterableMap<K, V> {
+
+    /**
+     * Entry returned by the entry set view. The value is read from the map while
+     * the key is mapped.
+     *
+     * @param <K> the type of the keys in the map
+     * @param <V> the type of the values in the map
+     */
+    private static final class EntryView<K, V> implements Map.Entry<K, V> {
+
+        /** The parent map */
+        private final AbstractOpenHashedMap<K, V> parent;
+
+        /** The converted key */
+        private final Object key;
+
+        /** The value when last read */
+        private V value;
+
+        EntryView(final AbstractOpenHashedMap<K, V> parent, final Object key, final V value) {
+            this.parent = parent;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            final Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            return Objects.equals(getKey(), other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K getKey() {
+            return (K) parent.unconvertKey(key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            final int index = parent.indexOf(key, parent.hash(key));
+            if (index >= 0) {
+                value = (V) parent.valueData[index];
+            }
+            return value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(final V value) {
+            final int index = parent.indexOf(key, parent.hash(key));
+            final V old = getValue();
+            if (index >= 0) {
+                parent.valueData[index] = value;
+            }
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    /**
+     * EntrySet implementation.
+     *
+     * @param <K> the type of the keys in the map
+     * @param <V> the type of the values in the map
+     */
+    private static final class EntrySet<K, V> extends AbstractSet<Map.Entry<K, V>> {
+
+        /** The parent map */
+        private final AbstractOpenHashedMap<K, V> parent;
+
+        EntrySet(final AbstractOpenHashedMap<K, V> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void clear() {
+            parent.clear();
+        }
+
+        @Override
+        public boolean contains(final Object entry) {
+            if (entry instanceof Map.Entry) {
+                final Map.Entry<?, ?> e = (Map.Entry<?, ?>) entry;
+                final Object key = parent.convertKey(e.getKey());
+                final int index = parent.indexOf(key, parent.hash(key));
+                return index >= 0 && parent.isEqualValueOrNull(e.getValue(), parent.valueData[index]);
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new OpenHashIterator<Map.Entry<K, V>, K, V>(parent) {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Map.Entry<K, V> next() {
+                    final int index = nextIndex();
+                    return new EntryView<>(parent, parent.keyData[index], (V) parent.valueData[index]);
+                }
+            };
+        }
+
+        @Override
+        public boolean remove(final Object obj) {
+            if (!contains(obj)) {
+                return false;
+            }
+            parent.remove(((Map.Entry<?, ?>) obj).getKey());
+            return true;
+        }
+
+        @Override
+        public int size() {
+            return parent.size();
+        }
+    }
+
+    /**
+     * KeySet implementation.
+     *
+     * @param <K> the type of the keys in the map
+     */
+    private static final class KeySet<K> extends AbstractSet<K> {
+
+        /** The parent map */
+        private final AbstractOpenHashedMap<K, ?> parent;
+
+        KeySet(final AbstractOpenHashedMap<K, ?> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void clear() {
+            parent.clear();
+        }
+
+        @Override
+        public boolean contains(final Object key) {
+            return parent.containsKey(key);
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return parent.mapIterator();
+        }
+
+        @Override
+        public boolean remove(final Object key) {
+            final boolean result = parent.containsKey(key);
+            parent.remove(key);
+            return result;
+        }
+
+        @Override
+        public int size() {
+            return parent.size();
+        }
+    }
+
+    /**
+     * Base iterator which scans the table from the end.
+     * <p>
+     * A removal by the iterator shifts entries of the probe sequence back. An entry
+     * shifted from the start of the table, which is not yet scanned, to the end of
+     * the table, which is already scanned, is remembered and returned after the
+     * scan completes.
+     *
+     * @param <E> the type of the elements returned
+     * @param <K> the type of the keys in the map
+     * @param <V> the type of the values in the map
+     */
+    private abstract static class OpenHashIterator<E, K, V> implements ResettableIterator<E> {
+
+        /** The parent map */
+        final AbstractOpenHashedMap<K, V> parent;
+
+        /** The index of the last entry scanned, the table is scanned downwards */
+        private int position;
+
+        /** The index of the last entry returned, -1 if none */
+        int current;
+
+        /** The number of entries left to return */
+        private int remaining;
+
+        /** The converted keys shifted from the part of the table not yet scanned to the part scanned */
+        private Object[] wrapped;
+
+        /** The number of wrapped keys */
+        private int wrappedSize;
+
+        /** The index of the next wrapped key to return */
+        private int wrappedIndex;
+
+        /** The modification count expected */
+        private int expectedModCount;
+
+        OpenHashIterator(final AbstractOpenHashedMap<K, V> parent) {
+            this.parent = parent;
+            reset();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Records an entry shifted by a removal.
+         *
+         * @param from  the index the entry was shifted from
+         * @param to  the index the entry was shifted to
+         */
+        void moved(final int from, final int to) {
+            if (OpenAddressing.isWrapped(from, to, position)) {
+                wrapped = OpenAddressing.append(wrapped, wrappedSize++, parent.keyData[to]);
+            }
+        }
+
+        /**
+         * Moves to the next entry.
+         *
+         * @return the index of the next entry
+         */
+        int nextIndex() {
+            if (parent.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining == 0) {
+                throw new NoSuchElementException(AbstractHashedMap.NO_NEXT_ENTRY);
+            }
+            remaining--;
+            final Object[] keyData = parent.keyData;
+            while (--position >= 0) {
+                if (keyData[position] != null) {
+                    current = position;
+                    return current;
+                }
+            }
+            final Object key = wrapped[wrappedIndex++];
+            current = parent.indexOf(key, parent.hash(key));
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException(AbstractHashedMap.REMOVE_INVALID);
+            }
+            if (parent.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            parent.removeIndex(current, this);
+            current = -1;
+            expectedModCount = parent.modCount;
+        }
+
+        @Override
+        public void reset() {
+            position = parent.keyData.length;
+            current = -1;
+            remaining = parent.size;
+            wrapped = null;
+            wrappedSize = 0;
+            wrappedIndex = 0;
+            expectedModCount = parent.modCount;
+        }
+
+        @Override
+        public String toString() {
+            if (current >= 0) {
+                return "Iterator[" + parent.unconvertKey(parent.keyData[current]) + "=" + parent.valueData[current] + "]";
+            }
+            return "Iterator[]";
+        }
+    }
+
+    /**
+     * MapIterator implementation.
+     *
+     * @param <K> the type of the keys in the map
+     * @param <V> the type of the values in the map
+     */
+    private static final class OpenHashMapIterator<K, V> extends OpenHashIterator<K, K, V> implements MapIterator<K, V> {
+
+        OpenHashMapIterator(final AbstractOpenHashedMap<K, V> parent) {
+            super(parent);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K getKey() {
+            if (current < 0) {
+                throw new IllegalStateException(AbstractHashedMap.GETKEY_INVALID);
+            }
+            return (K) parent.unconvertKey(parent.keyData[current]);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            if (current < 0) {
+                throw new IllegalStateException(AbstractHashedMap.GETVALUE_INVALID);
+            }
+            return (V) parent.valueData[current];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            return (K) parent.unconvertKey(parent.keyData[nextIndex()]);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(final V value) {
+            if (current < 0) {
+                throw new IllegalStateException(AbstractHashedMap.SETVALUE_INVALID);
+            }
+            final V old = (V) parent.valueData[current];
+            parent.valueData[current] = value;
+            return old;
+        }
+    }
+
+    /**
+     * The slots of the table, as seen by a removal.
+     *
+     * @param <K> the type of the keys in the map
+     * @param <V> the type of the values in the map
+     */
+    private static final class TableSlots<K, V> implements OpenAddressing.Slots {
+
+        /** The parent map */
+        private final AbstractOpenHashedMap<K, V> parent;
+
+        /** The iterator removing the entry, or null */
+        private final OpenHashIterator<?, K, V> iterator;
+
+        TableSlots(final AbstractOpenHashedMap<K, V> parent, final OpenHashIterator<?, K, V> iterator) {
+            this.parent = parent;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean isEmpty(final int index) {
+            return parent.keyData[index] == null;
+        }
+
+        @Override
+        public void move(final int from, final int to) {
+            parent.keyData[to] = parent.keyData[from];
+            parent.valueData[to] = parent.valueData[from];
+            parent.hashData[to] = parent.hashData[from];
+            if (iterator != null) {
+                iterator.moved(from, to);
+            }
+        }
+
+        @Override
+        public int startOf(final int index) {
+            return parent.hashIndex(parent.hashData[index], parent.keyData.length);
+        }
+    }
+
+    /**
+     * Values implementation.
+     *
+     * @param <V> the type of the values in the map
+     */
+    private static final class Values<V> extends AbstractCollection<V> {
+
+        /** The parent map */
+        private final AbstractOpenHashedMap<?, V> parent;
+
+        Values(final AbstractOpenHashedMap<?, V> parent) {
+            this.parent = parent;
+        }
+
+        @Override
+        public void clear() {
+            parent.clear();
+        }
+
+        @Override
+        public boolean contains(final Object value) {
+            return parent.containsValue(value);
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new OpenHashIterator<V, Object, V>((AbstractOpenHashedMap<Object, V>) parent) {
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    return (V) parent.valueData[nextIndex()];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return parent.size();
+        }
+    }
+
+    /** The default capacity to use */
+    protected static final int DEFAULT_CAPACITY = 16;
+
+    /** The default threshold to use */
+    protected static final int DEFAULT_THRESHOLD = 8;
+
+    /** The default load factor to use */
+    protected static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /** The maximum capacity allowed */
+    protected static final int MAXIMUM_CAPACITY = OpenAddressing.MAXIMUM_CAPACITY;
+
+    /** An object for masking null */
+    protected static final Object NULL = new Object();
+
+    /** Load factor, normally 0.5 */
+    transient float loadFactor;
+
+    /** The size of the map */
+    transient int size;
+
+    /** The converted keys, null for an empty slot */
+    transient Object[] keyData;
+
+    /** The values */
+    transient Object[] valueData;
+
+    /** The hash codes of the keys */
+    transient int[] hashData;
+
+    /** Size at which to rehash */
+    transient int threshold;
+
+    /** Modification count for iterators */
+    transient int modCount;
+
+    /** Entry set */
+    transient EntrySet<K, V> entrySet;
+
+    /** Key set */
+    transient KeySet<K> keySet;
+
+    /** Values */
+    transient Values<V> values;
+
+    /**
+     * Constructor only used in deserialization, do not use otherwise.
+     */
+    protected AbstractOpenHashedMap() {
+    }
+
+    /**
+     * Constructs a new, empty map with the specified initial capacity and
+     * default load factor.
+     *
+     * @param initialCapacity  the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    protected AbstractOpenHashedMap(final int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a new, empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param initialCapacity  the initial capacity
+     * @param loadFactor  the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     * @throws IllegalArgumentException if the load factor is not greater than zero and less than one
+     */
+    protected AbstractOpenHashedMap(int initialCapacity, final float loadFactor) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Initial capacity must be a non negative number");
+        }
+        this.loadFactor = OpenAddressing.checkLoadFactor(loadFactor);
+        initialCapacity = calculateNewCapacity(initialCapacity);
+        this.threshold = calculateThreshold(initialCapacity, loadFactor);
+        allocate(initialCapacity);
+        init();
+    }
+
+    /**
+     * Constructor which performs no validation on the passed in parameters.
+     *
+     * @param initialCapacity  the initial capacity, must be a power of two
+     * @param loadFactor  the load factor, must be &gt; 0.0f and &lt; 1.0f
+     * @param threshold  the threshold, must be sensible
+     */
+    protected AbstractOpenHashedMap(final int initialCapacity, final float loadFactor, final int threshold) {
+        this.loadFactor = loadFactor;
+        allocate(initialCapacity);
+        this.threshold = threshold;
+        init();
+    }
+
+    /**
+     * Constructor copying elements from another map.
+     *
+     * @param map  the map to copy
+     * @throws NullPointerException if the map is null
+     */
+    protected AbstractOpenHashedMap(final Map<? extends K, ? extends V> map) {
+        this(Math.max(3 * map.size(), DEFAULT_CAPACITY), DEFAULT_LOAD_FACTOR);
+        putAll(map);
+    }
+
+    /**
+     * Allocates the tables.
+     *
+     * @param capacity  the capacity, a power of two
+     */
+    private void allocate(final int capacity) {
+        keyData = new Object[capacity];
+        valueData = new Object[capacity];
+        hashData = new int[capacity];
+    }
+
+    /**
+     * Calculates the new capacity of the map.
+     * This implementation normalizes the capacity to a power of two.
+     *
+     * @param proposedCapacity  the proposed capacity
+     * @return the normalized new capacity
+     */
+    protected int calculateNewCapacity(final int proposedCapacity) {
+        if (proposedCapacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return proposedCapacity <= 1 ? 1 : Integer.highestOneBit(proposedCapacity - 1) << 1;
+    }
+
+    /**
+     * Calculates the new threshold of the map, where it will be resized.
+     * This implementation uses the load factor, and keeps at least one slot empty
+     * so that every probe sequence ends.
+     *
+     * @param newCapacity  the new capacity
+     * @param factor  the load factor
+     * @return the new resize threshold
+     */
+    protected int calculateThreshold(final int newCapacity, final float factor) {
+        return OpenAddressing.threshold(newCapacity, factor);
+    }
+
+    /**
+     * Checks the capacity of the map and enlarges it if necessary.
+     * <p>
+     * This implementation uses the threshold to check if the map needs enlarging.
+     *
+     * @throws IllegalStateException if the map is full at the maximum capacity
+     */
+    protected void checkCapacity() {
+        if (size >= threshold && OpenAddressing.canGrow(keyData.length, size)) {
+            ensureCapacity(keyData.length * 2);
+        }
+    }
+
+    /**
+     * Clears the map, resetting the size to zero and nullifying references
+     * to avoid garbage collection issues.
+     */
+    @Override
+    public void clear() {
+        modCount++;
+        Arrays.fill(keyData, null);
+        Arrays.fill(valueData, null);
+        size = 0;
+    }
+
+    /**
+     * Clones the map without cloning the keys or values.
+     * <p>
+     * To implement {@code clone()}, a subclass must implement the
+     * {@code Cloneable} interface and make this method public.
+     *
+     * @return a shallow clone
+     * @throws InternalError if {@link AbstractMap#clone()} failed
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected AbstractOpenHashedMap<K, V> clone() {
+        try {
+            final AbstractOpenHashedMap<K, V> cloned = (AbstractOpenHashedMap<K, V>) super.clone();
+            cloned.keyData = keyData.clone();
+            cloned.valueData = valueData.clone();
+            cloned.hashData = hashData.clone();
+            cloned.entrySet = null;
+            cloned.keySet = null;
+            cloned.values = null;
+            cloned.modCount = 0;
+            cloned.init();
+            return cloned;
+        } catch (final CloneNotSupportedException ex) {
+            throw new UnsupportedOperationException(ex);
+        }
+    }
+
+    /**
+     * Checks whether the map contains the specified key.
+     *
+     * @param key  the key to search for
+     * @return true if the map contains the key
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        key = convertKey(key);
+        return indexOf(key, hash(key)) >= 0;
+    }
+
+    /**
+     * Checks whether the map contains the specified value.
+     *
+     * @param value  the value to search for
+     * @return true if the map contains the value
+     */
+    @Override
+    public boolean containsValue(final Object value) {
+        for (int i = 0; i < keyData.length; i++) {
+            if (keyData[i] != null && isEqualValueOrNull(value, valueData[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Converts input keys to another object for storage in the map.
+     * This implementation masks nulls.
+     * Subclasses can override this to perform alternate key conversions.
+     * <p>
+     * The reverse conversion can be changed, if required, by overriding
+     * {@link #unconvertKey(Object)}.
+     *
+     * @param key  the key convert
+     * @return the converted key
+     */
+    protected Object convertKey(final Object key) {
+        return key == null ? NULL : key;
+    }
+
+    /**
+     * Reads the map data from the stream. This method must be overridden if a
+     * subclass must be setup before {@code put()} is used.
+     * <p>
+     * The solution adopted is the same as {@link AbstractHashedMap#doReadObject(ObjectInputStream)}:
+     * this method must be called by the {@code readObject()} of the first serializable subclass.
+     *
+     * @param in  the input stream
+     * @throws IOException if an error occurs while reading from the stream
+     * @throws ClassNotFoundException if an object read from the stream can not be loaded
+     */
+    @SuppressWarnings("unchecked")
+    protected void doReadObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        loadFactor = in.readFloat();
+        final int capacity = in.readInt();
+        final int size = in.readInt();
+        init();
+        threshold = calculateThreshold(capacity, loadFactor);
+        allocate(capacity);
+        for (int i = 0; i < size; i++) {
+            final K key = (K) in.readObject();
+            final V value = (V) in.readObject();
+            put(key, value);
+        }
+    }
+
+    /**
+     * Writes the map data to the stream. This method must be overridden if a
+     * subclass must be setup before {@code put()} is used.
+     * <p>
+     * The solution adopted is the same as {@link AbstractHashedMap#doWriteObject(ObjectOutputStream)}:
+     * this method must be called by the {@code writeObject()} of the first serializable subclass.
+     *
+     * @param out  the output stream
+     * @throws IOException if an error occurs while writing to the stream
+     */
+    protected void doWriteObject(final ObjectOutputStream out) throws IOException {
+        out.writeFloat(loadFactor);
+        out.writeInt(keyData.length);
+        out.writeInt(size);
+        for (final MapIterator<K, V> it = mapIterator(); it.hasNext();) {
+            out.writeObject(it.next());
+            out.writeObject(it.getValue());
+        }
+    }
+
+    /**
+     * Changes the size of the data structure to the capacity proposed.
+     *
+     * @param newCapacity  the new capacity of the array (a power of two, less or equal to max)
+     */
+    protected void ensureCapacity(final int newCapacity) {
+        final int oldCapacity = keyData.length;
+        if (newCapacity <= oldCapacity) {
+            return;
+        }
+        final Object[] oldKeys = keyData;
+        final Object[] oldValues = valueData;
+        final int[] oldHashes = hashData;
+        allocate(newCapacity);
+        threshold = calculateThreshold(newCapacity, loadFactor);
+        if (size == 0) {
+            return;
+        }
+        modCount++;
+        final int mask = newCapacity - 1;
+        for (int i = oldCapacity - 1; i >= 0; i--) {
+            if (oldKeys[i] != null) {
+                int index = hashIndex(oldHashes[i], newCapacity);
+                while (keyData[index] != null) {
+                    index = index + 1 & mask;
+                }
+                keyData[index] = oldKeys[i];
+                valueData[index] = oldValues[i];
+                hashData[index] = oldHashes[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the {@code entrySet} view of the map.
+     * Changes made to the view affect this map.
+     * <p>
+     * The entries are created during iteration. To simply iterate through the
+     * entries, use {@link #mapIterator()} which does not create objects.
+     *
+     * @return the entrySet view
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet<>(this);
+        }
+        return entrySet;
+    }
+
+    /**
+     * Gets the value mapped to the key specified.
+     *
+     * @param key  the key
+     * @return the mapped value, null if no match
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        key = convertKey(key);
+        final int index = indexOf(key, hash(key));
+        return index >= 0 ? (V) valueData[index] : null;
+    }
+
+    /**
+     * Gets the hash code for the key specified.
+     * This implementation uses the additional hashing routine from JDK1.4.
+     * Subclasses can override this to return alternate hash codes.
+     *
+     * @param key  the key to get a hash code for
+     * @return the hash code
+     */
+    protected int hash(final Object key) {
+        // same as JDK 1.4
+        int h = key.hashCode();
+        h += ~(h << 9);
+        h ^=  h >>> 14;
+        h +=  h << 4;
+        h ^=  h >>> 10;
+        return h;
+    }
+
+    /**
+     * Gets the standard Map hashCode.
+     *
+     * @return the hash code defined in the Map interface
+     */
+    @Override
+    public int hashCode() {
+        int total = 0;
+        for (int i = 0; i < keyData.length; i++) {
+            if (keyData[i] != null) {
+                total += Objects.hashCode(unconvertKey(keyData[i])) ^ Objects.hashCode(valueData[i]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Gets the index of the start of the probe sequence for the hashCode specified.
+     * This implementation uses the least significant bits of the hashCode.
+     * Subclasses can override this to return alternate bucketing.
+     *
+     * @param hashCode  the hash code to use
+     * @param dataSize  the size of the data to pick a bucket from
+     * @return the bucket index
+     */
+    protected int hashIndex(final int hashCode, final int dataSize) {
+        return hashCode & dataSize - 1;
+    }
+
+    /**
+     * Finds the slot of the converted key.
+     *
+     * @param key  the converted key
+     * @param hashCode  the hash code of the key
+     * @return the index of the key, or {@code -(insertion index) - 1} if not found
+     */
+    final int indexOf(final Object key, final int hashCode) {
+        final Object[] keys = keyData;
+        final int mask = keys.length - 1;
+        int index = hashIndex(hashCode, keys.length);
+        Object candidate;
+        while ((candidate = keys[index]) != null) {
+            if (hashData[index] == hashCode && isEqualKey(key, candidate)) {
+                return index;
+            }
+            index = index + 1 & mask;
+        }
+        return -index - 1;
+    }
+
+    /**
+     * Initialize subclasses during construction, cloning or deserialization.
+     */
+    protected void init() {
+        // noop
+    }
+
+    /**
+     * Checks whether the map is currently empty.
+     *
+     * @return true if the map is currently size zero
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Compares two keys, in internal converted form, to see if they are equal.
+     * This implementation uses the equals method and assumes neither key is null.
+     * Subclasses can override this to match differently.
+     *
+     * @param key1  the first key to compare passed in from outside
+     * @param key2  the second key extracted from the table
+     * @return true if equal
+     */
+    protected boolean isEqualKey(final Object key1, final Object key2) {
+        return key1 == key2 || key1.equals(key2);
+    }
+
+    /**
+     * Compares two values, in external form, to see if they are equal.
+     * This implementation uses the equals method and assumes neither value is null.
+     * Subclasses can override this to match differently.
+     *
+     * @param value1  the first value to compare passed in from outside
+     * @param value2  the second value extracted from the table
+     * @return true if equal
+     */
+    protected boolean isEqualValue(final Object value1, final Object value2) {
+        return value1 == value2 || value1.equals(value2);
+    }
+
+    /**
+     * Compares two values which may be null.
+     *
+     * @param value1  the first value to compare passed in from outside
+     * @param value2  the second value extracted from the table
+     * @return true if equal
+     */
+    private boolean isEqualValueOrNull(final Object value1, final Object value2) {
+        if (value1 == null || value2 == null) {
+            return value1 == value2;
+        }
+        return isEqualValue(value1, value2);
+    }
+
+    /**
+     * Gets the keySet view of the map.
+     * Changes made to the view affect this map.
+     * To simply iterate through the keys, use {@link #mapIterator()}.
+     *
+     * @return the keySet view
+     */
+    @Override
+    public Set<K> keySet() {
+        if (keySet == null) {
+            keySet = new KeySet<>(this);
+        }
+        return keySet;
+    }
+
+    /**
+     * Gets an iterator over the map.
+     * Changes made to the iterator affect this map.
+     * <p>
+     * A MapIterator returns the keys in the map. It also provides convenient
+     * methods to get the key and value, and set the value. It avoids the need
+     * to create an entrySet/keySet/values object.
+     *
+     * @return the map iterator
+     */
+    @Override
+    public MapIterator<K, V> mapIterator() {
+        return new OpenHashMapIterator<>(this);
+    }
+
+    /**
+     * Puts a key-value mapping into this map.
+     *
+     * @param key  the key to add
+     * @param value  the value to add
+     * @return the value previously mapped to this key, null if none
+     * @throws IllegalStateException if the map is full at the maximum capacity
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(final K key, final V value) {
+        final Object convertedKey = convertKey(key);
+        final int hashCode = hash(convertedKey);
+        final int index = indexOf(convertedKey, hashCode);
+        if (index >= 0) {
+            final V old = (V) valueData[index];
+            valueData[index] = value;
+            return old;
+        }
+        final int insert = -index - 1;
+        modCount++;
+        keyData[insert] = convertedKey;
+        valueData[insert] = value;
+        hashData[insert] = hashCode;
+        size++;
+        checkCapacity();
+        return null;
+    }
+
+    /**
+     * Puts all the values from the specified map into this map.
+     * <p>
+     * This implementation iterates around the specified map and
+     * uses {@link #put(Object, Object)}.
+     *
+     * @param map  the map to add
+     * @throws NullPointerException if the map is null
+     */
+    @Override
+    public void putAll(final Map<? extends K, ? extends V> map) {
+        final int mapSize = map.size();
+        if (mapSize == 0) {
+            return;
+        }
+        final int newSize = (int) ((size + mapSize) / loadFactor + 1);
+        ensureCapacity(calculateNewCapacity(newSize));
+        for (final Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Removes the specified mapping from this map.
+     *
+     * @param key  the mapping to remove
+     * @return the value mapped to the removed key, null if key not in map
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        key = convertKey(key);
+        final int index = indexOf(key, hash(key));
+        if (index < 0) {
+            return null;
+        }
+        final V old = (V) valueData[index];
+        removeIndex(index, null);
+        return old;
+    }
+
+    /**
+     * Removes the entry at the index, shifting back the following entries of the
+     * probe sequence which may occupy the empty slot.
+     *
+     * @param index  the index of the entry
+     * @param iterator  the iterator removing the entry, or null
+     */
+    final void removeIndex(final int index, final OpenHashIterator<?, K, V> iterator) {
+        modCount++;
+        size--;
+        final int empty = OpenAddressing.remove(new TableSlots<>(this, iterator), index, keyData.length - 1);
+        keyData[empty] = null;
+        valueData[empty] = null;
+    }
+
+    /**
+     * Gets the size of the map.
+     *
+     * @return the size
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the map as a String.
+     *
+     * @return a string version of the map
+     */
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "{}";
+        }
+        final StringBuilder buf = new StringBuilder(32 * size());
+        buf.append('{');
+
+        final MapIterator<K, V> it = mapIterator();
+        boolean hasNext = it.hasNext();
+        while (hasNext) {
+            final K key = it.next();
+            final V value = it.getValue();
+            buf.append(key == this ? "(this Map)" : key)
+                .append('=')
+                .append(value == this ? "(this Map)" : value);
+
+            hasNext = it.hasNext();
+            if (hasNext) {
+                buf.append(CollectionUtils.COMMA).append(' ');
+            }
+        }
+
+        buf.append('}');
+        return buf.toString();
+    }
+
+    /**
+     * Converts a key in internal form to the external form.
+     * This implementation unmasks nulls.
+     * Subclasses that override {@link #convertKey(Object)} can override this
+     * to reverse their conversion. It is used for all the keys returned by
+     * the map, its views and iterators.
+     *
+     * @param key  the converted key
+     * @return the key
+     */
+    protected Object unconvertKey(final Object key) {
+        return key == NULL ? null : key;
+    }
+
+    /**
+     * Gets the values view of the map.
+     * Changes made to the view affect this map.
+     * To simply iterate through the values, use {@link #mapIterator()}.
+     *
+     * @return the values view
+     */
+    @Override
+    public Collection<V> values() {
+        if (values == null) {
+            values = new Values<>(this);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections4.IterableMap;
+import org.apache.commons.collections4.MapIterator;
+import org.apache.commons.collections4.keyvalue.AbstractMapEntry;
+
+/**
+ * Base class for the {@code Map} views of the primitive maps, which box the keys
+ * and values on access.
+ * <p>
+ * Subclasses provide the map iterator and the operations of the primitive map.
+ * The entry set view is built on the map iterator.
+ * </p>
+ *
+ * @param <K> the type of the keys in this map
+ * @param <V> the type of the values in this map
+ * @since 4.5.0
+ */
+abstract class AbstractPrimitiveMapView<K, V> extends AbstractMap<K, V> implements IterableMap<K, V> {
+
+    /**
+     * Entry which writes its value through to the map.
+     */
+    private final class ViewEntry extends AbstractMapEntry<K, V> {
+
+        ViewEntry(final K key, final V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(final V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    /** Entry set view */
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public void clear() {
+                    AbstractPrimitiveMapView.this.clear();
+                }
+
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    final MapIterator<K, V> it = mapIterator();
+                    return new Iterator<Map.Entry<K, V>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<K, V> next() {
+                            final K key = it.next();
+                            return new ViewEntry(key, it.getValue());
+                        }
+
+                        @Override
+                        public void remove() {
+                            it.remove();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return AbstractPrimitiveMapView.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+}
@@ -0,0 +1,754 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.collections4.BoundedMap;
+import org.apache.commons.collections4.MapIterator;
+import org.apache.commons.collections4.map.AbstractLinkedMap.LinkEntry;
+
+/**
+ * A thread-safe {@code Map} with a fixed maximum size which removes
+ * the least recently used entry if an entry is added when full.
+ * <p>
+ * This map provides the eviction behavior of {@link LRUMap}, including the
+ * {@link #removeLRU(AbstractLinkedMap.LinkEntry)} hook and the scan until removable
+ * option, for use by many threads. Wrapping an {@code LRUMap} using
+ * {@link java.util.Collections#synchronizedMap(Map)} serializes every {@code get}
+ * as each {@code get} moves the entry to the most recently used position.
+ * </p>
+ * <p>
+ * Instead, the entries are held in a {@link ConcurrentHashMap} so retrievals do
+ * not lock. Each retrieval records the entry in one of several read buffers,
+ * selected by the current thread, and the recorded accesses are applied to the
+ * least recently used order in batches by the thread that fills a buffer or by
+ * the next update. Updates, and the application of the read buffers, are
+ * performed under a single lock. If a read buffer is full when a retrieval is
+ * recorded, and another thread holds the lock, the access is not recorded.
+ * Thus the order is an approximation of the least recently used order that
+ * favors the throughput of retrievals.
+ * </p>
+ * <p>
+ * The least recently used algorithm works on the get and put operations only.
+ * Iteration of the map and its views is weakly consistent, as for
+ * {@code ConcurrentHashMap}, does not follow the least recently used order and
+ * does not change the order. The views support removal and setting values,
+ * which are written through to the map.
+ * </p>
+ * <p>
+ * Like {@link ConcurrentHashMap} but unlike {@link LRUMap}, this class does
+ * <em>not</em> allow {@code null} to be used as a key or value, and throws
+ * {@code NullPointerException} when queried with a {@code null} key or value.
+ * </p>
+ *
+ * @param <K> the type of the keys in this map
+ * @param <V> the type of the values in this map
+ * @see LRUMap
+ * @since 4.5.0
+ */
+public class ConcurrentLRUMap<K, V> extends AbstractMap<K, V> implements BoundedMap<K, V>, ConcurrentMap<K, V> {
+
+    /**
+     * An entry in the least recently used order. The key and value are not
+     * changed after the node is published; a new node replaces the node when the
+     * value changes.
+     */
+    private static final class Node<K, V> extends LinkEntry<K, V> {
+
+        Node(final Object key, final V value) {
+            super(null, 0, key, value);
+        }
+    }
+
+    /**
+     * A buffer of the nodes retrieved by the threads that share the buffer.
+     * Nodes are added by any thread and removed under the lock.
+     */
+    private static final class ReadBuffer<K, V> {
+
+        /** The recorded nodes. */
+        final AtomicReferenceArray<Node<K, V>> nodes = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+
+        /** The count of nodes added. */
+        final AtomicLong tail = new AtomicLong();
+
+        /** The count of nodes removed, written under the lock. */
+        volatile long head;
+    }
+
+    /**
+     * An entry of the entry set that writes changes through to the map.
+     */
+    private final class WriteThroughEntry extends SimpleEntry<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        WriteThroughEntry(final K key, final V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(final V value) {
+            Objects.requireNonNull(value, "value");
+            super.setValue(value);
+            return put(getKey(), value);
+        }
+    }
+
+    /** Default maximum size */
+    protected static final int DEFAULT_MAX_SIZE = 100;
+
+    /** The number of nodes in a read buffer, a power of 2 */
+    private static final int READ_BUFFER_SIZE = 16;
+
+    /** The maximum number of read buffers */
+    private static final int MAX_READ_BUFFERS = 64;
+
+    /**
+     * Gets the number of read buffers for the number of processors.
+     *
+     * @return the number of read buffers, a power of 2
+     */
+    private static int readBufferCount() {
+        final int processors = Math.min(Runtime.getRuntime().availableProcessors(), MAX_READ_BUFFERS);
+        return Integer.highestOneBit(processors * 2 - 1);
+    }
+
+    /** The entries */
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+
+    /** Header in the least recently used order, guarded by the lock */
+    private final Node<K, V> header;
+
+    /** The lock for updates and the least recently used order */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** The read buffers */
+    private final ReadBuffer<K, V>[] readBuffers;
+
+    /** Maximum size */
+    private final int maxSize;
+
+    /** Scan behavior */
+    private final boolean scanUntilRemovable;
+
+    /** Entry set view */
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Constructs a new empty map with a maximum size of 100.
+     */
+    public ConcurrentLRUMap() {
+        this(DEFAULT_MAX_SIZE, false);
+    }
+
+    /**
+     * Constructs a new, empty map with the specified maximum size.
+     *
+     * @param maxSize  the maximum size of the map
+     * @throws IllegalArgumentException if the maximum size is less than one
+     */
+    public ConcurrentLRUMap(final int maxSize) {
+        this(maxSize, false);
+    }
+
+    /**
+     * Constructs a new, empty map with the specified maximum size.
+     *
+     * @param maxSize  the maximum size of the map
+     * @param scanUntilRemovable  scan until a removable entry is found, default false
+     * @throws IllegalArgumentException if the maximum size is less than one
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLRUMap(final int maxSize, final boolean scanUntilRemovable) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("ConcurrentLRUMap max size must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.scanUntilRemovable = scanUntilRemovable;
+        this.data = new ConcurrentHashMap<>();
+        this.header = new Node<>(null, null);
+        header.before = header.after = header;
+        this.readBuffers = new ReadBuffer[readBufferCount()];
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    /**
+     * Constructs a new, empty map with the specified maximum size and copies the
+     * mappings of the specified map.
+     *
+     * @param maxSize  the maximum size of the map
+     * @param map  the map to copy
+     * @throws NullPointerException if the map is null or contains a null key or value
+     * @throws IllegalArgumentException if the maximum size is less than one
+     */
+    public ConcurrentLRUMap(final int maxSize, final Map<? extends K, ? extends V> map) {
+        this(maxSize, false);
+        putAll(map);
+    }
+
+    /**
+     * Records the retrieval of a node. Applies the read buffers if the buffer
+     * of the current thread is full.
+     *
+     * @param node  the node retrieved
+     */
+    private void afterRead(final Node<K, V> node) {
+        final ReadBuffer<K, V> buffer = readBuffers[readBufferIndex()];
+        final long tail = buffer.tail.get();
+        final long size = tail - buffer.head;
+        if (size >= READ_BUFFER_SIZE) {
+            tryDrainReadBuffers();
+        } else if (buffer.tail.compareAndSet(tail, tail + 1)) {
+            buffer.nodes.lazySet((int) tail & READ_BUFFER_SIZE - 1, node);
+            if (size + 1 == READ_BUFFER_SIZE) {
+                tryDrainReadBuffers();
+            }
+        }
+    }
+
+    /**
+     * Removes all mappings from this map.
+     */
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            drainReadBuffers();
+            for (LinkEntry<K, V> e = header.after; e != header;) {
+                final LinkEntry<K, V> next = e.after;
+                e.before = e.after = null;
+                e = next;
+            }
+            header.before = header.after = header;
+            data.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether the map contains the specified key.
+     * <p>
+     * This operation does not change the least recently used order.
+     *
+     * @param key  the key to search for
+     * @return true if the map contains the key
+     */
+    @Override
+    public boolean containsKey(final Object key) {
+        return data.containsKey(key);
+    }
+
+    /**
+     * Checks whether the map contains the specified value.
+     * <p>
+     * This operation does not change the least recently used order.
+     *
+     * @param value  the value to search for
+     * @return true if the map contains the value
+     */
+    @Override
+    public boolean containsValue(final Object value) {
+        Objects.requireNonNull(value, "value");
+        for (final Node<K, V> node : data.values()) {
+            if (value.equals(node.getValue())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the recorded retrievals to the least recently used order. The lock
+     * must be held.
+     */
+    private void drainReadBuffers() {
+        for (final ReadBuffer<K, V> buffer : readBuffers) {
+            long head = buffer.head;
+            final long tail = buffer.tail.get();
+            while (head < tail) {
+                final int index = (int) head & READ_BUFFER_SIZE - 1;
+                final Node<K, V> node = buffer.nodes.get(index);
+                if (node == null) {
+                    // the slot has been claimed but not yet written
+                    break;
+                }
+                buffer.nodes.lazySet(index, null);
+                // skip nodes that have been removed or replaced
+                if (node.after != null) {
+                    moveToMRU(node);
+                }
+                head++;
+            }
+            buffer.head = head;
+        }
+    }
+
+    /**
+     * Gets a set view of the mappings contained in this map.
+     * <p>
+     * The view is weakly consistent. Its iterator does not follow the least
+     * recently used order and supports removal, and the entries support
+     * {@code setValue}.
+     *
+     * @return the entry set view
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public void clear() {
+                    ConcurrentLRUMap.this.clear();
+                }
+
+                @Override
+                public boolean contains(final Object obj) {
+                    if (!(obj instanceof Map.Entry)) {
+                        return false;
+                    }
+                    final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+                    final Node<K, V> node = entry.getKey() == null ? null : data.get(entry.getKey());
+                    return node != null && Objects.equals(node.getValue(), entry.getValue());
+                }
+
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    final Iterator<Node<K, V>> iterator = data.values().iterator();
+                    return new Iterator<Map.Entry<K, V>>() {
+                        private K last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<K, V> next() {
+                            final Node<K, V> node = iterator.next();
+                            last = node.getKey();
+                            return new WriteThroughEntry(last, node.getValue());
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null) {
+                                throw new IllegalStateException();
+                            }
+                            ConcurrentLRUMap.this.remove(last);
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public boolean remove(final Object obj) {
+                    if (!(obj instanceof Map.Entry)) {
+                        return false;
+                    }
+                    final Map.Entry<?, ?> entry = (Map.Entry<?, ?>) obj;
+                    return entry.getKey() != null && entry.getValue() != null
+                            && ConcurrentLRUMap.this.remove(entry.getKey(), entry.getValue());
+                }
+
+                @Override
+                public int size() {
+                    return ConcurrentLRUMap.this.size();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    /**
+     * Removes the least recently used entry if the map is full, using
+     * {@link #removeLRU(AbstractLinkedMap.LinkEntry)} to decide which entry to
+     * discard. The lock must be held.
+     */
+    private void evict() {
+        if (!isFull()) {
+            return;
+        }
+        LinkEntry<K, V> entry = header.after;
+        if (scanUntilRemovable) {
+            while (entry != header) {
+                if (removeLRU(entry)) {
+                    removeNode(entry);
+                    return;
+                }
+                entry = entry.after;
+            }
+        } else if (entry != header && removeLRU(entry)) {
+            removeNode(entry);
+        }
+    }
+
+    /**
+     * Gets the value mapped to the key specified.
+     * <p>
+     * This operation records the key as the most recently used. The position of
+     * the key in the least recently used order is updated later.
+     *
+     * @param key  the key
+     * @return the mapped value, null if no match
+     */
+    @Override
+    public V get(final Object key) {
+        return get(key, true);
+    }
+
+    /**
+     * Gets the value mapped to the key specified.
+     * <p>
+     * If {@code updateToMRU} is {@code true}, the key is recorded as the most
+     * recently used, otherwise the least recently used order is not changed by
+     * this operation.
+     *
+     * @param key  the key
+     * @param updateToMRU  whether the key shall be updated to the
+     *   most recently used position
+     * @return the mapped value, null if no match
+     */
+    public V get(final Object key, final boolean updateToMRU) {
+        final Node<K, V> node = data.get(key);
+        if (node == null) {
+            return null;
+        }
+        if (updateToMRU) {
+            afterRead(node);
+        }
+        return node.getValue();
+    }
+
+    /**
+     * Returns true if this map is full and no new mappings can be added.
+     *
+     * @return {@code true} if the map is full
+     */
+    @Override
+    public boolean isFull() {
+        return size() >= maxSize;
+    }
+
+    /**
+     * Whether this map will scan until a removable entry is found when the
+     * map is full.
+     *
+     * @return true if this map scans
+     */
+    public boolean isScanUntilRemovable() {
+        return scanUntilRemovable;
+    }
+
+    /**
+     * Adds the node at the most recently used position. The lock must be held.
+     *
+     * @param node  the node to add
+     */
+    private void linkLast(final LinkEntry<K, V> node) {
+        node.after = header;
+        node.before = header.before;
+        header.before.after = node;
+        header.before = node;
+    }
+
+    /**
+     * Gets an iterator over the map.
+     * <p>
+     * The iterator is weakly consistent and does not follow the least recently
+     * used order.
+     *
+     * @return the map iterator
+     */
+    @Override
+    public MapIterator<K, V> mapIterator() {
+        return new EntrySetToMapIteratorAdapter<>(entrySet());
+    }
+
+    /**
+     * Gets the maximum size of the map (the bound).
+     *
+     * @return the maximum number of elements the map can hold
+     */
+    @Override
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Moves the node to the most recently used position. The lock must be held.
+     *
+     * @param node  the node to move
+     */
+    private void moveToMRU(final LinkEntry<K, V> node) {
+        if (node.after != header) {
+            unlink(node);
+            linkLast(node);
+        }
+    }
+
+    /**
+     * Puts a key-value mapping into this map.
+     * <p>
+     * If the key is not mapped and the map is full, the least recently used
+     * entry is removed first, subject to {@link #removeLRU(AbstractLinkedMap.LinkEntry)}.
+     * The key becomes the most recently used.
+     *
+     * @param key  the key to add
+     * @param value  the value to add
+     * @return the value previously mapped to this key, null if none
+     * @throws NullPointerException if the key or value is null
+     */
+    @Override
+    public V put(final K key, final V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        lock.lock();
+        try {
+            return putLocked(key, value, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public V putIfAbsent(final K key, final V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        final Node<K, V> node = data.get(key);
+        if (node != null) {
+            afterRead(node);
+            return node.getValue();
+        }
+        lock.lock();
+        try {
+            return putLocked(key, value, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts a key-value mapping into this map. The lock must be held.
+     *
+     * @param key  the key to add
+     * @param value  the value to add
+     * @param onlyIfAbsent  whether to keep an existing mapping
+     * @return the value previously mapped to this key, null if none
+     */
+    private V putLocked(final K key, final V value, final boolean onlyIfAbsent) {
+        drainReadBuffers();
+        final Node<K, V> old = data.get(key);
+        if (old != null) {
+            if (onlyIfAbsent) {
+                moveToMRU(old);
+                return old.getValue();
+            }
+            replaceNode(old, value);
+            return old.getValue();
+        }
+        evict();
+        final Node<K, V> node = new Node<>(key, value);
+        data.put(key, node);
+        linkLast(node);
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the key.
+     *
+     * @param key  the key to remove
+     * @return the value previously mapped to this key, null if none
+     */
+    @Override
+    public V remove(final Object key) {
+        Objects.requireNonNull(key, "key");
+        lock.lock();
+        try {
+            final Node<K, V> node = data.remove(key);
+            if (node == null) {
+                return null;
+            }
+            unlink(node);
+            return node.getValue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(final Object key, final Object value) {
+        Objects.requireNonNull(key, "key");
+        if (value == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            final Node<K, V> node = data.get(key);
+            if (node == null || !value.equals(node.getValue())) {
+                return false;
+            }
+            removeNode(node);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Subclass method to control removal of the least recently used entry from the map.
+     * <p>
+     * This method exists for subclasses to override and has the same contract as
+     * {@link LRUMap#removeLRU(AbstractLinkedMap.LinkEntry)}. A subclass may wish to
+     * provide cleanup of resources when an entry is removed, or may choose to not
+     * remove the entry or selectively keep certain LRU entries.
+     * The effect of returning false is dependent on the scanUntilRemovable flag.
+     * If the flag is true, the next LRU entry will be passed to this method and so on
+     * until one returns true and is removed, or every entry in the map has been passed.
+     * If the scanUntilRemovable flag is false, the map will exceed the maximum size.
+     * <p>
+     * This method is called while holding the lock for updates to the map, so it
+     * should be quick and must not update the map. The entry must not be modified.
+     *
+     * @param entry  the entry to be removed
+     * @return {@code true}
+     */
+    protected boolean removeLRU(final LinkEntry<K, V> entry) {
+        return true;
+    }
+
+    /**
+     * Removes the node from the map and the least recently used order. The lock
+     * must be held.
+     *
+     * @param node  the node to remove
+     */
+    private void removeNode(final LinkEntry<K, V> node) {
+        data.remove(node.getKey(), node);
+        unlink(node);
+    }
+
+    @Override
+    public V replace(final K key, final V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        lock.lock();
+        try {
+            drainReadBuffers();
+            final Node<K, V> old = data.get(key);
+            if (old == null) {
+                return null;
+            }
+            replaceNode(old, value);
+            return old.getValue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean replace(final K key, final V oldValue, final V newValue) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(oldValue, "oldValue");
+        Objects.requireNonNull(newValue, "newValue");
+        lock.lock();
+        try {
+            drainReadBuffers();
+            final Node<K, V> old = data.get(key);
+            if (old == null || !oldValue.equals(old.getValue())) {
+                return false;
+            }
+            replaceNode(old, newValue);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the node with a new node for the value at the most recently used
+     * position. The lock must be held.
+     *
+     * @param old  the node to replace
+     * @param value  the new value
+     */
+    private void replaceNode(final Node<K, V> old, final V value) {
+        final Node<K, V> node = new Node<>(old.getKey(), value);
+        unlink(old);
+        data.put(node.getKey(), node);
+        linkLast(node);
+    }
+
+    /**
+     * Gets the index of the read buffer for the current thread.
+     *
+     * @return the index
+     */
+    private int readBufferIndex() {
+        // spread the thread ids, which are often sequential
+        final long id = Thread.currentThread().getId() * 0x9e3779b97f4a7c15L;
+        return (int) (id >>> 32) & readBuffers.length - 1;
+    }
+
+    /**
+     * Gets the number of mappings in this map.
+     *
+     * @return the size
+     */
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * Applies the read buffers if the lock is not held by another thread.
+     */
+    private void tryDrainReadBuffers() {
+        if (lock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes the node from the least recently used order. The lock must be held.
+     *
+     * @param node  the node to remove
+     */
+    private void unlink(final LinkEntry<K, V> node) {
+        node.before.after = node.after;
+        node.after.before = node.before;
+        node.before = node.after = null;
+    }
+}
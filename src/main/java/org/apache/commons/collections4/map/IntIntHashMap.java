@@ -0,0 +1,808 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.collections4.IterableMap;
+import org.apache.commons.collections4.MapIterator;
+
+/**
+ * A hash map from primitive {@code int} keys to primitive {@code int} values.
+ * <p>
+ * The keys and values are stored in parallel {@code int} arrays using open
+ * addressing with linear probing, so nothing is boxed and no object is allocated
+ * per mapping. A removal shifts the following entries of the probe sequence back,
+ * so no deleted markers are left in the table. The value of a key which is not
+ * mapped is reported as zero, {@link #containsKey(int)} distinguishes a mapping to
+ * zero. This suits counters, see {@link #addTo(int, int)}.
+ * </p>
+ * <p>
+ * The {@link Cursor} returned by {@link #cursor()} iterates the mappings without
+ * allocation, in the style of a {@link MapIterator}. The {@link #asMap()} view
+ * exposes the map as a {@code Map<Integer, Integer>}, boxing the keys and values on access.
+ * </p>
+ * <p>
+ * <strong>Note that IntIntHashMap is not synchronized and is not thread-safe.</strong>
+ * </p>
+ *
+ * @see LongObjectHashMap
+ * @see ObjectLongHashMap
+ * @since 4.5.0
+ */
+public class IntIntHashMap implements Serializable {
+
+    /**
+     * A cursor over the mappings of the map. The cursor does not allocate objects.
+     * <p>
+     * Call {@link #nextInt()} to move to the next mapping, then the key and value
+     * of the mapping can be read, the value set and the mapping removed. A removal by
+     * the cursor does not affect the mappings it returns. Any other structural change
+     * to the map causes a {@link ConcurrentModificationException}.
+     * </p>
+     */
+    public final class Cursor {
+
+        /** The index of the last slot scanned, the table is scanned downwards */
+        private int position;
+
+        /** The index of the current mapping, -1 if none or the zero key */
+        private int current;
+
+        /** Whether the current mapping is the zero key */
+        private boolean currentZero;
+
+        /** Whether the zero key is still to be returned */
+        private boolean zeroPending;
+
+        /** The number of mappings left to return */
+        private int remaining;
+
+        /** The keys shifted from the part of the table not yet scanned to the part scanned */
+        private int[] wrapped;
+
+        /** The number of wrapped keys */
+        private int wrappedSize;
+
+        /** The index of the next wrapped key to return */
+        private int wrappedIndex;
+
+        /** The modification count expected */
+        private int expectedModCount;
+
+        Cursor() {
+            position = keys.length;
+            current = -1;
+            zeroPending = hasZeroKey;
+            remaining = size;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Checks there is a current mapping.
+         *
+         * @param message  the exception message
+         */
+        private void checkCurrent(final String message) {
+            if (current < 0 && !currentZero) {
+                throw new IllegalStateException(message);
+            }
+        }
+
+        /**
+         * Gets the key of the current mapping.
+         *
+         * @return the current key
+         * @throws IllegalStateException if there is no current mapping
+         */
+        public int getIntKey() {
+            checkCurrent(AbstractHashedMap.GETKEY_INVALID);
+            return currentZero ? 0 : keys[current];
+        }
+
+        /**
+         * Gets the value of the current mapping.
+         *
+         * @return the current value
+         * @throws IllegalStateException if there is no current mapping
+         */
+        public int getIntValue() {
+            checkCurrent(AbstractHashedMap.GETVALUE_INVALID);
+            return currentZero ? zeroValue : values[current];
+        }
+
+        /**
+         * Tests whether there is a next mapping.
+         *
+         * @return true if there is a next mapping
+         */
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Records an entry shifted by a removal.
+         *
+         * @param from  the index the entry was shifted from
+         * @param to  the index the entry was shifted to
+         */
+        void moved(final int from, final int to) {
+            if (OpenAddressing.isWrapped(from, to, position)) {
+                wrapped = OpenAddressing.append(wrapped, wrappedSize++, keys[to]);
+            }
+        }
+
+        /**
+         * Moves to the next mapping.
+         *
+         * @return the key of the next mapping
+         * @throws NoSuchElementException if there are no more mappings
+         * @throws ConcurrentModificationException if the map was changed other than by the cursor
+         */
+        public int nextInt() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining == 0) {
+                throw new NoSuchElementException(AbstractHashedMap.NO_NEXT_ENTRY);
+            }
+            remaining--;
+            current = -1;
+            currentZero = false;
+            if (zeroPending) {
+                zeroPending = false;
+                currentZero = true;
+                return 0;
+            }
+            while (--position >= 0) {
+                if (keys[position] != 0) {
+                    current = position;
+                    return keys[position];
+                }
+            }
+            final int key = wrapped[wrappedIndex++];
+            current = indexOf(key);
+            return key;
+        }
+
+        /**
+         * Removes the current mapping.
+         *
+         * @throws IllegalStateException if there is no current mapping
+         * @throws ConcurrentModificationException if the map was changed other than by the cursor
+         */
+        public void remove() {
+            checkCurrent(AbstractHashedMap.REMOVE_INVALID);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (currentZero) {
+                removeZero();
+            } else {
+                removeIndex(current, this);
+            }
+            current = -1;
+            currentZero = false;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Sets the value of the current mapping.
+         *
+         * @param value  the new value
+         * @return the previous value
+         * @throws IllegalStateException if there is no current mapping
+         */
+        public int setIntValue(final int value) {
+            checkCurrent(AbstractHashedMap.SETVALUE_INVALID);
+            final int old;
+            if (currentZero) {
+                old = zeroValue;
+                zeroValue = value;
+            } else {
+                old = values[current];
+                values[current] = value;
+            }
+            return old;
+        }
+    }
+
+    /**
+     * The {@code Map} view.
+     */
+    private final class MapView extends AbstractPrimitiveMapView<Integer, Integer> {
+
+        @Override
+        public void clear() {
+            IntIntHashMap.this.clear();
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return key instanceof Integer && IntIntHashMap.this.containsKey((Integer) key);
+        }
+
+        @Override
+        public boolean containsValue(final Object value) {
+            return value instanceof Integer && IntIntHashMap.this.containsValue((Integer) value);
+        }
+
+        @Override
+        public Integer get(final Object key) {
+            return containsKey(key) ? IntIntHashMap.this.get((Integer) key) : null;
+        }
+
+        @Override
+        public MapIterator<Integer, Integer> mapIterator() {
+            final Cursor cursor = cursor();
+            return new MapIterator<Integer, Integer>() {
+                @Override
+                public Integer getKey() {
+                    return cursor.getIntKey();
+                }
+
+                @Override
+                public Integer getValue() {
+                    return cursor.getIntValue();
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return cursor.hasNext();
+                }
+
+                @Override
+                public Integer next() {
+                    return cursor.nextInt();
+                }
+
+                @Override
+                public void remove() {
+                    cursor.remove();
+                }
+
+                @Override
+                public Integer setValue(final Integer value) {
+                    return cursor.setIntValue(value);
+                }
+            };
+        }
+
+        @Override
+        public Integer put(final Integer key, final Integer value) {
+            final boolean mapped = IntIntHashMap.this.containsKey(key);
+            final int old = IntIntHashMap.this.put(key, value);
+            return mapped ? Integer.valueOf(old) : null;
+        }
+
+        @Override
+        public Integer remove(final Object key) {
+            return containsKey(key) ? IntIntHashMap.this.remove((Integer) key) : null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The slots of the table, as seen by a removal.
+     */
+    private final class TableSlots implements OpenAddressing.Slots {
+
+        /** The cursor removing the entry, or null */
+        private final Cursor cursor;
+
+        TableSlots(final Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean isEmpty(final int index) {
+            return keys[index] == 0;
+        }
+
+        @Override
+        public void move(final int from, final int to) {
+            keys[to] = keys[from];
+            values[to] = values[from];
+            if (cursor != null) {
+                cursor.moved(from, to);
+            }
+        }
+
+        @Override
+        public int startOf(final int index) {
+            return hashIndex(keys[index], keys.length - 1);
+        }
+    }
+
+    /** Serialisation version */
+    private static final long serialVersionUID = -1834718826465402155L;
+
+    /** The default expected size */
+    private static final int DEFAULT_EXPECTED_SIZE = 8;
+
+    /** The default load factor */
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * Gets the index of the start of the probe sequence of the key.
+     *
+     * @param key  the key
+     * @param mask  the mask of the table size
+     * @return the index
+     */
+    private static int hashIndex(final int key, final int mask) {
+        final int h = key * 0x9e3779b9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    /** The load factor */
+    private final float loadFactor;
+
+    /** The keys, 0 for an empty slot */
+    private transient int[] keys;
+
+    /** The values */
+    private transient int[] values;
+
+    /** Whether the map contains the zero key, which is not stored in the table */
+    private transient boolean hasZeroKey;
+
+    /** The value of the zero key */
+    private transient int zeroValue;
+
+    /** The number of mappings */
+    private transient int size;
+
+    /** The number of mappings in the table at which to resize */
+    private transient int threshold;
+
+    /** Modification count for cursors */
+    private transient int modCount;
+
+    /** The map view */
+    private transient MapView mapView;
+
+    /**
+     * Constructs a new empty map with the default expected size and load factor.
+     */
+    public IntIntHashMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a new empty map sized for the expected number of mappings.
+     *
+     * @param expectedSize  the expected number of mappings
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public IntIntHashMap(final int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a new empty map sized for the expected number of mappings.
+     *
+     * @param expectedSize  the expected number of mappings
+     * @param loadFactor  the load factor
+     * @throws IllegalArgumentException if the expected size is negative
+     * @throws IllegalArgumentException if the load factor is not greater than zero and less than one
+     */
+    public IntIntHashMap(final int expectedSize, final float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must be a non negative number");
+        }
+        this.loadFactor = OpenAddressing.checkLoadFactor(loadFactor);
+        allocate(OpenAddressing.capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * Adds to the value of the key, mapping the key to the increment if it is not mapped.
+     *
+     * @param key  the key
+     * @param increment  the amount to add
+     * @return the new value
+     * @throws IllegalStateException if the map is full at the maximum capacity
+     */
+    public int addTo(final int key, final int increment) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                modCount++;
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue += increment;
+            return zeroValue;
+        }
+        final int index = indexOf(key);
+        if (index >= 0) {
+            values[index] += increment;
+            return values[index];
+        }
+        insert(-index - 1, key, increment);
+        return increment;
+    }
+
+    /**
+     * Allocates the table.
+     *
+     * @param capacity  the capacity, a power of two
+     */
+    private void allocate(final int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        threshold = OpenAddressing.threshold(capacity, loadFactor);
+    }
+
+    /**
+     * Gets a {@code Map} view of this map. Changes to the view affect this map.
+     * The view boxes the keys and values on access, and does not support null keys
+     * or values.
+     *
+     * @return the map view
+     */
+    public IterableMap<Integer, Integer> asMap() {
+        if (mapView == null) {
+            mapView = new MapView();
+        }
+        return mapView;
+    }
+
+    /**
+     * Removes all mappings.
+     */
+    public void clear() {
+        modCount++;
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        hasZeroKey = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * Checks whether the map contains the key.
+     *
+     * @param key  the key
+     * @return true if the map contains the key
+     */
+    public boolean containsKey(final int key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Checks whether the map contains the value.
+     *
+     * @param value  the value
+     * @return true if the map contains the value
+     */
+    public boolean containsValue(final int value) {
+        if (hasZeroKey && value == zeroValue) {
+            return true;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && value == values[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a cursor over the mappings.
+     *
+     * @return the cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Compares this map with another object. Equal maps contain the same mappings.
+     *
+     * @param obj  the object to compare to
+     * @return true if equal
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof IntIntHashMap)) {
+            return false;
+        }
+        final IntIntHashMap other = (IntIntHashMap) obj;
+        if (size != other.size) {
+            return false;
+        }
+        for (final Cursor it = cursor(); it.hasNext();) {
+            final int key = it.nextInt();
+            if (!other.containsKey(key) || it.getIntValue() != other.get(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the value of the key.
+     *
+     * @param key  the key
+     * @return the value, zero if the key is not mapped
+     */
+    public int get(final int key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Gets the value of the key, or the default value if the key is not mapped.
+     *
+     * @param key  the key
+     * @param defaultValue  the default value
+     * @return the value
+     */
+    public int getOrDefault(final int key, final int defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        final int index = indexOf(key);
+        return index >= 0 ? values[index] : defaultValue;
+    }
+
+    /**
+     * Gets the hash code of this map, which is the hash code of the
+     * {@link #asMap()} view.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        int total = hasZeroKey ? zeroValue : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                total += keys[i] ^ values[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Finds the slot of a non-zero key.
+     *
+     * @param key  the key
+     * @return the index of the key, or {@code -(insertion index) - 1} if not found
+     */
+    private int indexOf(final int key) {
+        final int[] k = keys;
+        final int mask = k.length - 1;
+        int index = hashIndex(key, mask);
+        int candidate;
+        while ((candidate = k[index]) != 0) {
+            if (candidate == key) {
+                return index;
+            }
+            index = index + 1 & mask;
+        }
+        return -index - 1;
+    }
+
+    /**
+     * Inserts a new mapping in an empty slot.
+     *
+     * @param index  the index of the empty slot
+     * @param key  the key
+     * @param value  the value
+     */
+    private void insert(final int index, final int key, final int value) {
+        modCount++;
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (tableSize() >= threshold) {
+            resize();
+        }
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return true if the map contains no mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Maps the key to the value.
+     *
+     * @param key  the key
+     * @param value  the value
+     * @return the previous value, zero if the key was not mapped
+     * @throws IllegalStateException if the map is full at the maximum capacity
+     */
+    public int put(final int key, final int value) {
+        final int old;
+        if (key == 0) {
+            old = zeroValue;
+            if (!hasZeroKey) {
+                modCount++;
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return old;
+        }
+        final int index = indexOf(key);
+        if (index >= 0) {
+            old = values[index];
+            values[index] = value;
+            return old;
+        }
+        insert(-index - 1, key, value);
+        return 0;
+    }
+
+    /**
+     * Deserializes the map.
+     *
+     * @param in  the input stream
+     * @throws IOException if an error occurs while reading from the stream
+     * @throws ClassNotFoundException if an object read from the stream can not be loaded
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        final int count = in.readInt();
+        allocate(OpenAddressing.capacityFor(count, loadFactor));
+        for (int i = 0; i < count; i++) {
+            final int key = in.readInt();
+            put(key, in.readInt());
+        }
+    }
+
+    /**
+     * Removes the mapping of the key.
+     *
+     * @param key  the key
+     * @return the previous value, zero if the key was not mapped
+     */
+    public int remove(final int key) {
+        if (key == 0) {
+            final int old = zeroValue;
+            if (hasZeroKey) {
+                removeZero();
+            }
+            return old;
+        }
+        final int index = indexOf(key);
+        if (index < 0) {
+            return 0;
+        }
+        final int old = values[index];
+        removeIndex(index, null);
+        return old;
+    }
+
+    /**
+     * Removes the entry at the index, shifting back the following entries of the
+     * probe sequence which may occupy the empty slot.
+     *
+     * @param index  the index of the entry
+     * @param cursor  the cursor removing the entry, or null
+     */
+    private void removeIndex(final int index, final Cursor cursor) {
+        modCount++;
+        size--;
+        final int empty = OpenAddressing.remove(new TableSlots(cursor), index, keys.length - 1);
+        keys[empty] = 0;
+        values[empty] = 0;
+    }
+
+    /**
+     * Removes the zero key.
+     */
+    private void removeZero() {
+        modCount++;
+        hasZeroKey = false;
+        zeroValue = 0;
+        size--;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     *
+     * @throws IllegalStateException if the map is full at the maximum capacity
+     */
+    private void resize() {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+        if (!OpenAddressing.canGrow(oldKeys.length, tableSize())) {
+            return;
+        }
+        allocate(oldKeys.length * 2);
+        final int mask = keys.length - 1;
+        for (int i = oldKeys.length - 1; i >= 0; i--) {
+            final int key = oldKeys[i];
+            if (key != 0) {
+                int index = hashIndex(key, mask);
+                while (keys[index] != 0) {
+                    index = index + 1 & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the number of mappings.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of mappings stored in the table.
+     *
+     * @return the number of mappings excluding the zero key
+     */
+    private int tableSize() {
+        return hasZeroKey ? size - 1 : size;
+    }
+
+    /**
+     * Gets the map as a String.
+     *
+     * @return a string version of the map
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder(32 * size).append('{');
+        for (final Cursor it = cursor(); it.hasNext();) {
+            buf.append(it.nextInt()).append('=').append(it.getIntValue());
+            if (it.hasNext()) {
+                buf.append(", ");
+            }
+        }
+        return buf.append('}').toString();
+    }
+
+    /**
+     * Serializes the map.
+     *
+     * @param out  the output stream
+     * @throws IOException if an error occurs while writing to the stream
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (final Cursor it = cursor(); it.hasNext();) {
+            out.writeInt(it.nextInt());
+            out.writeInt(it.getIntValue());
+        }
+    }
+}
@@ -0,0 +1,782 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.apache.commons.collections4.IterableMap;
+import org.apache.commons.collections4.MapIterator;
+
+/**
+ * A hash map from primitive {@code long} keys to object values.
+ * <p>
+ * The keys are stored in a {@code long} array and the values in a parallel
+ * {@code Object} array using open addressing with linear probing, so no key is
+ * boxed and no object is allocated per mapping. A removal shifts the following
+ * entries of the probe sequence back, so no deleted markers are left in the table.
+ * Null values are supported.
+ * </p>
+ * <p>
+ * The {@link Cursor} returned by {@link #cursor()} iterates the mappings without
+ * allocation, in the style of a {@link MapIterator}. The {@link #asMap()} view
+ * exposes the map as a {@code Map<Long, V>}, boxing the keys on access.
+ * </p>
+ * <p>
+ * <strong>Note that LongObjectHashMap is not synchronized and is not thread-safe.</strong>
+ * </p>
+ *
+ * @param <V> the type of the values in this map
+ * @see IntIntHashMap
+ * @see ObjectLongHashMap
+ * @since 4.5.0
+ */
+public class LongObjectHashMap<V> implements Serializable {
+
+    /**
+     * A cursor over the mappings of the map. The cursor does not allocate objects.
+     * <p>
+     * Call {@link #nextLong()} to move to the next mapping, then the key and value
+     * of the mapping can be read, the value set and the mapping removed. A removal by
+     * the cursor does not affect the mappings it returns. Any other structural change
+     * to the map causes a {@link ConcurrentModificationException}.
+     * </p>
+     */
+    public final class Cursor {
+
+        /** The index of the last slot scanned, the table is scanned downwards */
+        private int position;
+
+        /** The index of the current mapping, -1 if none or the zero key */
+        private int current;
+
+        /** Whether the current mapping is the zero key */
+        private boolean currentZero;
+
+        /** Whether the zero key is still to be returned */
+        private boolean zeroPending;
+
+        /** The number of mappings left to return */
+        private int remaining;
+
+        /** The keys shifted from the part of the table not yet scanned to the part scanned */
+        private long[] wrapped;
+
+        /** The number of wrapped keys */
+        private int wrappedSize;
+
+        /** The index of the next wrapped key to return */
+        private int wrappedIndex;
+
+        /** The modification count expected */
+        private int expectedModCount;
+
+        Cursor() {
+            position = keys.length;
+            current = -1;
+            zeroPending = hasZeroKey;
+            remaining = size;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Checks there is a current mapping.
+         *
+         * @param message  the exception message
+         */
+        private void checkCurrent(final String message) {
+            if (current < 0 && !currentZero) {
+                throw new IllegalStateException(message);
+            }
+        }
+
+        /**
+         * Gets the key of the current mapping.
+         *
+         * @return the current key
+         * @throws IllegalStateException if there is no current mapping
+         */
+        public long getLongKey() {
+            checkCurrent(AbstractHashedMap.GETKEY_INVALID);
+            return currentZero ? 0 : keys[current];
+        }
+
+        /**
+         * Gets the value of the current mapping.
+         *
+         * @return the current value
+         * @throws IllegalStateException if there is no current mapping
+         */
+        @SuppressWarnings("unchecked")
+        public V getValue() {
+            checkCurrent(AbstractHashedMap.GETVALUE_INVALID);
+            return currentZero ? zeroValue : (V) values[current];
+        }
+
+        /**
+         * Tests whether there is a next mapping.
+         *
+         * @return true if there is a next mapping
+         */
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Records an entry shifted by a removal.
+         *
+         * @param from  the index the entry was shifted from
+         * @param to  the index the entry was shifted to
+         */
+        void moved(final int from, final int to) {
+            if (OpenAddressing.isWrapped(from, to, position)) {
+                wrapped = OpenAddressing.append(wrapped, wrappedSize++, keys[to]);
+            }
+        }
+
+        /**
+         * Moves to the next mapping.
+         *
+         * @return the key of the next mapping
+         * @throws NoSuchElementException if there are no more mappings
+         * @throws ConcurrentModificationException if the map was changed other than by the cursor
+         */
+        public long nextLong() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (remaining == 0) {
+                throw new NoSuchElementException(AbstractHashedMap.NO_NEXT_ENTRY);
+            }
+            remaining--;
+            current = -1;
+            currentZero = false;
+            if (zeroPending) {
+                zeroPending = false;
+                currentZero = true;
+                return 0;
+            }
+            while (--position >= 0) {
+                if (keys[position] != 0) {
+                    current = position;
+                    return keys[position];
+                }
+            }
+            final long key = wrapped[wrappedIndex++];
+            current = indexOf(key);
+            return key;
+        }
+
+        /**
+         * Removes the current mapping.
+         *
+         * @throws IllegalStateException if there is no current mapping
+         * @throws ConcurrentModificationException if the map was changed other than by the cursor
+         */
+        public void remove() {
+            checkCurrent(AbstractHashedMap.REMOVE_INVALID);
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (currentZero) {
+                removeZero();
+            } else {
+                removeIndex(current, this);
+            }
+            current = -1;
+            currentZero = false;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Sets the value of the current mapping.
+         *
+         * @param value  the new value
+         * @return the previous value
+         * @throws IllegalStateException if there is no current mapping
+         */
+        @SuppressWarnings("unchecked")
+        public V setValue(final V value) {
+            checkCurrent(AbstractHashedMap.SETVALUE_INVALID);
+            final V old;
+            if (currentZero) {
+                old = zeroValue;
+                zeroValue = value;
+            } else {
+                old = (V) values[current];
+                values[current] = value;
+            }
+            return old;
+        }
+    }
+
+    /**
+     * The {@code Map} view.
+     */
+    private final class MapView extends AbstractPrimitiveMapView<Long, V> {
+
+        @Override
+        public void clear() {
+            LongObjectHashMap.this.clear();
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return key instanceof Long && LongObjectHashMap.this.containsKey((Long) key);
+        }
+
+        @Override
+        public boolean containsValue(final Object value) {
+            return LongObjectHashMap.this.containsValue(value);
+        }
+
+        @Override
+        public V get(final Object key) {
+            return key instanceof Long ? LongObjectHashMap.this.get((Long) key) : null;
+        }
+
+        @Override
+        public MapIterator<Long, V> mapIterator() {
+            final Cursor cursor = cursor();
+            return new MapIterator<Long, V>() {
+                @Override
+                public Long getKey() {
+                    return cursor.getLongKey();
+                }
+
+                @Override
+                public V getValue() {
+                    return cursor.getValue();
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return cursor.hasNext();
+                }
+
+                @Override
+                public Long next() {
+                    return cursor.nextLong();
+                }
+
+                @Override
+                public void remove() {
+                    cursor.remove();
+                }
+
+                @Override
+                public V setValue(final V value) {
+                    return cursor.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public V put(final Long key, final V value) {
+            return LongObjectHashMap.this.put(key, value);
+        }
+
+        @Override
+        public V remove(final Object key) {
+            return key instanceof Long ? LongObjectHashMap.this.remove((Long) key) : null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The slots of the table, as seen by a removal.
+     */
+    private final class TableSlots implements OpenAddressing.Slots {
+
+        /** The cursor removing the entry, or null */
+        private final Cursor cursor;
+
+        TableSlots(final Cursor cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean isEmpty(final int index) {
+            return keys[index] == 0;
+        }
+
+        @Override
+        public void move(final int from, final int to) {
+            keys[to] = keys[from];
+            values[to] = values[from];
+            if (cursor != null) {
+                cursor.moved(from, to);
+            }
+        }
+
+        @Override
+        public int startOf(final int index) {
+            return hashIndex(keys[index], keys.length - 1);
+        }
+    }
+
+    /** Serialisation version */
+    private static final long serialVersionUID = 5497436120795264181L;
+
+    /** The default expected size */
+    private static final int DEFAULT_EXPECTED_SIZE = 8;
+
+    /** The default load factor */
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * Gets the index of the start of the probe sequence of the key.
+     *
+     * @param key  the key
+     * @param mask  the mask of the table size
+     * @return the index
+     */
+    private static int hashIndex(final long key, final int mask) {
+        final long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ h >>> 32) & mask;
+    }
+
+    /** The load factor */
+    private final float loadFactor;
+
+    /** The keys, 0 for an empty slot */
+    private transient long[] keys;
+
+    /** The values */
+    private transient Object[] values;
+
+    /** Whether the map contains the zero key, which is not stored in the table */
+    private transient boolean hasZeroKey;
+
+    /** The value of the zero key */
+    private transient V zeroValue;
+
+    /** The number of mappings */
+    private transient int size;
+
+    /** The number of mappings in the table at which to resize */
+    private transient int threshold;
+
+    /** Modification count for cursors */
+    private transient int modCount;
+
+    /** The map view */
+    private transient MapView mapView;
+
+    /**
+     * Constructs a new empty map with the default expected size and load factor.
+     */
+    public LongObjectHashMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a new empty map sized for the expected number of mappings.
+     *
+     * @param expectedSize  the expected number of mappings
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public LongObjectHashMap(final int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a new empty map sized for the expected number of mappings.
+     *
+     * @param expectedSize  the expected number of mappings
+     * @param loadFactor  the load factor
+     * @throws IllegalArgumentException if the expected size is negative
+     * @throws IllegalArgumentException if the load factor is not greater than zero and less than one
+     */
+    public LongObjectHashMap(final int expectedSize, final float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must be a non negative number");
+        }
+        this.loadFactor = OpenAddressing.checkLoadFactor(loadFactor);
+        allocate(OpenAddressing.capacityFor(expectedSize, loadFactor));
+    }
+
+    /**
+     * Allocates the table.
+     *
+     * @param capacity  the capacity, a power of two
+     */
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = OpenAddressing.threshold(capacity, loadFactor);
+    }
+
+    /**
+     * Gets a {@code Map} view of this map. Changes to the view affect this map.
+     * The view boxes the keys on access, and does not support null keys.
+     *
+     * @return the map view
+     */
+    public IterableMap<Long, V> asMap() {
+        if (mapView == null) {
+            mapView = new MapView();
+        }
+        return mapView;
+    }
+
+    /**
+     * Removes all mappings.
+     */
+    public void clear() {
+        modCount++;
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, null);
+        hasZeroKey = false;
+        zeroValue = null;
+        size = 0;
+    }
+
+    /**
+     * Checks whether the map contains the key.
+     *
+     * @param key  the key
+     * @return true if the map contains the key
+     */
+    public boolean containsKey(final long key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Checks whether the map contains the value.
+     *
+     * @param value  the value, may be null
+     * @return true if the map contains the value
+     */
+    public boolean containsValue(final Object value) {
+        if (hasZeroKey && Objects.equals(value, zeroValue)) {
+            return true;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && Objects.equals(value, values[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets a cursor over the mappings.
+     *
+     * @return the cursor
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Compares this map with another object. Equal maps contain the same mappings.
+     *
+     * @param obj  the object to compare to
+     * @return true if equal
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof LongObjectHashMap)) {
+            return false;
+        }
+        final LongObjectHashMap<?> other = (LongObjectHashMap<?>) obj;
+        if (size != other.size) {
+            return false;
+        }
+        for (final Cursor it = cursor(); it.hasNext();) {
+            final long key = it.nextLong();
+            if (!other.containsKey(key) || !Objects.equals(it.getValue(), other.get(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the value of the key.
+     *
+     * @param key  the key
+     * @return the value, null if the key is not mapped
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : null;
+        }
+        final int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    /**
+     * Gets the value of the key, or the default value if the key is not mapped.
+     *
+     * @param key  the key
+     * @param defaultValue  the default value
+     * @return the value
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(final long key, final V defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        final int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : defaultValue;
+    }
+
+    /**
+     * Gets the hash code of this map, which is the hash code of the
+     * {@link #asMap()} view.
+     *
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        int total = hasZeroKey ? Objects.hashCode(zeroValue) : 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                total += Long.hashCode(keys[i]) ^ Objects.hashCode(values[i]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Finds the slot of a non-zero key.
+     *
+     * @param key  the key
+     * @return the index of the key, or {@code -(insertion index) - 1} if not found
+     */
+    private int indexOf(final long key) {
+        final long[] k = keys;
+        final int mask = k.length - 1;
+        int index = hashIndex(key, mask);
+        long candidate;
+        while ((candidate = k[index]) != 0) {
+            if (candidate == key) {
+                return index;
+            }
+            index = index + 1 & mask;
+        }
+        return -index - 1;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return true if the map contains no mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Maps the key to the value.
+     *
+     * @param key  the key
+     * @param value  the value, may be null
+     * @return the previous value, null if the key was not mapped
+     * @throws IllegalStateException if the map is full at the maximum capacity
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final long key, final V value) {
+        final V old;
+        if (key == 0) {
+            old = zeroValue;
+            if (!hasZeroKey) {
+                modCount++;
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return old;
+        }
+        final int index = indexOf(key);
+        if (index >= 0) {
+            old = (V) values[index];
+            values[index] = value;
+            return old;
+        }
+        final int insert = -index - 1;
+        modCount++;
+        keys[insert] = key;
+        values[insert] = value;
+        size++;
+        if (tableSize() >= threshold) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * Deserializes the map.
+     *
+     * @param in  the input stream
+     * @throws IOException if an error occurs while reading from the stream
+     * @throws ClassNotFoundException if an object read from the stream can not be loaded
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        final int count = in.readInt();
+        allocate(OpenAddressing.capacityFor(count, loadFactor));
+        for (int i = 0; i < count; i++) {
+            final long key = in.readLong();
+            put(key, (V) in.readObject());
+        }
+    }
+
+    /**
+     * Removes the mapping of the key.
+     *
+     * @param key  the key
+     * @return the previous value, null if the key was not mapped
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final long key) {
+        if (key == 0) {
+            final V old = zeroValue;
+            if (hasZeroKey) {
+                removeZero();
+            }
+            return old;
+        }
+        final int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        final V old = (V) values[index];
+        removeIndex(index, null);
+        return old;
+    }
+
+    /**
+     * Removes the entry at the index, shifting back the following entries of the
+     * probe sequence which may occupy the empty slot.
+     *
+     * @param index  the index of the entry
+     * @param cursor  the cursor removing the entry, or null
+     */
+    private void removeIndex(final int index, final Cursor cursor) {
+        modCount++;
+        size--;
+        final int empty = OpenAddressing.remove(new TableSlots(cursor), index, keys.length - 1);
+        keys[empty] = 0;
+        values[empty] = null;
+    }
+
+    /**
+     * Removes the zero key.
+     */
+    private void removeZero() {
+        modCount++;
+        hasZeroKey = false;
+        zeroValue = null;
+        size--;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     *
+     * @throws IllegalStateException if the map is full at the maximum capacity
+     */
+    private void resize() {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        if (!OpenAddressing.canGrow(oldKeys.length, tableSize())) {
+            return;
+        }
+        allocate(oldKeys.length * 2);
+        final int mask = keys.length - 1;
+        for (int i = oldKeys.length - 1; i >= 0; i--) {
+            final long key = oldKeys[i];
+            if (key != 0) {
+                int index = hashIndex(key, mask);
+                while (keys[index] != 0) {
+                    index = index + 1 & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the number of mappings.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of mappings stored in the table.
+     *
+     * @return the number of mappings excluding the zero key
+     */
+    private int tableSize() {
+        return hasZeroKey ? size - 1 : size;
+    }
+
+    /**
+     * Gets the map as a String.
+     *
+     * @return a string version of the map
+     */
+    @Override
+    public String toString() {
+        final StringBuilder buf = new StringBuilder(32 * size).append('{');
+        for (final Cursor it = cursor(); it.hasNext();) {
+            buf.append(it.nextLong()).append('=');
+            final V value = it.getValue();
+            buf.append(value == this ? "(this Map)" : value);
+            if (it.hasNext()) {
+                buf.append(", ");
+            }
+        }
+        return buf.append('}').toString();
+    }
+
+    /**
+     * Serializes the map.
+     *
+     * @param out  the output stream
+     * @throws IOException if an error occurs while writing to the stream
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (final Cursor it = cursor(); it.hasNext();) {
+            out.writeLong(it.nextLong());
+            out.writeObject(it.getValue());
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.util.Arrays;
+
+/**
+ * Operations shared by the hash tables which use open addressing with linear
+ * probing, such as {@link AbstractOpenHashedMap}, {@link IntIntHashMap},
+ * {@link LongObjectHashMap}, {@link ObjectLongHashMap} and
+ * {@link org.apache.commons.collections4.multiset.OpenHashMultiSet}.
+ * <p>
+ * A table has a power of two number of slots. An entry is stored in the first
+ * empty slot of its probe sequence, which starts at the index given by the hash of
+ * its key and continues with the following slots, wrapping around at the end of
+ * the table. A removal shifts the following entries of the probe sequence back, so
+ * no deleted markers are left in the table. The tables store their entries in
+ * parallel arrays of different types, so they present their slots to these
+ * operations through a {@link Slots}.
+ * </p>
+ * <p>
+ * An iterator scans a table downwards from its end. A removal by the iterator may
+ * shift an entry which has not been returned from the part of the table not yet
+ * scanned to the part already scanned. {@link #isWrapped(int, int, int)} detects
+ * such a move, so that the iterator can record the key of the entry and return it
+ * after the scan.
+ * </p>
+ * <p>
+ * This class is public only so that the tables of other packages can share it.
+ * </p>
+ *
+ * @since 4.5.0
+ */
+public final class OpenAddressing {
+
+    /**
+     * The slots of a table, as seen by a removal.
+     */
+    public interface Slots {
+
+        /**
+         * Tests whether the slot is empty.
+         *
+         * @param index  the index of the slot
+         * @return true if the slot is empty
+         */
+        boolean isEmpty(int index);
+
+        /**
+         * Moves the entry in a slot to an empty slot. The slot moved from is left
+         * to be overwritten or cleared by the removal.
+         *
+         * @param from  the index of the slot of the entry
+         * @param to  the index of the empty slot
+         */
+        void move(int from, int to);
+
+        /**
+         * Gets the index of the start of the probe sequence of the entry in a slot.
+         *
+         * @param index  the index of the slot, which is not empty
+         * @return the index of the start of the probe sequence
+         */
+        int startOf(int index);
+    }
+
+    /** The maximum capacity allowed */
+    public static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Appends a key to an array of keys, growing the array if needed.
+     *
+     * @param keys  the keys, may be null if size is zero
+     * @param size  the number of keys in the array
+     * @param key  the key to append
+     * @return the array containing the keys
+     */
+    public static int[] append(int[] keys, final int size, final int key) {
+        if (keys == null) {
+            keys = new int[2];
+        } else if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size] = key;
+        return keys;
+    }
+
+    /**
+     * Appends a key to an array of keys, growing the array if needed.
+     *
+     * @param keys  the keys, may be null if size is zero
+     * @param size  the number of keys in the array
+     * @param key  the key to append
+     * @return the array containing the keys
+     */
+    public static long[] append(long[] keys, final int size, final long key) {
+        if (keys == null) {
+            keys = new long[2];
+        } else if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size] = key;
+        return keys;
+    }
+
+    /**
+     * Appends a key to an array of keys, growing the array if needed.
+     *
+     * @param keys  the keys, may be null if size is zero
+     * @param size  the number of keys in the array
+     * @param key  the key to append
+     * @return the array containing the keys
+     */
+    public static Object[] append(Object[] keys, final int size, final Object key) {
+        if (keys == null) {
+            keys = new Object[2];
+        } else if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        keys[size] = key;
+        return keys;
+    }
+
+    /**
+     * Calculates the capacity of a table for a number of entries, so that the
+     * entries are below the threshold of the table.
+     *
+     * @param expectedSize  the number of entries
+     * @param loadFactor  the load factor
+     * @return the capacity, a power of two
+     */
+    public static int capacityFor(final int expectedSize, final float loadFactor) {
+        final long needed = (long) Math.ceil(expectedSize / (double) loadFactor) + 1;
+        if (needed >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        return Math.max(2, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    /**
+     * Tests whether a table which reached its threshold can double its capacity.
+     *
+     * @param capacity  the capacity of the table
+     * @param count  the number of entries in the table
+     * @return true if the capacity can be doubled, false if the table is at the
+     *  maximum capacity but still has an empty slot to spare
+     * @throws IllegalStateException if the table is full at the maximum capacity
+     */
+    public static boolean canGrow(final int capacity, final int count) {
+        if (capacity < MAXIMUM_CAPACITY) {
+            return true;
+        }
+        if (count >= MAXIMUM_CAPACITY - 1) {
+            throw new IllegalStateException("Table is full at the maximum capacity " + MAXIMUM_CAPACITY);
+        }
+        return false;
+    }
+
+    /**
+     * Checks a load factor is greater than zero and less than one.
+     *
+     * @param loadFactor  the load factor
+     * @return the load factor
+     * @throws IllegalArgumentException if the load factor is not greater than zero and less than one
+     */
+    public static float checkLoadFactor(final float loadFactor) {
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f)) {
+            throw new IllegalArgumentException("Load factor must be greater than 0 and less than 1");
+        }
+        return loadFactor;
+    }
+
+    /**
+     * Tests whether a move by a removal takes an entry from the part of a table not
+     * yet scanned by an iterator to the part already scanned.
+     *
+     * @param from  the index the entry was moved from
+     * @param to  the index the entry was moved to
+     * @param position  the index of the last slot scanned, the table is scanned downwards
+     * @return true if the iterator would miss the entry
+     */
+    public static boolean isWrapped(final int from, final int to, final int position) {
+        return from < position && to >= position;
+    }
+
+    /**
+     * Removes the entry in a slot, shifting back the following entries of the probe
+     * sequence which may occupy the empty slot.
+     * <p>
+     * Each shifted entry is passed to {@link Slots#move(int, int)}. The caller
+     * clears the slot returned, which is left empty by the last shift.
+     * </p>
+     *
+     * @param slots  the slots of the table
+     * @param index  the index of the slot of the entry to remove
+     * @param mask  the mask of the table size
+     * @return the index of the slot to clear
+     */
+    public static int remove(final Slots slots, int index, final int mask) {
+        int next = index;
+        while (true) {
+            next = next + 1 & mask;
+            if (slots.isEmpty(next)) {
+                return index;
+            }
+            final int start = slots.startOf(next);
+            // shift the entry if the empty slot is between its start and its slot
+            if (index <= next ? index >= start || start > next : index >= start && start > next) {
+                slots.move(next, index);
+                index = next;
+            }
+        }
+    }
+
+    /**
+     * Calculates the threshold of a table, the number of entries at which to resize.
+     * At least one slot is kept empty so that every probe sequence ends.
+     *
+     * @param capacity  the capacity, a power of two
+     * @param loadFactor  the load factor
+     * @return the threshold
+     */
+    public static int threshold(final int capacity, final float loadFactor) {
+        return Math.min((int) (capacity * loadFactor), capacity - 1);
+    }
+
+    private OpenAddressing() {
+        // utility class
+    }
+}
@@ -0,0 +1,546 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.util.Arrays;
+
+import org.apache.commons.collections4.BoundedMap;
+
+/**
+ * A {@code Map} implementation with a fixed maximum size which uses the
+ * frequency of access to decide which entry to remove when full.
+ * <p>
+ * The {@link LRUMap} removes the least recently used entry, so a scan of many
+ * keys that are used once removes all the frequently used entries. This map uses
+ * the W-TinyLFU policy of Einziger, Friedman and Manes (2017), "TinyLFU: A Highly
+ * Efficient Cache Admission Policy". The frequency of access of each key is
+ * estimated by a sketch of 4-bit counters, which are halved periodically so
+ * that the frequencies age. New entries are added to a small admission window
+ * using least recently used order. An entry leaving the window is only admitted
+ * to the main space if its frequency is higher than the frequency of the entry
+ * that the main space would remove, otherwise it is removed. The main space is
+ * a segmented LRU: entries accessed while on probation are promoted to the
+ * protected segment, and entries leaving the protected segment return to
+ * probation.
+ * </p>
+ * <p>
+ * The window holds 1% of the maximum size and the protected segment 80% of the
+ * remainder. Frequencies are recorded by the get and put operations, including
+ * the get of keys that are not in the map. Queries such as containsKey and
+ * containsValue or access via views do not record a frequency or change the
+ * order of removal. Iteration is in insertion order.
+ * </p>
+ * <p>
+ * The map counts the hits and misses of the get operation and the number of
+ * entries removed because the map was full.
+ * </p>
+ * <p>
+ * <strong>Note that TinyLFUMap is not synchronized and is not thread-safe.</strong>
+ * If you wish to use this map from multiple threads concurrently, you must use
+ * appropriate synchronization. The simplest approach is to wrap this map
+ * using {@link java.util.Collections#synchronizedMap(java.util.Map)}.
+ * </p>
+ *
+ * @param <K> the type of the keys in this map
+ * @param <V> the type of the values in this map
+ * @see LRUMap
+ * @since 4.5.0
+ */
+public class TinyLFUMap<K, V> extends AbstractLinkedMap<K, V> implements BoundedMap<K, V> {
+
+    /**
+     * Estimates the frequency of hash codes using a Count-Min sketch of 4-bit counters
+     * with periodic aging.
+     */
+    private static final class FrequencySketch {
+
+        /** Mask to halve each 4-bit counter */
+        private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+
+        /** Mask of the lowest bit of each 4-bit counter */
+        private static final long ONE_MASK = 0x1111_1111_1111_1111L;
+
+        /** The seeds for the index of each row */
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+
+        /**
+         * Mixes the bits of the hash code.
+         *
+         * @param x  the hash code
+         * @return the mixed hash code
+         */
+        private static int spread(final int x) {
+            int h = (x >>> 16 ^ x) * 0x45d9f3b;
+            h = (h >>> 16 ^ h) * 0x45d9f3b;
+            return h >>> 16 ^ h;
+        }
+
+        /** The counters, 16 in each long */
+        private final long[] table;
+
+        /** The number of increments before the counters are halved */
+        private final int sampleSize;
+
+        /** The number of increments since the counters were halved */
+        private int size;
+
+        FrequencySketch(final int maximumSize) {
+            table = new long[Math.max(8, Integer.highestOneBit(Math.min(maximumSize, 1 << 30) * 2 - 1))];
+            sampleSize = (int) Math.min(10L * maximumSize, Integer.MAX_VALUE);
+        }
+
+        void clear() {
+            Arrays.fill(table, 0L);
+            size = 0;
+        }
+
+        /**
+         * Gets the estimated frequency of the hash code, in the range [0, 15].
+         *
+         * @param hashCode  the hash code
+         * @return the frequency
+         */
+        int frequency(final int hashCode) {
+            final int h = spread(hashCode);
+            final int start = (h & 3) << 2;
+            int frequency = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++) {
+                final int offset = start + i << 2;
+                frequency = Math.min(frequency, (int) (table[indexOf(h, i)] >>> offset) & 0xf);
+            }
+            return frequency;
+        }
+
+        /**
+         * Increments the frequency of the hash code, and halves all the counters when
+         * the sample size is reached.
+         *
+         * @param hashCode  the hash code
+         */
+        void increment(final int hashCode) {
+            final int h = spread(hashCode);
+            // each row uses a different counter of the 16 in a long
+            final int start = (h & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                final int index = indexOf(h, i);
+                final int offset = start + i << 2;
+                final long mask = 0xfL << offset;
+                if ((table[index] & mask) != mask) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++size == sampleSize) {
+                reset();
+            }
+        }
+
+        /**
+         * Gets the index of the long holding the counter for the row.
+         *
+         * @param h  the spread hash code
+         * @param row  the row
+         * @return the index
+         */
+        private int indexOf(final int h, final int row) {
+            long hash = (h + SEEDS[row]) * SEEDS[row];
+            hash += hash >>> 32;
+            return (int) hash & table.length - 1;
+        }
+
+        /**
+         * Halves all the counters.
+         */
+        private void reset() {
+            int odd = 0;
+            for (int i = 0; i < table.length; i++) {
+                odd += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = table[i] >>> 1 & RESET_MASK;
+            }
+            // the halved counters of each row lose a quarter of the odd counts
+            size = (size - (odd >>> 2)) >>> 1;
+        }
+    }
+
+    /**
+     * An entry with its position in the queue of one segment.
+     */
+    private static final class Node<K, V> extends LinkEntry<K, V> {
+
+        /** The previous entry in the queue of the segment */
+        Node<K, V> previous;
+
+        /** The next entry in the queue of the segment */
+        Node<K, V> next;
+
+        /** The segment */
+        int segment;
+
+        Node(final HashEntry<K, V> next, final int hashCode, final Object key, final V value) {
+            super(next, hashCode, key, value);
+        }
+    }
+
+    /** Default maximum size */
+    protected static final int DEFAULT_MAX_SIZE = 100;
+
+    /** The admission window segment */
+    private static final int WINDOW = 0;
+
+    /** The probation segment */
+    private static final int PROBATION = 1;
+
+    /** The protected segment */
+    private static final int PROTECTED = 2;
+
+    /** Maximum size */
+    private final int maxSize;
+
+    /** Maximum size of the admission window */
+    private final int maxWindowSize;
+
+    /** Maximum size of the protected segment */
+    private final int maxProtectedSize;
+
+    /** The frequency sketch */
+    private final FrequencySketch sketch;
+
+    /** The headers of the queue of each segment, least recently used first */
+    private final Node<K, V>[] queues;
+
+    /** The size of each segment */
+    private final int[] segmentSizes = new int[3];
+
+    /** The number of get operations that found a mapping */
+    private long hitCount;
+
+    /** The number of get operations that found no mapping */
+    private long missCount;
+
+    /** The number of entries removed when full */
+    private long evictionCount;
+
+    /**
+     * Constructs a new empty map with a maximum size of 100.
+     */
+    public TinyLFUMap() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructs a new, empty map with the specified maximum size.
+     *
+     * @param maxSize  the maximum size of the map
+     * @throws IllegalArgumentException if the maximum size is less than one
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLFUMap(final int maxSize) {
+        super(checkMaxSize(maxSize), DEFAULT_LOAD_FACTOR);
+        this.maxSize = maxSize;
+        this.maxWindowSize = Math.max(1, maxSize / 100);
+        this.maxProtectedSize = (int) ((maxSize - maxWindowSize) * 4L / 5);
+        this.sketch = new FrequencySketch(maxSize);
+        this.queues = new Node[3];
+        for (int i = 0; i < queues.length; i++) {
+            final Node<K, V> queue = new Node<>(null, -1, null, null);
+            queue.previous = queue.next = queue;
+            queues[i] = queue;
+        }
+    }
+
+    /**
+     * Checks the maximum size.
+     *
+     * @param maxSize  the maximum size of the map
+     * @return the maximum size
+     * @throws IllegalArgumentException if the maximum size is less than one
+     */
+    private static int checkMaxSize(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("TinyLFUMap max size must be greater than 0");
+        }
+        return maxSize;
+    }
+
+    /**
+     * Adds an entry into this map, at the most recently used position of the
+     * admission window.
+     *
+     * @param entry  the entry to add
+     * @param hashIndex  the index into the data array to store at
+     */
+    @Override
+    protected void addEntry(final HashEntry<K, V> entry, final int hashIndex) {
+        super.addEntry(entry, hashIndex);
+        link((Node<K, V>) entry, WINDOW);
+    }
+
+    /**
+     * Adds a new key-value mapping into this map.
+     * <p>
+     * This implementation records the frequency of the key and adds the mapping to
+     * the admission window. The least recently used entry of a full window moves
+     * to probation, and an entry is removed if the map was full.
+     *
+     * @param hashIndex  the index into the data array to store at
+     * @param hashCode  the hash code of the key to add
+     * @param key  the key to add
+     * @param value  the value to add
+     */
+    @Override
+    protected void addMapping(final int hashIndex, final int hashCode, final K key, final V value) {
+        sketch.increment(hashCode);
+        super.addMapping(hashIndex, hashCode, key, value);
+        Node<K, V> candidate = null;
+        if (segmentSizes[WINDOW] > maxWindowSize) {
+            candidate = queues[WINDOW].next;
+            move(candidate, PROBATION);
+        }
+        if (size > maxSize) {
+            evict(candidate);
+        }
+    }
+
+    /**
+     * Clears all the entries and resets the recorded frequencies.
+     * The hit, miss and eviction counts are kept; see {@link #getHitCount()},
+     * {@link #getMissCount()} and {@link #getEvictionCount()}.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        for (final Node<K, V> queue : queues) {
+            queue.previous = queue.next = queue;
+        }
+        Arrays.fill(segmentSizes, 0);
+        sketch.clear();
+    }
+
+    /**
+     * Creates an entry to store the key-value data.
+     *
+     * @param next  the next entry in sequence
+     * @param hashCode  the hash code to use
+     * @param key  the key to store
+     * @param value  the value to store
+     * @return the newly created entry
+     */
+    @Override
+    protected LinkEntry<K, V> createEntry(final HashEntry<K, V> next, final int hashCode, final K key, final V value) {
+        return new Node<>(next, hashCode, convertKey(key), value);
+    }
+
+    /**
+     * Removes an entry because the map is full. The frequency of the candidate which
+     * has just left the admission window is compared to the frequency of the least
+     * recently used entry of the main space, the victim. The entry with the lower
+     * frequency is removed, favoring the victim.
+     *
+     * @param candidate  the entry which left the admission window, or null
+     */
+    private void evict(final Node<K, V> candidate) {
+        Node<K, V> victim = queues[PROBATION].next;
+        if (victim == queues[PROBATION]) {
+            victim = queues[PROTECTED].next;
+        }
+        if (candidate != null && (victim == candidate || sketch.frequency(candidate.hashCode) <= sketch.frequency(victim.hashCode))) {
+            victim = candidate;
+        }
+        removeNode(victim);
+        evictionCount++;
+    }
+
+    /**
+     * Gets the value mapped to the key specified.
+     * <p>
+     * This operation records the frequency of the key, and a hit or a miss. A hit
+     * changes the position of the key in the order of removal.
+     *
+     * @param key  the key
+     * @return the mapped value, null if no match
+     */
+    @Override
+    public V get(Object key) {
+        key = convertKey(key);
+        final int hashCode = hash(key);
+        sketch.increment(hashCode);
+        HashEntry<K, V> entry = data[hashIndex(hashCode, data.length)];
+        while (entry != null) {
+            if (entry.hashCode == hashCode && isEqualKey(key, entry.key)) {
+                hitCount++;
+                onAccess((Node<K, V>) entry);
+                return entry.getValue();
+            }
+            entry = entry.next;
+        }
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Gets the number of entries removed because the map was full.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of get operations that found a mapping.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of get operations that found no mapping.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns true if this map is full and no new mappings can be added
+     * without removing an entry.
+     *
+     * @return {@code true} if the map is full
+     */
+    @Override
+    public boolean isFull() {
+        return size >= maxSize;
+    }
+
+    /**
+     * Adds the node at the most recently used position of the segment.
+     *
+     * @param node  the node
+     * @param segment  the segment
+     */
+    private void link(final Node<K, V> node, final int segment) {
+        final Node<K, V> queue = queues[segment];
+        node.segment = segment;
+        node.next = queue;
+        node.previous = queue.previous;
+        queue.previous.next = node;
+        queue.previous = node;
+        segmentSizes[segment]++;
+    }
+
+    /**
+     * Gets the maximum size of the map (the bound).
+     *
+     * @return the maximum number of elements the map can hold
+     */
+    @Override
+    public int maxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Moves the node to the most recently used position of the segment.
+     *
+     * @param node  the node
+     * @param segment  the segment
+     */
+    private void move(final Node<K, V> node, final int segment) {
+        unlink(node);
+        link(node, segment);
+    }
+
+    /**
+     * Updates the position of an accessed node. A node on probation is promoted
+     * to the protected segment, which may demote the least recently used
+     * protected node to probation.
+     *
+     * @param node  the node accessed
+     */
+    private void onAccess(final Node<K, V> node) {
+        if (node.segment == WINDOW) {
+            move(node, WINDOW);
+        } else {
+            move(node, PROTECTED);
+            if (segmentSizes[PROTECTED] > maxProtectedSize) {
+                move(queues[PROTECTED].next, PROBATION);
+            }
+        }
+    }
+
+    /**
+     * Removes an entry from the map and from its segment.
+     *
+     * @param entry  the entry to remove
+     * @param hashIndex  the index into the data structure
+     * @param previous  the previous entry in the chain
+     */
+    @Override
+    protected void removeEntry(final HashEntry<K, V> entry, final int hashIndex, final HashEntry<K, V> previous) {
+        unlink((Node<K, V>) entry);
+        super.removeEntry(entry, hashIndex, previous);
+    }
+
+    /**
+     * Removes the mapping of the node.
+     *
+     * @param node  the node to remove
+     */
+    private void removeNode(final Node<K, V> node) {
+        final int index = hashIndex(node.hashCode, data.length);
+        HashEntry<K, V> previous = null;
+        HashEntry<K, V> entry = data[index];
+        while (entry != node) {
+            previous = entry;
+            entry = entry.next;
+        }
+        removeMapping(node, index, previous);
+    }
+
+    /**
+     * Removes the node from the queue of its segment.
+     *
+     * @param node  the node
+     */
+    private void unlink(final Node<K, V> node) {
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = node.next = null;
+        segmentSizes[node.segment]--;
+    }
+
+    /**
+     * Updates an existing key-value mapping.
+     * <p>
+     * This implementation records the frequency of the key and changes the
+     * position of the key in the order of removal.
+     *
+     * @param entry  the entry to update
+     * @param newValue  the new value to store
+     */
+    @Override
+    protected void updateEntry(final HashEntry<K, V> entry, final V newValue) {
+        sketch.increment(entry.hashCode);
+        onAccess((Node<K, V>) entry);
+        super.updateEntry(entry, newValue);
+    }
+}
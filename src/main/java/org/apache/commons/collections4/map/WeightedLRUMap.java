@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Objects;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A {@code Map} implementation with a maximum total weight which removes
+ * the least recently used entry if an entry is added when full.
+ * <p>
+ * The {@link LRUMap} bounds the number of entries, which does not bound the
+ * memory used when the size of the values varies widely. This map computes
+ * the weight of each mapping using a weigher function, for example the size of
+ * the value in bytes, and keeps the total weight within a maximum. The weight of
+ * a mapping is computed when the mapping is added or its value is changed, and
+ * must not be negative.
+ * </p>
+ * <p>
+ * When a put makes the total weight exceed the maximum, entries are passed to
+ * {@link #removeLRU(AbstractLinkedMap.LinkEntry)} in least recently used order
+ * and removed until the total weight is within the maximum. This may remove the
+ * entry just added if its weight alone exceeds the maximum. The effect of
+ * {@code removeLRU} returning false is the same as for {@link LRUMap}: the scan
+ * continues to the next entry if the scanUntilRemovable flag is true, otherwise
+ * the map exceeds the maximum weight. Setting a value using an iterator or an
+ * entry updates the total weight, but only the next put removes entries.
+ * </p>
+ * <p>
+ * The number of entries is not bounded, {@link #maxSize()} returns
+ * {@link Integer#MAX_VALUE} and {@link #isFull()} only returns true when the
+ * map holds that many entries. Use {@link #isMaxWeightReached()} to check the
+ * total weight against the maximum.
+ * </p>
+ * <p>
+ * The map is serializable if the weigher is serializable.
+ * </p>
+ * <p>
+ * <strong>Note that WeightedLRUMap is not synchronized and is not thread-safe.</strong>
+ * If you wish to use this map from multiple threads concurrently, you must use
+ * appropriate synchronization. The simplest approach is to wrap this map
+ * using {@link java.util.Collections#synchronizedMap(java.util.Map)}.
+ * </p>
+ *
+ * @param <K> the type of the keys in this map
+ * @param <V> the type of the values in this map
+ * @see LRUMap
+ * @since 4.5.0
+ */
+public class WeightedLRUMap<K, V> extends LRUMap<K, V> {
+
+    /**
+     * An entry which holds its weight.
+     */
+    private final class WeightedEntry extends LinkEntry<K, V> {
+
+        /** The weight of the mapping */
+        long weight;
+
+        WeightedEntry(final HashEntry<K, V> next, final int hashCode, final Object key, final V value) {
+            super(next, hashCode, key, value);
+        }
+
+        @Override
+        public V setValue(final V value) {
+            final long newWeight = weigh(getKey(), value);
+            final V oldValue = super.setValue(value);
+            totalWeight += newWeight - weight;
+            weight = newWeight;
+            return oldValue;
+        }
+    }
+
+    /** Serialisation version */
+    private static final long serialVersionUID = 3385420125329637614L;
+
+    /** Maximum total weight */
+    private transient long maxWeight;
+
+    /** The function computing the weight of a mapping */
+    private transient ToLongBiFunction<? super K, ? super V> weigher;
+
+    /** The total weight of the mappings */
+    private transient long totalWeight;
+
+    /** The weight of the mapping being added */
+    private transient long addedWeight;
+
+    /**
+     * Constructs a new, empty map with the specified maximum total weight.
+     *
+     * @param maxWeight  the maximum total weight of the map
+     * @param weigher  the function computing the weight of a mapping
+     * @throws NullPointerException if the weigher is null
+     * @throws IllegalArgumentException if the maximum weight is negative
+     */
+    public WeightedLRUMap(final long maxWeight, final ToLongBiFunction<? super K, ? super V> weigher) {
+        this(maxWeight, weigher, false);
+    }
+
+    /**
+     * Constructs a new, empty map with the specified maximum total weight.
+     *
+     * @param maxWeight  the maximum total weight of the map
+     * @param weigher  the function computing the weight of a mapping
+     * @param scanUntilRemovable  scan until a removable entry is found, default false
+     * @throws NullPointerException if the weigher is null
+     * @throws IllegalArgumentException if the maximum weight is negative
+     */
+    public WeightedLRUMap(final long maxWeight, final ToLongBiFunction<? super K, ? super V> weigher,
+                          final boolean scanUntilRemovable) {
+        super(Integer.MAX_VALUE, DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, scanUntilRemovable);
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("WeightedLRUMap max weight must not be negative");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = Objects.requireNonNull(weigher, "weigher");
+    }
+
+    /**
+     * Adds an entry into this map, adding its weight to the total weight.
+     *
+     * @param entry  the entry to add
+     * @param hashIndex  the index into the data array to store at
+     */
+    @Override
+    protected void addEntry(final HashEntry<K, V> entry, final int hashIndex) {
+        super.addEntry(entry, hashIndex);
+        ((WeightedEntry) entry).weight = addedWeight;
+        totalWeight += addedWeight;
+    }
+
+    /**
+     * Adds a new key-value mapping into this map.
+     * <p>
+     * This implementation computes the weight of the mapping, adds the mapping
+     * and then removes least recently used entries until the total weight is
+     * within the maximum.
+     *
+     * @param hashIndex  the index into the data array to store at
+     * @param hashCode  the hash code of the key to add
+     * @param key  the key to add
+     * @param value  the value to add
+     * @throws IllegalArgumentException if the weight of the mapping is negative
+     */
+    @Override
+    protected void addMapping(final int hashIndex, final int hashCode, final K key, final V value) {
+        addedWeight = weigh(key, value);
+        super.addMapping(hashIndex, hashCode, key, value);
+        removeOverweight();
+    }
+
+    /**
+     * Clears the map.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * Clones the map without cloning the keys or values.
+     *
+     * @return a shallow clone
+     */
+    @Override
+    public WeightedLRUMap<K, V> clone() {
+        return (WeightedLRUMap<K, V>) super.clone();
+    }
+
+    /**
+     * Creates an entry to store the key-value data.
+     *
+     * @param next  the next entry in sequence
+     * @param hashCode  the hash code to use
+     * @param key  the key to store
+     * @param value  the value to store
+     * @return the newly created entry
+     */
+    @Override
+    protected LinkEntry<K, V> createEntry(final HashEntry<K, V> next, final int hashCode, final K key, final V value) {
+        return new WeightedEntry(next, hashCode, convertKey(key), value);
+    }
+
+    /**
+     * Reads the data necessary for {@code put()} to work in the superclass.
+     *
+     * @param in  the input stream
+     * @throws IOException if an error occurs while reading from the stream
+     * @throws ClassNotFoundException if an object read from the stream can not be loaded
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void doReadObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        maxWeight = in.readLong();
+        weigher = (ToLongBiFunction<? super K, ? super V>) in.readObject();
+        super.doReadObject(in);
+    }
+
+    /**
+     * Writes the data necessary for {@code put()} to work in deserialization.
+     *
+     * @param out  the output stream
+     * @throws IOException if an error occurs while writing to the stream
+     */
+    @Override
+    protected void doWriteObject(final ObjectOutputStream out) throws IOException {
+        out.writeLong(maxWeight);
+        out.writeObject(weigher);
+        super.doWriteObject(out);
+    }
+
+    /**
+     * Gets the maximum total weight of the map (the bound).
+     *
+     * @return the maximum total weight
+     */
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Gets the total weight of the mappings in the map.
+     *
+     * @return the total weight
+     */
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Initialize this subclass during construction, cloning or deserialization.
+     */
+    @Override
+    protected void init() {
+        super.init();
+        totalWeight = 0;
+    }
+
+    /**
+     * Returns true if the total weight of this map has reached the maximum,
+     * so that adding a mapping with a positive weight removes entries.
+     * <p>
+     * Unlike {@link #isFull()}, which reports the bound on the number of
+     * entries, this method reports the bound on the total weight.
+     * </p>
+     *
+     * @return {@code true} if the total weight has reached the maximum
+     */
+    public boolean isMaxWeightReached() {
+        return totalWeight >= maxWeight;
+    }
+
+    /**
+     * Removes an entry from the map, subtracting its weight from the total weight.
+     *
+     * @param entry  the entry to remove
+     * @param hashIndex  the index into the data structure
+     * @param previous  the previous entry in the chain
+     */
+    @Override
+    protected void removeEntry(final HashEntry<K, V> entry, final int hashIndex, final HashEntry<K, V> previous) {
+        totalWeight -= ((WeightedEntry) entry).weight;
+        super.removeEntry(entry, hashIndex, previous);
+    }
+
+    /**
+     * Removes least recently used entries, as allowed by
+     * {@link #removeLRU(AbstractLinkedMap.LinkEntry)}, until the total weight is
+     * within the maximum.
+     */
+    private void removeOverweight() {
+        LinkEntry<K, V> entry = header.after;
+        while (totalWeight > maxWeight && entry != header) {
+            final LinkEntry<K, V> next = entry.after;
+            if (removeLRU(entry)) {
+                final int index = hashIndex(entry.hashCode, data.length);
+                HashEntry<K, V> previous = null;
+                HashEntry<K, V> loop = data[index];
+                while (loop != entry) {
+                    previous = loop;
+                    loop = loop.next;
+                }
+                removeMapping(entry, index, previous);
+            } else if (!isScanUntilRemovable()) {
+                break;
+            }
+            entry = next;
+        }
+    }
+
+    /**
+     * Updates an existing key-value mapping.
+     * <p>
+     * This implementation moves the updated entry to the most recently used
+     * position, updates its weight and then removes least recently used entries
+     * until the total weight is within the maximum.
+     *
+     * @param entry  the entry to update
+     * @param newValue  the new value to store
+     * @throws IllegalArgumentException if the weight of the mapping is negative
+     */
+    @Override
+    protected void updateEntry(final HashEntry<K, V> entry, final V newValue) {
+        super.updateEntry(entry, newValue);
+        removeOverweight();
+    }
+
+    /**
+     * Computes the weight of a mapping.
+     *
+     * @param key  the key
+     * @param value  the value
+     * @return the weight
+     * @throws IllegalArgumentException if the weight is negative
+     */
+    private long weigh(final K key, final V value) {
+        final long weight = weigher.applyAsLong(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException(String.format("Weight of mapping %s=%s must not be negative: %d", key, value, weight));
+        }
+        return weight;
+    }
+}
@@ -62,8 +62,7 @@ public abstract class AbstractListValuedMap<K, V> extends AbstractMultiValuedMap
         @Override
         public void add(final V value) {
             if (getMap().get(key) == null) {
-                final List<V> list = createCollection();
-                getMap().put(key, list);
+                final List<V> list = (List<V>) mapCollection(key, createCollection());
                 values = list;
                 iterator = list.listIterator();
             }
@@ -104,7 +103,7 @@ public abstract class AbstractListValuedMap<K, V> extends AbstractMultiValuedMap
         public void remove() {
             iterator.remove();
             if (values.isEmpty()) {
-                getMap().remove(key);
+                removeEmptyCollection(key, values);
             }
         }
 
@@ -128,8 +127,7 @@ public abstract class AbstractListValuedMap<K, V> extends AbstractMultiValuedMap
         public void add(final int index, final V value) {
             List<V> list = getMapping();
             if (list == null) {
-                list = createCollection();
-                getMap().put(key, list);
+                list = (List<V>) mapCollection(key, createCollection());
             }
             list.add(index, value);
         }
@@ -140,10 +138,15 @@ public abstract class AbstractListValuedMap<K, V> extends AbstractMultiValuedMap
             if (list == null) {
                 list = createCollection();
                 final boolean changed = list.addAll(index, c);
-                if (changed) {
-                    getMap().put(key, list);
+                if (!changed) {
+                    return false;
+                }
+                final List<V> mapped = (List<V>) mapCollection(key, list);
+                if (mapped == list) {
+                    return true;
                 }
-                return changed;
+                // a list was mapped concurrently
+                list = mapped;
             }
             return list.addAll(index, c);
         }
@@ -205,7 +208,7 @@ public abstract class AbstractListValuedMap<K, V> extends AbstractMultiValuedMap
             final List<V> list = ListUtils.emptyIfNull(getMapping());
             final V value = list.remove(index);
             if (list.isEmpty()) {
-                AbstractListValuedMap.this.remove(key);
+                removeEmptyCollection(key, list);
             }
             return value;
         }
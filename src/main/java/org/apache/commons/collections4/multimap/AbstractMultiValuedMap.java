@@ -381,7 +381,8 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
 
         ValuesIterator(final Object key) {
             this.key = key;
-            this.values = getMap().get(key);
+            // the key may have been removed concurrently
+            this.values = CollectionUtils.emptyIfNull(getMap().get(key));
             this.iterator = values.iterator();
         }
 
@@ -399,7 +400,7 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
         public void remove() {
             iterator.remove();
             if (values.isEmpty()) {
-                AbstractMultiValuedMap.this.remove(key);
+                removeEmptyCollection(key, values);
             }
         }
     }
@@ -426,8 +427,7 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
         public boolean add(final V value) {
             Collection<V> coll = getMapping();
             if (coll == null) {
-                coll = createCollection();
-                AbstractMultiValuedMap.this.map.put(key, coll);
+                coll = mapCollection(key, createCollection());
             }
             return coll.add(value);
         }
@@ -436,8 +436,7 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
         public boolean addAll(final Collection<? extends V> other) {
             Collection<V> coll = getMapping();
             if (coll == null) {
-                coll = createCollection();
-                AbstractMultiValuedMap.this.map.put(key, coll);
+                coll = mapCollection(key, createCollection());
             }
             return coll.addAll(other);
         }
@@ -447,7 +446,7 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
             final Collection<V> coll = getMapping();
             if (coll != null) {
                 coll.clear();
-                AbstractMultiValuedMap.this.remove(key);
+                removeEmptyCollection(key, coll);
             }
         }
 
@@ -491,7 +490,7 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
 
             final boolean result = coll.remove(item);
             if (coll.isEmpty()) {
-                AbstractMultiValuedMap.this.remove(key);
+                removeEmptyCollection(key, coll);
             }
             return result;
         }
@@ -505,7 +504,7 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
 
             final boolean result = coll.removeAll(c);
             if (coll.isEmpty()) {
-                AbstractMultiValuedMap.this.remove(key);
+                removeEmptyCollection(key, coll);
             }
             return result;
         }
@@ -519,7 +518,7 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
 
             final boolean result = coll.retainAll(c);
             if (coll.isEmpty()) {
-                AbstractMultiValuedMap.this.remove(key);
+                removeEmptyCollection(key, coll);
             }
             return result;
         }
@@ -692,6 +691,25 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
         return wrappedCollection(key);
     }
 
+    /**
+     * Maps a new collection to a key without values, when a value is added to the
+     * key through a view, such as the collection returned by {@link #get(Object)}.
+     * <p>
+     * This implementation puts the collection in the wrapped map and returns it.
+     * Subclasses which support concurrent changes may override it to return the
+     * collection mapped to the key by a concurrent change instead.
+     * </p>
+     *
+     * @param key the key to map
+     * @param coll the new collection, as created by {@link #createCollection()}
+     * @return the collection mapped to the key, to which the values are added
+     * @since 4.5.0
+     */
+    protected Collection<V> mapCollection(final K key, final Collection<V> coll) {
+        map.put(key, coll);
+        return coll;
+    }
+
     /**
      * Gets the map being wrapped.
      *
@@ -844,6 +862,23 @@ public abstract class AbstractMultiValuedMap<K, V> implements MultiValuedMap<K,
         return CollectionUtils.emptyIfNull(getMap().remove(key));
     }
 
+    /**
+     * Removes a key whose collection of values was emptied through a view, such as
+     * the collection returned by {@link #get(Object)}.
+     * <p>
+     * This implementation calls {@link #remove(Object)}. Subclasses which support
+     * concurrent changes may override it to keep a collection mapped to the key
+     * by a concurrent change.
+     * </p>
+     *
+     * @param key the key whose collection was emptied
+     * @param coll the emptied collection
+     * @since 4.5.0
+     */
+    protected void removeEmptyCollection(final Object key, final Collection<V> coll) {
+        remove(key);
+    }
+
     /**
      * Removes a specific key/value mapping from the multivalued map.
      * <p>
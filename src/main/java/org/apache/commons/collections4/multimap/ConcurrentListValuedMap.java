@@ -0,0 +1,428 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.multimap;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MultiValuedMap;
+
+/**
+ * Implements a thread-safe {@code ListValuedMap}, using a {@link ConcurrentHashMap}
+ * to provide data storage and copy-on-write lists as value collections.
+ * <p>
+ * {@link #put(Object, Object)}, {@link #putAll(Object, Iterable)} and
+ * {@link #removeMapping(Object, Object)} update the list of a key atomically, holding
+ * only the lock of the {@code ConcurrentHashMap} bin of the key, so threads updating
+ * different keys do not contend. The list of a key is created by its first value and
+ * removed with its last value. Reads, including {@link #get(Object)} and the
+ * {@link #asMap()} view, do not lock, and iterating the values of a key iterates a
+ * snapshot of its list taken when the iterator is created.
+ * </p>
+ * <p>
+ * The views are weakly consistent: they never throw
+ * {@link java.util.ConcurrentModificationException}, and may or may not reflect
+ * changes made during an iteration. The values of a key can also be changed through
+ * the views and the list returned by {@link #get(Object)}. Each such change is
+ * thread-safe. The {@code remove} and {@code set} methods of an iterator find the
+ * value the iterator last returned by identity, so values added or removed by other
+ * threads do not make them change another value; if the value itself was removed
+ * concurrently, they change nothing. Adding the first value of a key in this way uses
+ * the list mapped by a concurrent change instead of replacing it, and removing the
+ * last value removes the key only while it is mapped to the emptied list and the
+ * list is still empty. Finding a value and changing it are not atomic, so use the
+ * methods of this map when several threads may remove values of the same key. The
+ * operations which read many keys, such as {@link #size()} and
+ * {@link #equals(Object)}, are not atomic.
+ * </p>
+ * <p>
+ * Null keys are not supported. Null values are supported.
+ * </p>
+ *
+ * @param <K> the type of the keys in this map
+ * @param <V> the type of the values in this map
+ * @see ArrayListValuedHashMap
+ * @see ConcurrentSetValuedMap
+ * @since 4.5.0
+ */
+public class ConcurrentListValuedMap<K, V> extends AbstractListValuedMap<K, V> implements Serializable {
+
+    /**
+     * A list iterator over a snapshot of the list, which supports changes to the list.
+     * Like the iterators of {@link CopyOnWriteArrayList}, it returns the elements the
+     * list contained when it was created, but changes through this iterator are
+     * supported, so the views of the map can remove values.
+     * <p>
+     * Other threads may change the list during the iteration, so {@link #remove()} and
+     * {@link #set(Object)} find the element last returned by identity in the list,
+     * first at the index it was returned from. If that element has been removed
+     * concurrently, they leave the list unchanged. {@link #add(Object)} inserts after
+     * the element before the cursor, or at the cursor if that element was removed.
+     * Changes through this iterator are also made to the snapshot.
+     * </p>
+     *
+     * @param <V> the type of the values
+     */
+    private static final class ValueListIterator<V> implements ListIterator<V> {
+
+        /** The list */
+        private final List<V> list;
+
+        /** The elements to iterate */
+        private Object[] snapshot;
+
+        /** The index of the next element in the snapshot */
+        private int cursor;
+
+        /** The index of the last element returned in the snapshot, -1 if none */
+        private int lastRet = -1;
+
+        ValueListIterator(final List<V> list, final int index) {
+            this.list = list;
+            this.snapshot = list.toArray();
+            this.cursor = index;
+        }
+
+        @Override
+        public void add(final V value) {
+            int index = cursor;
+            if (cursor > 0) {
+                final int before = indexOf(snapshot[cursor - 1], cursor - 1);
+                if (before >= 0) {
+                    index = before + 1;
+                }
+            }
+            try {
+                list.add(Math.min(index, list.size()), value);
+            } catch (final IndexOutOfBoundsException e) {
+                // shrunk concurrently
+                list.add(value);
+            }
+            final Object[] values = new Object[snapshot.length + 1];
+            System.arraycopy(snapshot, 0, values, 0, cursor);
+            values[cursor] = value;
+            System.arraycopy(snapshot, cursor, values, cursor + 1, snapshot.length - cursor);
+            snapshot = values;
+            cursor++;
+            lastRet = -1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < snapshot.length;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        /**
+         * Finds an element in the list by identity, which concurrent changes may have
+         * moved.
+         *
+         * @param value  the element
+         * @param hint  the index to search from
+         * @return the index nearest to the hint, or -1 if the list no longer contains the element
+         */
+        private int indexOf(final Object value, final int hint) {
+            final Object[] values = list.toArray();
+            if (hint < values.length && values[hint] == value) {
+                return hint;
+            }
+            for (int distance = 1; distance <= Math.max(hint, values.length); distance++) {
+                final int before = hint - distance;
+                if (before >= 0 && before < values.length && values[before] == value) {
+                    return before;
+                }
+                final int after = hint + distance;
+                if (after < values.length && values[after] == value) {
+                    return after;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Finds the index in the list of the last element returned.
+         *
+         * @return the index, or -1 if the list no longer contains the element
+         */
+        private int indexOfLastValue() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            return indexOf(snapshot[lastRet], lastRet);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (cursor >= snapshot.length) {
+                throw new NoSuchElementException();
+            }
+            lastRet = cursor++;
+            return (V) snapshot[lastRet];
+        }
+
+        @Override
+        public int nextIndex() {
+            return cursor;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V previous() {
+            if (cursor <= 0) {
+                throw new NoSuchElementException();
+            }
+            lastRet = --cursor;
+            return (V) snapshot[lastRet];
+        }
+
+        @Override
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        @Override
+        public void remove() {
+            final int index = indexOfLastValue();
+            if (index >= 0) {
+                list.remove(index);
+                final Object[] values = new Object[snapshot.length - 1];
+                System.arraycopy(snapshot, 0, values, 0, lastRet);
+                System.arraycopy(snapshot, lastRet + 1, values, lastRet, values.length - lastRet);
+                snapshot = values;
+                if (lastRet < cursor) {
+                    cursor--;
+                }
+            }
+            lastRet = -1;
+        }
+
+        @Override
+        public void set(final V value) {
+            final int index = indexOfLastValue();
+            if (index >= 0) {
+                list.set(index, value);
+                snapshot[lastRet] = value;
+            }
+        }
+    }
+
+    /**
+     * A copy-on-write list whose iterators support changes.
+     *
+     * @param <V> the type of the values
+     */
+    private static final class ValueList<V> extends CopyOnWriteArrayList<V> {
+
+        /** Serialization Version */
+        private static final long serialVersionUID = 20261018L;
+
+        @Override
+        public Iterator<V> iterator() {
+            return listIterator(0);
+        }
+
+        @Override
+        public ListIterator<V> listIterator() {
+            return listIterator(0);
+        }
+
+        @Override
+        public ListIterator<V> listIterator(final int index) {
+            if (index < 0 || index > size()) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return new ValueListIterator<>(this, index);
+        }
+    }
+
+    /** Serialization Version */
+    private static final long serialVersionUID = 20261018L;
+
+    /**
+     * Creates an empty ConcurrentListValuedMap.
+     */
+    public ConcurrentListValuedMap() {
+        super(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Creates a ConcurrentListValuedMap copying all the mappings of the given map.
+     *
+     * @param map a {@code Map} to copy into this map
+     */
+    public ConcurrentListValuedMap(final Map<? extends K, ? extends V> map) {
+        this();
+        super.putAll(map);
+    }
+
+    /**
+     * Creates a ConcurrentListValuedMap copying all the mappings of the given map.
+     *
+     * @param map a {@code MultiValuedMap} to copy into this map
+     */
+    public ConcurrentListValuedMap(final MultiValuedMap<? extends K, ? extends V> map) {
+        this();
+        super.putAll(map);
+    }
+
+    @Override
+    protected List<V> createCollection() {
+        return new ValueList<>();
+    }
+
+    /**
+     * Maps a new list to a key without values, when a value is added to the key
+     * through a view, unless a concurrent change mapped a list to the key first.
+     *
+     * @param key the key to map
+     * @param coll the new list
+     * @return the list mapped to the key
+     */
+    @Override
+    protected Collection<V> mapCollection(final K key, final Collection<V> coll) {
+        final List<V> existing = getMap().putIfAbsent(key, (List<V>) coll);
+        return existing != null ? existing : coll;
+    }
+
+    /**
+     * Adds the value to the list of the key, atomically with respect to the other
+     * changes made by the methods of this map.
+     *
+     * @param key the key to store against, may not be null
+     * @param value the value to add to the list of the key
+     * @return true always
+     * @throws NullPointerException if the key is null
+     */
+    @Override
+    public boolean put(final K key, final V value) {
+        getMap().compute(key, (k, list) -> {
+            final List<V> values = list != null ? list : createCollection();
+            values.add(value);
+            return values;
+        });
+        return true;
+    }
+
+    /**
+     * Adds the values to the list of the key, atomically with respect to the other
+     * changes made by the methods of this map.
+     *
+     * @param key the key to store against, may not be null
+     * @param values the values to add to the list of the key, may not be null
+     * @return true if this map changed
+     * @throws NullPointerException if the key or values is null
+     */
+    @Override
+    public boolean putAll(final K key, final Iterable<? extends V> values) {
+        Objects.requireNonNull(values, "values");
+        final List<V> added = new ArrayList<>();
+        CollectionUtils.addAll(added, values);
+        if (added.isEmpty()) {
+            return false;
+        }
+        getMap().compute(key, (k, list) -> {
+            final List<V> result = list != null ? list : createCollection();
+            result.addAll(added);
+            return result;
+        });
+        return true;
+    }
+
+    /**
+     * Deserializes an instance from an ObjectInputStream.
+     *
+     * @param in The source ObjectInputStream.
+     * @throws IOException            Any of the usual Input/Output related exceptions.
+     * @throws ClassNotFoundException A class of a serialized object cannot be found.
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        setMap(new ConcurrentHashMap<>());
+        doReadObject(in);
+    }
+
+    /**
+     * Removes a key whose list was emptied through a view, only while the key is
+     * mapped to that same list and it is still empty, so that a list mapped by a
+     * concurrent change and a value added concurrently are kept.
+     *
+     * @param key the key whose list was emptied
+     * @param coll the emptied list
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void removeEmptyCollection(final Object key, final Collection<V> coll) {
+        getMap().computeIfPresent((K) key, (k, list) -> list == coll && list.isEmpty() ? null : list);
+    }
+
+    /**
+     * Removes the first occurrence of the value from the list of the key, removing the
+     * key if the list becomes empty, atomically with respect to the other changes made
+     * by the methods of this map.
+     *
+     * @param key the key to remove from
+     * @param value the value to remove
+     * @return true if the mapping was removed, false otherwise
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeMapping(final Object key, final Object value) {
+        if (key == null) {
+            return false;
+        }
+        final boolean[] changed = new boolean[1];
+        getMap().computeIfPresent((K) key, (k, list) -> {
+            changed[0] = list.remove(value);
+            return list.isEmpty() ? null : list;
+        });
+        return changed[0];
+    }
+
+    /**
+     * Serializes this object to an ObjectOutputStream.
+     * <p>
+     * The lists are copied first, so that the sizes written match the values which
+     * follow while the map is changed.
+     * </p>
+     *
+     * @param out the target ObjectOutputStream.
+     * @throws IOException thrown when an I/O errors occur writing to the target stream.
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        new ArrayListValuedHashMap<>(this).doWriteObject(out);
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.multimap;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.MultiValuedMap;
+
+/**
+ * Implements a thread-safe {@code SetValuedMap}, using a {@link ConcurrentHashMap}
+ * to provide data storage and concurrent hash sets as value collections.
+ * <p>
+ * {@link #put(Object, Object)}, {@link #putAll(Object, Iterable)} and
+ * {@link #removeMapping(Object, Object)} update the set of a key atomically, holding
+ * only the lock of the {@code ConcurrentHashMap} bin of the key, so threads updating
+ * different keys do not contend. The set of a key is created by its first value and
+ * removed with its last value. Reads, including {@link #get(Object)} and the
+ * {@link #asMap()} view, do not lock.
+ * </p>
+ * <p>
+ * The views are weakly consistent: they never throw
+ * {@link java.util.ConcurrentModificationException}, and may or may not reflect
+ * changes made during an iteration. The values of a key can also be changed through
+ * the views and the set returned by {@link #get(Object)}. Each such change is
+ * thread-safe. Adding the first value of a key in this way uses the set mapped by a
+ * concurrent change instead of replacing it, and removing the last value removes the
+ * key only while it is mapped to the emptied set and the set is still empty. The
+ * operations which read many keys, such as {@link #size()} and
+ * {@link #equals(Object)}, are not atomic.
+ * </p>
+ * <p>
+ * Null keys and null values are not supported.
+ * </p>
+ *
+ * @param <K> the type of the keys in this map
+ * @param <V> the type of the values in this map
+ * @see HashSetValuedHashMap
+ * @see ConcurrentListValuedMap
+ * @since 4.5.0
+ */
+public class ConcurrentSetValuedMap<K, V> extends AbstractSetValuedMap<K, V> implements Serializable {
+
+    /** Serialization Version */
+    private static final long serialVersionUID = 20261018L;
+
+    /**
+     * Creates an empty ConcurrentSetValuedMap.
+     */
+    public ConcurrentSetValuedMap() {
+        super(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Creates a ConcurrentSetValuedMap copying all the mappings of the given map.
+     *
+     * @param map a {@code Map} to copy into this map
+     */
+    public ConcurrentSetValuedMap(final Map<? extends K, ? extends V> map) {
+        this();
+        super.putAll(map);
+    }
+
+    /**
+     * Creates a ConcurrentSetValuedMap copying all the mappings of the given map.
+     *
+     * @param map a {@code MultiValuedMap} to copy into this map
+     */
+    public ConcurrentSetValuedMap(final MultiValuedMap<? extends K, ? extends V> map) {
+        this();
+        super.putAll(map);
+    }
+
+    @Override
+    protected Set<V> createCollection() {
+        return ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Maps a new set to a key without values, when a value is added to the key
+     * through a view, unless a concurrent change mapped a set to the key first.
+     *
+     * @param key the key to map
+     * @param coll the new set
+     * @return the set mapped to the key
+     */
+    @Override
+    protected Collection<V> mapCollection(final K key, final Collection<V> coll) {
+        final Set<V> existing = getMap().putIfAbsent(key, (Set<V>) coll);
+        return existing != null ? existing : coll;
+    }
+
+    /**
+     * Adds the value to the set of the key, atomically with respect to the other
+     * changes made by the methods of this map.
+     *
+     * @param key the key to store against, may not be null
+     * @param value the value to add to the set of the key, may not be null
+     * @return true if the map changed
+     * @throws NullPointerException if the key or value is null
+     */
+    @Override
+    public boolean put(final K key, final V value) {
+        Objects.requireNonNull(value, "value");
+        final boolean[] changed = new boolean[1];
+        getMap().compute(key, (k, set) -> {
+            final Set<V> values = set != null ? set : createCollection();
+            changed[0] = values.add(value);
+            return values;
+        });
+        return changed[0];
+    }
+
+    /**
+     * Adds the values to the set of the key, atomically with respect to the other
+     * changes made by the methods of this map.
+     *
+     * @param key the key to store against, may not be null
+     * @param values the values to add to the set of the key, may not be null
+     * @return true if this map changed
+     * @throws NullPointerException if the key or values is null, or values contains null
+     */
+    @Override
+    public boolean putAll(final K key, final Iterable<? extends V> values) {
+        Objects.requireNonNull(values, "values");
+        final List<V> added = new ArrayList<>();
+        CollectionUtils.addAll(added, values);
+        if (added.isEmpty()) {
+            return false;
+        }
+        final boolean[] changed = new boolean[1];
+        getMap().compute(key, (k, set) -> {
+            final Set<V> result = set != null ? set : createCollection();
+            changed[0] = result.addAll(added);
+            return result;
+        });
+        return changed[0];
+    }
+
+    /**
+     * Deserializes an instance from an ObjectInputStream.
+     *
+     * @param in The source ObjectInputStream.
+     * @throws IOException            Any of the usual Input/Output related exceptions.
+     * @throws ClassNotFoundException A class of a serialized object cannot be found.
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        setMap(new ConcurrentHashMap<>());
+        doReadObject(in);
+    }
+
+    /**
+     * Removes a key whose set was emptied through a view, only while the key is
+     * mapped to that same set and it is still empty, so that a set mapped by a
+     * concurrent change and a value added concurrently are kept.
+     *
+     * @param key the key whose set was emptied
+     * @param coll the emptied set
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void removeEmptyCollection(final Object key, final Collection<V> coll) {
+        getMap().computeIfPresent((K) key, (k, set) -> set == coll && set.isEmpty() ? null : set);
+    }
+
+    /**
+     * Removes the value from the set of the key, removing the key if the set becomes
+     * empty, atomically with respect to the other changes made by the methods of this map.
+     *
+     * @param key the key to remove from
+     * @param value the value to remove
+     * @return true if the mapping was removed, false otherwise
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeMapping(final Object key, final Object value) {
+        if (key == null || value == null) {
+            return false;
+        }
+        final boolean[] changed = new boolean[1];
+        getMap().computeIfPresent((K) key, (k, set) -> {
+            changed[0] = set.remove(value);
+            return set.isEmpty() ? null : set;
+        });
+        return changed[0];
+    }
+
+    /**
+     * Serializes this object to an ObjectOutputStream.
+     * <p>
+     * The sets are copied first, so that the sizes written match the values which
+     * follow while the map is changed.
+     * </p>
+     *
+     * @param out the target ObjectOutputStream.
+     * @throws IOException thrown when an I/O errors occur writing to the target stream.
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        new HashSetValuedHashMap<>(this).doWriteObject(out);
+    }
+
+}
@@ -23,6 +23,8 @@
  * <ul>
  *   <li>ArrayListValuedHashMap - ListValuedMap implementation using a HashMap/ArrayList
  *   <li>HashSetValuedHashMap   - SetValuedMap implementation using a HashMap/HashSet
+ *   <li>ConcurrentListValuedMap - thread-safe ListValuedMap implementation using a ConcurrentHashMap/CopyOnWriteArrayList
+ *   <li>ConcurrentSetValuedMap  - thread-safe SetValuedMap implementation using a ConcurrentHashMap and concurrent sets
  * </ul>
  * <p>
  * The following decorators are provided in the package:
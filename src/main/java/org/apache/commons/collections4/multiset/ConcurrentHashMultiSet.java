@@ -0,0 +1,467 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.multiset;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.collections4.MultiSet;
+
+/**
+ * Implements a thread-safe {@code MultiSet}, using a {@link ConcurrentHashMap} of
+ * atomic counters to provide the data storage.
+ * <p>
+ * Unlike {@link SynchronizedMultiSet}, no lock is held to change a count. Each
+ * element is mapped to its own counter, which is updated by a compare-and-set loop,
+ * so threads changing the counts of different elements do not contend, and
+ * {@link #add(Object, int)}, {@link #remove(Object, int)} and
+ * {@link #setCount(Object, int)} are atomic for their element.
+ * </p>
+ * <p>
+ * A counter which reaches zero is removed from the map and never reused. A thread
+ * which finds such a counter installs a new one, so no update made to a counter while
+ * it is being removed is lost.
+ * </p>
+ * <p>
+ * The {@link #entrySet()} and {@link #uniqueSet()} views and the iterators are weakly
+ * consistent, like those of {@link ConcurrentHashMap}: they never throw
+ * {@link java.util.ConcurrentModificationException} and may or may not reflect changes
+ * made during the iteration. The operations which read many counts, such as
+ * {@link #size()}, {@link #equals(Object)} and {@link #toString()}, are not atomic.
+ * {@link #drain()} removes the counts of the elements one at a time, taking the count
+ * of each element atomically.
+ * </p>
+ * <p>
+ * The null element is not supported.
+ * </p>
+ *
+ * @param <E> the type held in the multiset
+ * @see SynchronizedMultiSet
+ * @since 4.5.0
+ */
+public class ConcurrentHashMultiSet<E> extends AbstractMultiSet<E> implements Serializable {
+
+    /**
+     * Iterator over the entries, skipping the counters which reached zero.
+     */
+    private final class EntrySetIterator implements Iterator<Entry<E>> {
+
+        /** The iterator over the map entries */
+        private final Iterator<Map.Entry<E, AtomicInteger>> iterator = map.entrySet().iterator();
+
+        /** The next entry to return, null if not found yet */
+        private Entry<E> next;
+
+        /** The last returned entry */
+        private Entry<E> last;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && iterator.hasNext()) {
+                final Map.Entry<E, AtomicInteger> entry = iterator.next();
+                if (entry.getValue().get() > 0) {
+                    next = new MultiSetEntry(entry.getKey());
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entry<E> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next = null;
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException("Iterator remove() can only be called once after next()");
+            }
+            setCount(last.getElement(), 0);
+            last = null;
+        }
+    }
+
+    /**
+     * Iterator over the elements, returning each element as many times as its count
+     * when the iterator reached it.
+     */
+    private final class MultiSetIterator implements Iterator<E> {
+
+        /** The iterator over the map entries */
+        private final Iterator<Map.Entry<E, AtomicInteger>> iterator = map.entrySet().iterator();
+
+        /** The element being returned */
+        private E element;
+
+        /** The number of occurrences of the element left to return */
+        private int itemCount;
+
+        /** The last returned element, null if remove is not allowed */
+        private E last;
+
+        @Override
+        public boolean hasNext() {
+            while (itemCount == 0 && iterator.hasNext()) {
+                final Map.Entry<E, AtomicInteger> entry = iterator.next();
+                final int count = entry.getValue().get();
+                if (count > 0) {
+                    element = entry.getKey();
+                    itemCount = count;
+                }
+            }
+            return itemCount > 0;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            itemCount--;
+            last = element;
+            return element;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException("Iterator remove() can only be called once after next()");
+            }
+            ConcurrentHashMultiSet.this.remove(last, 1);
+            last = null;
+        }
+    }
+
+    /**
+     * An entry of the multiset, which reads the current count of the element.
+     */
+    private final class MultiSetEntry extends AbstractEntry<E> {
+
+        /** The element */
+        private final E element;
+
+        MultiSetEntry(final E element) {
+            this.element = element;
+        }
+
+        @Override
+        public int getCount() {
+            return ConcurrentHashMultiSet.this.getCount(element);
+        }
+
+        @Override
+        public E getElement() {
+            return element;
+        }
+    }
+
+    /** Serial version lock */
+    private static final long serialVersionUID = 20261018L;
+
+    /**
+     * Checks the number of occurrences is not negative.
+     *
+     * @param occurrences  the number of occurrences
+     * @param name  the name of the argument
+     * @throws IllegalArgumentException if the number of occurrences is negative
+     */
+    private static void checkNonNegative(final int occurrences, final String name) {
+        if (occurrences < 0) {
+            throw new IllegalArgumentException(name + " must not be negative.");
+        }
+    }
+
+    /** The counters of the elements, a counter of zero is removed and not reused */
+    private transient ConcurrentHashMap<E, AtomicInteger> map;
+
+    /**
+     * Constructs an empty {@link ConcurrentHashMultiSet}.
+     */
+    public ConcurrentHashMultiSet() {
+        map = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Constructs a multiset containing all the members of the given collection.
+     *
+     * @param coll  a collection to copy into this multiset
+     * @throws NullPointerException if the collection contains null
+     */
+    public ConcurrentHashMultiSet(final Collection<? extends E> coll) {
+        this();
+        addAll(coll);
+    }
+
+    /**
+     * Adds a number of occurrences of the object to the multiset.
+     *
+     * @param object  the object to add
+     * @param occurrences  the number of occurrences to add, may be zero
+     * @return the number of occurrences of the object in the multiset before this operation
+     * @throws NullPointerException if the object is null
+     * @throws IllegalArgumentException if occurrences is negative, or the count would overflow
+     */
+    @Override
+    public int add(final E object, final int occurrences) {
+        Objects.requireNonNull(object, "object");
+        checkNonNegative(occurrences, "Occurrences");
+        if (occurrences == 0) {
+            return getCount(object);
+        }
+        while (true) {
+            AtomicInteger counter = map.get(object);
+            if (counter == null) {
+                counter = map.putIfAbsent(object, new AtomicInteger(occurrences));
+                if (counter == null) {
+                    return 0;
+                }
+            }
+            int oldCount;
+            while ((oldCount = counter.get()) > 0) {
+                if (oldCount > Integer.MAX_VALUE - occurrences) {
+                    throw new IllegalArgumentException(
+                            String.format("Count of %s would overflow: %d + %d", object, oldCount, occurrences));
+                }
+                if (counter.compareAndSet(oldCount, oldCount + occurrences)) {
+                    return oldCount;
+                }
+            }
+            // the counter reached zero and is being removed, replace it
+            if (map.replace(object, counter, new AtomicInteger(occurrences))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Removes all the elements. Each element is removed atomically, but the clear as a
+     * whole is not atomic.
+     */
+    @Override
+    public void clear() {
+        for (final Map.Entry<E, AtomicInteger> entry : map.entrySet()) {
+            entry.getValue().set(0);
+            map.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    protected Iterator<Entry<E>> createEntrySetIterator() {
+        return new EntrySetIterator();
+    }
+
+    /**
+     * Removes all the elements, returning their counts.
+     * <p>
+     * The count of each element is taken and reset to zero atomically, so an
+     * occurrence added concurrently is either included in the result or remains in this
+     * multiset, and is never lost. The drain as a whole is not atomic.
+     * </p>
+     *
+     * @return a new multiset of the drained counts
+     */
+    public MultiSet<E> drain() {
+        final MultiSet<E> result = new HashMultiSet<>();
+        for (final Map.Entry<E, AtomicInteger> entry : map.entrySet()) {
+            final AtomicInteger counter = entry.getValue();
+            final int count = counter.getAndSet(0);
+            map.remove(entry.getKey(), counter);
+            if (count > 0) {
+                result.add(entry.getKey(), count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of occurrence of the given element in this multiset.
+     *
+     * @param object the object to search for
+     * @return the number of occurrences of the object, zero if not found
+     */
+    @Override
+    public int getCount(final Object object) {
+        final AtomicInteger counter = object == null ? null : map.get(object);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * Gets an iterator over the multiset elements. Elements present in the
+     * MultiSet more than once will be returned repeatedly, as many times as the count
+     * of the element when the iterator reached it.
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new MultiSetIterator();
+    }
+
+    /**
+     * Reads the multiset in using a custom routine.
+     *
+     * @param in the input stream
+     * @throws IOException if an error occurs while reading from the stream
+     * @throws ClassNotFoundException if an object read from the stream can not be loaded
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        map = new ConcurrentHashMap<>();
+        super.doReadObject(in);
+    }
+
+    /**
+     * Removes a number of occurrences of the object from the multiset.
+     * The count of the object is not reduced below zero.
+     *
+     * @param object  the object to remove, null is ignored
+     * @param occurrences  the number of occurrences to remove, may be zero
+     * @return the number of occurrences of the object in the multiset before this operation
+     * @throws IllegalArgumentException if occurrences is negative
+     */
+    @Override
+    public int remove(final Object object, final int occurrences) {
+        checkNonNegative(occurrences, "Occurrences");
+        if (occurrences == 0) {
+            return getCount(object);
+        }
+        final AtomicInteger counter = object == null ? null : map.get(object);
+        if (counter == null) {
+            return 0;
+        }
+        int oldCount;
+        while ((oldCount = counter.get()) > 0) {
+            final int newCount = Math.max(0, oldCount - occurrences);
+            if (counter.compareAndSet(oldCount, newCount)) {
+                if (newCount == 0) {
+                    map.remove(object, counter);
+                }
+                return oldCount;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Sets the number of occurrences of the object.
+     *
+     * @param object  the object to update
+     * @param count  the number of occurrences of the object
+     * @return the number of occurrences of the object before this operation
+     * @throws NullPointerException if the object is null
+     * @throws IllegalArgumentException if count is negative
+     */
+    @Override
+    public int setCount(final E object, final int count) {
+        Objects.requireNonNull(object, "object");
+        checkNonNegative(count, "Count");
+        while (true) {
+            AtomicInteger counter = map.get(object);
+            if (counter == null) {
+                if (count == 0) {
+                    return 0;
+                }
+                counter = map.putIfAbsent(object, new AtomicInteger(count));
+                if (counter == null) {
+                    return 0;
+                }
+            }
+            int oldCount;
+            while ((oldCount = counter.get()) > 0) {
+                if (counter.compareAndSet(oldCount, count)) {
+                    if (count == 0) {
+                        map.remove(object, counter);
+                    }
+                    return oldCount;
+                }
+            }
+            // the counter reached zero and is being removed, replace it
+            if (count == 0) {
+                map.remove(object, counter);
+                return 0;
+            }
+            if (map.replace(object, counter, new AtomicInteger(count))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of elements in this multiset, limited to
+     * {@link Integer#MAX_VALUE}. The counts are summed without locking, so the result
+     * is not exact while the multiset is changed.
+     *
+     * @return current size of the multiset
+     */
+    @Override
+    public int size() {
+        long total = 0;
+        for (final AtomicInteger counter : map.values()) {
+            total += counter.get();
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    @Override
+    protected int uniqueElements() {
+        return map.size();
+    }
+
+    /**
+     * Writes the multiset out using a custom routine.
+     * <p>
+     * The counts are copied first, so that the number of entries written matches the
+     * entries which follow while the multiset is changed.
+     * </p>
+     *
+     * @param out the output stream
+     * @throws IOException if an error occurs while writing to the stream
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        final List<Map.Entry<E, Integer>> entries = new ArrayList<>(map.size());
+        for (final Map.Entry<E, AtomicInteger> entry : map.entrySet()) {
+            final int count = entry.getValue().get();
+            if (count > 0) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), count));
+            }
+        }
+        out.writeInt(entries.size());
+        for (final Map.Entry<E, Integer> entry : entries) {
+            out.writeObject(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+}
@@ -0,0 +1,694 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.multiset;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+import org.apache.commons.collections4.MultiSet;
+import org.apache.commons.collections4.map.OpenAddressing;
+
+/**
+ * Implements {@code MultiSet}, storing the elements in an open addressing hash
+ * table with the counts in a parallel primitive {@code int} array.
+ * <p>
+ * Unlike {@link HashMultiSet}, which holds a map entry and a mutable counter object
+ * for every distinct element, this implementation allocates no object per element.
+ * The elements are found using linear probing, and a removal shifts the following
+ * elements of the probe sequence back, so no deleted markers are left in the table.
+ * {@link #add(Object, int)}, {@link #remove(Object, int)}, {@link #getCount(Object)}
+ * and {@link #setCount(Object, int)} do not allocate, except to grow the table.
+ * </p>
+ * <p>
+ * The iterators scan the table directly. The entries returned by the
+ * {@link #entrySet()} iterator are light views of an element, which read the count from
+ * this multiset, and {@link #forEachEntry(ObjIntConsumer)} visits the elements and
+ * counts without creating entries at all. The null element is supported.
+ * </p>
+ * <p>
+ * <strong>Note that OpenHashMultiSet is not synchronized and is not thread-safe.</strong>
+ * </p>
+ *
+ * @param <E> the type held in the multiset
+ * @see HashMultiSet
+ * @since 4.5.0
+ */
+public class OpenHashMultiSet<E> extends AbstractMultiSet<E> implements Serializable {
+
+    /**
+     * An entry of the multiset, which reads the count of the element from the multiset.
+     */
+    private final class ElementEntry extends AbstractEntry<E> {
+
+        /** The element */
+        private final E element;
+
+        ElementEntry(final E element) {
+            this.element = element;
+        }
+
+        @Override
+        public int getCount() {
+            return OpenHashMultiSet.this.getCount(element);
+        }
+
+        @Override
+        public E getElement() {
+            return element;
+        }
+    }
+
+    /**
+     * Iterator over the entries.
+     */
+    private final class EntrySetIterator extends TableIterator<Entry<E>> {
+
+        @Override
+        public Entry<E> next() {
+            return new ElementEntry(elementAt(nextIndex()));
+        }
+    }
+
+    /**
+     * Iterator over the elements, returning each element as many times as its count.
+     */
+    private final class MultiSetIterator extends TableIterator<E> {
+
+        /** The number of occurrences of the current element left to return */
+        private int itemCount;
+
+        /** Whether remove is allowed at present */
+        private boolean canRemove;
+
+        @Override
+        public boolean hasNext() {
+            return itemCount > 0 || super.hasNext();
+        }
+
+        @Override
+        public E next() {
+            if (itemCount == 0) {
+                itemCount = counts[nextIndex()];
+            } else {
+                checkModCount();
+            }
+            itemCount--;
+            canRemove = true;
+            return elementAt(current);
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            canRemove = false;
+            if (counts[current] > 1) {
+                checkModCount();
+                modCount++;
+                counts[current]--;
+                size--;
+                expectedModCount = modCount;
+            } else {
+                super.remove();
+            }
+        }
+    }
+
+    /**
+     * Base iterator over the occupied slots of the table.
+     * <p>
+     * The table is scanned downwards. A removal by the iterator may shift an element
+     * which has not been returned into the part of the table already scanned, such
+     * elements are recorded and returned after the scan.
+     * </p>
+     *
+     * @param <T> the type returned by the iterator
+     */
+    private abstract class TableIterator<T> implements Iterator<T> {
+
+        /** The index of the last slot scanned */
+        private int position;
+
+        /** The index of the current element, -1 if none */
+        int current;
+
+        /** The number of elements left to return */
+        private int remaining;
+
+        /** The elements shifted from the part of the table not yet scanned to the part scanned */
+        private Object[] wrapped;
+
+        /** The number of wrapped elements */
+        private int wrappedSize;
+
+        /** The index of the next wrapped element to return */
+        private int wrappedIndex;
+
+        /** The modification count expected */
+        int expectedModCount;
+
+        TableIterator() {
+            position = elements.length;
+            current = -1;
+            remaining = uniqueCount;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Checks the multiset was not changed other than by the iterator.
+         *
+         * @throws ConcurrentModificationException if the multiset was changed
+         */
+        final void checkModCount() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        /**
+         * Records an element shifted by a removal.
+         *
+         * @param from  the index the element was shifted from
+         * @param to  the index the element was shifted to
+         */
+        final void moved(final int from, final int to) {
+            if (OpenAddressing.isWrapped(from, to, position)) {
+                wrapped = OpenAddressing.append(wrapped, wrappedSize++, elements[to]);
+            }
+        }
+
+        /**
+         * Moves to the next occupied slot.
+         *
+         * @return the index of the slot
+         * @throws NoSuchElementException if there are no more elements
+         * @throws ConcurrentModificationException if the multiset was changed other than by the iterator
+         */
+        final int nextIndex() {
+            checkModCount();
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            remaining--;
+            while (--position >= 0) {
+                if (elements[position] != null) {
+                    current = position;
+                    return position;
+                }
+            }
+            current = indexOf(wrapped[wrappedIndex++]);
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            checkModCount();
+            removeIndex(current, this);
+            current = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * Iterator over the unique elements.
+     */
+    private final class UniqueSetIterator extends TableIterator<E> {
+
+        @Override
+        public E next() {
+            return elementAt(nextIndex());
+        }
+    }
+
+    /**
+     * The slots of the table, as seen by a removal.
+     */
+    private final class TableSlots implements OpenAddressing.Slots {
+
+        /** The iterator removing the element, or null */
+        private final TableIterator<?> iterator;
+
+        TableSlots(final TableIterator<?> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean isEmpty(final int index) {
+            return elements[index] == null;
+        }
+
+        @Override
+        public void move(final int from, final int to) {
+            elements[to] = elements[from];
+            counts[to] = counts[from];
+            if (iterator != null) {
+                iterator.moved(from, to);
+            }
+        }
+
+        @Override
+        public int startOf(final int index) {
+            return hashIndex(elements[index], elements.length - 1);
+        }
+    }
+
+    /** Serial version lock */
+    private static final long serialVersionUID = 20261018L;
+
+    /** The default expected number of unique elements */
+    private static final int DEFAULT_EXPECTED_SIZE = 8;
+
+    /** The default load factor */
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /** An object for masking null */
+    private static final Object NULL = new Object();
+
+    /**
+     * Gets the index of the start of the probe sequence of the element.
+     *
+     * @param element  the masked element
+     * @param mask  the mask of the table size
+     * @return the index
+     */
+    private static int hashIndex(final Object element, final int mask) {
+        final int h = element == NULL ? 0 : element.hashCode() * 0x9e3779b9;
+        return (h ^ h >>> 16) & mask;
+    }
+
+    /**
+     * Masks a null element.
+     *
+     * @param element  the element
+     * @return the masked element
+     */
+    private static Object maskNull(final Object element) {
+        return element == null ? NULL : element;
+    }
+
+    /** The load factor */
+    private final float loadFactor;
+
+    /** The masked elements, null for an empty slot */
+    private transient Object[] elements;
+
+    /** The counts of the elements */
+    private transient int[] counts;
+
+    /** The number of unique elements */
+    private transient int uniqueCount;
+
+    /** The total number of occurrences */
+    private transient int size;
+
+    /** The number of unique elements at which to resize */
+    private transient int threshold;
+
+    /** Modification count for iterators */
+    private transient int modCount;
+
+    /**
+     * Constructs an empty {@link OpenHashMultiSet}.
+     */
+    public OpenHashMultiSet() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs a multiset containing all the members of the given collection.
+     *
+     * @param coll  a collection to copy into this multiset
+     */
+    public OpenHashMultiSet(final Collection<? extends E> coll) {
+        this();
+        addAll(coll);
+    }
+
+    /**
+     * Constructs an empty multiset sized for the expected number of unique elements.
+     *
+     * @param expectedSize  the expected number of unique elements
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public OpenHashMultiSet(final int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty multiset sized for the expected number of unique elements.
+     *
+     * @param expectedSize  the expected number of unique elements
+     * @param loadFactor  the load factor
+     * @throws IllegalArgumentException if the expected size is negative
+     * @throws IllegalArgumentException if the load factor is not greater than zero and less than one
+     */
+    public OpenHashMultiSet(final int expectedSize, final float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size must be a non negative number");
+        }
+        this.loadFactor = OpenAddressing.checkLoadFactor(loadFactor);
+        allocate(OpenAddressing.capacityFor(expectedSize, loadFactor));
+    }
+
+    @Override
+    public int add(final E object, final int occurrences) {
+        if (occurrences < 0) {
+            throw new IllegalArgumentException("Occurrences must not be negative.");
+        }
+        final Object masked = maskNull(object);
+        final int index = indexOf(masked);
+        if (index >= 0) {
+            final int oldCount = counts[index];
+            if (occurrences > 0) {
+                modCount++;
+                counts[index] += occurrences;
+                size += occurrences;
+            }
+            return oldCount;
+        }
+        if (occurrences > 0) {
+            insert(-index - 1, masked, occurrences);
+        }
+        return 0;
+    }
+
+    /**
+     * Allocates the table.
+     *
+     * @param capacity  the capacity, a power of two
+     */
+    private void allocate(final int capacity) {
+        elements = new Object[capacity];
+        counts = new int[capacity];
+        threshold = OpenAddressing.threshold(capacity, loadFactor);
+    }
+
+    /**
+     * Clears the multiset.
+     */
+    @Override
+    public void clear() {
+        modCount++;
+        Arrays.fill(elements, null);
+        Arrays.fill(counts, 0);
+        uniqueCount = 0;
+        size = 0;
+    }
+
+    @Override
+    public boolean contains(final Object object) {
+        return indexOf(maskNull(object)) >= 0;
+    }
+
+    @Override
+    protected Iterator<Entry<E>> createEntrySetIterator() {
+        return new EntrySetIterator();
+    }
+
+    @Override
+    protected Iterator<E> createUniqueSetIterator() {
+        return new UniqueSetIterator();
+    }
+
+    /**
+     * Gets the unmasked element at the index.
+     *
+     * @param index  the index of an occupied slot
+     * @return the element
+     */
+    @SuppressWarnings("unchecked")
+    private E elementAt(final int index) {
+        final Object element = elements[index];
+        return element == NULL ? null : (E) element;
+    }
+
+    @Override
+    public boolean equals(final Object object) {
+        if (object == this) {
+            return true;
+        }
+        if (!(object instanceof MultiSet)) {
+            return false;
+        }
+        final MultiSet<?> other = (MultiSet<?>) object;
+        if (other.size() != size || other.uniqueSet().size() != uniqueCount) {
+            return false;
+        }
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i] != null && other.getCount(elementAt(i)) != counts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Performs the action for each unique element and its count, without creating
+     * entry objects.
+     *
+     * @param action  the action to perform, called with the element and its count
+     * @throws NullPointerException if the action is null
+     * @throws ConcurrentModificationException if the action changes the multiset
+     */
+    public void forEachEntry(final ObjIntConsumer<? super E> action) {
+        Objects.requireNonNull(action, "action");
+        final int mods = modCount;
+        final Object[] e = elements;
+        for (int i = e.length - 1; i >= 0; i--) {
+            if (e[i] != null) {
+                action.accept(elementAt(i), counts[i]);
+                if (modCount != mods) {
+                    throw new ConcurrentModificationException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of occurrence of the given element in this multiset.
+     *
+     * @param object the object to search for
+     * @return the number of occurrences of the object, zero if not found
+     */
+    @Override
+    public int getCount(final Object object) {
+        final int index = indexOf(maskNull(object));
+        return index >= 0 ? counts[index] : 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int total = 0;
+        for (int i = 0; i < elements.length; i++) {
+            final Object element = elements[i];
+            if (element != null) {
+                total += (element == NULL ? 0 : element.hashCode()) ^ counts[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Finds the slot of a masked element.
+     *
+     * @param element  the masked element
+     * @return the index of the element, or {@code -(insertion index) - 1} if not found
+     */
+    private int indexOf(final Object element) {
+        final Object[] e = elements;
+        final int mask = e.length - 1;
+        int index = hashIndex(element, mask);
+        Object candidate;
+        while ((candidate = e[index]) != null) {
+            if (candidate == element || candidate.equals(element)) {
+                return index;
+            }
+            index = index + 1 & mask;
+        }
+        return -index - 1;
+    }
+
+    /**
+     * Inserts a new element in an empty slot.
+     *
+     * @param index  the index of the empty slot
+     * @param element  the masked element
+     * @param count  the count, greater than zero
+     * @throws IllegalStateException if the table is full at the maximum capacity
+     */
+    private void insert(final int index, final Object element, final int count) {
+        modCount++;
+        elements[index] = element;
+        counts[index] = count;
+        uniqueCount++;
+        size += count;
+        if (uniqueCount >= threshold) {
+            resize();
+        }
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new MultiSetIterator();
+    }
+
+    /**
+     * Read the multiset in using a custom routine.
+     *
+     * @param in the input stream
+     * @throws IOException if an error occurs while reading from the stream
+     * @throws ClassNotFoundException if an object read from the stream can not be loaded
+     */
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        allocate(OpenAddressing.capacityFor(DEFAULT_EXPECTED_SIZE, loadFactor));
+        super.doReadObject(in);
+    }
+
+    @Override
+    public int remove(final Object object, final int occurrences) {
+        if (occurrences < 0) {
+            throw new IllegalArgumentException("Occurrences must not be negative.");
+        }
+        final int index = indexOf(maskNull(object));
+        if (index < 0) {
+            return 0;
+        }
+        final int oldCount = counts[index];
+        if (occurrences > 0) {
+            if (occurrences < oldCount) {
+                modCount++;
+                counts[index] -= occurrences;
+                size -= occurrences;
+            } else {
+                removeIndex(index, null);
+            }
+        }
+        return oldCount;
+    }
+
+    /**
+     * Removes the element at the index, shifting back the following elements of the
+     * probe sequence which may occupy the empty slot.
+     *
+     * @param index  the index of the element
+     * @param iterator  the iterator removing the element, or null
+     */
+    private void removeIndex(final int index, final TableIterator<?> iterator) {
+        modCount++;
+        uniqueCount--;
+        size -= counts[index];
+        final int empty = OpenAddressing.remove(new TableSlots(iterator), index, elements.length - 1);
+        elements[empty] = null;
+        counts[empty] = 0;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     *
+     * @throws IllegalStateException if the table is full at the maximum capacity
+     */
+    private void resize() {
+        final Object[] oldElements = elements;
+        final int[] oldCounts = counts;
+        if (!OpenAddressing.canGrow(oldElements.length, uniqueCount)) {
+            return;
+        }
+        allocate(oldElements.length * 2);
+        final int mask = elements.length - 1;
+        for (int i = oldElements.length - 1; i >= 0; i--) {
+            final Object element = oldElements[i];
+            if (element != null) {
+                int index = hashIndex(element, mask);
+                while (elements[index] != null) {
+                    index = index + 1 & mask;
+                }
+                elements[index] = element;
+                counts[index] = oldCounts[i];
+            }
+        }
+    }
+
+    @Override
+    public int setCount(final E object, final int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative.");
+        }
+        final Object masked = maskNull(object);
+        final int index = indexOf(masked);
+        if (index < 0) {
+            if (count > 0) {
+                insert(-index - 1, masked, count);
+            }
+            return 0;
+        }
+        final int oldCount = counts[index];
+        if (count == 0) {
+            removeIndex(index, null);
+        } else if (count != oldCount) {
+            modCount++;
+            counts[index] = count;
+            size += count - oldCount;
+        }
+        return oldCount;
+    }
+
+    /**
+     * Returns the number of elements in this multiset.
+     *
+     * @return current size of the multiset
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    protected int uniqueElements() {
+        return uniqueCount;
+    }
+
+    /**
+     * Write the multiset out using a custom routine.
+     *
+     * @param out the output stream
+     * @throws IOException if an error occurs while writing to the stream
+     */
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        super.doWriteObject(out);
+    }
+
+}
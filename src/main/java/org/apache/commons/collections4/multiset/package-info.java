@@ -22,7 +22,9 @@
  * <p>
  * The following implementations are provided in the package:
  * <ul>
+ *   <li>ConcurrentHashMultiSet - thread-safe implementation that uses a ConcurrentHashMap of atomic counters
  *   <li>HashMultiSet - implementation that uses a HashMap to store the data
+ *   <li>OpenHashMultiSet - implementation that stores primitive counts in an open addressing hash table
  * </ul>
  * <p>
  * The following decorators are provided in the package:
@@ -19,6 +19,7 @@ package org.apache.commons.collections4.bloomfilter;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.function.BiPredicate;
@@ -96,6 +97,15 @@ public abstract class AbstractBloomFilterExtractorTest {
         assertArrayEquals(expected.asBitMapArray(), underTest.asBitMapArray());
     }
 
+    @Test
+    public void testParallelFlatten() {
+        final BloomFilter expected = createUnderTest().flatten();
+        for (final int threshold : new int[] {1, 2, 1000}) {
+            assertArrayEquals(expected.asBitMapArray(), createUnderTest().parallelFlatten(threshold).asBitMapArray());
+        }
+        assertThrows(IllegalArgumentException.class, () -> createUnderTest().parallelFlatten(0));
+    }
+
     @Test
     public void testForEachPairArrayTooLong() {
         assertTrue(createUnderTest().processBloomFilterPair(BloomFilterExtractor.fromBloomFilterArray(one, two, one),
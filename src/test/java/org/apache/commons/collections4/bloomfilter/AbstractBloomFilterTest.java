@@ -53,6 +53,20 @@ public abstract class AbstractBloomFilterTest<T extends BloomFilter> {
         }
     }
 
+    /**
+     * Creates hashers of different types for the batch operations.
+     *
+     * @param count the number of hashers.
+     * @return the hashers.
+     */
+    private static Hasher[] createHashers(final int count) {
+        final Hasher[] hashers = new Hasher[count];
+        for (int i = 0; i < count; i++) {
+            hashers[i] = i % 2 == 0 ? EnhancedDoubleHasher.fromInt(i) : new IncrementingHasher(i, 3);
+        }
+        return hashers;
+    }
+
     private void assertFailedIndexExtractorConstructor(final Shape shape, final int[] values) {
         final IndexExtractor indices = IndexExtractor.fromIndexArray(values);
         assertThrows(IllegalArgumentException.class, () -> createFilter(shape, indices));
@@ -239,6 +253,24 @@ public abstract class AbstractBloomFilterTest<T extends BloomFilter> {
         assertTrue(bf4.contains(bf1));
     }
 
+    @Test
+    public void testContainsEach() {
+        final Hasher[] hashers = createHashers(150);
+        final BloomFilter bf = createEmptyFilter(getTestShape());
+        for (int i = 0; i < hashers.length; i += 3) {
+            bf.merge(hashers[i]);
+        }
+        final BitSet expected = new BitSet();
+        for (int i = 0; i < hashers.length; i++) {
+            if (bf.contains(hashers[i])) {
+                expected.set(i);
+            }
+        }
+        assertEquals(expected, bf.containsEach(hashers));
+        assertTrue(bf.containsEach(new Hasher[0]).isEmpty());
+        assertThrows(NullPointerException.class, () -> bf.containsEach(new Hasher[] {hashers[0], null}));
+    }
+
     @Test
     public void testCopy() {
         testCopy(true);
@@ -425,6 +457,25 @@ public abstract class AbstractBloomFilterTest<T extends BloomFilter> {
         assertThrows(IllegalArgumentException.class, () -> bf1.merge(bf6));
     }
 
+    @Test
+    public void testMergeEach() {
+        final Hasher[] hashers = createHashers(150);
+        final BloomFilter expected = createEmptyFilter(getTestShape());
+        boolean result = true;
+        for (final Hasher hasher : hashers) {
+            result &= expected.merge(hasher);
+        }
+        final BloomFilter bf = createEmptyFilter(getTestShape());
+        assertEquals(result, bf.mergeEach(hashers));
+        assertArrayEquals(expected.asBitMapArray(), bf.asBitMapArray());
+        assertEquals(expected.cardinality(), bf.cardinality());
+        assertEquals(expected.containsEach(hashers), bf.containsEach(hashers));
+
+        final BloomFilter f = createEmptyFilter(getTestShape());
+        assertThrows(IllegalArgumentException.class,
+                () -> f.mergeEach(new Hasher[] {hashers[0], new BadHasher(getTestShape().getNumberOfBits())}));
+    }
+
     @Test
     public void testMergeWithBadHasher() {
         // value too large
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link BitSlicedBloomFilterIndex}.
+ */
+public class BitSlicedBloomFilterIndexTest {
+
+    private static final Shape SHAPE = Shape.fromNP(100, 0.01);
+
+    private static SimpleBloomFilter createFilter(final int from, final int to) {
+        final SimpleBloomFilter filter = new SimpleBloomFilter(SHAPE);
+        for (int i = from; i < to; i++) {
+            filter.merge(EnhancedDoubleHasher.fromInt(i));
+        }
+        return filter;
+    }
+
+    /**
+     * Finds the filters containing the item by testing each filter.
+     */
+    private static int[] find(final List<SimpleBloomFilter> filters, final Hasher hasher) {
+        return IntStream.range(0, filters.size()).filter(i -> filters.get(i) != null && filters.get(i).contains(hasher)).toArray();
+    }
+
+    @Test
+    public void testAddAndFind() {
+        final BitSlicedBloomFilterIndex index = new BitSlicedBloomFilterIndex(SHAPE);
+        assertTrue(index.isEmpty());
+        final List<SimpleBloomFilter> filters = new ArrayList<>();
+        // more than 64 filters to use several words in each slice
+        for (int i = 0; i < 150; i++) {
+            final SimpleBloomFilter filter = createFilter(i * 50, i * 50 + 100);
+            filters.add(filter);
+            assertEquals(i, index.add(filter));
+        }
+        assertEquals(150, index.size());
+        assertFalse(index.isEmpty());
+        final Random rng = new Random(42);
+        for (int n = 0; n < 500; n++) {
+            final Hasher hasher = EnhancedDoubleHasher.fromInt(rng.nextInt(8000));
+            assertArrayEquals(find(filters, hasher), index.find(hasher));
+        }
+        // the item is in filters 1 and 2, and may be a false positive in others
+        final int[] expected = find(filters, EnhancedDoubleHasher.fromInt(120));
+        assertTrue(Arrays.binarySearch(expected, 1) >= 0 && Arrays.binarySearch(expected, 2) >= 0);
+        // other forms of search
+        final SimpleBloomFilter query = createFilter(120, 121);
+        assertArrayEquals(expected, index.find(query));
+        assertArrayEquals(expected, index.find((BitMapExtractor) query));
+        assertArrayEquals(expected, index.find((IndexExtractor) query));
+        final SparseBloomFilter sparse = new SparseBloomFilter(SHAPE);
+        sparse.merge(query);
+        assertArrayEquals(expected, index.find(sparse));
+        // an empty query matches all filters
+        assertEquals(150, index.find(new SimpleBloomFilter(SHAPE)).length);
+        assertArrayEquals(new int[0], index.find(IndexExtractor.fromIndexArray(SHAPE.getNumberOfBits())));
+    }
+
+    @Test
+    public void testClear() {
+        final BitSlicedBloomFilterIndex index = new BitSlicedBloomFilterIndex(SHAPE);
+        for (int i = 0; i < 100; i++) {
+            index.add(createFilter(i, i + 10));
+        }
+        index.clear();
+        assertTrue(index.isEmpty());
+        assertFalse(index.contains(0));
+        assertArrayEquals(new int[0], index.find(EnhancedDoubleHasher.fromInt(5)));
+        assertEquals(0, index.add(createFilter(0, 10)));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        final BitSlicedBloomFilterIndex index = new BitSlicedBloomFilterIndex(SHAPE);
+        assertThrows(IllegalArgumentException.class, () -> index.add(new SimpleBloomFilter(Shape.fromKM(3, 100))));
+        assertThrows(NullPointerException.class, () -> index.add(null));
+        assertThrows(IllegalArgumentException.class, () -> index.merge(0, EnhancedDoubleHasher.fromInt(1)));
+        assertFalse(index.remove(-1));
+        assertFalse(index.remove(0));
+        assertEquals(SHAPE, index.getShape());
+    }
+
+    @Test
+    public void testMerge() {
+        final BitSlicedBloomFilterIndex index = new BitSlicedBloomFilterIndex(SHAPE);
+        index.add(createFilter(0, 10));
+        final int ordinal = index.add(createFilter(10, 20));
+        assertArrayEquals(new int[0], index.find(EnhancedDoubleHasher.fromInt(1000)));
+        index.merge(ordinal, EnhancedDoubleHasher.fromInt(1000));
+        assertArrayEquals(new int[] {ordinal}, index.find(EnhancedDoubleHasher.fromInt(1000)));
+    }
+
+    @Test
+    public void testRemove() {
+        final BitSlicedBloomFilterIndex index = new BitSlicedBloomFilterIndex(SHAPE);
+        final List<SimpleBloomFilter> filters = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            final SimpleBloomFilter filter = createFilter(i * 10, i * 10 + 20);
+            filters.add(filter);
+            index.add(filter);
+        }
+        for (int i = 0; i < 130; i += 3) {
+            assertTrue(index.remove(i));
+            assertFalse(index.contains(i));
+            assertFalse(index.remove(i));
+            filters.set(i, null);
+        }
+        assertEquals(130 - 44, index.size());
+        for (int i = 0; i < 1320; i++) {
+            final Hasher hasher = EnhancedDoubleHasher.fromInt(i);
+            assertArrayEquals(find(filters, hasher), index.find(hasher));
+        }
+        // the lowest free ordinal is reused
+        final SimpleBloomFilter filter = createFilter(5000, 5010);
+        assertEquals(0, index.add(filter));
+        filters.set(0, filter);
+        assertEquals(3, index.add(filter));
+        filters.set(3, filter);
+        assertArrayEquals(find(filters, EnhancedDoubleHasher.fromInt(5005)), index.find(EnhancedDoubleHasher.fromInt(5005)));
+        assertArrayEquals(find(filters, EnhancedDoubleHasher.fromInt(15)), index.find(EnhancedDoubleHasher.fromInt(15)));
+    }
+}
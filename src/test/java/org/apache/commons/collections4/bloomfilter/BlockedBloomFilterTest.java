@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link BlockedBloomFilter}.
+ */
+public class BlockedBloomFilterTest extends AbstractBloomFilterTest<BlockedBloomFilter> {
+
+    @Override
+    protected BlockedBloomFilter createEmptyFilter(final Shape shape) {
+        return new BlockedBloomFilter(shape);
+    }
+
+    @Test
+    public void testBlockedHasherMatchesIndices() {
+        final Shape shape = Shape.fromNP(1000, 0.01);
+        final BlockedBloomFilter filter = createEmptyFilter(shape);
+        final SimpleBloomFilter expected = new SimpleBloomFilter(shape);
+        final Random rng = new Random(42);
+        final Hasher[] hashers = new Hasher[1000];
+        for (int i = 0; i < hashers.length; i++) {
+            hashers[i] = new BlockedHasher(rng.nextLong(), rng.nextLong());
+            filter.merge(hashers[i]);
+            expected.merge(hashers[i].indices(shape));
+        }
+        assertArrayEquals(expected.asBitMapArray(), filter.asBitMapArray());
+        assertEquals(expected.cardinality(), filter.cardinality());
+        for (final Hasher hasher : hashers) {
+            assertTrue(filter.contains(hasher));
+        }
+        for (int i = 0; i < 1000; i++) {
+            final Hasher hasher = new BlockedHasher(rng.nextLong(), rng.nextLong());
+            assertEquals(expected.contains(hasher.indices(shape)), filter.contains(hasher));
+        }
+    }
+
+    @Test
+    public void testGetProbability() {
+        final Shape shape = Shape.fromKM(7, 1 << 16);
+        assertEquals(0, BlockedBloomFilter.getProbability(shape, 0));
+        assertThrows(IllegalArgumentException.class, () -> BlockedBloomFilter.getProbability(shape, -1));
+        final int n = 6000;
+        final double p = BlockedBloomFilter.getProbability(shape, n);
+        // blocking increases the false positive probability
+        assertTrue(p > shape.getProbability(n));
+        assertTrue(p < 2 * shape.getProbability(n));
+
+        // compare with the observed rate
+        final BlockedBloomFilter filter = createEmptyFilter(shape);
+        final Random rng = new Random(123);
+        for (int i = 0; i < n; i++) {
+            filter.merge(new BlockedHasher(rng.nextLong(), rng.nextLong()));
+        }
+        final int trials = 200000;
+        int falsePositives = 0;
+        for (int i = 0; i < trials; i++) {
+            if (filter.contains(new BlockedHasher(rng.nextLong(), rng.nextLong()))) {
+                falsePositives++;
+            }
+        }
+        assertEquals(p, (double) falsePositives / trials, p * 0.2);
+
+        // a single block is a standard Bloom filter
+        final Shape small = Shape.fromKM(3, 100);
+        assertEquals(small.getProbability(10), BlockedBloomFilter.getProbability(small, 10), 0.05);
+    }
+
+    @Test
+    public void testOtherHashersAreNotBlocked() {
+        final Shape shape = Shape.fromKM(5, 4096);
+        final BlockedBloomFilter filter = createEmptyFilter(shape);
+        final Hasher hasher = new EnhancedDoubleHasher(1234567, 89101112);
+        filter.merge(hasher);
+        assertTrue(filter.contains(hasher));
+        assertTrue(filter.contains(hasher.indices(shape)));
+        assertFalse(filter.contains(new BlockedHasher(1234567, 89101112)));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link BlockedHasher}.
+ */
+public class BlockedHasherTest extends AbstractHasherTest {
+    int[] expected = {1, 1, 2, 5, 11, 21, 36, 57, 13, 49, 22, 5, 71, 5, 24, 57, 33};
+
+    @Override
+    protected Hasher createEmptyHasher() {
+        return NullHasher.INSTANCE;
+    }
+
+    @Override
+    protected Hasher createHasher() {
+        return new BlockedHasher(1, 1);
+    }
+
+    @Override
+    protected int getAsIndexArrayBehaviour() {
+        // Allows duplicates and may be unordered
+        return 0;
+    }
+
+    @Override
+    protected int[] getExpectedIndices() {
+        return expected;
+    }
+
+    @Override
+    protected int getHasherSize(final Hasher hasher) {
+        return 1;
+    }
+
+    @Test
+    public void testIndicesWithinBlock() {
+        final Shape shape = Shape.fromKM(7, 5000);
+        // 9 complete blocks, the remaining 392 bits are not used
+        assertEquals(9, BlockedBloomFilter.getNumberOfBlocks(shape));
+        final Random rng = new Random(5);
+        final int[] blocksUsed = new int[9];
+        for (int n = 0; n < 1000; n++) {
+            final int[] indices = new BlockedHasher(rng.nextLong(), rng.nextLong()).indices(shape).asIndexArray();
+            assertEquals(7, indices.length);
+            final int block = indices[0] / BlockedBloomFilter.BLOCK_SIZE;
+            for (final int i : indices) {
+                assertEquals(block, i / BlockedBloomFilter.BLOCK_SIZE);
+            }
+            blocksUsed[block]++;
+        }
+        for (final int count : blocksUsed) {
+            assertTrue(count > 0);
+        }
+    }
+}
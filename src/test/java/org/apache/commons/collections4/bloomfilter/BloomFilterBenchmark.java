@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the {@code merge} and {@code contains} operations of the {@link BloomFilter} implementations. The
+ * {@link BitSet} benchmarks provide a baseline using the equivalent JDK operations.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=BloomFilterBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-server", "-Xms512M", "-Xmx512M"})
+@State(Scope.Benchmark)
+public class BloomFilterBenchmark {
+
+    /**
+     * The number of hashers used per invocation of the hasher benchmarks.
+     */
+    private static final int OPERATIONS = 256;
+
+    /**
+     * The number of items the filter shape is designed for.
+     */
+    @Param({"1000", "100000", "10000000"})
+    private int numberOfItems;
+
+    /**
+     * The fraction of the design number of items merged into the filters.
+     */
+    @Param({"0.01", "0.5", "1.0"})
+    private double fill;
+
+    private Shape shape;
+
+    private SimpleBloomFilter simple;
+
+    private SimpleBloomFilter simpleTarget;
+
+    private SparseBloomFilter sparse;
+
+    private BitSet bitSet;
+
+    private BitSet bitSetTarget;
+
+    private Hasher[] hashers;
+
+    @Benchmark
+    public void bitSetContains(final Blackhole bh) {
+        final int k = shape.getNumberOfHashFunctions();
+        for (final Hasher hasher : hashers) {
+            final int[] idx = hasher.indices(shape).asIndexArray();
+            boolean result = true;
+            for (int i = 0; i < k && result; i++) {
+                result = bitSet.get(idx[i]);
+            }
+            bh.consume(result);
+        }
+    }
+
+    @Benchmark
+    public BitSet bitSetMerge() {
+        bitSetTarget.or(bitSet);
+        return bitSetTarget;
+    }
+
+    @Benchmark
+    public void simpleContainsHasher(final Blackhole bh) {
+        for (final Hasher hasher : hashers) {
+            bh.consume(simple.contains(hasher));
+        }
+    }
+
+    @Benchmark
+    public SimpleBloomFilter simpleMergeBloomFilter() {
+        simpleTarget.merge(simple);
+        return simpleTarget;
+    }
+
+    @Benchmark
+    public void simpleMergeHasher(final Blackhole bh) {
+        for (final Hasher hasher : hashers) {
+            bh.consume(simpleTarget.merge(hasher));
+        }
+    }
+
+    @Benchmark
+    public void sparseContainsHasher(final Blackhole bh) {
+        for (final Hasher hasher : hashers) {
+            bh.consume(sparse.contains(hasher));
+        }
+    }
+
+    @Benchmark
+    public double setOperationsJaccard() {
+        return SetOperations.jaccardSimilarity(simple, simpleTarget);
+    }
+
+    @Setup
+    public void setup() {
+        final Random rng = new Random(numberOfItems);
+        shape = Shape.fromNP(numberOfItems, 0.01);
+        simple = new SimpleBloomFilter(shape);
+        simpleTarget = new SimpleBloomFilter(shape);
+        sparse = new SparseBloomFilter(shape);
+        final int n = (int) (numberOfItems * fill);
+        for (int i = 0; i < n; i++) {
+            final Hasher hasher = new EnhancedDoubleHasher(rng.nextLong(), rng.nextLong());
+            simple.merge(hasher);
+            if ((i & 1) == 0) {
+                simpleTarget.merge(hasher);
+            }
+        }
+        // The sparse filter only holds sparse data
+        final int sparseItems = Math.min(n, numberOfItems / 100 + 1);
+        for (int i = 0; i < sparseItems; i++) {
+            sparse.merge(new EnhancedDoubleHasher(rng.nextLong(), rng.nextLong()));
+        }
+        bitSet = BitSet.valueOf(simple.asBitMapArray());
+        bitSetTarget = BitSet.valueOf(simpleTarget.asBitMapArray());
+        hashers = new Hasher[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            hashers[i] = new EnhancedDoubleHasher(rng.nextLong(), rng.nextLong());
+        }
+    }
+}
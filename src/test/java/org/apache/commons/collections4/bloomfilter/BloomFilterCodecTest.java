@@ -0,0 +1,254 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests for the {@link BloomFilterCodec}.
+ */
+public class BloomFilterCodecTest {
+
+    private static final Shape SHAPE = Shape.fromKM(5, 1000);
+
+    private static LayeredBloomFilter<SimpleBloomFilter> createLayeredFilter(final Shape shape) {
+        final LayerManager<SimpleBloomFilter> layerManager = LayerManager.<SimpleBloomFilter>builder()
+                .setExtendCheck(LayerManager.ExtendCheck.neverAdvance())
+                .setSupplier(() -> new SimpleBloomFilter(shape)).get();
+        return new LayeredBloomFilter<>(shape, layerManager);
+    }
+
+    private static SimpleBloomFilter createRandomFilter(final int items, final long seed) {
+        final SimpleBloomFilter filter = new SimpleBloomFilter(SHAPE);
+        final Random rng = new Random(seed);
+        for (int i = 0; i < items; i++) {
+            filter.merge(new EnhancedDoubleHasher(rng.nextLong(), rng.nextLong()));
+        }
+        return filter;
+    }
+
+    private static DataInputStream toInput(final ByteArrayOutputStream bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    /**
+     * Writes the filter and returns the encoding tag.
+     */
+    private static int writeAndGetEncoding(final BloomFilter<?> filter, final ByteArrayOutputStream bytes) throws IOException {
+        BloomFilterCodec.writeBloomFilter(filter, new DataOutputStream(bytes));
+        final byte[] data = bytes.toByteArray();
+        // version, type, varint bits, varint k
+        return data[2 + BloomFilterCodec.varIntSize(filter.getShape().getNumberOfBits())
+                + BloomFilterCodec.varIntSize(filter.getShape().getNumberOfHashFunctions())];
+    }
+
+    @Test
+    public void testBloomFilterEncodings() throws IOException {
+        // sparse: few enabled bits
+        final SimpleBloomFilter sparse = new SimpleBloomFilter(SHAPE);
+        sparse.merge(IndexExtractor.fromIndexArray(3, 500, 999));
+        // dense: random bits
+        final SimpleBloomFilter dense = createRandomFilter(100, 1);
+        // run-length: contiguous ranges
+        final SimpleBloomFilter runs = TestingHashers.populateRange(new SimpleBloomFilter(SHAPE), 100, 700);
+        final int[] expected = {BloomFilterCodec.ENCODING_SPARSE, BloomFilterCodec.ENCODING_DENSE, BloomFilterCodec.ENCODING_RUN_LENGTH};
+        final SimpleBloomFilter[] filters = {sparse, dense, runs};
+        for (int i = 0; i < filters.length; i++) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            assertEquals(expected[i], writeAndGetEncoding(filters[i], bytes));
+            final SimpleBloomFilter simple = BloomFilterCodec.readBloomFilter(toInput(bytes), SimpleBloomFilter::new);
+            assertEquals(SHAPE, simple.getShape());
+            assertArrayEquals(filters[i].asBitMapArray(), simple.asBitMapArray());
+            // decode into a different representation
+            final SparseBloomFilter other = BloomFilterCodec.readBloomFilter(toInput(bytes), SparseBloomFilter::new);
+            assertArrayEquals(filters[i].asIndexArray(), other.asIndexArray());
+        }
+    }
+
+    @Test
+    public void testBufferIsPositioned() {
+        final SimpleBloomFilter filter = createRandomFilter(20, 5);
+        final ByteBuffer buffer = ByteBuffer.allocate(1000).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put((byte) 42);
+        BloomFilterCodec.writeBloomFilter(filter, buffer);
+        BloomFilterCodec.writeShape(SHAPE, buffer);
+        final int end = buffer.position();
+        buffer.flip();
+        assertEquals(42, buffer.get());
+        assertArrayEquals(filter.asBitMapArray(), BloomFilterCodec.readBloomFilter(buffer, SimpleBloomFilter::new).asBitMapArray());
+        assertEquals(SHAPE, BloomFilterCodec.readShape(buffer));
+        assertEquals(end, buffer.position());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testByteOrderIndependent(final boolean bigEndian) throws IOException {
+        final SimpleBloomFilter filter = createRandomFilter(100, 2);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BloomFilterCodec.writeBloomFilter(filter, new DataOutputStream(bytes));
+        final ByteBuffer buffer = ByteBuffer.allocate(bytes.size()).order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        BloomFilterCodec.writeBloomFilter(filter, buffer);
+        assertArrayEquals(bytes.toByteArray(), buffer.array());
+        buffer.flip();
+        assertArrayEquals(filter.asBitMapArray(), BloomFilterCodec.readBloomFilter(buffer, SimpleBloomFilter::new).asBitMapArray());
+    }
+
+    @Test
+    public void testCountingBloomFilter() throws IOException {
+        final ArrayCountingBloomFilter sparse = new ArrayCountingBloomFilter(SHAPE);
+        sparse.merge(TestingHashers.FROM1);
+        sparse.merge(TestingHashers.FROM11);
+        final ArrayCountingBloomFilter dense = TestingHashers.populateEntireFilter(new ArrayCountingBloomFilter(SHAPE));
+        dense.add(consumer -> consumer.test(500, 70000));
+        for (final ArrayCountingBloomFilter filter : new ArrayCountingBloomFilter[] {sparse, dense}) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BloomFilterCodec.writeCountingBloomFilter(filter, new DataOutputStream(bytes));
+            final ArrayCountingBloomFilter copy = BloomFilterCodec.readCountingBloomFilter(toInput(bytes), ArrayCountingBloomFilter::new);
+            final int[] expected = new int[SHAPE.getNumberOfBits()];
+            final int[] actual = new int[SHAPE.getNumberOfBits()];
+            filter.processCells((i, c) -> {
+                expected[i] = c;
+                return true;
+            });
+            copy.processCells((i, c) -> {
+                actual[i] = c;
+                return true;
+            });
+            assertArrayEquals(expected, actual);
+            assertTrue(copy.isValid());
+        }
+        // the dense encoding uses about 1 byte per cell
+        final ByteBuffer buffer = ByteBuffer.allocate(2000);
+        BloomFilterCodec.writeCountingBloomFilter(dense, buffer);
+        assertTrue(buffer.position() < SHAPE.getNumberOfBits() + 20);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 10, 100, 10000})
+    public void testHyperLogLog(final int items) throws IOException {
+        final HyperLogLog sketch = new HyperLogLog(10);
+        for (int i = 0; i < items; i++) {
+            sketch.add(EnhancedDoubleHasher.fromInt(i));
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BloomFilterCodec.writeHyperLogLog(sketch, new DataOutputStream(bytes));
+        if (!sketch.isSparse()) {
+            // header, precision, encoding and 6 bits per register
+            assertEquals(4 + (1 << 10) * 6 / 8, bytes.size());
+        }
+        final HyperLogLog copy = BloomFilterCodec.readHyperLogLog(toInput(bytes));
+        final ByteBuffer buffer = ByteBuffer.allocate(bytes.size());
+        BloomFilterCodec.writeHyperLogLog(sketch, buffer);
+        assertEquals(bytes.size(), buffer.position());
+        buffer.flip();
+        for (final HyperLogLog actual : new HyperLogLog[] {copy, BloomFilterCodec.readHyperLogLog(buffer)}) {
+            assertEquals(sketch.getPrecision(), actual.getPrecision());
+            assertEquals(sketch.isSparse(), actual.isSparse());
+            assertArrayEquals(sketch.getEntries(), actual.getEntries());
+            assertArrayEquals(sketch.getRegisters(), actual.getRegisters());
+            assertEquals(sketch.estimateN(), actual.estimateN());
+        }
+    }
+
+    @Test
+    public void testInvalidData() throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BloomFilterCodec.writeShape(SHAPE, new DataOutputStream(bytes));
+        // wrong type
+        assertThrows(IllegalArgumentException.class, () -> BloomFilterCodec.readBloomFilter(toInput(bytes), SimpleBloomFilter::new));
+        // wrong version
+        final byte[] data = bytes.toByteArray();
+        data[0] = 99;
+        assertThrows(IllegalArgumentException.class, () -> BloomFilterCodec.readShape(ByteBuffer.wrap(data)));
+        // the fifth byte of a variable length integer holds only the top 4 bits
+        final byte[] shape = {BloomFilterCodec.VERSION, 4, -1, -1, -1, -1, 0x07, 1};
+        assertEquals(Shape.fromKM(1, Integer.MAX_VALUE), BloomFilterCodec.readShape(ByteBuffer.wrap(shape)));
+        shape[6] = 0x17;
+        assertThrows(IllegalArgumentException.class, () -> BloomFilterCodec.readShape(ByteBuffer.wrap(shape)));
+        // invalid sketch precision and register value
+        final byte[] sketch = new byte[4 + 12];
+        sketch[0] = BloomFilterCodec.VERSION;
+        sketch[1] = 5;
+        sketch[2] = 3;
+        sketch[3] = BloomFilterCodec.ENCODING_DENSE;
+        assertThrows(IllegalArgumentException.class, () -> BloomFilterCodec.readHyperLogLog(ByteBuffer.wrap(sketch)));
+        sketch[2] = 4;
+        assertTrue(BloomFilterCodec.readHyperLogLog(ByteBuffer.wrap(sketch)).isEmpty());
+        sketch[4] = (byte) 0xfc;
+        assertThrows(IllegalArgumentException.class, () -> BloomFilterCodec.readHyperLogLog(ByteBuffer.wrap(sketch)));
+        // truncated
+        final ByteArrayOutputStream filterBytes = new ByteArrayOutputStream();
+        BloomFilterCodec.writeBloomFilter(createRandomFilter(100, 3), new DataOutputStream(filterBytes));
+        final byte[] truncated = new byte[filterBytes.size() - 1];
+        System.arraycopy(filterBytes.toByteArray(), 0, truncated, 0, truncated.length);
+        assertThrows(EOFException.class, () -> BloomFilterCodec.readBloomFilter(new DataInputStream(new ByteArrayInputStream(truncated)),
+                SimpleBloomFilter::new));
+    }
+
+    @Test
+    public void testLayeredBloomFilter() throws IOException {
+        final LayeredBloomFilter<SimpleBloomFilter> filter = createLayeredFilter(SHAPE);
+        filter.merge(TestingHashers.FROM1);
+        filter.next();
+        filter.merge(createRandomFilter(100, 4));
+        filter.next();
+        filter.next();
+        filter.merge(TestingHashers.FROM11);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BloomFilterCodec.writeLayeredBloomFilter(filter, new DataOutputStream(bytes));
+        final LayeredBloomFilter<SimpleBloomFilter> copy = BloomFilterCodec.readLayeredBloomFilter(toInput(bytes),
+                BloomFilterCodecTest::createLayeredFilter);
+        assertEquals(4, copy.getDepth());
+        for (int i = 0; i < 4; i++) {
+            assertArrayEquals(filter.get(i).asBitMapArray(), copy.get(i).asBitMapArray());
+        }
+        assertTrue(copy.get(2).isEmpty());
+        assertFalse(copy.get(3).isEmpty());
+    }
+
+    @Test
+    public void testShape() throws IOException {
+        final Shape[] shapes = {Shape.fromKM(1, 1), SHAPE, Shape.fromKM(17, Integer.MAX_VALUE)};
+        for (final Shape shape : shapes) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            BloomFilterCodec.writeShape(shape, new DataOutputStream(bytes));
+            assertEquals(shape, BloomFilterCodec.readShape(toInput(bytes)));
+            final ByteBuffer buffer = ByteBuffer.allocate(16);
+            BloomFilterCodec.writeShape(shape, buffer);
+            buffer.flip();
+            assertEquals(shape, BloomFilterCodec.readShape(buffer));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for the {@link BufferBloomFilter}.
+ */
+public class BufferBloomFilterTest extends AbstractBloomFilterTest<BufferBloomFilter> {
+
+    @TempDir
+    Path tempDir;
+
+    @Override
+    protected BufferBloomFilter createEmptyFilter(final Shape shape) {
+        return new BufferBloomFilter(shape);
+    }
+
+    @Test
+    public void testBufferIsLittleEndian() {
+        final Shape shape = getTestShape();
+        final ByteBuffer buffer = ByteBuffer.allocate(BufferBloomFilter.getBufferSize(shape)).order(ByteOrder.BIG_ENDIAN);
+        final BufferBloomFilter filter = new BufferBloomFilter(shape, buffer);
+        filter.merge(IndexExtractor.fromIndexArray(0, 9, 71));
+        assertEquals(1, buffer.get(0));
+        assertEquals(2, buffer.get(1));
+        assertEquals((byte) 0x80, buffer.get(8));
+        // the buffer order is not changed
+        assertEquals(ByteOrder.BIG_ENDIAN, buffer.order());
+    }
+
+    @Test
+    public void testBufferTooSmall() {
+        final Shape shape = getTestShape();
+        final ByteBuffer buffer = ByteBuffer.allocate(BufferBloomFilter.getBufferSize(shape) - 1);
+        assertThrows(IllegalArgumentException.class, () -> new BufferBloomFilter(shape, buffer));
+    }
+
+    @Test
+    public void testBufferWithExcessBits() {
+        final Shape shape = getTestShape();
+        final ByteBuffer buffer = ByteBuffer.allocate(BufferBloomFilter.getBufferSize(shape));
+        buffer.put(15, (byte) 1);
+        assertThrows(IllegalArgumentException.class, () -> new BufferBloomFilter(shape, buffer));
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        final Shape shape = Shape.fromNP(1000, 0.01);
+        final Path path = tempDir.resolve("filter.bin");
+        final SimpleBloomFilter expected = new SimpleBloomFilter(shape);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, BufferBloomFilter.getBufferSize(shape));
+            final BufferBloomFilter filter = new BufferBloomFilter(shape, buffer);
+            for (int i = 0; i < 100; i++) {
+                final Hasher hasher = new IncrementingHasher(i * 31, 7);
+                filter.merge(hasher);
+                expected.merge(hasher);
+            }
+            buffer.force();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, BufferBloomFilter.getBufferSize(shape));
+            final BufferBloomFilter filter = new BufferBloomFilter(shape, buffer);
+            assertArrayEquals(expected.asBitMapArray(), filter.asBitMapArray());
+            assertEquals(expected.cardinality(), filter.cardinality());
+            assertTrue(filter.contains(new IncrementingHasher(31, 7)));
+            assertThrows(ReadOnlyBufferException.class, () -> filter.merge(new IncrementingHasher(1, 1)));
+        }
+    }
+
+    @Test
+    public void testMergeShortBitMapExtractor() {
+        final BufferBloomFilter filter = createEmptyFilter(getTestShape());
+        // create a bitMapExtractor that returns too few values
+        // shape expects 2 longs we are sending 1.
+        final BitMapExtractor bitMapExtractor = p -> p.test(2L);
+        assertTrue(filter.merge(bitMapExtractor));
+        assertEquals(1, filter.cardinality());
+    }
+
+    @Test
+    public void testWrapExistingBuffer() {
+        final Shape shape = getTestShape();
+        final SimpleBloomFilter expected = new SimpleBloomFilter(shape);
+        expected.merge(TestingHashers.FROM1);
+        final ByteBuffer buffer = ByteBuffer.allocate(BufferBloomFilter.getBufferSize(shape) + 3).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(3);
+        buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(expected.asBitMapArray());
+        final BufferBloomFilter filter = new BufferBloomFilter(shape, buffer);
+        assertEquals(3, buffer.position());
+        assertArrayEquals(expected.asBitMapArray(), filter.asBitMapArray());
+        assertEquals(expected.cardinality(), filter.cardinality());
+        assertTrue(filter.contains(TestingHashers.FROM1));
+        // the copy is independent of the buffer
+        final BufferBloomFilter copy = filter.copy();
+        filter.clear();
+        assertEquals(0, buffer.getLong(3));
+        assertEquals(expected.cardinality(), copy.cardinality());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link ConcurrentBloomFilter}.
+ */
+public class ConcurrentBloomFilterTest extends AbstractBloomFilterTest<ConcurrentBloomFilter> {
+
+    @Override
+    protected ConcurrentBloomFilter createEmptyFilter(final Shape shape) {
+        return new ConcurrentBloomFilter(shape);
+    }
+
+    @Test
+    public void testConcurrentMerge() throws Exception {
+        final Shape shape = Shape.fromNP(10000, 0.01);
+        final int threads = 8;
+        final int itemsPerThread = 1000;
+        final ConcurrentBloomFilter filter = createEmptyFilter(shape);
+        final SimpleBloomFilter expected = new SimpleBloomFilter(shape);
+        for (int i = 0; i < threads * itemsPerThread; i++) {
+            expected.merge(new EnhancedDoubleHasher(i, 0x9e3779b97f4a7c15L));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int offset = t * itemsPerThread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    boolean found = true;
+                    for (int i = offset; i < offset + itemsPerThread; i++) {
+                        final Hasher hasher = new EnhancedDoubleHasher(i, 0x9e3779b97f4a7c15L);
+                        filter.merge(hasher);
+                        found &= filter.contains(hasher);
+                    }
+                    return found;
+                }));
+            }
+            start.countDown();
+            for (final Future<Boolean> future : futures) {
+                assertTrue(future.get(), "Merged item not found");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertArrayEquals(expected.asBitMapArray(), filter.asBitMapArray());
+        assertEquals(expected.cardinality(), filter.cardinality());
+    }
+
+    @Test
+    public void testMergeShortBitMapExtractor() {
+        final ConcurrentBloomFilter filter = createEmptyFilter(getTestShape());
+        // create a bitMapExtractor that returns too few values
+        // shape expects 2 longs we are sending 1.
+        final BitMapExtractor bitMapExtractor = p -> p.test(2L);
+        assertTrue(filter.merge(bitMapExtractor));
+        assertEquals(1, filter.cardinality());
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link ConcurrentLayeredBloomFilter}.
+ */
+public class ConcurrentLayeredBloomFilterTest extends AbstractBloomFilterTest<ConcurrentLayeredBloomFilter<?>> {
+
+    @Override
+    protected ConcurrentLayeredBloomFilter<SimpleBloomFilter> createEmptyFilter(final Shape shape) {
+        return new ConcurrentLayeredBloomFilter<>(shape, () -> new SimpleBloomFilter(shape), 3);
+    }
+
+    @Test
+    public void testConcurrentMergeAndRotation() throws Exception {
+        final Shape shape = Shape.fromNP(10000, 0.01);
+        final ConcurrentLayeredBloomFilter<ConcurrentBloomFilter> filter =
+                new ConcurrentLayeredBloomFilter<>(shape, () -> new ConcurrentBloomFilter(shape), 64);
+        final int threads = 4;
+        final int itemsPerThread = 2000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int offset = t * itemsPerThread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    boolean found = true;
+                    for (int i = offset; i < offset + itemsPerThread; i++) {
+                        final Hasher hasher = new EnhancedDoubleHasher(i, 0x9e3779b97f4a7c15L);
+                        filter.merge(hasher);
+                        // no layer is removed during the test so merged items are never lost
+                        found &= filter.contains(hasher);
+                    }
+                    return found;
+                }));
+            }
+            final Future<?> rotator = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 50; i++) {
+                    filter.next();
+                    Thread.sleep(1);
+                }
+                return null;
+            });
+            start.countDown();
+            for (final Future<Boolean> future : futures) {
+                assertTrue(future.get(), "Merged item not found");
+            }
+            rotator.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(51, filter.getDepth());
+        for (int i = 0; i < threads * itemsPerThread; i++) {
+            assertTrue(filter.contains(new EnhancedDoubleHasher(i, 0x9e3779b97f4a7c15L)));
+        }
+    }
+
+    @Test
+    public void testContainsChecksNewestFirst() {
+        final Shape shape = getTestShape();
+        final List<Integer> checked = new ArrayList<>();
+        final int[] sequence = {0};
+        final ConcurrentLayeredBloomFilter<TrackingBloomFilter> filter = new ConcurrentLayeredBloomFilter<>(shape,
+                () -> new TrackingBloomFilter(shape, sequence[0]++, checked), 3);
+        filter.merge(TestingHashers.FROM1);
+        filter.next();
+        filter.next();
+        filter.merge(TestingHashers.FROM1);
+        assertTrue(filter.contains(TestingHashers.FROM1));
+        assertEquals(1, checked.size());
+        assertEquals(2, checked.get(0));
+        checked.clear();
+        assertFalse(filter.contains(TestingHashers.FROM11));
+        assertEquals(3, checked.size());
+        assertEquals(2, checked.get(0));
+        assertEquals(0, checked.get(2));
+        checked.clear();
+        assertTrue(filter.contains(IndexExtractor.fromIndexArray(1, 2, 3)));
+        assertEquals(1, checked.size());
+        assertEquals(2, checked.get(0));
+    }
+
+    @Test
+    public void testNext() {
+        final Shape shape = getTestShape();
+        final ConcurrentLayeredBloomFilter<SimpleBloomFilter> filter = createEmptyFilter(shape);
+        assertEquals(1, filter.getDepth());
+        assertEquals(3, filter.getMaxDepth());
+        filter.merge(TestingHashers.FROM1);
+        final SimpleBloomFilter first = filter.get(0);
+        filter.next();
+        filter.merge(TestingHashers.FROM11);
+        assertEquals(2, filter.getDepth());
+        assertSame(first, filter.get(0));
+        assertTrue(filter.get(1).contains(TestingHashers.FROM11));
+        assertFalse(filter.get(1).contains(TestingHashers.FROM1));
+        filter.next();
+        assertEquals(3, filter.getDepth());
+        assertTrue(filter.contains(TestingHashers.FROM1));
+        // the oldest layer is removed
+        filter.next();
+        assertEquals(3, filter.getDepth());
+        assertFalse(filter.contains(TestingHashers.FROM1));
+        assertTrue(filter.contains(TestingHashers.FROM11));
+        assertThrows(NoSuchElementException.class, () -> filter.get(3));
+        assertThrows(NoSuchElementException.class, () -> filter.get(-1));
+
+        final SimpleBloomFilter expected = new SimpleBloomFilter(shape);
+        expected.merge(TestingHashers.FROM11);
+        assertArrayEquals(expected.asBitMapArray(), filter.flatten().asBitMapArray());
+
+        filter.clear();
+        assertEquals(1, filter.getDepth());
+        assertTrue(filter.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLayeredBloomFilter<>(shape, () -> new SimpleBloomFilter(shape), 0));
+    }
+
+    @Test
+    public void testScheduleRotation() throws InterruptedException {
+        final Shape shape = getTestShape();
+        final ConcurrentLayeredBloomFilter<SimpleBloomFilter> filter = createEmptyFilter(shape);
+        filter.merge(TestingHashers.FROM1);
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            final ScheduledFuture<?> future = filter.scheduleRotation(executor, 1, TimeUnit.MILLISECONDS);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (filter.contains(TestingHashers.FROM1) && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            future.cancel(false);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertFalse(filter.contains(TestingHashers.FROM1));
+        assertEquals(3, filter.getDepth());
+    }
+
+    /**
+     * A Bloom filter that records its id when it is checked for containment.
+     */
+    static class TrackingBloomFilter extends WrappedBloomFilter<TrackingBloomFilter, SimpleBloomFilter> {
+        private final int id;
+        private final List<Integer> checked;
+
+        TrackingBloomFilter(final Shape shape, final int id, final List<Integer> checked) {
+            super(new SimpleBloomFilter(shape));
+            this.id = id;
+            this.checked = checked;
+        }
+
+        @Override
+        public boolean contains(final BloomFilter<?> other) {
+            checked.add(id);
+            return super.contains(other);
+        }
+
+        @Override
+        public boolean contains(final Hasher hasher) {
+            checked.add(id);
+            return super.contains(hasher);
+        }
+
+        @Override
+        public boolean contains(final IndexExtractor indexExtractor) {
+            checked.add(id);
+            return super.contains(indexExtractor);
+        }
+
+        @Override
+        public TrackingBloomFilter copy() {
+            return new TrackingBloomFilter(getShape(), id, checked);
+        }
+    }
+}
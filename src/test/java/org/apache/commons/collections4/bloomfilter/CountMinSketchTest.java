@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests for the {@link CountMinSketch}.
+ */
+public class CountMinSketchTest extends AbstractCellExtractorTest {
+
+    private static final Shape SHAPE = Shape.fromKM(3, 10);
+
+    /**
+     * Creates the frequencies of a skewed stream of items.
+     */
+    private static int[] createFrequencies(final int items, final long seed) {
+        final Random rng = new Random(seed);
+        final int[] frequencies = new int[items];
+        for (int i = 0; i < items; i++) {
+            frequencies[i] = 1 + (int) (1000.0 / (i + 1)) + rng.nextInt(5);
+        }
+        return frequencies;
+    }
+
+    @Override
+    protected CountMinSketch createEmptyExtractor() {
+        return new CountMinSketch(SHAPE);
+    }
+
+    @Override
+    protected CountMinSketch createExtractor() {
+        final CountMinSketch sketch = new CountMinSketch(SHAPE);
+        // columns 0, 1, 2 and 1, 2, 3 in the three rows
+        sketch.add(new IncrementingHasher(0, 1));
+        sketch.add(new IncrementingHasher(1, 1), 2);
+        return sketch;
+    }
+
+    @Override
+    protected int[] getExpectedIndices() {
+        return new int[] {0, 1, 11, 12, 22, 23};
+    }
+
+    @Override
+    protected int[] getExpectedValues() {
+        return new int[] {1, 2, 1, 2, 1, 2};
+    }
+
+    @Test
+    public void testAddInvalid() {
+        final CountMinSketch sketch = createEmptyExtractor();
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(new IncrementingHasher(0, 1), -1));
+        // too few indices for the rows
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(shape -> IndexExtractor.fromIndexArray(1, 2)));
+        assertThrows(NullPointerException.class, () -> sketch.add(null));
+    }
+
+    @Test
+    public void testClearAndCopy() {
+        final CountMinSketch sketch = createExtractor();
+        final CountMinSketch copy = sketch.copy();
+        sketch.clear();
+        assertTrue(sketch.isEmpty());
+        assertEquals(0, sketch.getTotalCount());
+        assertEquals(0, sketch.estimateCount(new IncrementingHasher(1, 1)));
+        assertFalse(copy.isEmpty());
+        assertEquals(3, copy.getTotalCount());
+        assertEquals(2, copy.estimateCount(new IncrementingHasher(1, 1)));
+        assertArrayEquals(getExpectedIndices(), copy.asIndexArray());
+    }
+
+    @Test
+    public void testConservativeUpdate() {
+        final CountMinSketch sketch = createEmptyExtractor();
+        sketch.add(new IncrementingHasher(0, 1), 5);
+        // shares the counter in row 0 with the first item
+        assertEquals(1, sketch.add(new IncrementingHasher(0, 2)));
+        // the shared counter is not increased
+        final int[] cell = new int[1];
+        sketch.processCells((i, v) -> {
+            cell[0] = v;
+            return false;
+        });
+        assertEquals(5, cell[0]);
+        assertEquals(5, sketch.estimateCount(new IncrementingHasher(0, 1)));
+        assertEquals(6, sketch.getTotalCount());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0.01, 0.01", "0.001, 0.001"})
+    public void testEstimateCount(final double epsilon, final double delta) {
+        final CountMinSketch sketch = CountMinSketch.fromErrorBounds(epsilon, delta);
+        final int[] frequencies = createFrequencies(5000, 42);
+        for (int i = 0; i < frequencies.length; i++) {
+            sketch.add(EnhancedDoubleHasher.fromInt(i), frequencies[i]);
+        }
+        final double bound = epsilon * sketch.getTotalCount();
+        int exceeded = 0;
+        for (int i = 0; i < frequencies.length; i++) {
+            final int estimate = sketch.estimateCount(EnhancedDoubleHasher.fromInt(i));
+            assertTrue(estimate >= frequencies[i]);
+            if (estimate - frequencies[i] > bound) {
+                exceeded++;
+            }
+        }
+        assertTrue(exceeded <= Math.max(1, 2 * delta * frequencies.length), "Too many estimates exceed the bound");
+    }
+
+    @Test
+    public void testFromErrorBounds() {
+        final CountMinSketch sketch = CountMinSketch.fromErrorBounds(0.01, 0.001);
+        assertEquals(272, sketch.getWidth());
+        assertEquals(7, sketch.getDepth());
+        assertEquals(Shape.fromKM(7, 272), sketch.getShape());
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.fromErrorBounds(0, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.fromErrorBounds(1, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.fromErrorBounds(0.1, 0));
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.fromErrorBounds(0.1, Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(Shape.fromKM(3, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    public void testMerge() {
+        final CountMinSketch a = CountMinSketch.fromErrorBounds(0.01, 0.01);
+        final CountMinSketch b = CountMinSketch.fromErrorBounds(0.01, 0.01);
+        final int[] frequencies = createFrequencies(1000, 7);
+        for (int i = 0; i < frequencies.length; i++) {
+            a.add(EnhancedDoubleHasher.fromInt(i), frequencies[i]);
+            b.add(EnhancedDoubleHasher.fromInt(i), i % 3);
+        }
+        final CountMinSketch merged = a.copy();
+        assertTrue(merged.merge(b));
+        assertEquals(a.getTotalCount() + b.getTotalCount(), merged.getTotalCount());
+        for (int i = 0; i < frequencies.length; i++) {
+            final Hasher hasher = EnhancedDoubleHasher.fromInt(i);
+            assertTrue(merged.estimateCount(hasher) >= frequencies[i] + i % 3);
+            assertEquals(a.estimateCount(hasher) + b.estimateCount(hasher), merged.estimateCount(hasher), 0.01 * merged.getTotalCount());
+        }
+        assertFalse(merged.merge(new CountMinSketch(merged.getShape())));
+        assertThrows(IllegalArgumentException.class, () -> a.merge(createEmptyExtractor()));
+        // merge with itself
+        final CountMinSketch sketch = createExtractor();
+        assertTrue(sketch.merge(sketch));
+        assertEquals(6, sketch.getTotalCount());
+        assertEquals(4, sketch.estimateCount(new IncrementingHasher(1, 1)));
+    }
+
+    @Test
+    public void testSaturation() {
+        final CountMinSketch sketch = createEmptyExtractor();
+        final Hasher hasher = new IncrementingHasher(0, 1);
+        sketch.add(hasher, Integer.MAX_VALUE - 1);
+        assertEquals(Integer.MAX_VALUE, sketch.add(hasher, 10));
+        assertEquals(Integer.MAX_VALUE + 9L, sketch.getTotalCount());
+        sketch.merge(sketch.copy());
+        assertEquals(Integer.MAX_VALUE, sketch.estimateCount(hasher));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests the {@link CuckooFilter} class.
+ */
+public class CuckooFilterTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {7, 8, 12, 16, 23, 32})
+    public void testAddContainsRemove(final int fingerprintBits) {
+        final CuckooShape shape = CuckooShape.fromMF(256, fingerprintBits);
+        final CuckooFilter filter = new CuckooFilter(shape);
+        final int n = shape.estimateMaxN();
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.add(EnhancedDoubleHasher.fromInt(i)), () -> "Failed to add at load " + filter.size());
+        }
+        assertEquals(n, filter.size());
+        for (int i = 0; i < n; i++) {
+            assertTrue(filter.contains(EnhancedDoubleHasher.fromInt(i)));
+        }
+        for (int i = 0; i < n; i += 2) {
+            assertTrue(filter.remove(EnhancedDoubleHasher.fromInt(i)));
+        }
+        assertEquals(n / 2, filter.size());
+        // items that were not removed remain
+        for (int i = 1; i < n; i += 2) {
+            assertTrue(filter.contains(EnhancedDoubleHasher.fromInt(i)));
+        }
+        for (int i = 1; i < n; i += 2) {
+            assertTrue(filter.remove(EnhancedDoubleHasher.fromInt(i)));
+        }
+        assertTrue(filter.isEmpty());
+        assertFalse(filter.contains(EnhancedDoubleHasher.fromInt(1)));
+        assertFalse(filter.remove(EnhancedDoubleHasher.fromInt(1)));
+    }
+
+    @Test
+    public void testAddFailureLeavesFilterUnchanged() {
+        final CuckooFilter filter = new CuckooFilter(CuckooShape.fromMF(4, 8), 20);
+        CuckooFilter copy;
+        int i = 0;
+        do {
+            copy = filter.copy();
+        } while (filter.add(EnhancedDoubleHasher.fromInt(i++)));
+        assertEquals(copy.size(), filter.size());
+        assertTrue(filter.size() <= filter.getShape().getCapacity());
+        for (int j = 0; j < i - 1; j++) {
+            assertTrue(filter.contains(EnhancedDoubleHasher.fromInt(j)));
+        }
+        for (int j = 0; j < 1000; j++) {
+            assertEquals(copy.contains(EnhancedDoubleHasher.fromInt(j)), filter.contains(EnhancedDoubleHasher.fromInt(j)));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        final CuckooFilter filter = new CuckooFilter(CuckooShape.fromNP(100, 0.01));
+        filter.add(EnhancedDoubleHasher.fromLong(42));
+        filter.clear();
+        assertTrue(filter.isEmpty());
+        assertFalse(filter.contains(EnhancedDoubleHasher.fromLong(42)));
+    }
+
+    @Test
+    public void testCopy() {
+        final CuckooFilter filter = new CuckooFilter(CuckooShape.fromNP(100, 0.01));
+        filter.add(EnhancedDoubleHasher.fromLong(42));
+        final CuckooFilter copy = filter.copy();
+        assertEquals(filter.getShape(), copy.getShape());
+        assertEquals(filter.getMaxKicks(), copy.getMaxKicks());
+        assertTrue(copy.contains(EnhancedDoubleHasher.fromLong(42)));
+        copy.remove(EnhancedDoubleHasher.fromLong(42));
+        assertTrue(filter.contains(EnhancedDoubleHasher.fromLong(42)));
+        assertEquals(1, filter.size());
+        assertEquals(0, copy.size());
+    }
+
+    @Test
+    public void testDuplicates() {
+        final CuckooFilter filter = new CuckooFilter(CuckooShape.fromMF(64, 12));
+        final Hasher hasher = EnhancedDoubleHasher.fromCharSequence("duplicate");
+        // the item fills both candidate buckets
+        for (int i = 0; i < 2 * CuckooShape.BUCKET_SIZE; i++) {
+            assertTrue(filter.add(hasher));
+        }
+        assertFalse(filter.add(hasher));
+        for (int i = 0; i < 2 * CuckooShape.BUCKET_SIZE; i++) {
+            assertTrue(filter.contains(hasher));
+            assertTrue(filter.remove(hasher));
+        }
+        assertFalse(filter.contains(hasher));
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        final double probability = 0.01;
+        final CuckooShape shape = CuckooShape.fromNP(10000, probability);
+        final CuckooFilter filter = new CuckooFilter(shape);
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.add(EnhancedDoubleHasher.fromInt(i)));
+        }
+        int falsePositives = 0;
+        final int trials = 100000;
+        for (int i = 0; i < trials; i++) {
+            if (filter.contains(EnhancedDoubleHasher.fromInt(-1 - i))) {
+                falsePositives++;
+            }
+        }
+        final double rate = (double) falsePositives / trials;
+        assertTrue(rate <= probability, () -> "False positive rate " + rate);
+    }
+
+    @Test
+    public void testGenericHasher() {
+        final CuckooFilter filter = new CuckooFilter(CuckooShape.fromNP(1000, 0.01));
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.add(new IncrementingHasher(i * 1000003L, i * 7919L + 1)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.contains(new IncrementingHasher(i * 1000003L, i * 7919L + 1)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> filter.add(new AbstractBloomFilterTest.BadHasher(1)));
+        assertThrows(NullPointerException.class, () -> filter.add(null));
+    }
+
+    @Test
+    public void testInvalidMaxKicks() {
+        assertThrows(IllegalArgumentException.class, () -> new CuckooFilter(CuckooShape.fromMF(4, 8), -1));
+        assertThrows(NullPointerException.class, () -> new CuckooFilter(null));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Tests the {@link CuckooShape} class.
+ */
+public class CuckooShapeTest {
+
+    @Test
+    public void testEqualsAndHashCode() {
+        final CuckooShape shape = CuckooShape.fromMF(64, 12);
+        assertEquals(shape, CuckooShape.fromMF(64, 12));
+        assertEquals(shape.hashCode(), CuckooShape.fromMF(64, 12).hashCode());
+        assertNotEquals(shape, CuckooShape.fromMF(128, 12));
+        assertNotEquals(shape, CuckooShape.fromMF(64, 13));
+        assertNotEquals(shape, "text");
+        assertEquals("CuckooShape[m=64 f=12]", shape.toString());
+    }
+
+    @Test
+    public void testFromMF() {
+        final CuckooShape shape = CuckooShape.fromMF(1024, 16);
+        assertEquals(1024, shape.getNumberOfBuckets());
+        assertEquals(16, shape.getFingerprintBits());
+        assertEquals(4096, shape.getCapacity());
+        assertEquals(3891, shape.estimateMaxN());
+        assertEquals(1 - Math.pow(1 - 1.0 / 65535, 8), shape.getProbability(), 1e-15);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 8", "3, 8", "-4, 8", "536870912, 8", "64, 3", "64, 33"})
+    public void testFromMFInvalid(final int numberOfBuckets, final int fingerprintBits) {
+        assertThrows(IllegalArgumentException.class, () -> CuckooShape.fromMF(numberOfBuckets, fingerprintBits));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1, 0.5", "1000, 0.01", "1000, 0.001", "12345, 0.0001", "100000, 0.03"})
+    public void testFromNP(final int numberOfItems, final double probability) {
+        final CuckooShape shape = CuckooShape.fromNP(numberOfItems, probability);
+        assertTrue(shape.getProbability() <= probability);
+        assertTrue(shape.estimateMaxN() >= numberOfItems);
+        // one fewer bit or half the buckets is not enough
+        if (shape.getFingerprintBits() > CuckooShape.MIN_FINGERPRINT_BITS) {
+            assertTrue(CuckooShape.fromMF(shape.getNumberOfBuckets(), shape.getFingerprintBits() - 1).getProbability() > probability);
+        }
+        if (shape.getNumberOfBuckets() > 1) {
+            assertTrue(CuckooShape.fromMF(shape.getNumberOfBuckets() / 2, shape.getFingerprintBits()).estimateMaxN() < numberOfItems);
+        }
+    }
+
+    @Test
+    public void testFromNPInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> CuckooShape.fromNP(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> CuckooShape.fromNP(100, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> CuckooShape.fromNP(100, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> CuckooShape.fromNP(100, Double.NaN));
+        // fingerprint too large
+        assertThrows(IllegalArgumentException.class, () -> CuckooShape.fromNP(100, 1e-12));
+        // too many buckets
+        assertThrows(IllegalArgumentException.class, () -> CuckooShape.fromNP(Integer.MAX_VALUE, 0.01));
+    }
+}
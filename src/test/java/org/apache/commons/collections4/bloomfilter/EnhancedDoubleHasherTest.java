@@ -19,6 +19,11 @@ package org.apache.commons.collections4.bloomfilter;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.codec.digest.MurmurHash3;
 import org.junit.jupiter.api.Test;
 
 /**
@@ -93,4 +98,37 @@ public class EnhancedDoubleHasherTest extends AbstractHasherTest {
         // test empty buffer
         assertThrows(IllegalArgumentException.class, () -> new EnhancedDoubleHasher(new byte[0]));
     }
+
+    private static void assertHash(final byte[] bytes, final EnhancedDoubleHasher hasher) {
+        final long[] hash = MurmurHash3.hash128x64(bytes, 0, bytes.length, 0);
+        assertEquals(hash[0], hasher.getInitial());
+        assertEquals(hash[1], hasher.getIncrement());
+    }
+
+    @Test
+    public void testFromCharSequence() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            final String s = sb.toString();
+            assertHash(s.getBytes(StandardCharsets.UTF_16LE), EnhancedDoubleHasher.fromCharSequence(s));
+            assertHash(s.getBytes(StandardCharsets.UTF_16LE), EnhancedDoubleHasher.fromCharSequence(sb));
+            sb.append((char) (i * 1237 + 'a'));
+        }
+    }
+
+    @Test
+    public void testFromInt() {
+        for (final int key : new int[] {0, 1, -1, 42, Integer.MIN_VALUE, Integer.MAX_VALUE, 0x12345678}) {
+            assertHash(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(key).array(), EnhancedDoubleHasher.fromInt(key));
+        }
+    }
+
+    @Test
+    public void testFromLong() {
+        for (final long key : new long[] {0, 1, -1, 42, Long.MIN_VALUE, Long.MAX_VALUE, 0x123456789abcdefL}) {
+            assertHash(ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(key).array(), EnhancedDoubleHasher.fromLong(key));
+            assertHash(ByteBuffer.allocate(2 * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).putLong(key).putLong(~key).array(),
+                    EnhancedDoubleHasher.fromLong(key, ~key));
+        }
+    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link HeavyHitters}.
+ */
+public class HeavyHittersTest {
+
+    private static HeavyHitters<String> createHeavyHitters(final int k) {
+        return new HeavyHitters<>(CountMinSketch.fromErrorBounds(0.001, 0.01), k, EnhancedDoubleHasher::fromCharSequence);
+    }
+
+    @Test
+    public void testConstructor() {
+        final CountMinSketch sketch = new CountMinSketch(Shape.fromKM(3, 100));
+        assertThrows(IllegalArgumentException.class, () -> new HeavyHitters<>(sketch, 0, EnhancedDoubleHasher::fromCharSequence));
+        assertThrows(NullPointerException.class, () -> new HeavyHitters<String>(null, 1, EnhancedDoubleHasher::fromCharSequence));
+        assertThrows(NullPointerException.class, () -> new HeavyHitters<String>(sketch, 1, null));
+        final HeavyHitters<String> heavyHitters = new HeavyHitters<>(sketch, 5, EnhancedDoubleHasher::fromCharSequence);
+        assertEquals(5, heavyHitters.getK());
+        assertSame(sketch, heavyHitters.getSketch());
+        assertThrows(NullPointerException.class, () -> heavyHitters.add(null));
+    }
+
+    @Test
+    public void testHeavyHitters() {
+        // a shuffled stream with 10 frequent items among many infrequent items
+        final List<String> stream = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 1000 - i * 50; j++) {
+                stream.add("heavy" + i);
+            }
+        }
+        for (int i = 0; i < 50000; i++) {
+            stream.add("light" + i);
+            stream.add("light" + i / 2);
+        }
+        Collections.shuffle(stream, new Random(12345));
+        final HeavyHitters<String> heavyHitters = createHeavyHitters(10);
+        stream.forEach(heavyHitters::add);
+        final Map<String, Integer> result = heavyHitters.getHeavyHitters();
+        final String[] expected = new String[10];
+        for (int i = 0; i < 10; i++) {
+            expected[i] = "heavy" + i;
+        }
+        assertArrayEquals(expected, result.keySet().toArray());
+        final double bound = 0.001 * stream.size();
+        for (int i = 0; i < 10; i++) {
+            final int count = result.get(expected[i]);
+            assertTrue(count >= 1000 - i * 50 && count <= 1000 - i * 50 + bound);
+        }
+    }
+
+    @Test
+    public void testManyCandidates() {
+        // more candidates than the initial heap capacity, added in shuffled order
+        final List<Integer> stream = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j <= i; j++) {
+                stream.add(i);
+            }
+        }
+        Collections.shuffle(stream, new Random(12345));
+        final HeavyHitters<Integer> heavyHitters = new HeavyHitters<>(CountMinSketch.fromErrorBounds(0.0001, 0.01), 40,
+                i -> new EnhancedDoubleHasher(i, 0x9e3779b97f4a7c15L));
+        stream.forEach(heavyHitters::add);
+        final Map<Integer, Integer> result = heavyHitters.getHeavyHitters();
+        assertEquals(40, result.size());
+        int expected = 99;
+        for (final Map.Entry<Integer, Integer> e : result.entrySet()) {
+            assertEquals(expected, e.getKey());
+            assertEquals(expected + 1, e.getValue());
+            expected--;
+        }
+    }
+
+    @Test
+    public void testReplaceLeastFrequent() {
+        final HeavyHitters<String> heavyHitters = createHeavyHitters(2);
+        heavyHitters.add("a", 5);
+        heavyHitters.add("b", 3);
+        assertEquals(1, heavyHitters.add("c"));
+        assertArrayEquals(new String[] {"a", "b"}, heavyHitters.getHeavyHitters().keySet().toArray());
+        // the least frequent candidate is updated
+        heavyHitters.add("b", 4);
+        assertEquals(7, heavyHitters.getHeavyHitters().get("b"));
+        // now "a" is least frequent
+        heavyHitters.add("c", 5);
+        assertArrayEquals(new String[] {"b", "c"}, heavyHitters.getHeavyHitters().keySet().toArray());
+        assertEquals(6, heavyHitters.getHeavyHitters().get("c"));
+        heavyHitters.clear();
+        assertTrue(heavyHitters.getHeavyHitters().isEmpty());
+        assertTrue(heavyHitters.getSketch().isEmpty());
+        heavyHitters.add("d");
+        assertArrayEquals(new String[] {"d"}, heavyHitters.getHeavyHitters().keySet().toArray());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Tests for the {@link HyperLogLog}.
+ */
+public class HyperLogLogTest {
+
+    private static HyperLogLog createSketch(final int precision, final int from, final int to) {
+        final HyperLogLog sketch = new HyperLogLog(precision);
+        for (int i = from; i < to; i++) {
+            sketch.add(EnhancedDoubleHasher.fromInt(i));
+        }
+        return sketch;
+    }
+
+    @Test
+    public void testAddDuplicates() {
+        final HyperLogLog sketch = createSketch(12, 0, 1000);
+        final long estimate = sketch.estimateN();
+        for (int i = 0; i < 1000; i++) {
+            assertFalse(sketch.add(EnhancedDoubleHasher.fromInt(i)));
+        }
+        assertEquals(estimate, sketch.estimateN());
+    }
+
+    @Test
+    public void testAddHasher() {
+        // any hasher may be used, not only the EnhancedDoubleHasher
+        final HyperLogLog sketch = new HyperLogLog(14);
+        for (int i = 0; i < 10000; i++) {
+            sketch.add(new IncrementingHasher(i, 1));
+        }
+        assertEquals(10000, sketch.estimateN(), 10000 * 4 * sketch.getStandardError());
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(shape -> IndexExtractor.fromIndexArray(1)));
+    }
+
+    @Test
+    public void testClearAndCopy() {
+        final HyperLogLog sketch = createSketch(10, 0, 10000);
+        assertFalse(sketch.isSparse());
+        final HyperLogLog copy = sketch.copy();
+        sketch.clear();
+        assertTrue(sketch.isEmpty());
+        assertTrue(sketch.isSparse());
+        assertEquals(0, sketch.estimateN());
+        assertFalse(copy.isEmpty());
+        assertEquals(createSketch(10, 0, 10000).estimateN(), copy.estimateN());
+        // copies are independent
+        final HyperLogLog sparse = createSketch(10, 0, 10);
+        final HyperLogLog sparseCopy = sparse.copy();
+        sparse.add(EnhancedDoubleHasher.fromInt(-1));
+        assertEquals(10, sparseCopy.estimateN());
+        assertEquals(11, sparse.estimateN());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"4, 100", "10, 10", "10, 1000", "10, 100000", "14, 500", "14, 20000", "14, 1000000", "18, 100000"})
+    public void testEstimate(final int precision, final int n) {
+        final HyperLogLog sketch = createSketch(precision, 0, n);
+        // allow 4 standard errors
+        assertEquals(n, sketch.estimateN(), Math.max(1, n * 4 * sketch.getStandardError()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {HyperLogLog.MIN_PRECISION - 1, HyperLogLog.MAX_PRECISION + 1})
+    public void testInvalidPrecision(final int precision) {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(precision));
+    }
+
+    @Test
+    public void testMerge() {
+        for (final int[] sizes : new int[][] {{10, 20}, {10, 5000}, {5000, 10}, {5000, 8000}}) {
+            final HyperLogLog a = createSketch(12, 0, sizes[0]);
+            final HyperLogLog b = createSketch(12, sizes[0] / 2, sizes[0] / 2 + sizes[1]);
+            final HyperLogLog union = createSketch(12, 0, Math.max(sizes[0], sizes[0] / 2 + sizes[1]));
+            a.merge(b);
+            // lossless: the same as adding all the items
+            assertEquals(union.isSparse(), a.isSparse());
+            assertEquals(union.estimateN(), a.estimateN());
+            assertFalse(a.merge(b));
+            assertFalse(a.merge(new HyperLogLog(12)));
+        }
+        final HyperLogLog sketch = createSketch(12, 0, 100);
+        assertFalse(sketch.merge(sketch));
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    public void testSparseToDense() {
+        final HyperLogLog sketch = new HyperLogLog(10);
+        assertTrue(sketch.isSparse());
+        assertTrue(sketch.isEmpty());
+        int i = 0;
+        while (sketch.isSparse()) {
+            assertTrue(sketch.add(EnhancedDoubleHasher.fromInt(i++)));
+            if (sketch.isSparse()) {
+                // linear counting is exact for few items
+                assertEquals(i, sketch.estimateN());
+            }
+        }
+        // switched when the entries exceed a quarter of the registers
+        assertEquals((1 << 10) / 4 + 1, i);
+        assertFalse(sketch.isEmpty());
+        assertEquals(i, sketch.estimateN(), i * 0.1);
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.commons.collections4.bloomfilter;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Duration;
@@ -402,4 +403,47 @@ public class LayeredBloomFilterTest extends AbstractBloomFilterTest<LayeredBloom
         assertFalse(filter.get(1).contains(TestingHashers.FROM11));
         assertTrue(filter.get(1).contains(new IncrementingHasher(11, 2)));
     }
+
+    @Test
+    public void testParallelContains() {
+        final LayeredBloomFilter<SimpleBloomFilter> filter = setupFindTest();
+        for (final int threshold : new int[] {1, 2, 1000}) {
+            assertTrue(filter.parallelContains(makeFilter(TestingHashers.FROM1), threshold));
+            assertTrue(filter.parallelContains(makeFilter(TestingHashers.FROM11), threshold));
+            assertFalse(filter.parallelContains(makeFilter(40, 42), threshold));
+            assertTrue(filter.parallelContains(LayeredBloomFilterTest.fixed(getTestShape(), 10), threshold));
+        }
+        assertThrows(IllegalArgumentException.class, () -> filter.parallelContains(makeFilter(1), 0));
+    }
+
+    @Test
+    public void testParallelFind() {
+        final LayeredBloomFilter<SimpleBloomFilter> filter = setupFindTest();
+        for (final int threshold : new int[] {1, 2, 1000}) {
+            assertArrayEquals(new int[] {0, 3}, filter.parallelFind(makeFilter(TestingHashers.FROM1), threshold));
+            assertArrayEquals(new int[] {1, 3}, filter.parallelFind(makeFilter(TestingHashers.FROM11), threshold));
+            assertArrayEquals(new int[0], filter.parallelFind(makeFilter(40, 42), threshold));
+        }
+        assertThrows(IllegalArgumentException.class, () -> filter.parallelFind(makeFilter(1), 0));
+    }
+
+    @Test
+    public void testParallelFlattenManyLayers() {
+        final Shape shape = Shape.fromNP(10000, 0.01);
+        final LayeredBloomFilter<SimpleBloomFilter> filter = LayeredBloomFilterTest.fixed(shape, 100);
+        for (int i = 0; i < 60; i++) {
+            for (int j = 0; j < 100; j++) {
+                filter.merge(EnhancedDoubleHasher.fromInt(i * 100 + j));
+            }
+            filter.next();
+        }
+        final long[] expected = filter.flatten().asBitMapArray();
+        final int words = expected.length;
+        for (final int threshold : new int[] {1, 64, words, 3 * words, 1 << 20}) {
+            assertArrayEquals(expected, filter.parallelFlatten(threshold).asBitMapArray());
+        }
+        final BloomFilter layer = filter.get(30);
+        assertArrayEquals(filter.find(layer), filter.parallelFind(layer, words));
+        assertTrue(filter.parallelContains(layer, 1));
+    }
 }
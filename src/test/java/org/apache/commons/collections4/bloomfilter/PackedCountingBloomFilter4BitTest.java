@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link PackedCountingBloomFilter} using 4-bit cells.
+ */
+public class PackedCountingBloomFilter4BitTest extends AbstractCountingBloomFilterTest<PackedCountingBloomFilter> {
+
+    @Override
+    protected PackedCountingBloomFilter createEmptyFilter(final Shape shape) {
+        return new PackedCountingBloomFilter(shape, 4);
+    }
+
+    @Test
+    public void testInvalidBitsPerCell() {
+        assertThrows(IllegalArgumentException.class, () -> new PackedCountingBloomFilter(getTestShape(), 2));
+        assertThrows(IllegalArgumentException.class, () -> new PackedCountingBloomFilter(getTestShape(), 16));
+    }
+
+    @Test
+    public void testMatchesArrayCountingBloomFilter() {
+        final Shape shape = Shape.fromKM(5, 1000);
+        final PackedCountingBloomFilter bf = createEmptyFilter(shape);
+        final ArrayCountingBloomFilter expected = new ArrayCountingBloomFilter(shape);
+        final Random rng = new Random(42);
+        final Hasher[] hashers = new Hasher[200];
+        for (int i = 0; i < hashers.length; i++) {
+            hashers[i] = new EnhancedDoubleHasher(rng.nextLong(), rng.nextLong());
+            bf.merge(hashers[i]);
+            expected.merge(hashers[i]);
+        }
+        for (int i = 0; i < hashers.length; i += 2) {
+            bf.remove(hashers[i]);
+            expected.remove(hashers[i]);
+        }
+        assertTrue(bf.isValid());
+        assertEquals(expected.cardinality(), bf.cardinality());
+        assertArrayEquals(expected.asBitMapArray(), bf.asBitMapArray());
+        assertArrayEquals(expected.asIndexArray(), bf.asIndexArray());
+        final int[] counts = new int[shape.getNumberOfBits()];
+        final int[] expectedCounts = new int[shape.getNumberOfBits()];
+        bf.processCells((i, c) -> {
+            counts[i] = c;
+            return true;
+        });
+        expected.processCells((i, c) -> {
+            expectedCounts[i] = c;
+            return true;
+        });
+        assertArrayEquals(expectedCounts, counts);
+        for (int i = 1; i < hashers.length; i += 2) {
+            assertTrue(bf.contains(hashers[i]));
+        }
+    }
+
+    @Test
+    public void testSaturation() {
+        final PackedCountingBloomFilter bf = createEmptyFilter(getTestShape());
+        assertEquals(15, bf.getMaxCell());
+        assertEquals(4, bf.getBitsPerCell());
+        // neighbouring cells in the same long are not affected
+        assertTrue(bf.add(consumer -> consumer.test(4, 15) && consumer.test(6, 1)));
+        assertFalse(bf.add(consumer -> consumer.test(5, 2) && consumer.test(4, 1)));
+        assertFalse(bf.isValid());
+        final int[] counts = new int[getTestShape().getNumberOfBits()];
+        bf.processCells((i, c) -> {
+            counts[i] = c;
+            return true;
+        });
+        assertEquals(15, counts[4]);
+        assertEquals(2, counts[5]);
+        assertEquals(1, counts[6]);
+        assertEquals(3, bf.cardinality());
+
+        final PackedCountingBloomFilter bf2 = createEmptyFilter(getTestShape());
+        assertFalse(bf2.subtract(consumer -> consumer.test(70, 1)));
+        assertTrue(bf2.isEmpty());
+        assertFalse(bf2.isValid());
+        // the copy retains the state
+        assertFalse(bf2.copy().isValid());
+    }
+}
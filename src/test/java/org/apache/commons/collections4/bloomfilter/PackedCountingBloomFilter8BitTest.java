@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link PackedCountingBloomFilter} using 8-bit cells.
+ */
+public class PackedCountingBloomFilter8BitTest extends AbstractCountingBloomFilterTest<PackedCountingBloomFilter> {
+
+    @Override
+    protected PackedCountingBloomFilter createEmptyFilter(final Shape shape) {
+        return new PackedCountingBloomFilter(shape, 8);
+    }
+
+    @Test
+    public void testSaturation() {
+        final PackedCountingBloomFilter bf = createEmptyFilter(getTestShape());
+        assertEquals(255, bf.getMaxCell());
+        assertEquals(8, bf.getBitsPerCell());
+        assertTrue(bf.add(CellExtractor.from(IndexExtractor.fromIndexArray(71))));
+        assertFalse(bf.add(consumer -> consumer.test(71, 1000)));
+        bf.processCells((i, c) -> {
+            assertEquals(71, i);
+            assertEquals(255, c);
+            return true;
+        });
+        assertEquals(1, bf.cardinality());
+    }
+}
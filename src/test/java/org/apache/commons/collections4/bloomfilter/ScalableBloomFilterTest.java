@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.bloomfilter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the {@link ScalableBloomFilter}.
+ */
+public class ScalableBloomFilterTest {
+
+    private static Hasher hasher(final int i) {
+        return new EnhancedDoubleHasher(mix(i), mix(~i));
+    }
+
+    /**
+     * The SplitMix64 finalizer to create independent hash values for each item.
+     */
+    private static long mix(final long value) {
+        long z = (value + 0x9e3779b97f4a7c15L) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ z >>> 27) * 0x94d049bb133111ebL;
+        return z ^ z >>> 31;
+    }
+
+    private static ScalableBloomFilter<SimpleBloomFilter> populate(final int n, final int initialNumberOfItems, final double probability) {
+        final ScalableBloomFilter<SimpleBloomFilter> filter = new ScalableBloomFilter<>(SimpleBloomFilter::new, initialNumberOfItems, probability);
+        for (int i = 0; i < n; i++) {
+            filter.merge(hasher(i));
+        }
+        return filter;
+    }
+
+    @Test
+    public void testClear() {
+        final ScalableBloomFilter<SimpleBloomFilter> filter = populate(1000, 100, 0.01);
+        assertTrue(filter.getDepth() > 1);
+        filter.clear();
+        assertEquals(1, filter.getDepth());
+        assertTrue(filter.isEmpty());
+        assertEquals(filter.getLayerShape(0), filter.get(0).getShape());
+    }
+
+    @Test
+    public void testContainsAllMergedItems() {
+        final ScalableBloomFilter<SimpleBloomFilter> filter = populate(5000, 100, 0.01);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(filter.contains(hasher(i)), () -> "Missing item");
+        }
+    }
+
+    @Test
+    public void testCopy() {
+        final ScalableBloomFilter<SimpleBloomFilter> filter = populate(1000, 100, 0.01);
+        final ScalableBloomFilter<SimpleBloomFilter> copy = filter.copy();
+        assertEquals(filter.getDepth(), copy.getDepth());
+        for (int i = 0; i < filter.getDepth(); i++) {
+            assertEquals(filter.get(i).getShape(), copy.get(i).getShape());
+            assertEquals(filter.get(i).cardinality(), copy.get(i).cardinality());
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(copy.contains(hasher(i)));
+        }
+        copy.clear();
+        assertFalse(filter.isEmpty());
+        assertTrue(filter.contains(hasher(0)));
+    }
+
+    @Test
+    public void testExtendsWhenLayerCapacityIsReached() {
+        final ScalableBloomFilter<SimpleBloomFilter> filter = new ScalableBloomFilter<>(SimpleBloomFilter::new, 100, 0.01);
+        final int capacity = (int) Math.ceil(filter.getLayerShape(0).estimateMaxN());
+        for (int i = 0; i < capacity; i++) {
+            filter.merge(hasher(i));
+        }
+        assertEquals(1, filter.getDepth());
+        filter.merge(hasher(capacity));
+        assertEquals(2, filter.getDepth());
+    }
+
+    @Test
+    public void testRepeatedItemsDoNotAddLayers() {
+        final ScalableBloomFilter<SimpleBloomFilter> filter = new ScalableBloomFilter<>(SimpleBloomFilter::new, 100, 0.01);
+        final Hasher hasher = hasher(0);
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(filter.merge(hasher));
+        }
+        assertEquals(1, filter.getDepth());
+        assertEquals(1, filter.estimateN());
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        final double probability = 0.01;
+        final ScalableBloomFilter<SimpleBloomFilter> filter = populate(10000, 100, probability);
+        assertTrue(filter.getProbability() <= probability, () -> "Estimated probability " + filter.getProbability());
+        int falsePositives = 0;
+        final int trials = 100000;
+        for (int i = 0; i < trials; i++) {
+            if (filter.contains(hasher(-1 - i))) {
+                falsePositives++;
+            }
+        }
+        final double rate = (double) falsePositives / trials;
+        assertTrue(rate <= probability, () -> "False positive rate " + rate);
+    }
+
+    @Test
+    public void testGrowth() {
+        final ScalableBloomFilter<SimpleBloomFilter> filter = populate(100, 100, 0.01);
+        assertEquals(1, filter.getDepth());
+        for (int i = 100; i < 2000; i++) {
+            filter.merge(hasher(i));
+        }
+        assertTrue(filter.getDepth() > 1);
+        // layer capacity grows while the layer probability tightens
+        for (int i = 1; i < filter.getDepth(); i++) {
+            final Shape previous = filter.get(i - 1).getShape();
+            final Shape shape = filter.get(i).getShape();
+            assertEquals(filter.getLayerShape(i), shape);
+            assertTrue(shape.getNumberOfBits() > previous.getNumberOfBits());
+            assertTrue(shape.getProbability(100) < previous.getProbability(100));
+        }
+        final long n = filter.estimateN();
+        assertTrue(n > 1800 && n < 2200, () -> "Estimated N " + n);
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<>(SimpleBloomFilter::new, 0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<>(SimpleBloomFilter::new, 10, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<>(SimpleBloomFilter::new, 10, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<>(SimpleBloomFilter::new, 10, 0.01, 0.0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<>(SimpleBloomFilter::new, 10, 0.01, 1.0, 2));
+        assertThrows(IllegalArgumentException.class, () -> new ScalableBloomFilter<>(SimpleBloomFilter::new, 10, 0.01, 0.5, 0));
+        assertThrows(NullPointerException.class, () -> new ScalableBloomFilter<SimpleBloomFilter>(null, 10, 0.01));
+    }
+
+    @Test
+    public void testProcessBloomFilters() {
+        final ScalableBloomFilter<SimpleBloomFilter> filter = populate(1000, 100, 0.01);
+        final int[] count = {0};
+        assertTrue(filter.processBloomFilters(bf -> bf == filter.get(count[0]++)));
+        assertEquals(filter.getDepth(), count[0]);
+        count[0] = 0;
+        assertFalse(filter.processBloomFilters(bf -> ++count[0] < 2));
+        assertEquals(2, count[0]);
+    }
+}
@@ -16,8 +16,12 @@
  */
 package org.apache.commons.collections4.bloomfilter;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Random;
 import java.util.function.ToDoubleBiFunction;
 import java.util.function.ToIntBiFunction;
 
@@ -87,6 +91,35 @@ public class SetOperationsTest {
         assertSymmetricOperation(1, SetOperations::andCardinality, filter1, filter2);
     }
 
+    @Test
+    public final void testBatchOperations() {
+        final Random rng = new Random(42);
+        final Shape shape1 = Shape.fromKM(3, 128);
+        final Shape shape2 = Shape.fromKM(3, 192);
+        final BloomFilter query = createFilter(shape1, IndexExtractor.fromIndexArray(1, 63, 64, 100));
+        final long[][] corpus = new long[20][];
+        for (int i = 0; i < corpus.length; i++) {
+            final Shape shape = i % 3 == 0 ? shape2 : shape1;
+            corpus[i] = createFilter(shape, new EnhancedDoubleHasher(rng.nextLong(), rng.nextLong())).asBitMapArray();
+        }
+        // include an exact match, an empty filter and a short array
+        corpus[0] = query.asBitMapArray();
+        corpus[1] = new long[2];
+        corpus[2] = new long[] {2L};
+        final int[] and = SetOperations.andCardinalities(query, corpus);
+        final double[] cosine = SetOperations.cosineSimilarities(query, corpus);
+        final double[] jaccard = SetOperations.jaccardSimilarities(query, corpus);
+        for (int i = 0; i < corpus.length; i++) {
+            final BitMapExtractor other = BitMapExtractor.fromBitMapArray(corpus[i]);
+            assertEquals(SetOperations.andCardinality(query, other), and[i], "and " + i);
+            assertEquals(SetOperations.cosineSimilarity(query, other), cosine[i], 1e-15, "cosine " + i);
+            assertEquals(SetOperations.jaccardSimilarity(query, other), jaccard[i], 1e-15, "jaccard " + i);
+        }
+        assertEquals(1.0, jaccard[0]);
+        assertEquals(0.0, jaccard[1]);
+        assertEquals(0, SetOperations.andCardinalities(query, new long[0][]).length);
+    }
+
     @Test
     public final void testCommutativityOnMismatchedSizes() {
         final BitMapExtractor p1 = BitMapExtractor.fromBitMapArray(0x3L, 0x5L);
@@ -286,6 +319,36 @@ public class SetOperationsTest {
         assertSymmetricOperation(4, SetOperations::orCardinality, filter1, filter2);
     }
 
+    @Test
+    public final void testTopK() {
+        final double[] scores = {0.5, 0.1, 0.9, 0.5, 0.0, 0.7};
+        assertArrayEquals(new int[] {2, 5, 0, 3}, SetOperations.topK(scores, 4));
+        assertArrayEquals(new int[] {2}, SetOperations.topK(scores, 1));
+        assertArrayEquals(new int[0], SetOperations.topK(scores, 0));
+        assertArrayEquals(new int[] {2, 5, 0, 3, 1, 4}, SetOperations.topK(scores, 10));
+        assertArrayEquals(new int[0], SetOperations.topK(new double[0], 3));
+        assertThrows(IllegalArgumentException.class, () -> SetOperations.topK(scores, -1));
+
+        final Random rng = new Random(7);
+        final double[] random = new double[1000];
+        for (int i = 0; i < random.length; i++) {
+            random[i] = rng.nextInt(100);
+        }
+        final int[] top = SetOperations.topK(random, 50);
+        assertEquals(50, top.length);
+        for (int i = 1; i < top.length; i++) {
+            final int c = Double.compare(random[top[i - 1]], random[top[i]]);
+            assertTrue(c > 0 || c == 0 && top[i - 1] < top[i], "Out of order at " + i);
+        }
+        int larger = 0;
+        for (final double score : random) {
+            if (score > random[top[49]]) {
+                larger++;
+            }
+        }
+        assertTrue(larger <= 49);
+    }
+
     @Test
     public final void testXorCardinality() {
         final Shape shape = Shape.fromKM(3, 128);
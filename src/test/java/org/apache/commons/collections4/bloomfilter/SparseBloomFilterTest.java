@@ -16,8 +16,10 @@
  */
 package org.apache.commons.collections4.bloomfilter;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.junit.jupiter.api.Test;
@@ -89,4 +91,62 @@ public class SparseBloomFilterTest extends AbstractBloomFilterTest<SparseBloomFi
         bf1.merge(bf2);
         assertTrue(bf2.processBitMapPairs(bf1, (x, y) -> x == y));
     }
+
+    @Test
+    public void testInvalidMergeDoesNotChangeFilter() {
+        final SparseBloomFilter bf = createFilter(getTestShape(), IndexExtractor.fromIndexArray(1, 3, 5));
+        assertThrows(IllegalArgumentException.class, () -> bf.merge(IndexExtractor.fromIndexArray(2, getTestShape().getNumberOfBits())));
+        assertThrows(IllegalArgumentException.class, () -> bf.merge(IndexExtractor.fromIndexArray(2, -1)));
+        assertArrayEquals(new int[] {1, 3, 5}, bf.asIndexArray());
+    }
+
+    @Test
+    public void testMergeKeepsIndicesSorted() {
+        final Shape shape = Shape.fromKM(3, 1000);
+        final SparseBloomFilter bf = createEmptyFilter(shape);
+        final SimpleBloomFilter expected = new SimpleBloomFilter(shape);
+        bf.merge(IndexExtractor.fromIndexArray(10, 30, 50));
+        expected.merge(IndexExtractor.fromIndexArray(10, 30, 50));
+        final int[][] merges = {{5, 30, 31}, {60, 0, 0}, {29, 11, 999}, {51, 49, 10}};
+        for (final int[] values : merges) {
+            bf.merge(IndexExtractor.fromIndexArray(values));
+            expected.merge(IndexExtractor.fromIndexArray(values));
+        }
+        assertArrayEquals(new int[] {0, 5, 10, 11, 29, 30, 31, 49, 50, 51, 60, 999}, bf.asIndexArray());
+        assertEquals(expected.cardinality(), bf.cardinality());
+        assertArrayEquals(expected.asBitMapArray(), bf.asBitMapArray());
+        assertEquals(BloomFilter.SPARSE, bf.characteristics());
+    }
+
+    @Test
+    public void testSwitchToDense() {
+        final Shape shape = getTestShape();
+        final SparseBloomFilter bf = createEmptyFilter(shape);
+        final SimpleBloomFilter expected = new SimpleBloomFilter(shape);
+        // the test shape uses 2 bit maps so 4 indices are sparse
+        bf.merge(IndexExtractor.fromIndexArray(1, 2, 3));
+        // indices already enabled and repeated indices are counted once
+        bf.merge(IndexExtractor.fromIndexArray(1, 2, 3, 4, 4, 4));
+        assertEquals(BloomFilter.SPARSE, bf.characteristics());
+        assertEquals(4, bf.cardinality());
+        bf.merge(IndexExtractor.fromIndexArray(4, 70));
+        assertEquals(0, bf.characteristics());
+        expected.merge(IndexExtractor.fromIndexArray(1, 2, 3, 4, 70));
+        assertEquals(5, bf.cardinality());
+        assertArrayEquals(expected.asBitMapArray(), bf.asBitMapArray());
+        assertArrayEquals(new int[] {1, 2, 3, 4, 70}, bf.asIndexArray());
+        assertTrue(bf.contains(IndexExtractor.fromIndexArray(1, 70)));
+        assertFalse(bf.contains(IndexExtractor.fromIndexArray(5)));
+
+        bf.merge(IndexExtractor.fromIndexArray(5));
+        assertEquals(6, bf.cardinality());
+        final SparseBloomFilter copy = bf.copy();
+        assertEquals(0, copy.characteristics());
+        assertArrayEquals(bf.asBitMapArray(), copy.asBitMapArray());
+
+        bf.clear();
+        assertEquals(BloomFilter.SPARSE, bf.characteristics());
+        assertTrue(bf.isEmpty());
+        assertEquals(6, copy.cardinality());
+    }
 }
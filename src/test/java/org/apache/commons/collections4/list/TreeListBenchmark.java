@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.list;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks {@link TreeList#get(int)} and positional insert/remove against {@link ArrayList} and {@link LinkedList}.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=TreeListBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-server", "-Xms512M", "-Xmx512M"})
+@State(Scope.Benchmark)
+public class TreeListBenchmark {
+
+    /**
+     * The number of operations performed per invocation.
+     */
+    private static final int OPERATIONS = 256;
+
+    @Param({"1024", "65536"})
+    private int size;
+
+    /**
+     * The index distribution.
+     * <ul>
+     * <li>{@code sequential} - ascending indices.</li>
+     * <li>{@code random} - uniformly distributed indices.</li>
+     * </ul>
+     */
+    @Param({"sequential", "random"})
+    private String distribution;
+
+    @Param({"TreeList", "ArrayList", "LinkedList"})
+    private String type;
+
+    private List<Integer> list;
+
+    private int[] indices;
+
+    @Benchmark
+    public void get(final Blackhole bh) {
+        final List<Integer> l = list;
+        for (final int index : indices) {
+            bh.consume(l.get(index));
+        }
+    }
+
+    @Benchmark
+    public void insertAndRemove(final Blackhole bh) {
+        final List<Integer> l = list;
+        for (final int index : indices) {
+            l.add(index, index);
+            bh.consume(l.remove(index));
+        }
+    }
+
+    @Setup
+    public void setup() {
+        final Random rng = new Random(size);
+        final List<Integer> source = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            source.add(i);
+        }
+        switch (type) {
+        case "TreeList":
+            list = new TreeList<>(source);
+            break;
+        case "ArrayList":
+            list = new ArrayList<>(source);
+            break;
+        default:
+            list = new LinkedList<>(source);
+            break;
+        }
+        indices = new int[OPERATIONS];
+        final int step = size / OPERATIONS;
+        for (int i = 0; i < OPERATIONS; i++) {
+            indices[i] = "sequential".equals(distribution) ? i * step : rng.nextInt(size);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.collections4.map.AbstractLinkedMap.LinkEntry;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ConcurrentLRUMap}.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+public class ConcurrentLRUMapTest<K, V> extends AbstractIterableMapTest<K, V> {
+
+    static class MockConcurrentLRUMapSubclass<K, V> extends ConcurrentLRUMap<K, V> {
+        final List<K> removed = new ArrayList<>();
+
+        MockConcurrentLRUMapSubclass(final int size, final boolean scanUntilRemovable) {
+            super(size, scanUntilRemovable);
+        }
+
+        @Override
+        protected boolean removeLRU(final LinkEntry<K, V> entry) {
+            if ("a".equals(entry.getValue())) {
+                return false;
+            }
+            removed.add(entry.getKey());
+            return true;
+        }
+    }
+
+    public ConcurrentLRUMapTest() {
+        super(ConcurrentLRUMapTest.class.getSimpleName());
+    }
+
+    @Override
+    public boolean isAllowNullKey() {
+        return false;
+    }
+
+    @Override
+    public boolean isAllowNullValueGet() {
+        return false;
+    }
+
+    @Override
+    public boolean isAllowNullValuePut() {
+        return false;
+    }
+
+    @Override
+    public boolean isFailFastExpected() {
+        return false;
+    }
+
+    @Override
+    public boolean isTestSerialization() {
+        return false;
+    }
+
+    @Override
+    public ConcurrentLRUMap<K, V> makeObject() {
+        return new ConcurrentLRUMap<>(1000);
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final int threads = 8;
+        final int maxSize = 500;
+        final ConcurrentLRUMap<Integer, Integer> map = new ConcurrentLRUMap<>(maxSize);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int seed = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    boolean valid = true;
+                    for (int i = 0; i < 20000; i++) {
+                        final int key = (i * 31 + seed) % 2000;
+                        if (i % 4 == 0) {
+                            map.put(key, key);
+                        } else {
+                            final Integer value = map.get(key);
+                            valid &= value == null || value == key;
+                        }
+                    }
+                    return valid;
+                }));
+            }
+            start.countDown();
+            for (final Future<Boolean> future : futures) {
+                assertTrue(future.get(), "Incorrect value");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(map.size() <= maxSize);
+        map.forEach((k, v) -> assertEquals(k, v));
+        // the order contains every mapping: filling the map with new keys evicts them all
+        for (int i = 0; i < maxSize; i++) {
+            map.put(-1 - i, i);
+        }
+        assertEquals(maxSize, map.size());
+        map.keySet().forEach(k -> assertTrue(k < 0));
+    }
+
+    @Test
+    public void testCtors() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLRUMap<K, V>(0));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentLRUMap<K, V>(-1, true));
+        final ConcurrentLRUMap<K, V> map = new ConcurrentLRUMap<>();
+        assertEquals(100, map.maxSize());
+        assertFalse(map.isScanUntilRemovable());
+        assertTrue(new ConcurrentLRUMap<K, V>(5, true).isScanUntilRemovable());
+    }
+
+    @Test
+    public void testLRU() {
+        final ConcurrentLRUMap<String, String> map = new ConcurrentLRUMap<>(2);
+        assertEquals(2, map.maxSize());
+        map.put("1", "a");
+        assertFalse(map.isFull());
+        map.put("2", "b");
+        assertTrue(map.isFull());
+        // the read is applied before the next update
+        assertEquals("a", map.get("1"));
+        map.put("3", "c");
+        assertEquals(2, map.size());
+        assertTrue(map.containsKey("1"));
+        assertFalse(map.containsKey("2"));
+        // a read without update does not change the order
+        assertEquals("a", map.get("1", false));
+        map.put("4", "d");
+        assertFalse(map.containsKey("1"));
+        assertTrue(map.containsKey("3"));
+        // replacing a value makes the key most recently used
+        map.put("3", "e");
+        map.put("5", "f");
+        assertEquals("e", map.get("3"));
+        assertNull(map.get("4"));
+        // a conditional put of a present key makes the key most recently used
+        assertEquals("e", map.putIfAbsent("3", "g"));
+        map.put("6", "h");
+        assertTrue(map.containsKey("3"));
+        assertFalse(map.containsKey("5"));
+        // many reads of one key
+        for (int i = 0; i < 1000; i++) {
+            map.get("6");
+        }
+        map.put("7", "i");
+        assertTrue(map.containsKey("6"));
+        assertFalse(map.containsKey("3"));
+    }
+
+    @Test
+    public void testNullRejected() {
+        final ConcurrentLRUMap<String, String> map = new ConcurrentLRUMap<>(2);
+        assertThrows(NullPointerException.class, () -> map.put(null, "a"));
+        assertThrows(NullPointerException.class, () -> map.put("a", null));
+        assertThrows(NullPointerException.class, () -> map.putIfAbsent("a", null));
+        assertThrows(NullPointerException.class, () -> map.get(null));
+        assertThrows(NullPointerException.class, () -> map.remove(null));
+        assertThrows(NullPointerException.class, () -> map.containsValue(null));
+        assertFalse(map.remove("a", null));
+    }
+
+    @Test
+    public void testRemoveLRU() {
+        final MockConcurrentLRUMapSubclass<String, String> map = new MockConcurrentLRUMapSubclass<>(2, false);
+        map.put("1", "b");
+        map.put("2", "c");
+        map.put("3", "d");
+        assertEquals(2, map.size());
+        assertEquals(1, map.removed.size());
+        assertEquals("1", map.removed.get(0));
+        map.clear();
+        map.removed.clear();
+        // the LRU entry is not removable and the map exceeds the maximum size
+        map.put("1", "a");
+        map.put("2", "b");
+        map.put("3", "c");
+        assertEquals(3, map.size());
+        assertTrue(map.removed.isEmpty());
+    }
+
+    @Test
+    public void testRemoveLRUScan() {
+        final MockConcurrentLRUMapSubclass<String, String> map = new MockConcurrentLRUMapSubclass<>(3, true);
+        map.put("1", "a");
+        map.put("2", "b");
+        map.put("3", "c");
+        map.put("4", "d");
+        assertEquals(3, map.size());
+        final Set<String> expected = new HashSet<>();
+        expected.add("1");
+        expected.add("3");
+        expected.add("4");
+        assertEquals(expected, map.keySet());
+        assertEquals("2", map.removed.get(0));
+    }
+
+    @Test
+    public void testReplace() {
+        final ConcurrentLRUMap<String, String> map = new ConcurrentLRUMap<>(2);
+        assertNull(map.replace("1", "a"));
+        assertFalse(map.containsKey("1"));
+        map.put("1", "a");
+        map.put("2", "b");
+        assertEquals("a", map.replace("1", "c"));
+        assertFalse(map.replace("1", "a", "d"));
+        assertTrue(map.replace("1", "c", "d"));
+        // the replaced key is most recently used
+        map.put("3", "e");
+        assertEquals("d", map.get("1"));
+        assertFalse(map.containsKey("2"));
+        assertTrue(map.remove("1", "d"));
+        assertEquals(1, map.size());
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks {@link AbstractHashedMap#get(Object)} against {@link HashMap#get(Object)}.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=HashedMapBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-server", "-Xms512M", "-Xmx512M"})
+@State(Scope.Benchmark)
+public class HashedMapBenchmark {
+
+    /**
+     * The number of lookups performed per invocation.
+     */
+    private static final int LOOKUPS = 1024;
+
+    /**
+     * Creates the keys for the maps.
+     * <ul>
+     * <li>{@code sequential} - the integers {@code [first, first + size)}.</li>
+     * <li>{@code random} - uniformly distributed random integers.</li>
+     * <li>{@code string} - the decimal representation of random integers.</li>
+     * </ul>
+     *
+     * @param distribution the key distribution.
+     * @param first the first sequential key.
+     * @param size the number of keys.
+     * @param rng the source of randomness.
+     * @return the keys.
+     */
+    static Object[] createKeys(final String distribution, final int first, final int size, final Random rng) {
+        final Object[] keys = new Object[size];
+        for (int i = 0; i < size; i++) {
+            switch (distribution) {
+            case "sequential":
+                keys[i] = Integer.valueOf(first + i);
+                break;
+            case "random":
+                keys[i] = Integer.valueOf(rng.nextInt());
+                break;
+            case "string":
+                keys[i] = Integer.toString(rng.nextInt());
+                break;
+            default:
+                throw new IllegalStateException("Unknown distribution: " + distribution);
+            }
+        }
+        return keys;
+    }
+
+    @Param({"16", "1024", "65536", "1048576"})
+    private int size;
+
+    @Param({"sequential", "random", "string"})
+    private String distribution;
+
+    @Param({"HashedMap", "HashMap"})
+    private String type;
+
+    private Map<Object, Object> map;
+
+    /** Keys to look up. A mixture of hits and misses. */
+    private Object[] lookups;
+
+    @Benchmark
+    public void get(final Blackhole bh) {
+        final Map<Object, Object> m = map;
+        for (final Object key : lookups) {
+            bh.consume(m.get(key));
+        }
+    }
+
+    @Benchmark
+    public void containsKey(final Blackhole bh) {
+        final Map<Object, Object> m = map;
+        for (final Object key : lookups) {
+            bh.consume(m.containsKey(key));
+        }
+    }
+
+    @Setup
+    public void setup() {
+        final Random rng = new Random(size);
+        map = "HashedMap".equals(type) ? new HashedMap<>() : new HashMap<>();
+        final Object[] keys = createKeys(distribution, 0, size, rng);
+        for (final Object key : keys) {
+            map.put(key, key);
+        }
+        // Approximately 3/4 hits and 1/4 misses. Sequential misses follow the stored keys.
+        final Object[] misses = createKeys(distribution, size, LOOKUPS, new Random(~size));
+        lookups = new Object[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = (i & 3) == 0 ? misses[i] : keys[rng.nextInt(size)];
+        }
+    }
+}
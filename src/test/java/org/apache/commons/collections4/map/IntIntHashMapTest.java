@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.collections4.IterableMap;
+import org.apache.commons.collections4.MapUtils;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link IntIntHashMap} and its map view.
+ */
+public class IntIntHashMapTest extends AbstractIterableMapTest<Integer, Integer> {
+
+    private static Integer[] range(final int start, final int length) {
+        final Integer[] values = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = start + i;
+        }
+        return values;
+    }
+
+    public IntIntHashMapTest() {
+        super(IntIntHashMapTest.class.getSimpleName());
+    }
+
+    @Override
+    public Integer[] getNewSampleValues() {
+        return range(1000, getSampleKeys().length);
+    }
+
+    @Override
+    public Integer[] getOtherKeys() {
+        return range(-1000, 16);
+    }
+
+    @Override
+    public Integer[] getOtherValues() {
+        return range(2000, 16);
+    }
+
+    @Override
+    public Integer[] getSampleKeys() {
+        final Integer[] keys = range(-1, 18);
+        keys[keys.length - 1] = Integer.MIN_VALUE;
+        return keys;
+    }
+
+    @Override
+    public Integer[] getSampleValues() {
+        final Integer[] values = range(0, getSampleKeys().length);
+        // duplicate values are permitted
+        values[1] = values[0];
+        return values;
+    }
+
+    @Override
+    public boolean isAllowNullKey() {
+        return false;
+    }
+
+    @Override
+    public boolean isAllowNullValue() {
+        return false;
+    }
+
+    @Override
+    public IterableMap<Integer, Integer> makeObject() {
+        return MapUtils.asMap(new IntIntHashMap());
+    }
+
+    @Test
+    public void testAddTo() {
+        final IntIntHashMap counts = new IntIntHashMap();
+        final int[] words = {3, 0, 7, 3, 3, 0, -9};
+        for (final int word : words) {
+            counts.addTo(word, 1);
+        }
+        assertEquals(4, counts.size());
+        assertEquals(3, counts.get(3));
+        assertEquals(2, counts.get(0));
+        assertEquals(1, counts.get(-9));
+        assertEquals(0, counts.get(42));
+        assertEquals(-1, counts.getOrDefault(42, -1));
+        assertEquals(12, counts.addTo(3, 9));
+        assertEquals(-5, counts.addTo(100, -5));
+        assertTrue(counts.containsValue(-5));
+    }
+
+    @Test
+    public void testCursorRemove() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            final IntIntHashMap map = new IntIntHashMap(12, 0.9f);
+            final Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 14; i++) {
+                final int key = random.nextInt(100);
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            final Set<Integer> seen = new HashSet<>();
+            for (final IntIntHashMap.Cursor it = map.cursor(); it.hasNext();) {
+                final int key = it.nextInt();
+                assertTrue(seen.add(key), "Key returned twice");
+                assertEquals(expected.get(key).intValue(), it.getIntValue());
+                if (random.nextBoolean()) {
+                    it.remove();
+                    expected.remove(key);
+                } else {
+                    it.setIntValue(-key);
+                    expected.put(key, -key);
+                }
+            }
+            assertTrue(seen.containsAll(expected.keySet()));
+            assertEquals(expected, map.asMap());
+        }
+    }
+
+    @Test
+    public void testEqualsHashCode() {
+        final IntIntHashMap map1 = new IntIntHashMap();
+        final IntIntHashMap map2 = new IntIntHashMap(1000);
+        map1.put(0, 5);
+        map1.put(17, 0);
+        map2.put(17, 0);
+        assertFalse(map1.equals(map2));
+        map2.put(0, 5);
+        assertEquals(map1, map2);
+        assertEquals(map1.hashCode(), map2.hashCode());
+        final Map<Integer, Integer> expected = new HashMap<>();
+        expected.put(0, 5);
+        expected.put(17, 0);
+        assertEquals(expected.hashCode(), map1.hashCode());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new IntIntHashMap(-1));
+        assertThrows(IllegalArgumentException.class, () -> new IntIntHashMap(16, 0f));
+        assertThrows(IllegalArgumentException.class, () -> new IntIntHashMap(16, Float.NaN));
+        assertThrows(NullPointerException.class, () -> MapUtils.asMap((IntIntHashMap) null));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final Random random = new Random(7);
+        final IntIntHashMap map = new IntIntHashMap(0);
+        final Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            final int key = random.nextInt(500) - 100;
+            switch (random.nextInt(3)) {
+            case 0:
+                final Integer old = expected.put(key, i);
+                assertEquals(old == null ? 0 : old, map.put(key, i));
+                break;
+            case 1:
+                final Integer removed = expected.remove(key);
+                assertEquals(removed == null ? 0 : removed, map.remove(key));
+                break;
+            default:
+                assertEquals(expected.getOrDefault(key, 0).intValue(), map.get(key));
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                break;
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map.asMap());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        final IntIntHashMap map = new IntIntHashMap();
+        for (int i = 0; i < 100; i++) {
+            map.put(i * i, i);
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(map, in.readObject());
+        }
+    }
+}
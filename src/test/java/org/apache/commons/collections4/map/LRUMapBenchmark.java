@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the access ordering of {@link LRUMap} (the {@code moveToMRU} path taken by {@code get} and {@code put})
+ * against an access ordered {@link LinkedHashMap} bounded with {@code removeEldestEntry}.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=LRUMapBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-server", "-Xms512M", "-Xmx512M"})
+@State(Scope.Benchmark)
+public class LRUMapBenchmark {
+
+    /**
+     * A LinkedHashMap that is bounded to a maximum size.
+     */
+    private static final class BoundedLinkedHashMap<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+        private final int maxSize;
+
+        BoundedLinkedHashMap(final int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    /**
+     * The number of operations performed per invocation.
+     */
+    private static final int OPERATIONS = 1024;
+
+    @Param({"1024", "65536"})
+    private int maxSize;
+
+    /**
+     * The key distribution of the accesses.
+     * <ul>
+     * <li>{@code uniform} - keys are drawn uniformly from a range twice the maximum size.</li>
+     * <li>{@code skewed} - keys are drawn from an approximately Zipfian distribution over the same range.</li>
+     * </ul>
+     */
+    @Param({"uniform", "skewed"})
+    private String distribution;
+
+    @Param({"LRUMap", "LinkedHashMap"})
+    private String type;
+
+    private Map<Integer, Integer> map;
+
+    private Integer[] keys;
+
+    @Benchmark
+    public void get(final Blackhole bh) {
+        final Map<Integer, Integer> m = map;
+        for (final Integer key : keys) {
+            bh.consume(m.get(key));
+        }
+    }
+
+    @Benchmark
+    public void getOrPut(final Blackhole bh) {
+        final Map<Integer, Integer> m = map;
+        for (final Integer key : keys) {
+            final Integer value = m.get(key);
+            if (value == null) {
+                m.put(key, key);
+            }
+            bh.consume(value);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        final Random rng = new Random(maxSize);
+        map = "LRUMap".equals(type) ? new LRUMap<>(maxSize) : new BoundedLinkedHashMap<>(maxSize);
+        for (int i = 0; i < maxSize; i++) {
+            map.put(i, i);
+        }
+        final int range = maxSize * 2;
+        keys = new Integer[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            if ("uniform".equals(distribution)) {
+                keys[i] = rng.nextInt(range);
+            } else {
+                // Inverse transform of a power law: small keys are most frequent
+                keys[i] = (int) (range * Math.pow(rng.nextDouble(), 4));
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.collections4.IterableMap;
+import org.apache.commons.collections4.MapUtils;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link LongObjectHashMap} and its map view.
+ *
+ * @param <V> the value type.
+ */
+public class LongObjectHashMapTest<V> extends AbstractIterableMapTest<Long, V> {
+
+    public LongObjectHashMapTest() {
+        super(LongObjectHashMapTest.class.getSimpleName());
+    }
+
+    @Override
+    public Long[] getOtherKeys() {
+        final Long[] keys = new Long[16];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 1000L + i * 0x1_0000_0000L;
+        }
+        return keys;
+    }
+
+    @Override
+    public Long[] getSampleKeys() {
+        final Long[] keys = new Long[18];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = (long) (i - 1);
+        }
+        keys[keys.length - 1] = Long.MIN_VALUE;
+        return keys;
+    }
+
+    @Override
+    public boolean isAllowNullKey() {
+        return false;
+    }
+
+    @Override
+    public IterableMap<Long, V> makeObject() {
+        return MapUtils.asMap(new LongObjectHashMap<>());
+    }
+
+    @Test
+    public void testCursor() {
+        final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        final Map<Long, String> expected = new HashMap<>();
+        for (long i = -5; i < 50; i++) {
+            map.put(i * 31, Long.toString(i));
+            expected.put(i * 31, Long.toString(i));
+        }
+        final Set<Long> seen = new HashSet<>();
+        for (final LongObjectHashMap<String>.Cursor it = map.cursor(); it.hasNext();) {
+            final long key = it.nextLong();
+            assertEquals(key, it.getLongKey());
+            assertEquals(expected.get(key), it.getValue());
+            assertTrue(seen.add(key));
+            if (key % 2 == 0) {
+                assertEquals(expected.get(key), it.setValue("even"));
+                expected.put(key, "even");
+            }
+        }
+        assertEquals(expected.keySet(), seen);
+        assertEquals(expected, map.asMap());
+
+        final LongObjectHashMap<String>.Cursor it = map.cursor();
+        assertThrows(IllegalStateException.class, it::getLongKey);
+        assertThrows(IllegalStateException.class, it::getValue);
+        assertThrows(IllegalStateException.class, it::remove);
+        it.nextLong();
+        map.put(12345, "x");
+        assertThrows(ConcurrentModificationException.class, it::nextLong);
+        final LongObjectHashMap<String>.Cursor empty = new LongObjectHashMap<String>().cursor();
+        assertFalse(empty.hasNext());
+        assertThrows(NoSuchElementException.class, empty::nextLong);
+    }
+
+    @Test
+    public void testCursorRemove() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            final LongObjectHashMap<Integer> map = new LongObjectHashMap<>(12, 0.9f);
+            final Map<Long, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 14; i++) {
+                final long key = random.nextInt(100);
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            final Set<Long> seen = new HashSet<>();
+            for (final LongObjectHashMap<Integer>.Cursor it = map.cursor(); it.hasNext();) {
+                final long key = it.nextLong();
+                assertTrue(seen.add(key), "Key returned twice");
+                assertEquals(expected.get(key), it.getValue());
+                if (random.nextBoolean()) {
+                    it.remove();
+                    expected.remove(key);
+                }
+            }
+            assertTrue(seen.containsAll(expected.keySet()));
+            assertEquals(expected, map.asMap());
+        }
+    }
+
+    @Test
+    public void testEqualsHashCodeToString() {
+        final LongObjectHashMap<String> map1 = new LongObjectHashMap<>();
+        final LongObjectHashMap<String> map2 = new LongObjectHashMap<>(100);
+        assertEquals("{}", map1.toString());
+        map1.put(0, "zero");
+        map1.put(7, null);
+        map2.put(7, null);
+        assertNotEquals(map1, map2);
+        map2.put(0, "zero");
+        assertEquals(map1, map2);
+        assertEquals(map1.hashCode(), map2.hashCode());
+        assertEquals(map1.asMap().hashCode(), map1.hashCode());
+        final Map<Long, String> expected = new HashMap<>();
+        expected.put(0L, "zero");
+        expected.put(7L, null);
+        assertEquals(expected.hashCode(), map1.hashCode());
+        assertEquals("{0=zero, 7=null}".length(), map1.toString().length());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectHashMap<>(-1));
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectHashMap<>(16, 0f));
+        assertThrows(IllegalArgumentException.class, () -> new LongObjectHashMap<>(16, 1f));
+        assertThrows(NullPointerException.class, () -> MapUtils.asMap((LongObjectHashMap<?>) null));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final Random random = new Random(7);
+        final LongObjectHashMap<Integer> map = new LongObjectHashMap<>(0);
+        final Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            final long key = random.nextInt(500) - 100;
+            switch (random.nextInt(3)) {
+            case 0:
+                assertEquals(expected.put(key, i), map.put(key, i));
+                break;
+            case 1:
+                assertEquals(expected.remove(key), map.remove(key));
+                break;
+            default:
+                assertEquals(expected.get(key), map.get(key));
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                break;
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map.asMap());
+        assertEquals(-1, map.getOrDefault(100_000, -1));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        for (long i = 0; i < 100; i++) {
+            map.put(i * i, Long.toString(i));
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(map, in.readObject());
+        }
+    }
+
+    @Test
+    public void testZeroKey() {
+        final LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertFalse(map.containsKey(0));
+        assertNull(map.put(0, null));
+        assertTrue(map.containsKey(0));
+        assertTrue(map.containsValue(null));
+        assertEquals(1, map.size());
+        assertNull(map.put(0, "zero"));
+        assertEquals("zero", map.get(0));
+        assertEquals("zero", map.remove(0));
+        assertFalse(map.containsKey(0));
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.collections4.IterableMap;
+import org.apache.commons.collections4.MapUtils;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ObjectLongHashMap} and its map view.
+ *
+ * @param <K> the key type.
+ */
+public class ObjectLongHashMapTest<K> extends AbstractIterableMapTest<K, Long> {
+
+    private static Long[] range(final long start, final int length) {
+        final Long[] values = new Long[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = start + i;
+        }
+        return values;
+    }
+
+    public ObjectLongHashMapTest() {
+        super(ObjectLongHashMapTest.class.getSimpleName());
+    }
+
+    @Override
+    public Long[] getNewSampleValues() {
+        return range(1000, getSampleKeys().length);
+    }
+
+    @Override
+    public Long[] getOtherValues() {
+        return range(-2000, getOtherKeys().length);
+    }
+
+    @Override
+    public Long[] getSampleValues() {
+        final Long[] values = range(0, getSampleKeys().length);
+        // duplicate values are permitted
+        values[1] = values[0];
+        return values;
+    }
+
+    @Override
+    public boolean isAllowNullValue() {
+        return false;
+    }
+
+    @Override
+    public IterableMap<K, Long> makeObject() {
+        return MapUtils.asMap(new ObjectLongHashMap<>());
+    }
+
+    @Test
+    public void testAddTo() {
+        final ObjectLongHashMap<String> counts = new ObjectLongHashMap<>();
+        final String[] words = {"a", null, "b", "a", "a", null};
+        for (final String word : words) {
+            counts.addTo(word, 1);
+        }
+        assertEquals(3, counts.size());
+        assertEquals(3, counts.get("a"));
+        assertEquals(2, counts.get(null));
+        assertEquals(0, counts.get("z"));
+        assertEquals(-1, counts.getOrDefault("z", -1));
+        assertEquals(Long.MAX_VALUE, counts.addTo("big", Long.MAX_VALUE));
+        assertTrue(counts.containsValue(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testCursorRemove() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            final ObjectLongHashMap<Integer> map = new ObjectLongHashMap<>(12, 0.9f);
+            final Map<Integer, Long> expected = new HashMap<>();
+            for (int i = 0; i < 14; i++) {
+                final Integer key = random.nextInt(10) == 0 ? null : random.nextInt(100);
+                map.put(key, i);
+                expected.put(key, (long) i);
+            }
+            final Set<Integer> seen = new HashSet<>();
+            for (final ObjectLongHashMap<Integer>.Cursor it = map.cursor(); it.hasNext();) {
+                final Integer key = it.next();
+                assertEquals(key, it.getKey());
+                assertTrue(seen.add(key), "Key returned twice");
+                assertEquals(expected.get(key).longValue(), it.getLongValue());
+                if (random.nextBoolean()) {
+                    it.remove();
+                    expected.remove(key);
+                } else {
+                    it.setLongValue(-1);
+                    expected.put(key, -1L);
+                }
+            }
+            assertTrue(seen.containsAll(expected.keySet()));
+            assertEquals(expected, map.asMap());
+        }
+    }
+
+    @Test
+    public void testEqualsHashCode() {
+        final ObjectLongHashMap<String> map1 = new ObjectLongHashMap<>();
+        final ObjectLongHashMap<String> map2 = new ObjectLongHashMap<>(1000);
+        map1.put(null, 5);
+        map1.put("x", 0);
+        map2.put("x", 0);
+        assertFalse(map1.equals(map2));
+        map2.put(null, 5);
+        assertEquals(map1, map2);
+        assertEquals(map1.hashCode(), map2.hashCode());
+        final Map<String, Long> expected = new HashMap<>();
+        expected.put(null, 5L);
+        expected.put("x", 0L);
+        assertEquals(expected.hashCode(), map1.hashCode());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new ObjectLongHashMap<>(-1));
+        assertThrows(IllegalArgumentException.class, () -> new ObjectLongHashMap<>(16, 0f));
+        assertThrows(IllegalArgumentException.class, () -> new ObjectLongHashMap<>(16, 1f));
+        assertThrows(NullPointerException.class, () -> MapUtils.asMap((ObjectLongHashMap<?>) null));
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final Random random = new Random(7);
+        final ObjectLongHashMap<Integer> map = new ObjectLongHashMap<>(0);
+        final Map<Integer, Long> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            final Integer key = random.nextInt(600) - 100;
+            switch (random.nextInt(3)) {
+            case 0:
+                final Long old = expected.put(key, (long) i);
+                assertEquals(old == null ? 0 : old, map.put(key, i));
+                break;
+            case 1:
+                final Long removed = expected.remove(key);
+                assertEquals(removed == null ? 0 : removed, map.remove(key));
+                break;
+            default:
+                assertEquals(expected.getOrDefault(key, 0L).longValue(), map.get(key));
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                break;
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map.asMap());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.asMap().get(0));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        final ObjectLongHashMap<String> map = new ObjectLongHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(Integer.toString(i), (long) i * i);
+        }
+        map.put(null, -1);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(map);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(map, in.readObject());
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link OpenAddressing}.
+ */
+public class OpenAddressingTest {
+
+    /**
+     * A table storing the probe start of each entry plus one, 0 for an empty slot.
+     */
+    private static final class Table implements OpenAddressing.Slots {
+
+        final int[] starts;
+
+        final List<String> moves = new ArrayList<>();
+
+        Table(final int... starts) {
+            this.starts = starts;
+        }
+
+        @Override
+        public boolean isEmpty(final int index) {
+            return starts[index] == 0;
+        }
+
+        @Override
+        public void move(final int from, final int to) {
+            starts[to] = starts[from];
+            moves.add(from + "->" + to);
+        }
+
+        /**
+         * Removes the entry, clearing the slot left empty.
+         *
+         * @param index  the index of the entry
+         */
+        void remove(final int index) {
+            starts[OpenAddressing.remove(this, index, starts.length - 1)] = 0;
+        }
+
+        @Override
+        public int startOf(final int index) {
+            // keys are stored as start + 1 so that 0 marks an empty slot
+            return starts[index] - 1;
+        }
+    }
+
+    @Test
+    public void testAppend() {
+        int[] ints = null;
+        long[] longs = null;
+        Object[] objects = null;
+        for (int i = 0; i < 5; i++) {
+            ints = OpenAddressing.append(ints, i, i);
+            longs = OpenAddressing.append(longs, i, i);
+            objects = OpenAddressing.append(objects, i, i);
+        }
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, Arrays.copyOf(ints, 5));
+        assertArrayEquals(new long[] {0, 1, 2, 3, 4}, Arrays.copyOf(longs, 5));
+        assertArrayEquals(new Object[] {0, 1, 2, 3, 4}, Arrays.copyOf(objects, 5));
+    }
+
+    @Test
+    public void testCapacityAndThreshold() {
+        assertEquals(2, OpenAddressing.capacityFor(0, 0.5f));
+        assertEquals(32, OpenAddressing.capacityFor(10, 0.5f));
+        assertEquals(OpenAddressing.MAXIMUM_CAPACITY, OpenAddressing.capacityFor(Integer.MAX_VALUE, 0.5f));
+        assertEquals(8, OpenAddressing.threshold(16, 0.5f));
+        // one slot is always left empty
+        assertEquals(1, OpenAddressing.threshold(2, 0.99f));
+        assertTrue(OpenAddressing.canGrow(1 << 29, 1 << 28));
+        assertFalse(OpenAddressing.canGrow(OpenAddressing.MAXIMUM_CAPACITY, OpenAddressing.MAXIMUM_CAPACITY - 2));
+        assertThrows(IllegalStateException.class,
+            () -> OpenAddressing.canGrow(OpenAddressing.MAXIMUM_CAPACITY, OpenAddressing.MAXIMUM_CAPACITY - 1));
+        assertThrows(IllegalArgumentException.class, () -> OpenAddressing.checkLoadFactor(0f));
+        assertThrows(IllegalArgumentException.class, () -> OpenAddressing.checkLoadFactor(1f));
+        assertThrows(IllegalArgumentException.class, () -> OpenAddressing.checkLoadFactor(Float.NaN));
+    }
+
+    @Test
+    public void testIsWrapped() {
+        // the scan has reached slot 4, so slots 4 and above are scanned
+        assertTrue(OpenAddressing.isWrapped(3, 7, 4));
+        assertTrue(OpenAddressing.isWrapped(0, 4, 4));
+        assertFalse(OpenAddressing.isWrapped(3, 2, 4));
+        assertFalse(OpenAddressing.isWrapped(6, 5, 4));
+    }
+
+    @Test
+    public void testRemoveKeepsEntriesAtTheirStart() {
+        // slots 2, 3 and 4 hold entries starting at 2, 2 and 4
+        final Table table = new Table(0, 0, 3, 3, 5, 0, 0, 0);
+        table.remove(2);
+        // the second entry starting at 2 shifts back, the entry at its start stays
+        assertArrayEquals(new int[] {0, 0, 3, 0, 5, 0, 0, 0}, table.starts);
+        assertEquals(Arrays.asList("3->2"), table.moves);
+    }
+
+    @Test
+    public void testRemoveWrapsAround() {
+        // slots 6, 7, 0 and 1 hold entries starting at 6, 6, 7 and 1
+        final Table table = new Table(8, 2, 0, 0, 0, 0, 7, 7);
+        table.remove(6);
+        assertArrayEquals(new int[] {0, 2, 0, 0, 0, 0, 7, 8}, table.starts);
+        assertEquals(Arrays.asList("7->6", "0->7"), table.moves);
+        table.remove(6);
+        assertArrayEquals(new int[] {0, 2, 0, 0, 0, 0, 0, 8}, table.starts);
+        // an entry at its start after the end of the table does not shift back past it
+        final Table atStart = new Table(1, 0, 0, 0, 0, 0, 0, 7);
+        atStart.remove(7);
+        assertArrayEquals(new int[] {1, 0, 0, 0, 0, 0, 0, 0}, atStart.starts);
+        assertTrue(atStart.moves.isEmpty());
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.collections4.MapIterator;
+import org.junit.jupiter.api.Test;
+
+/**
+ * JUnit tests.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+public class OpenHashedMapTest<K, V> extends AbstractIterableMapTest<K, V> {
+
+    /**
+     * A case insensitive map built on the extension points.
+     */
+    static class CaseInsensitiveOpenHashedMap<V> extends OpenHashedMap<String, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Object convertKey(final Object key) {
+            return key == null ? NULL : key.toString().toLowerCase();
+        }
+    }
+
+    /**
+     * A map where all the keys have the same hash code.
+     */
+    static class SingleHashCodeMap<K, V> extends OpenHashedMap<K, V> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected int hash(final Object key) {
+            return 7;
+        }
+    }
+
+    public OpenHashedMapTest() {
+        super(OpenHashedMapTest.class.getSimpleName());
+    }
+
+    @Override
+    public String getCompatibilityVersion() {
+        return "4.5";
+    }
+
+    @Override
+    public OpenHashedMap<K, V> makeObject() {
+        return new OpenHashedMap<>();
+    }
+
+    @Test
+    public void testCaseInsensitive() {
+        final CaseInsensitiveOpenHashedMap<Integer> map = new CaseInsensitiveOpenHashedMap<>();
+        map.put("One", 1);
+        map.put("ONE", 2);
+        map.put(null, 3);
+        assertEquals(2, map.size());
+        assertEquals(Integer.valueOf(2), map.get("one"));
+        assertEquals(Integer.valueOf(3), map.get(null));
+        assertTrue(map.keySet().contains("one"));
+        assertTrue(map.keySet().contains(null));
+        assertEquals(Integer.valueOf(2), map.remove("oNe"));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testClone() {
+        final OpenHashedMap<K, V> map = new OpenHashedMap<>(10);
+        map.put((K) "1", (V) "1");
+        final OpenHashedMap<K, V> cloned = map.clone();
+        assertEquals(map.size(), cloned.size());
+        assertSame(map.get("1"), cloned.get("1"));
+        cloned.put((K) "2", (V) "2");
+        assertFalse(map.containsKey("2"));
+    }
+
+//    public void testCreate() throws Exception {
+//        resetEmpty();
+//        writeExternalFormToDisk((java.io.Serializable) getMap(), "src/test/resources/org/apache/commons/collections4/data/test/OpenHashedMap.emptyCollection.version4.5.obj");
+//        resetFull();
+//        writeExternalFormToDisk((java.io.Serializable) getMap(), "src/test/resources/org/apache/commons/collections4/data/test/OpenHashedMap.fullCollection.version4.5.obj");
+//    }
+
+    @Test
+    public void testCollisions() {
+        final SingleHashCodeMap<Integer, Integer> map = new SingleHashCodeMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals(Integer.valueOf(i), map.remove(i));
+        }
+        assertEquals(50, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 0 ? null : Integer.valueOf(i), map.get(i));
+        }
+    }
+
+    @Test
+    public void testInitialCapacityZero() {
+        final OpenHashedMap<String, String> map = new OpenHashedMap<>(0);
+        assertEquals(1, map.keyData.length);
+        map.put("a", "a");
+        map.put("b", "b");
+        assertEquals(2, map.size());
+        assertEquals("b", map.get("b"));
+    }
+
+    @Test
+    public void testInternalState() {
+        final OpenHashedMap<Integer, Integer> map = new OpenHashedMap<>(42, 0.75f);
+        assertEquals(0.75f, map.loadFactor, 0.1f);
+        assertEquals(0, map.size);
+        assertEquals(64, map.keyData.length);
+        assertEquals(48, map.threshold);
+        assertEquals(0, map.modCount);
+        for (int i = 0; i < 48; i++) {
+            map.put(i, i);
+        }
+        assertEquals(128, map.keyData.length);
+        assertEquals(96, map.threshold);
+    }
+
+    @Test
+    public void testInvalidLoadFactor() {
+        assertThrows(IllegalArgumentException.class, () -> new OpenHashedMap<>(16, 0f));
+        assertThrows(IllegalArgumentException.class, () -> new OpenHashedMap<>(16, 1f));
+        assertThrows(IllegalArgumentException.class, () -> new OpenHashedMap<>(16, Float.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new OpenHashedMap<>(-1));
+    }
+
+    @Test
+    public void testIteratorRemoveWrapsAround() {
+        // a small table with long probe sequences crossing the end of the table
+        final Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            final OpenHashedMap<Integer, Integer> map = new OpenHashedMap<>(32, 0.9f);
+            final Map<Integer, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 25; i++) {
+                final int key = random.nextInt(1000);
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            final Set<Integer> seen = new HashSet<>();
+            for (final MapIterator<Integer, Integer> it = map.mapIterator(); it.hasNext();) {
+                final Integer key = it.next();
+                assertTrue(seen.add(key), "Key returned twice");
+                assertEquals(expected.get(key), it.getValue());
+                if (random.nextBoolean()) {
+                    it.remove();
+                    expected.remove(key);
+                }
+            }
+            assertEquals(expected, map);
+            assertTrue(seen.containsAll(expected.keySet()));
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final Random random = new Random(7);
+        final OpenHashedMap<Integer, Integer> map = new OpenHashedMap<>();
+        final Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            final Integer key = random.nextInt(500);
+            switch (random.nextInt(3)) {
+            case 0:
+                assertEquals(expected.put(key, i), map.put(key, i));
+                break;
+            case 1:
+                assertEquals(expected.remove(key), map.remove(key));
+                break;
+            default:
+                assertEquals(expected.get(key), map.get(key));
+                break;
+            }
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+
+    @Test
+    public void testValuesIteratorRemove() {
+        final OpenHashedMap<Integer, Integer> map = new OpenHashedMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i % 3);
+        }
+        for (final Iterator<Integer> it = map.values().iterator(); it.hasNext();) {
+            if (it.next() == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(66, map.size());
+        assertFalse(map.containsValue(0));
+    }
+}
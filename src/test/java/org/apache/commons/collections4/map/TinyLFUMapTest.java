@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link TinyLFUMap}.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+public class TinyLFUMapTest<K, V> extends AbstractOrderedMapTest<K, V> {
+
+    /**
+     * Counts the hits of a workload of frequently used keys interleaved with scans of keys used once.
+     *
+     * @param map the map.
+     * @return the number of hits of the frequently used keys.
+     */
+    private static int countHotHits(final Map<Integer, Integer> map) {
+        int hits = 0;
+        int scanKey = 1000;
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (map.get(i) != null) {
+                    hits++;
+                } else {
+                    map.put(i, i);
+                }
+            }
+            for (int i = 0; i < 200; i++, scanKey++) {
+                if (map.get(scanKey) == null) {
+                    map.put(scanKey, scanKey);
+                }
+            }
+        }
+        return hits;
+    }
+
+    public TinyLFUMapTest() {
+        super(TinyLFUMapTest.class.getSimpleName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TinyLFUMap<K, V> getMap() {
+        return (TinyLFUMap<K, V>) super.getMap();
+    }
+
+    @Override
+    public boolean isTestSerialization() {
+        return false;
+    }
+
+    @Override
+    public TinyLFUMap<K, V> makeObject() {
+        return new TinyLFUMap<>(1000);
+    }
+
+    @Test
+    public void testAdmissionFavorsFrequentKeys() {
+        final TinyLFUMap<Integer, Integer> map = new TinyLFUMap<>(100);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+            map.get(i);
+            map.get(i);
+        }
+        assertEquals(0, map.getEvictionCount());
+        // keys used once do not replace the frequently used keys
+        for (int i = 100; i < 1000; i++) {
+            map.put(i, i);
+        }
+        assertEquals(100, map.size());
+        assertEquals(900, map.getEvictionCount());
+        int retained = 0;
+        for (int i = 0; i < 100; i++) {
+            if (map.containsKey(i)) {
+                retained++;
+            }
+        }
+        assertTrue(retained >= 90, "Frequent keys retained: " + retained);
+    }
+
+    @Test
+    public void testClear() {
+        final TinyLFUMap<Integer, Integer> map = new TinyLFUMap<>(10);
+        for (int i = 0; i < 20; i++) {
+            map.put(i, i);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        for (int i = 0; i < 10; i++) {
+            map.put(i, i);
+        }
+        assertEquals(10, map.size());
+        assertTrue(map.isFull());
+        map.put(10, 10);
+        assertEquals(10, map.size());
+    }
+
+    @Test
+    public void testConstructorInvalidMaxSize() {
+        assertThrows(IllegalArgumentException.class, () -> new TinyLFUMap<>(0));
+        assertThrows(IllegalArgumentException.class, () -> new TinyLFUMap<>(-1));
+    }
+
+    @Test
+    public void testMaxSize() {
+        assertEquals(100, new TinyLFUMap<>().maxSize());
+        final TinyLFUMap<Integer, Integer> map = new TinyLFUMap<>(50);
+        assertEquals(50, map.maxSize());
+        for (int i = 0; i < 500; i++) {
+            map.put(i, i);
+            assertEquals(Math.min(i + 1, 50), map.size());
+            assertEquals(i + 1 >= 50, map.isFull());
+        }
+        assertEquals(450, map.getEvictionCount());
+        map.remove(map.keySet().iterator().next());
+        assertFalse(map.isFull());
+    }
+
+    @Test
+    public void testMaxSizeOne() {
+        final TinyLFUMap<Integer, Integer> map = new TinyLFUMap<>(1);
+        map.put(1, 1);
+        map.put(2, 2);
+        assertEquals(1, map.size());
+        assertEquals(Integer.valueOf(2), map.get(2));
+        assertNull(map.get(1));
+        assertEquals(1, map.getEvictionCount());
+    }
+
+    @Test
+    public void testRemoveAndUpdate() {
+        final TinyLFUMap<Integer, Integer> map = new TinyLFUMap<>(20);
+        for (int i = 0; i < 100; i++) {
+            map.put(i % 30, i);
+            map.get(i % 7);
+            if (i % 5 == 0) {
+                map.remove(i % 11);
+            }
+            assertTrue(map.size() <= 20);
+        }
+        for (final Map.Entry<Integer, Integer> entry : map.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        map.put(3, -3);
+        assertEquals(Integer.valueOf(-3), map.get(3));
+    }
+
+    @Test
+    public void testScanResistance() {
+        final int lru = countHotHits(new LRUMap<>(100));
+        final int lfu = countHotHits(new TinyLFUMap<>(100));
+        // the scans remove all the frequently used keys from the LRUMap
+        assertEquals(0, lru);
+        assertTrue(lfu > 2000, () -> "TinyLFUMap hits: " + lfu);
+    }
+
+    @Test
+    public void testStatistics() {
+        final TinyLFUMap<Integer, Integer> map = new TinyLFUMap<>(2);
+        map.put(1, 1);
+        assertEquals(Integer.valueOf(1), map.get(1));
+        assertNull(map.get(2));
+        assertNull(map.get(3));
+        assertEquals(1, map.getHitCount());
+        assertEquals(2, map.getMissCount());
+        assertEquals(0, map.getEvictionCount());
+        map.put(2, 2);
+        map.put(3, 3);
+        assertEquals(1, map.getEvictionCount());
+        // queries do not count
+        map.containsKey(1);
+        map.containsValue(1);
+        assertEquals(1, map.getHitCount());
+        assertEquals(2, map.getMissCount());
+    }
+}
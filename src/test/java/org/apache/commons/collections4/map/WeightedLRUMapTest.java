@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongBiFunction;
+
+import org.apache.commons.collections4.MapIterator;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link WeightedLRUMap}.
+ *
+ * @param <K> the key type.
+ * @param <V> the value type.
+ */
+public class WeightedLRUMapTest<K, V> extends AbstractOrderedMapTest<K, V> {
+
+    static class MockWeightedLRUMapSubclass extends WeightedLRUMap<String, String> {
+
+        private static final long serialVersionUID = 1L;
+
+        final List<String> removed = new ArrayList<>();
+
+        MockWeightedLRUMapSubclass(final long maxWeight, final boolean scanUntilRemovable) {
+            super(maxWeight, LENGTH, scanUntilRemovable);
+        }
+
+        @Override
+        protected boolean removeLRU(final LinkEntry<String, String> entry) {
+            if (entry.getKey().startsWith("keep")) {
+                return false;
+            }
+            removed.add(entry.getKey());
+            return true;
+        }
+    }
+
+    /**
+     * Weighs each mapping as one.
+     */
+    static final class UnitWeigher implements ToLongBiFunction<Object, Object>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public long applyAsLong(final Object key, final Object value) {
+            return 1;
+        }
+    }
+
+    /** Weighs a mapping by the length of the value */
+    private static final ToLongBiFunction<String, String> LENGTH = (k, v) -> v.length();
+
+    public WeightedLRUMapTest() {
+        super(WeightedLRUMapTest.class.getSimpleName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public WeightedLRUMap<K, V> getMap() {
+        return (WeightedLRUMap<K, V>) super.getMap();
+    }
+
+    @Override
+    public boolean isGetStructuralModify() {
+        return true;
+    }
+
+    @Override
+    public WeightedLRUMap<K, V> makeObject() {
+        return new WeightedLRUMap<>(1000, new UnitWeigher());
+    }
+
+    @Override
+    protected boolean skipSerializedCanonicalTests() {
+        return true;
+    }
+
+    @Test
+    public void testClone() {
+        final WeightedLRUMap<String, String> map = new WeightedLRUMap<>(10, LENGTH);
+        map.put("a", "xxx");
+        map.put("b", "yyyy");
+        final WeightedLRUMap<String, String> clone = map.clone();
+        assertEquals(map, clone);
+        assertEquals(7, clone.getTotalWeight());
+        clone.put("c", "zzzzz");
+        assertEquals(9, clone.getTotalWeight());
+        assertEquals(7, map.getTotalWeight());
+    }
+
+    @Test
+    public void testConstructorInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> new WeightedLRUMap<>(-1, LENGTH));
+        assertThrows(NullPointerException.class, () -> new WeightedLRUMap<String, String>(1, null));
+    }
+
+    @Test
+    public void testEntryHeavierThanMaximum() {
+        final WeightedLRUMap<String, String> map = new WeightedLRUMap<>(5, LENGTH);
+        map.put("a", "xx");
+        map.put("b", "xxxxxx");
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.getTotalWeight());
+    }
+
+    @Test
+    public void testBoundaryWeights() {
+        final WeightedLRUMap<String, Integer> map = new WeightedLRUMap<>(10, (k, v) -> v);
+        map.put("a", 10);
+        // the total weight equals the maximum so nothing is removed
+        assertEquals(1, map.size());
+        assertEquals(10, map.getTotalWeight());
+        assertTrue(map.isMaxWeightReached());
+        // a zero weight entry fits in a map at the maximum weight
+        map.put("b", 0);
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(map.keySet()));
+        assertEquals(10, map.getTotalWeight());
+        map.put("c", 1);
+        assertEquals(Arrays.asList("b", "c"), new ArrayList<>(map.keySet()));
+        assertEquals(1, map.getTotalWeight());
+        assertFalse(map.isMaxWeightReached());
+    }
+
+    @Test
+    public void testMaxWeightZero() {
+        final WeightedLRUMap<String, Integer> map = new WeightedLRUMap<>(0, (k, v) -> v);
+        assertTrue(map.isMaxWeightReached());
+        map.put("x", 0);
+        map.put("y", 0);
+        assertEquals(Arrays.asList("x", "y"), new ArrayList<>(map.keySet()));
+        assertEquals(0, map.getTotalWeight());
+        // entries are removed in least recently used order until the total is within the maximum
+        map.put("z", 1);
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.getTotalWeight());
+    }
+
+    @Test
+    public void testEviction() {
+        final WeightedLRUMap<String, String> map = new WeightedLRUMap<>(10, LENGTH);
+        map.put("a", "xxx");
+        map.put("b", "xxx");
+        map.put("c", "xxx");
+        assertEquals(9, map.getTotalWeight());
+        assertFalse(map.isMaxWeightReached());
+        // access a so that b is the least recently used
+        map.get("a");
+        map.put("d", "xxxx");
+        assertEquals(Arrays.asList("c", "a", "d"), new ArrayList<>(map.keySet()));
+        assertEquals(10, map.getTotalWeight());
+        assertTrue(map.isMaxWeightReached());
+        assertFalse(map.isFull());
+        // a heavy entry removes several entries
+        map.put("e", "xxxxxxx");
+        assertEquals(Arrays.asList("e"), new ArrayList<>(map.keySet()));
+        assertEquals(7, map.getTotalWeight());
+        assertEquals(10, map.getMaxWeight());
+        assertEquals(Integer.MAX_VALUE, map.maxSize());
+    }
+
+    @Test
+    public void testNegativeWeight() {
+        final WeightedLRUMap<String, Integer> map = new WeightedLRUMap<>(10, (k, v) -> v);
+        map.put("a", 1);
+        assertThrows(IllegalArgumentException.class, () -> map.put("b", -1));
+        assertThrows(IllegalArgumentException.class, () -> map.put("a", -1));
+        assertEquals(1, map.size());
+        assertEquals(1, map.getTotalWeight());
+        assertEquals(Integer.valueOf(1), map.get("a"));
+    }
+
+    @Test
+    public void testRemoveLRU() {
+        final MockWeightedLRUMapSubclass map = new MockWeightedLRUMapSubclass(6, false);
+        map.put("keep", "xx");
+        map.put("a", "xx");
+        map.put("b", "xx");
+        map.put("c", "xx");
+        // the least recently used entry is not removable so the map exceeds the maximum
+        assertEquals(4, map.size());
+        assertEquals(8, map.getTotalWeight());
+        assertTrue(map.removed.isEmpty());
+
+        final MockWeightedLRUMapSubclass scan = new MockWeightedLRUMapSubclass(6, true);
+        scan.put("keep", "xx");
+        scan.put("a", "xx");
+        scan.put("b", "xx");
+        scan.put("c", "xx");
+        assertEquals(Arrays.asList("a"), scan.removed);
+        assertEquals(Arrays.asList("keep", "b", "c"), new ArrayList<>(scan.keySet()));
+        assertEquals(6, scan.getTotalWeight());
+    }
+
+    @Test
+    public void testTotalWeight() {
+        final WeightedLRUMap<String, String> map = new WeightedLRUMap<>(100, LENGTH);
+        map.put("a", "x");
+        map.put("b", "xx");
+        map.put("c", "xxx");
+        assertEquals(6, map.getTotalWeight());
+        map.put("b", "xxxxx");
+        assertEquals(9, map.getTotalWeight());
+        map.remove("a");
+        assertEquals(8, map.getTotalWeight());
+        for (final Map.Entry<String, String> entry : map.entrySet()) {
+            entry.setValue("");
+        }
+        assertEquals(0, map.getTotalWeight());
+        final MapIterator<String, String> it = map.mapIterator();
+        it.next();
+        it.setValue("xxxx");
+        assertEquals(4, map.getTotalWeight());
+        it.remove();
+        assertEquals(0, map.getTotalWeight());
+        map.put("d", "xx");
+        map.clear();
+        assertEquals(0, map.getTotalWeight());
+        assertNull(map.get("d"));
+    }
+
+    @Test
+    public void testUpdateEvicts() {
+        final WeightedLRUMap<String, String> map = new WeightedLRUMap<>(10, LENGTH);
+        map.put("a", "xxx");
+        map.put("b", "xxx");
+        map.put("c", "xxx");
+        map.put("c", "xxxxxx");
+        assertEquals(Arrays.asList("b", "c"), new ArrayList<>(map.keySet()));
+        assertEquals(9, map.getTotalWeight());
+    }
+}
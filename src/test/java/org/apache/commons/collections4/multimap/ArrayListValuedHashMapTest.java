@@ -24,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -175,6 +176,45 @@ public class ArrayListValuedHashMapTest<K, V> extends AbstractMultiValuedMapTest
         assertEquals(2, listMap.get((K) "B").size());
     }
 
+    @Test
+    public void testRemoveEmptiedKeyCallsRemove() {
+        final List<Object> removed = new ArrayList<>();
+        final ArrayListValuedHashMap<String, String> listMap = new ArrayListValuedHashMap<String, String>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public List<String> remove(final Object key) {
+                removed.add(key);
+                return super.remove(key);
+            }
+        };
+        listMap.put("A", "a");
+        listMap.get("A").remove("a");
+        listMap.put("B", "b");
+        listMap.get("B").remove(0);
+        listMap.put("C", "c");
+        listMap.get("C").clear();
+        listMap.put("D", "d");
+        listMap.get("D").removeAll(Arrays.asList("d"));
+        listMap.put("E", "e");
+        listMap.get("E").retainAll(Arrays.asList("x"));
+        listMap.put("F", "f");
+        final Iterator<String> it = listMap.get("F").iterator();
+        it.next();
+        it.remove();
+        listMap.put("G", "g");
+        final ListIterator<String> listIt = listMap.get("G").listIterator();
+        listIt.next();
+        listIt.remove();
+        assertEquals(Arrays.asList("A", "B", "C", "D", "E", "F", "G"), removed);
+        assertTrue(listMap.isEmpty());
+        // removeMapping removes the key from the wrapped map directly
+        listMap.put("H", "h");
+        assertTrue(listMap.removeMapping("H", "h"));
+        assertFalse(listMap.containsKey("H"));
+        assertEquals(7, removed.size());
+    }
+
     @Test
     public void testTrimToSize() {
         final ArrayListValuedHashMap<K, V> listMap = new ArrayListValuedHashMap<>(4);
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.multimap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.collections4.ListValuedMap;
+import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.commons.collections4.collection.AbstractCollectionTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ConcurrentListValuedMap}.
+ */
+public class ConcurrentListValuedMapTest<K, V> extends AbstractMultiValuedMapTest<K, V> {
+
+    public ConcurrentListValuedMapTest() {
+        super(ConcurrentListValuedMapTest.class.getSimpleName());
+    }
+
+    @Override
+    public String getCompatibilityVersion() {
+        return "4.5";
+    }
+
+    @Override
+    protected int getIterationBehaviour() {
+        return AbstractCollectionTest.UNORDERED;
+    }
+
+    @Override
+    public boolean isAllowNullKey() {
+        return false;
+    }
+
+    @Override
+    public MultiValuedMap<K, V> makeConfirmedMap() {
+        return new ConcurrentListValuedMap<>();
+    }
+
+    @Override
+    public ListValuedMap<K, V> makeObject() {
+        return new ConcurrentListValuedMap<>();
+    }
+
+    @Test
+    public void testConcurrentGetAddAndPut() throws Exception {
+        final ConcurrentListValuedMap<Integer, Integer> map = new ConcurrentListValuedMap<>();
+        final int threads = 8;
+        final int keys = 5000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // every key gets its first value from a race between the view and put
+                    for (int key = 0; key < keys; key++) {
+                        final Integer value = thread * keys + key;
+                        if (thread % 2 == 0) {
+                            assertTrue(map.get(key).add(value));
+                        } else {
+                            assertTrue(map.put(key, value));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * keys, map.size(), "Values lost");
+        for (int key = 0; key < keys; key++) {
+            assertEquals(threads, map.get(key).size());
+        }
+    }
+
+    @Test
+    public void testConcurrentPutAndRemoveMapping() throws Exception {
+        final ConcurrentListValuedMap<Integer, Integer> map = new ConcurrentListValuedMap<>();
+        final int threads = 8;
+        final int iterations = 5000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        final Integer key = i % 4;
+                        final Integer value = thread * iterations + i;
+                        assertTrue(map.put(key, value));
+                        if (i % 2 == 0) {
+                            assertTrue(map.removeMapping(key, value));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * iterations / 2, map.size(), "Values lost or duplicated");
+        // the even values, which map to the even keys, were removed
+        assertEquals(2, map.keySet().size());
+        for (int t = 0; t < threads; t++) {
+            assertTrue(map.containsMapping(1 % 4, t * iterations + 1));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIteratorsAreWeaklyConsistent() {
+        final ListValuedMap<K, V> map = makeObject();
+        map.put((K) "A", (V) "X");
+        map.put((K) "B", (V) "Y");
+        final Iterator<V> values = map.values().iterator();
+        final Iterator<K> keys = map.keySet().iterator();
+        map.remove("A");
+        map.remove("B");
+        map.put((K) "C", (V) "Z");
+        while (values.hasNext()) {
+            values.next();
+        }
+        while (keys.hasNext()) {
+            keys.next();
+        }
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemoveEmptyCollectionKeepsRefilledAndReplacedLists() {
+        final ConcurrentListValuedMap<String, String> map = new ConcurrentListValuedMap<>();
+        map.put("k", "a");
+        final List<String> mapped = map.getMap().get("k");
+        // an equal list mapped instead of the emptied one is kept
+        map.removeEmptyCollection("k", new ArrayList<>(Arrays.asList("a")));
+        assertSame(mapped, map.getMap().get("k"));
+        // a value added to the emptied list before the key is removed is kept
+        map.removeEmptyCollection("k", mapped);
+        assertEquals(1, map.size());
+        mapped.clear();
+        map.removeEmptyCollection("k", mapped);
+        assertFalse(map.containsKey("k"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRemoveLastMappingRemovesKey() {
+        final ListValuedMap<K, V> map = makeObject();
+        map.put((K) "A", (V) "X");
+        map.put((K) "A", (V) "Y");
+        assertTrue(map.removeMapping("A", "X"));
+        assertFalse(map.removeMapping("A", "X"));
+        assertTrue(map.containsKey("A"));
+        assertTrue(map.removeMapping("A", "Y"));
+        assertFalse(map.containsKey("A"));
+        assertFalse(map.asMap().containsKey("A"));
+        assertFalse(map.removeMapping(null, "X"));
+        assertFalse(map.putAll((K) "A", new ArrayList<>()));
+        assertFalse(map.containsKey("A"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValuesIteratorChangesAfterConcurrentChanges() {
+        final ListValuedMap<K, V> map = makeObject();
+        map.putAll((K) "k", Arrays.asList((V) "a", (V) "b", (V) "c"));
+        final Iterator<V> it = map.get((K) "k").iterator();
+        assertEquals("a", it.next());
+        assertEquals("b", it.next());
+        // another caller moves b to index 0
+        assertTrue(map.removeMapping("k", "a"));
+        it.remove();
+        assertEquals("[c]", map.get((K) "k").toString());
+
+        map.putAll((K) "k", Arrays.asList((V) "d", (V) "e"));
+        final ListIterator<V> listIt = map.get((K) "k").listIterator();
+        assertEquals("c", listIt.next());
+        assertEquals("d", listIt.next());
+        // another caller moves d to index 2
+        map.get((K) "k").add(0, (V) "x");
+        listIt.set((V) "D");
+        assertEquals("[x, c, D, e]", map.get((K) "k").toString());
+        // the value is removed by another caller, so the iterator changes nothing
+        assertTrue(map.removeMapping("k", "D"));
+        listIt.set((V) "y");
+        listIt.remove();
+        assertEquals("[x, c, e]", map.get((K) "k").toString());
+        assertEquals("e", listIt.next());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValuesIteratorIteratesSnapshot() {
+        final ListValuedMap<K, V> map = makeObject();
+        map.putAll((K) "k", Arrays.asList((V) "a", (V) "b", (V) "c"));
+        final Iterator<V> it = map.get((K) "k").iterator();
+        assertEquals("a", it.next());
+        // another caller moves b to index 0, which the iterator has passed
+        assertTrue(map.removeMapping("k", "a"));
+        final List<V> rest = new ArrayList<>();
+        it.forEachRemaining(rest::add);
+        assertEquals(Arrays.asList("b", "c"), rest);
+
+        final Iterator<V> values = map.get((K) "k").iterator();
+        assertTrue(values.hasNext());
+        // another caller removes every value after hasNext
+        assertEquals(2, map.remove("k").size());
+        assertEquals("b", values.next());
+        assertEquals("c", values.next());
+        assertFalse(values.hasNext());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testValuesListIteratorChanges() {
+        final ListValuedMap<K, V> map = makeObject();
+        map.putAll((K) "A", Arrays.asList((V) "X", (V) "Y", (V) "Z"));
+        final ListIterator<V> it = map.get((K) "A").listIterator();
+        assertEquals("X", it.next());
+        it.set((V) "W");
+        assertEquals("Y", it.next());
+        it.remove();
+        it.add((V) "Q");
+        assertEquals(2, it.nextIndex());
+        assertEquals("Q", it.previous());
+        assertEquals("Z", map.get((K) "A").get(2));
+        assertEquals("[W, Q, Z]", map.get((K) "A").toString());
+        final Iterator<V> values = map.get((K) "A").iterator();
+        while (values.hasNext()) {
+            values.next();
+            values.remove();
+        }
+        assertFalse(map.containsKey("A"));
+    }
+
+//    public void testCreate() throws Exception {
+//        writeExternalFormToDisk((java.io.Serializable) makeObject(),
+//                "src/test/resources/org/apache/commons/collections4/data/test/ConcurrentListValuedMap.emptyCollection.version4.5.obj");
+//        writeExternalFormToDisk((java.io.Serializable) makeFullMap(),
+//                "src/test/resources/org/apache/commons/collections4/data/test/ConcurrentListValuedMap.fullCollection.version4.5.obj");
+//    }
+
+}
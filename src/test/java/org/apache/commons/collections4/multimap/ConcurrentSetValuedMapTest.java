@@ -0,0 +1,226 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.multimap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.commons.collections4.SetValuedMap;
+import org.apache.commons.collections4.collection.AbstractCollectionTest;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ConcurrentSetValuedMap}.
+ */
+public class ConcurrentSetValuedMapTest<K, V> extends AbstractMultiValuedMapTest<K, V> {
+
+    public ConcurrentSetValuedMapTest() {
+        super(ConcurrentSetValuedMapTest.class.getSimpleName());
+    }
+
+    @Override
+    public String getCompatibilityVersion() {
+        return "4.5";
+    }
+
+    @Override
+    protected int getIterationBehaviour() {
+        return AbstractCollectionTest.UNORDERED;
+    }
+
+    @Override
+    public boolean isAllowNullKey() {
+        return false;
+    }
+
+    @Override
+    public boolean isHashSetValue() {
+        return true;
+    }
+
+    @Override
+    public MultiValuedMap<K, V> makeConfirmedMap() {
+        return new ConcurrentSetValuedMap<>();
+    }
+
+    @Override
+    public SetValuedMap<K, V> makeObject() {
+        return new ConcurrentSetValuedMap<>();
+    }
+
+    @Test
+    public void testConcurrentGetAddAndPut() throws Exception {
+        final ConcurrentSetValuedMap<Integer, Integer> map = new ConcurrentSetValuedMap<>();
+        final int threads = 8;
+        final int keys = 5000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // every key gets its first value from a race between the view and put
+                    for (int key = 0; key < keys; key++) {
+                        final Integer value = thread * keys + key;
+                        if (thread % 2 == 0) {
+                            assertTrue(map.get(key).add(value));
+                        } else {
+                            assertTrue(map.put(key, value));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * keys, map.size(), "Values lost");
+        for (int key = 0; key < keys; key++) {
+            assertEquals(threads, map.get(key).size());
+        }
+    }
+
+    @Test
+    public void testConcurrentPutAndRemoveMapping() throws Exception {
+        final ConcurrentSetValuedMap<Integer, Integer> map = new ConcurrentSetValuedMap<>();
+        final int threads = 8;
+        final int iterations = 5000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < iterations; i++) {
+                        final Integer key = i % 4;
+                        final Integer value = thread * iterations + i;
+                        assertTrue(map.put(key, value));
+                        if (i % 2 == 0) {
+                            assertTrue(map.removeMapping(key, value));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * iterations / 2, map.size(), "Values lost or duplicated");
+        // the even values, which map to the even keys, were removed
+        assertEquals(2, map.keySet().size());
+        for (int t = 0; t < threads; t++) {
+            assertTrue(map.containsMapping(1 % 4, t * iterations + 1));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testIteratorsAreWeaklyConsistent() {
+        final SetValuedMap<K, V> map = makeObject();
+        map.put((K) "A", (V) "X");
+        map.put((K) "B", (V) "Y");
+        final Iterator<V> values = map.values().iterator();
+        final Iterator<K> keys = map.keySet().iterator();
+        map.remove("A");
+        map.remove("B");
+        map.put((K) "C", (V) "Z");
+        while (values.hasNext()) {
+            values.next();
+        }
+        while (keys.hasNext()) {
+            keys.next();
+        }
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemoveEmptyCollectionKeepsRefilledAndReplacedSets() {
+        final ConcurrentSetValuedMap<String, String> map = new ConcurrentSetValuedMap<>();
+        map.put("k", "a");
+        final Set<String> mapped = map.getMap().get("k");
+        // an equal set mapped instead of the emptied one is kept
+        map.removeEmptyCollection("k", new HashSet<>(Arrays.asList("a")));
+        assertSame(mapped, map.getMap().get("k"));
+        // a value added to the emptied set before the key is removed is kept
+        map.removeEmptyCollection("k", mapped);
+        assertEquals(1, map.size());
+        mapped.clear();
+        map.removeEmptyCollection("k", mapped);
+        assertFalse(map.containsKey("k"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRemoveLastMappingRemovesKey() {
+        final SetValuedMap<K, V> map = makeObject();
+        map.put((K) "A", (V) "X");
+        map.put((K) "A", (V) "Y");
+        assertTrue(map.removeMapping("A", "X"));
+        assertFalse(map.removeMapping("A", "X"));
+        assertTrue(map.containsKey("A"));
+        assertTrue(map.removeMapping("A", "Y"));
+        assertFalse(map.containsKey("A"));
+        assertFalse(map.asMap().containsKey("A"));
+        assertFalse(map.removeMapping(null, "X"));
+        assertFalse(map.putAll((K) "A", new ArrayList<>()));
+        assertFalse(map.containsKey("A"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNullValueRejected() {
+        final SetValuedMap<K, V> map = makeObject();
+        assertThrows(NullPointerException.class, () -> map.put((K) "A", null));
+        assertFalse(map.removeMapping("A", null));
+        assertFalse(map.containsKey("A"));
+    }
+
+//    public void testCreate() throws Exception {
+//        writeExternalFormToDisk((java.io.Serializable) makeObject(),
+//                "src/test/resources/org/apache/commons/collections4/data/test/ConcurrentSetValuedMap.emptyCollection.version4.5.obj");
+//        writeExternalFormToDisk((java.io.Serializable) makeFullMap(),
+//                "src/test/resources/org/apache/commons/collections4/data/test/ConcurrentSetValuedMap.fullCollection.version4.5.obj");
+//    }
+
+}
@@ -21,8 +21,11 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -129,6 +132,39 @@ public class HashSetValuedHashMapTest<K, V> extends AbstractMultiValuedMapTest<K
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void testRemoveEmptiedKeyCallsRemove() {
+        final List<Object> removed = new ArrayList<>();
+        final HashSetValuedHashMap<String, String> setMap = new HashSetValuedHashMap<String, String>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Set<String> remove(final Object key) {
+                removed.add(key);
+                return super.remove(key);
+            }
+        };
+        setMap.put("A", "a");
+        setMap.get("A").remove("a");
+        setMap.put("B", "b");
+        setMap.get("B").clear();
+        setMap.put("C", "c");
+        setMap.get("C").removeAll(Arrays.asList("c"));
+        setMap.put("D", "d");
+        setMap.get("D").retainAll(Arrays.asList("x"));
+        setMap.put("E", "e");
+        final Iterator<String> it = setMap.get("E").iterator();
+        it.next();
+        it.remove();
+        assertEquals(Arrays.asList("A", "B", "C", "D", "E"), removed);
+        assertTrue(setMap.isEmpty());
+        // removeMapping removes the key from the wrapped map directly
+        setMap.put("F", "f");
+        assertTrue(setMap.removeMapping("F", "f"));
+        assertFalse(setMap.containsKey("F"));
+        assertEquals(5, removed.size());
+    }
+
     @Test
     public void testSetValuedMapEqualsHashCodeContract() {
         final SetValuedMap map1 = makeObject();
@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.multiset;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.collections4.MultiSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Extension of {@link AbstractMultiSetTest} for exercising the
+ * {@link ConcurrentHashMultiSet} implementation.
+ */
+public class ConcurrentHashMultiSetTest<T> extends AbstractMultiSetTest<T> {
+
+    public ConcurrentHashMultiSetTest() {
+        super(ConcurrentHashMultiSetTest.class.getSimpleName());
+    }
+
+    @Override
+    public String getCompatibilityVersion() {
+        return "4.5";
+    }
+
+    @Override
+    protected int getIterationBehaviour() {
+        return UNORDERED;
+    }
+
+    @Override
+    public boolean isNullSupported() {
+        return false;
+    }
+
+    @Override
+    public MultiSet<T> makeObject() {
+        return new ConcurrentHashMultiSet<>();
+    }
+
+    @Test
+    public void testConcurrentAddRemoveAndDrain() throws Exception {
+        final ConcurrentHashMultiSet<Integer> multiset = new ConcurrentHashMultiSet<>();
+        final int threads = 8;
+        final int iterations = 20000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int seed = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long net = 0;
+                    for (int i = 0; i < iterations; i++) {
+                        final Integer element = (i + seed) % 16;
+                        multiset.add(element, 2);
+                        // the count can not be below the occurrences this thread added
+                        net += 2 - Math.min(1, multiset.remove(element, 1));
+                    }
+                    return net;
+                }));
+            }
+            final Future<Long> drained = executor.submit(() -> {
+                start.await();
+                long total = 0;
+                for (int i = 0; i < 200; i++) {
+                    total += multiset.drain().size();
+                    Thread.yield();
+                }
+                return total;
+            });
+            start.countDown();
+            long expected = 0;
+            for (final Future<Long> future : futures) {
+                expected += future.get();
+            }
+            final long total = drained.get() + multiset.drain().size();
+            assertEquals(expected, total, "Occurrences lost or duplicated");
+            assertTrue(multiset.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testDrain() {
+        final ConcurrentHashMultiSet<String> multiset = new ConcurrentHashMultiSet<>();
+        multiset.add("A", 3);
+        multiset.add("B");
+        final MultiSet<String> drained = multiset.drain();
+        assertEquals(4, drained.size());
+        assertEquals(3, drained.getCount("A"));
+        assertTrue(multiset.isEmpty());
+        assertEquals(0, multiset.uniqueSet().size());
+        // counters removed by the drain are replaced
+        assertEquals(0, multiset.add("A", 2));
+        assertEquals(2, multiset.getCount("A"));
+    }
+
+    @Test
+    public void testIteratorIsWeaklyConsistent() {
+        final ConcurrentHashMultiSet<String> multiset = new ConcurrentHashMultiSet<>();
+        multiset.add("A", 2);
+        multiset.add("B", 2);
+        final Iterator<String> it = multiset.iterator();
+        final String first = it.next();
+        multiset.remove(first, 2);
+        multiset.add("C");
+        // the remaining occurrence of the first element is still returned
+        assertEquals(first, it.next());
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        assertTrue(count == 2 || count == 3);
+        final Iterator<MultiSet.Entry<String>> entries = multiset.entrySet().iterator();
+        while (entries.hasNext()) {
+            multiset.clear();
+            entries.next();
+        }
+    }
+
+    /**
+     * The iterators are weakly consistent rather than fail fast.
+     */
+    @Override
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testMultiSetIteratorFail() {
+        final MultiSet<T> multiset = makeObject();
+        multiset.add((T) "A");
+        multiset.add((T) "A");
+        multiset.add((T) "B");
+        final Iterator<T> it = multiset.iterator();
+        it.next();
+        multiset.remove("A");
+        assertDoesNotThrow(() -> it.next());
+    }
+
+    @Test
+    public void testNullAndOverflow() {
+        final ConcurrentHashMultiSet<String> multiset = new ConcurrentHashMultiSet<>();
+        assertThrows(NullPointerException.class, () -> multiset.add(null, 1));
+        assertThrows(NullPointerException.class, () -> multiset.setCount(null, 1));
+        assertEquals(0, multiset.getCount(null));
+        assertEquals(0, multiset.remove(null, 1));
+        multiset.setCount("A", Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> multiset.add("A", 1));
+        assertEquals(Integer.MAX_VALUE, multiset.getCount("A"));
+    }
+
+//    public void testCreate() throws Exception {
+//        MultiSet<T> multiset = makeObject();
+//        writeExternalFormToDisk((java.io.Serializable) multiset, "src/test/resources/org/apache/commons/collections4/data/test/ConcurrentHashMultiSet.emptyCollection.version4.5.obj");
+//        multiset = makeFullCollection();
+//        writeExternalFormToDisk((java.io.Serializable) multiset, "src/test/resources/org/apache/commons/collections4/data/test/ConcurrentHashMultiSet.fullCollection.version4.5.obj");
+//    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.multiset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.collections4.MultiSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Extension of {@link AbstractMultiSetTest} for exercising the
+ * {@link OpenHashMultiSet} implementation.
+ */
+public class OpenHashMultiSetTest<T> extends AbstractMultiSetTest<T> {
+
+    public OpenHashMultiSetTest() {
+        super(OpenHashMultiSetTest.class.getSimpleName());
+    }
+
+    @Override
+    public String getCompatibilityVersion() {
+        return "4.5";
+    }
+
+    @Override
+    protected int getIterationBehaviour() {
+        return UNORDERED;
+    }
+
+    @Override
+    public MultiSet<T> makeObject() {
+        return new OpenHashMultiSet<>();
+    }
+
+    @Test
+    public void testForEachEntry() {
+        final OpenHashMultiSet<String> multiset = new OpenHashMultiSet<>();
+        multiset.add("A", 3);
+        multiset.add(null, 2);
+        multiset.add("B");
+        final Map<String, Integer> counts = new HashMap<>();
+        multiset.forEachEntry(counts::put);
+        final Map<String, Integer> expected = new HashMap<>();
+        expected.put("A", 3);
+        expected.put(null, 2);
+        expected.put("B", 1);
+        assertEquals(expected, counts);
+        assertThrows(ConcurrentModificationException.class, () -> multiset.forEachEntry((e, c) -> multiset.add("C")));
+        assertThrows(NullPointerException.class, () -> multiset.forEachEntry(null));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new OpenHashMultiSet<>(-1));
+        assertThrows(IllegalArgumentException.class, () -> new OpenHashMultiSet<>(16, 0f));
+        assertThrows(IllegalArgumentException.class, () -> new OpenHashMultiSet<>(16, 1f));
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            final OpenHashMultiSet<Integer> multiset = new OpenHashMultiSet<>(12, 0.9f);
+            final HashMultiSet<Integer> expected = new HashMultiSet<>();
+            for (int i = 0; i < 30; i++) {
+                final Integer element = random.nextInt(10) == 0 ? null : random.nextInt(100);
+                multiset.add(element);
+                expected.add(element);
+            }
+            final HashMultiSet<Integer> seen = new HashMultiSet<>();
+            final boolean unique = random.nextBoolean();
+            final Iterator<Integer> it = unique ? multiset.uniqueSet().iterator() : multiset.iterator();
+            while (it.hasNext()) {
+                final Integer element = it.next();
+                seen.add(element);
+                if (random.nextBoolean()) {
+                    it.remove();
+                    expected.remove(element, unique ? expected.getCount(element) : 1);
+                }
+            }
+            assertTrue(seen.uniqueSet().containsAll(expected.uniqueSet()));
+            assertEquals(expected, multiset);
+            assertEquals(expected.hashCode(), multiset.hashCode());
+        }
+    }
+
+    @Test
+    public void testRandomOperations() {
+        final Random random = new Random(7);
+        final OpenHashMultiSet<Integer> multiset = new OpenHashMultiSet<>(0);
+        final HashMultiSet<Integer> expected = new HashMultiSet<>();
+        for (int i = 0; i < 20000; i++) {
+            final Integer element = random.nextInt(600) - 100;
+            final int occurrences = random.nextInt(4);
+            switch (random.nextInt(4)) {
+            case 0:
+                assertEquals(expected.add(element, occurrences), multiset.add(element, occurrences));
+                break;
+            case 1:
+                assertEquals(expected.remove(element, occurrences), multiset.remove(element, occurrences));
+                break;
+            case 2:
+                assertEquals(expected.setCount(element, occurrences), multiset.setCount(element, occurrences));
+                break;
+            default:
+                assertEquals(expected.getCount(element), multiset.getCount(element));
+                break;
+            }
+            assertEquals(expected.size(), multiset.size());
+        }
+        assertEquals(expected, multiset);
+        assertEquals(multiset, expected);
+        assertEquals(expected.hashCode(), multiset.hashCode());
+        assertEquals(expected.entrySet(), multiset.entrySet());
+    }
+
+//    public void testCreate() throws Exception {
+//        MultiSet<T> multiset = makeObject();
+//        writeExternalFormToDisk((java.io.Serializable) multiset, "src/test/resources/org/apache/commons/collections4/data/test/OpenHashMultiSet.emptyCollection.version4.5.obj");
+//        multiset = makeFullCollection();
+//        writeExternalFormToDisk((java.io.Serializable) multiset, "src/test/resources/org/apache/commons/collections4/data/test/OpenHashMultiSet.fullCollection.version4.5.obj");
+//    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.collections4.trie;
+
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks {@link PatriciaTrie#prefixMap(String)} and {@link PatriciaTrie#get(Object)} against the equivalent
+ * {@link TreeMap#subMap(Object, Object)} and {@link TreeMap#get(Object)} operations.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark -Dbenchmark=PatriciaTrieBenchmark}.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-server", "-Xms512M", "-Xmx512M"})
+@State(Scope.Benchmark)
+public class PatriciaTrieBenchmark {
+
+    /**
+     * The number of operations performed per invocation.
+     */
+    private static final int OPERATIONS = 256;
+
+    @Param({"1024", "65536"})
+    private int size;
+
+    /**
+     * The key distribution.
+     * <ul>
+     * <li>{@code random} - random lower case words of 4 to 16 characters.</li>
+     * <li>{@code prefixed} - words sharing a small set of long common prefixes, such as URLs or file paths.</li>
+     * </ul>
+     */
+    @Param({"random", "prefixed"})
+    private String distribution;
+
+    @Param({"PatriciaTrie", "TreeMap"})
+    private String type;
+
+    private SortedMap<String, String> map;
+
+    private String[] keys;
+
+    private String[] prefixes;
+
+    private static String randomWord(final Random rng, final int length) {
+        final char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + rng.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    @Benchmark
+    public void get(final Blackhole bh) {
+        final SortedMap<String, String> m = map;
+        for (final String key : keys) {
+            bh.consume(m.get(key));
+        }
+    }
+
+    @Benchmark
+    public void prefixMap(final Blackhole bh) {
+        if (map instanceof PatriciaTrie) {
+            final PatriciaTrie<String> trie = (PatriciaTrie<String>) map;
+            for (final String prefix : prefixes) {
+                final SortedMap<String, String> view = trie.prefixMap(prefix);
+                bh.consume(view.isEmpty() ? null : view.firstKey());
+            }
+        } else {
+            for (final String prefix : prefixes) {
+                final SortedMap<String, String> view = map.subMap(prefix, prefix + Character.MAX_VALUE);
+                bh.consume(view.isEmpty() ? null : view.firstKey());
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        final Random rng = new Random(size);
+        map = "PatriciaTrie".equals(type) ? new PatriciaTrie<>() : new TreeMap<>();
+        final String[] roots = new String[16];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = "https://" + randomWord(rng, 8) + ".example.org/" + randomWord(rng, 6) + "/";
+        }
+        final String[] all = new String[size];
+        for (int i = 0; i < size; i++) {
+            final String word = randomWord(rng, 4 + rng.nextInt(13));
+            all[i] = "random".equals(distribution) ? word : roots[rng.nextInt(roots.length)] + word;
+            map.put(all[i], all[i]);
+        }
+        keys = new String[OPERATIONS];
+        prefixes = new String[OPERATIONS];
+        for (int i = 0; i < OPERATIONS; i++) {
+            final String key = all[rng.nextInt(size)];
+            keys[i] = key;
+            prefixes[i] = key.substring(0, key.length() - 2);
+        }
+    }
+}